@@ -16,7 +16,7 @@ set CLASSPATH=%LIB_DIR%\javafx.base.jar;%LIB_DIR%\javafx.controls.jar;%LIB_DIR%\
 
 REM Compile all Java files
 echo Compiling source files...
-javac -d %OUT_DIR% -cp "%CLASSPATH%" -sourcepath %SRC_DIR% %SRC_DIR%\app\Main.java %SRC_DIR%\app\config\AppConfig.java %SRC_DIR%\app\domain\value\*.java %SRC_DIR%\app\domain\entity\*.java %SRC_DIR%\app\domain\port\*.java %SRC_DIR%\app\infra\tx\*.java %SRC_DIR%\app\infra\persistence\*.java %SRC_DIR%\app\infra\integration\*.java
+javac -d %OUT_DIR% -cp "%CLASSPATH%" -sourcepath %SRC_DIR% %SRC_DIR%\app\Main.java %SRC_DIR%\app\WorkerMain.java %SRC_DIR%\app\CliMain.java %SRC_DIR%\app\CompactRepositoriesMain.java %SRC_DIR%\app\GitEngineBenchmarkMain.java %SRC_DIR%\app\DiffParserBenchmarkMain.java %SRC_DIR%\app\ExecutorBenchmarkMain.java %SRC_DIR%\app\config\AppConfig.java %SRC_DIR%\app\domain\value\*.java %SRC_DIR%\app\domain\entity\*.java %SRC_DIR%\app\domain\port\*.java %SRC_DIR%\app\infra\tx\*.java %SRC_DIR%\app\infra\persistence\*.java %SRC_DIR%\app\infra\integration\*.java
 
 if %ERRORLEVEL% EQU 0 (
     echo Compilation successful!
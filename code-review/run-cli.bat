@@ -0,0 +1,17 @@
+@echo off
+REM Headless analysis for CI: JSON summary on stdout, logs on stderr
+REM Example: run-cli.bat --repo C:\repos\app --base main --target feature/x --fail-on HIGH
+REM Exit codes: 0 passed, 1 findings at or above --fail-on, 2 analysis failed, 64 bad arguments
+
+set BIN_DIR=bin
+set LIB_DIR=lib
+
+REM compile.bat pauses at the end, so CI must compile beforehand
+if not exist %BIN_DIR%\app\CliMain.class (
+    echo Not compiled: run compile.bat first 1>&2
+    exit /b 2
+)
+
+REM No JavaFX on the classpath; class data sharing and tiered stop at C1 cut startup time
+java -Xshare:auto -XX:TieredStopAtLevel=1 -cp "%BIN_DIR%;%LIB_DIR%\mysql-connector-j-8.0.33.jar" app.CliMain %*
+exit /b %ERRORLEVEL%
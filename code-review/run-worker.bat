@@ -0,0 +1,25 @@
+@echo off
+REM Run script for the headless analysis worker (drains the analysis_jobs queue)
+
+echo Starting Code Review Analysis Worker...
+
+REM Set paths
+set BIN_DIR=bin
+set LIB_DIR=lib
+
+REM Check if compiled
+if not exist %BIN_DIR%\app\WorkerMain.class (
+    echo Worker not compiled. Running compile.bat first...
+    call compile.bat
+    if %ERRORLEVEL% NEQ 0 (
+        echo Compilation failed. Cannot run worker.
+        pause
+        exit /b 1
+    )
+)
+
+REM No JavaFX needed: only the MySQL connector
+set CLASSPATH=%BIN_DIR%;%LIB_DIR%\mysql-connector-j-8.0.33.jar
+
+echo Running worker (Ctrl+C releases running jobs back to the queue)...
+java -cp "%CLASSPATH%" app.WorkerMain
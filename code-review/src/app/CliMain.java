@@ -0,0 +1,290 @@
+package app;
+
+import app.application.dto.AnalysisRequestDTO;
+import app.application.dto.AnalysisResultDTO;
+import app.application.service.AnalyzeBranchService;
+import app.config.AppConfig;
+import app.config.AppFactory;
+import app.domain.entity.Finding;
+import app.domain.port.CancellationToken;
+import app.domain.value.RunStatus;
+import app.domain.value.Severity;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless entry point for CI: runs one analysis and prints a JSON summary on stdout.
+ * No javafx.* class is referenced, and AppFactory only builds what the analysis needs.
+ * All logs go to stderr so stdout holds only the summary.
+ *
+ * Usage: CliMain --repo PATH --base BRANCH --target BRANCH [--user ID] [--incremental]
+ *                [--fail-on SEVERITY] [--findings] [--startup-budget-ms MS] [--time-budget-ms MS]
+ *
+ * Exit codes: 0 passed, 1 findings at or above --fail-on, 2 analysis failed or cancelled,
+ * 64 bad arguments. A run that hit --time-budget-ms is PARTIAL: it is gated on the files it
+ * analyzed, and the summary reports its coverage.
+ */
+public class CliMain {
+
+    static final int EXIT_PASSED = 0;
+    static final int EXIT_GATE_FAILED = 1;
+    static final int EXIT_ANALYSIS_FAILED = 2;
+    static final int EXIT_USAGE = 64;
+
+    public static void main(String[] args) {
+        long mainStartNanos = System.nanoTime();
+        PrintStream summaryOut = System.out;
+        System.setOut(System.err);
+
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("[CliMain] " + e.getMessage());
+            System.err.println("Usage: CliMain --repo PATH --base BRANCH --target BRANCH [--user ID] " +
+                               "[--incremental] [--fail-on CRITICAL|HIGH|MEDIUM|LOW|INFO] [--findings] " +
+                               "[--startup-budget-ms MS] [--time-budget-ms MS]");
+            System.exit(EXIT_USAGE);
+            return;
+        }
+
+        // Ctrl+C / CI timeout: cancel the run so it is saved as CANCELLED, then let main report it
+        CancellationToken cancellation = new CancellationToken();
+        CountDownLatch finished = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            cancellation.cancel();
+            try {
+                finished.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "cli-shutdown"));
+
+        int exitCode;
+        try {
+            AppConfig config = AppConfig.getInstance();
+            AppFactory factory = new AppFactory();
+            AnalyzeBranchService analyzeBranchService = factory.getAnalyzeBranchService();
+            long startupMs = msSinceJvmStart(mainStartNanos);
+            long budgetMs = options.startupBudgetMs != null
+                ? options.startupBudgetMs
+                : config.getCliStartupBudgetMs();
+            if (startupMs > budgetMs) {
+                System.err.println("[CliMain] WARNING: startup took " + startupMs + " ms (budget " + budgetMs + " ms)");
+            }
+
+            AnalysisRequestDTO request = new AnalysisRequestDTO(
+                options.userId != null ? options.userId : factory.getDemoUser().getId(),
+                null,
+                options.base,
+                options.target
+            );
+            request.setRepositoryPath(options.repo);
+            if (options.incremental) {
+                request.setIncremental(true);
+            }
+            request.setTimeBudgetMs(options.timeBudgetMs);
+
+            long analysisStart = System.nanoTime();
+            AnalysisResultDTO result = analyzeBranchService.analyze(request, cancellation, progress -> { });
+            long analysisMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - analysisStart);
+
+            exitCode = exitCode(result, options.failOn);
+            summaryOut.println(toJson(options, result, exitCode, startupMs, budgetMs, analysisMs,
+                                      msSinceJvmStart(mainStartNanos)));
+        } catch (RuntimeException e) {
+            // Run could not even be created (invalid repository, DB down, ...)
+            System.err.println("[CliMain] Analysis failed: " + e.getMessage());
+            summaryOut.println("{\"status\":\"ERROR\",\"exitCode\":" + EXIT_ANALYSIS_FAILED +
+                               ",\"errorMessage\":" + quote(e.getMessage()) + "}");
+            exitCode = EXIT_ANALYSIS_FAILED;
+        } finally {
+            summaryOut.flush();
+            finished.countDown();
+        }
+        System.exit(exitCode);
+    }
+
+    static int exitCode(AnalysisResultDTO result, Severity failOn) {
+        if (result.getStatus() != RunStatus.SUCCESS && result.getStatus() != RunStatus.EMPTY_DIFF &&
+            result.getStatus() != RunStatus.PARTIAL) {
+            return EXIT_ANALYSIS_FAILED;
+        }
+        Severity highest = highestSeverity(result);
+        // Severity declares CRITICAL first: lower ordinal = more severe
+        return highest != null && highest.ordinal() <= failOn.ordinal() ? EXIT_GATE_FAILED : EXIT_PASSED;
+    }
+
+    private static Severity highestSeverity(AnalysisResultDTO result) {
+        Map<Severity, Integer> counts = counts(result);
+        for (Severity severity : Severity.values()) {
+            if (counts.get(severity) > 0) {
+                return severity;
+            }
+        }
+        return null;
+    }
+
+    private static Map<Severity, Integer> counts(AnalysisResultDTO result) {
+        Map<Severity, Integer> counts = new EnumMap<>(Severity.class);
+        counts.put(Severity.CRITICAL, valueOrZero(result.getCriticalCount()));
+        counts.put(Severity.HIGH, valueOrZero(result.getHighCount()));
+        counts.put(Severity.MEDIUM, valueOrZero(result.getMediumCount()));
+        counts.put(Severity.LOW, valueOrZero(result.getLowCount()));
+        counts.put(Severity.INFO, valueOrZero(result.getInfoCount()));
+        return counts;
+    }
+
+    /**
+     * Milliseconds since the JVM started (class loading included), or since main() if unknown.
+     */
+    private static long msSinceJvmStart(long mainStartNanos) {
+        return ProcessHandle.current().info().startInstant()
+            .map(start -> Instant.now().toEpochMilli() - start.toEpochMilli())
+            .orElse(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mainStartNanos));
+    }
+
+    private static String toJson(Options options, AnalysisResultDTO result, int exitCode,
+                                 long startupMs, long budgetMs, long analysisMs, long totalMs) {
+        Severity highest = highestSeverity(result);
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"runId\":").append(result.getAnalysisRunId());
+        json.append(",\"status\":").append(quote(String.valueOf(result.getStatus())));
+        json.append(",\"repository\":").append(quote(options.repo));
+        json.append(",\"base\":").append(quote(options.base));
+        json.append(",\"target\":").append(quote(options.target));
+        json.append(",\"totalFiles\":").append(valueOrZero(result.getTotalFiles()));
+        json.append(",\"diffTotalFiles\":").append(result.getDiffTotalFiles());
+        json.append(",\"coverage\":").append(String.format(Locale.ROOT, "%.4f", result.getCoverage()));
+        json.append(",\"totalFindings\":").append(valueOrZero(result.getTotalFindings()));
+        json.append(",\"counts\":{");
+        boolean first = true;
+        for (Map.Entry<Severity, Integer> count : counts(result).entrySet()) {
+            json.append(first ? "" : ",").append(quote(count.getKey().name())).append(':').append(count.getValue());
+            first = false;
+        }
+        json.append('}');
+        json.append(",\"highestSeverity\":").append(highest != null ? quote(highest.name()) : "null");
+        json.append(",\"failOn\":").append(quote(options.failOn.name()));
+        json.append(",\"passed\":").append(exitCode == EXIT_PASSED);
+        json.append(",\"exitCode\":").append(exitCode);
+        json.append(",\"errorMessage\":").append(quote(result.getErrorMessage()));
+        json.append(",\"dedupSavedCalls\":").append(result.getDedupSavedCalls());
+        json.append(",\"timings\":{\"startupMs\":").append(startupMs)
+            .append(",\"startupBudgetMs\":").append(budgetMs)
+            .append(",\"startupBudgetExceeded\":").append(startupMs > budgetMs)
+            .append(",\"analysisMs\":").append(analysisMs)
+            .append(",\"totalMs\":").append(totalMs).append('}');
+        if (options.includeFindings && result.getFindings() != null) {
+            json.append(",\"findings\":[");
+            first = true;
+            for (Finding finding : result.getFindings()) {
+                json.append(first ? "" : ",")
+                    .append("{\"file\":").append(quote(finding.getFilePath()))
+                    .append(",\"line\":").append(finding.getLineNumber())
+                    .append(",\"severity\":").append(quote(String.valueOf(finding.getSeverityFinal())))
+                    .append(",\"rule\":").append(quote(finding.getRuleId()))
+                    .append(",\"message\":").append(quote(finding.getMessage()))
+                    .append('}');
+                first = false;
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * Parsed command line.
+     */
+    private static class Options {
+        String repo;
+        String base;
+        String target;
+        Long userId;
+        boolean incremental;
+        boolean includeFindings;
+        Severity failOn = Severity.HIGH;
+        Long startupBudgetMs;
+        Long timeBudgetMs;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--repo": options.repo = value(args, ++i, arg); break;
+                    case "--base": options.base = value(args, ++i, arg); break;
+                    case "--target": options.target = value(args, ++i, arg); break;
+                    case "--user": options.userId = number(value(args, ++i, arg), arg); break;
+                    case "--incremental": options.incremental = true; break;
+                    case "--findings": options.includeFindings = true; break;
+                    case "--startup-budget-ms": options.startupBudgetMs = number(value(args, ++i, arg), arg); break;
+                    case "--time-budget-ms": options.timeBudgetMs = number(value(args, ++i, arg), arg); break;
+                    case "--fail-on":
+                        String severity = value(args, ++i, arg);
+                        try {
+                            options.failOn = Severity.valueOf(severity.toUpperCase());
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("Unknown severity for --fail-on: " + severity);
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown argument: " + arg);
+                }
+            }
+            if (options.repo == null || options.base == null || options.target == null) {
+                throw new IllegalArgumentException("--repo, --base and --target are required");
+            }
+            return options;
+        }
+
+        private static String value(String[] args, int index, String name) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            return args[index];
+        }
+
+        private static Long number(String value, String name) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number for " + name + ": " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package app;
+
+import app.config.AppConfig;
+import app.config.AppFactory;
+
+/**
+ * One-off maintenance entry point: merges the duplicate repositories rows created before
+ * the repository registry (one per analysis) and repoints their analysis runs.
+ * Safe to run more than once; run it before or after db-scripts/add-unique-repository-path.sql.
+ */
+public class CompactRepositoriesMain {
+    
+    public static void main(String[] args) {
+        AppConfig.getInstance();
+        AppFactory factory = new AppFactory();
+        try {
+            int removed = factory.getRepositoryRegistry().compactDuplicates();
+            System.out.println("Repository compaction finished: " + removed + " duplicate rows removed");
+        } catch (Exception e) {
+            System.err.println("[CompactRepositoriesMain] Compaction failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
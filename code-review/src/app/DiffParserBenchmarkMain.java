@@ -0,0 +1,272 @@
+package app;
+
+import app.domain.entity.DiffFile;
+import app.domain.port.CancellationToken;
+import app.domain.value.FileChangeType;
+import app.infra.integration.GitDiffOutputParser;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Micro-benchmark of the "git diff" output parser on a synthetic diff of many files (modified,
+ * added, deleted, renamed and binary, with spaces, "=>" and non-ASCII characters in paths):
+ * the NUL-delimited parser of GitDiffEngine, joining "--raw -z" and "--numstat -z" outputs fed
+ * in one go and in pipe-sized reads, against the line-based "--numstat --summary" parsing it
+ * replaced. No git or database is needed.
+ *
+ * Usage: DiffParserBenchmarkMain [--files N] [--warmup N] [--iterations N]
+ */
+public class DiffParserBenchmarkMain {
+
+    private static final int PIPE_READ_BYTES = 8192;
+
+    public static void main(String[] args) throws Exception {
+        int fileCount = 100_000;
+        int warmup = 10;
+        int iterations = 30;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--files": fileCount = Integer.parseInt(args[i + 1]); break;
+                case "--warmup": warmup = Integer.parseInt(args[i + 1]); break;
+                case "--iterations": iterations = Integer.parseInt(args[i + 1]); break;
+                default:
+                    System.err.println("[DiffParserBenchmarkMain] Unknown argument: " + args[i]);
+                    System.exit(64);
+            }
+        }
+
+        SyntheticDiff diff = new SyntheticDiff(fileCount);
+        int zBytes = diff.rawOutput.length + diff.numstatOutput.length;
+        System.out.println("Synthetic diff: " + fileCount + " files, " + zBytes / 1024 +
+                           " KB of -z output, " + diff.lineOutput.length / 1024 + " KB of line output; " +
+                           warmup + " warmup + " + iterations + " measured iterations");
+        System.out.println(String.format(Locale.ROOT, "%-28s %10s %10s %10s %10s %12s", "parser", "mean ms", "p50 ms",
+                                         "p95 ms", "MB/s", "bytes/file"));
+
+        Bench bench = new Bench(warmup, iterations);
+        bench.run("-z bytes / one read", zBytes, fileCount, diff,
+                  () -> parseZ(new ByteArrayInputStream(diff.rawOutput), new ByteArrayInputStream(diff.numstatOutput)));
+        bench.run("-z bytes / 8 KB reads", zBytes, fileCount, diff,
+                  () -> parseZ(new PipeInputStream(diff.rawOutput, PIPE_READ_BYTES),
+                               new PipeInputStream(diff.numstatOutput, PIPE_READ_BYTES)));
+        bench.run("lines / old parser", diff.lineOutput.length, fileCount, null,
+                  () -> parseLines(new ByteArrayInputStream(diff.lineOutput)));
+    }
+
+    private static Checksum parseZ(InputStream rawOutput, InputStream numstatOutput) throws Exception {
+        Checksum checksum = new Checksum();
+        new GitDiffOutputParser(checksum::add).parse(rawOutput, numstatOutput, CancellationToken.none());
+        return checksum;
+    }
+
+    /**
+     * Same algorithm as the former GitDiffEngine.parseDiffLine: a String per line, split on
+     * whitespace, and one more DiffFile per created, deleted or renamed file.
+     */
+    private static Checksum parseLines(InputStream output) throws Exception {
+        Checksum checksum = new Checksum();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(output, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(" create mode") || line.startsWith(" delete mode")) {
+                    checksum.add(new DiffFile(line.substring(line.lastIndexOf(' ') + 1), FileChangeType.ADDED));
+                } else if (line.startsWith(" rename ")) {
+                    int arrowPos = line.indexOf(" => ");
+                    int endPos = line.indexOf(" (", arrowPos);
+                    DiffFile file = new DiffFile(line.substring(arrowPos + 4, endPos).trim(), FileChangeType.RENAMED);
+                    file.setOldPath(line.substring(line.indexOf(' ', 1) + 1, arrowPos).trim());
+                    checksum.add(file);
+                } else {
+                    String[] parts = line.split("\\s+", 3);
+                    if (parts.length == 3) {
+                        DiffFile file = new DiffFile(parts[2], FileChangeType.MODIFIED);
+                        file.setLinesAdded(parts[0].equals("-") ? 0 : Integer.parseInt(parts[0]));
+                        file.setLinesRemoved(parts[1].equals("-") ? 0 : Integer.parseInt(parts[1]));
+                        checksum.add(file);
+                    }
+                }
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * Files, line counts and path lengths seen, to check a parser read everything right (and so
+     * the JIT can't drop the work).
+     */
+    private static class Checksum {
+        long files;
+        long lines;
+        long pathChars;
+        long blobIds;
+
+        void add(DiffFile file) {
+            files++;
+            lines += (file.getLinesAdded() != null ? file.getLinesAdded() : 0) +
+                     (file.getLinesRemoved() != null ? file.getLinesRemoved() : 0);
+            pathChars += file.getFilePath().length() + (file.getOldPath() != null ? file.getOldPath().length() : 0);
+            blobIds += file.getBlobId() != null ? 1 : 0;
+        }
+
+        boolean sameAs(Checksum other) {
+            return files == other.files && lines == other.lines && pathChars == other.pathChars &&
+                   blobIds == other.blobIds;
+        }
+    }
+
+    /**
+     * The same files in both output formats, and the checksum the -z parser must produce.
+     */
+    private static class SyntheticDiff {
+        private static final String ZERO_ID = "0".repeat(40);
+
+        final byte[] rawOutput;
+        final byte[] numstatOutput;
+        final byte[] lineOutput;
+        final Checksum expected = new Checksum();
+
+        SyntheticDiff(int fileCount) {
+            Random random = new Random(42);
+            StringBuilder raw = new StringBuilder();
+            StringBuilder numstat = new StringBuilder();
+            StringBuilder lines = new StringBuilder();
+            StringBuilder summary = new StringBuilder();
+            for (int i = 0; i < fileCount; i++) {
+                String path = "src/module " + (i % 97) + "/pkg=>" + (i % 13) + "/Clase_\u00f1_" + i + ".java";
+                String oldId = id(random);
+                String newId = id(random);
+                int kind = random.nextInt(100);
+                boolean binary = kind >= 95;
+                int added = binary ? 0 : random.nextInt(400);
+                int removed = binary ? 0 : random.nextInt(200);
+                String counts = binary ? "-\t-\t" : added + "\t" + removed + "\t";
+                DiffFile file = new DiffFile(path, FileChangeType.MODIFIED);
+                if (kind < 70 || binary) {
+                    raw.append(":100644 100644 ").append(oldId).append(' ').append(newId).append(" M\0")
+                       .append(path).append('\0');
+                    numstat.append(counts).append(path).append('\0');
+                    file.setBlobId(newId);
+                } else if (kind < 80) {
+                    removed = 0;
+                    raw.append(":000000 100644 ").append(ZERO_ID).append(' ').append(newId).append(" A\0")
+                       .append(path).append('\0');
+                    numstat.append(added).append("\t0\t").append(path).append('\0');
+                    summary.append(" create mode 100644 ").append(path).append('\n');
+                    file.setBlobId(newId);
+                } else if (kind < 85) {
+                    added = 0;
+                    raw.append(":100644 000000 ").append(oldId).append(' ').append(ZERO_ID).append(" D\0")
+                       .append(path).append('\0');
+                    numstat.append("0\t").append(removed).append('\t').append(path).append('\0');
+                    summary.append(" delete mode 100644 ").append(path).append('\n');
+                } else {
+                    String oldPath = "old/" + path;
+                    raw.append(":100644 100644 ").append(oldId).append(' ').append(newId).append(" R087\0")
+                       .append(oldPath).append('\0').append(path).append('\0');
+                    numstat.append(counts).append('\0').append(oldPath).append('\0').append(path).append('\0');
+                    summary.append(" rename ").append(oldPath).append(" => ").append(path).append(" (87%)\n");
+                    file.setOldPath(oldPath);
+                    file.setBlobId(newId);
+                }
+                file.setLinesAdded(added);
+                file.setLinesRemoved(removed);
+                expected.add(file);
+                lines.append(binary ? "-\t-\t" : added + "\t" + removed + "\t").append(path).append('\n');
+            }
+            rawOutput = raw.toString().getBytes(StandardCharsets.UTF_8);
+            numstatOutput = numstat.toString().getBytes(StandardCharsets.UTF_8);
+            lineOutput = lines.append(summary).toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static String id(Random random) {
+            StringBuilder id = new StringBuilder(40);
+            for (int i = 0; i < 40; i++) {
+                id.append(Character.forDigit(random.nextInt(16), 16));
+            }
+            return id.toString();
+        }
+    }
+
+    /**
+     * Hands out at most chunkBytes per read, like a process pipe, so records straddle reads.
+     */
+    private static class PipeInputStream extends ByteArrayInputStream {
+        private final int chunkBytes;
+
+        PipeInputStream(byte[] data, int chunkBytes) {
+            super(data);
+            this.chunkBytes = chunkBytes;
+        }
+
+        @Override
+        public synchronized int read(byte[] buffer, int offset, int length) {
+            return super.read(buffer, offset, Math.min(length, chunkBytes));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Parse {
+        Checksum run() throws Exception;
+    }
+
+    private static class Bench {
+        private final int warmup;
+        private final int iterations;
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        Bench(int warmup, int iterations) {
+            this.warmup = warmup;
+            this.iterations = Math.max(1, iterations);
+        }
+
+        /**
+         * @param diff Diff whose checksum the parser must match, or null not to check
+         */
+        void run(String name, long inputBytes, int fileCount, SyntheticDiff diff, Parse parse) throws Exception {
+            for (int i = 0; i < warmup; i++) {
+                Checksum checksum = parse.run();
+                if (diff != null && !checksum.sameAs(diff.expected)) {
+                    System.err.println("[DiffParserBenchmarkMain] " + name + " misread the diff: " + checksum.files +
+                                       " files, " + checksum.lines + " lines, expected " + diff.expected.files +
+                                       " files, " + diff.expected.lines + " lines");
+                    System.exit(1);
+                }
+            }
+            long[] nanos = new long[iterations];
+            long allocatedBefore = allocatedBytes();
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                parse.run();
+                nanos[i] = System.nanoTime() - start;
+            }
+            long allocated = allocatedBytes() - allocatedBefore;
+            Arrays.sort(nanos);
+            double mean = Arrays.stream(nanos).average().orElse(0) / 1e6;
+            String perFile = allocatedBefore < 0 ? "n/a"
+                : String.valueOf(allocated / ((long) iterations * Math.max(1, fileCount)));
+            System.out.println(String.format(Locale.ROOT, "%-28s %10.3f %10.3f %10.3f %10.1f %12s", name, mean,
+                                             nanos[iterations / 2] / 1e6,
+                                             nanos[Math.min(iterations - 1, (int) Math.ceil(iterations * 0.95) - 1)] / 1e6,
+                                             inputBytes / 1e6 / (mean / 1e3), perFile));
+        }
+
+        /**
+         * Bytes allocated by this thread so far, or -1 where the JVM doesn't tell.
+         */
+        private long allocatedBytes() {
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package app;
+
+import app.infra.concurrent.TaskExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares PLATFORM and VIRTUAL executor modes on blocking work
+ * (simulated endpoint / git / JDBC latency).
+ *
+ * Usage: ExecutorBenchmarkMain [tasks] [concurrency] [blockMs]
+ */
+public class ExecutorBenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int blockMs = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        System.out.println("===========================================");
+        System.out.println("   EXECUTOR MODE BENCHMARK");
+        System.out.println("===========================================");
+        System.out.println("Tasks: " + tasks + ", concurrency: " + concurrency + ", block: " + blockMs + " ms\n");
+
+        // Warm-up
+        run(TaskExecutors.Mode.PLATFORM, 200, 50, 1);
+
+        long platformMs = run(TaskExecutors.Mode.PLATFORM, tasks, concurrency, blockMs);
+        System.out.println("PLATFORM: " + platformMs + " ms");
+
+        if (!TaskExecutors.isVirtualThreadSupported()) {
+            System.out.println("VIRTUAL:  skipped (requires Java 21+, running " +
+                               System.getProperty("java.version") + ")");
+            return;
+        }
+
+        run(TaskExecutors.Mode.VIRTUAL, 200, 50, 1);
+        long virtualMs = run(TaskExecutors.Mode.VIRTUAL, tasks, concurrency, blockMs);
+        System.out.println("VIRTUAL:  " + virtualMs + " ms");
+        System.out.printf("Speedup:  %.2fx%n", (double) platformMs / Math.max(1, virtualMs));
+    }
+
+    private static long run(TaskExecutors.Mode mode, int tasks, int concurrency, int blockMs)
+            throws Exception {
+        ExecutorService executor = TaskExecutors.newBoundedExecutor(mode, concurrency, "bench");
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                futures.add(executor.submit(() -> {
+                    Thread.sleep(blockMs);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,138 @@
+package app;
+
+import app.config.AppConfig;
+import app.domain.port.DiffEngine;
+import app.infra.integration.GitDiffEngine;
+import app.infra.integration.GitProcessPool;
+import app.infra.integration.NativeGitDiffEngine;
+import app.infra.integration.NativeGitRepositories;
+import app.infra.integration.NativeGitRepository;
+import app.infra.integration.WatchedBranchDiffEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Micro-benchmark of the git adapters on a local repository: one git command per lookup
+ * (ProcessBuilder), the cat-file process pool, and the in-process reader. Each operation runs
+ * warmup iterations first (JIT, page cache, opened processes and packs), then the
+ * measured ones. No database is needed.
+ *
+ * Usage: GitEngineBenchmarkMain --repo PATH [--revision REV] [--warmup N] [--iterations N] [--files N]
+ */
+public class GitEngineBenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        String repo = null;
+        String revision = "HEAD";
+        int warmup = 5;
+        int iterations = 20;
+        int fileCount = 50;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--repo": repo = args[i + 1]; break;
+                case "--revision": revision = args[i + 1]; break;
+                case "--warmup": warmup = Integer.parseInt(args[i + 1]); break;
+                case "--iterations": iterations = Integer.parseInt(args[i + 1]); break;
+                case "--files": fileCount = Integer.parseInt(args[i + 1]); break;
+                default:
+                    System.err.println("[GitEngineBenchmarkMain] Unknown argument: " + args[i]);
+                    System.exit(64);
+            }
+        }
+        if (repo == null) {
+            System.err.println("Usage: GitEngineBenchmarkMain --repo PATH [--revision REV] [--warmup N] " +
+                               "[--iterations N] [--files N]");
+            System.exit(64);
+        }
+
+        AppConfig config = AppConfig.getInstance();
+        GitProcessPool pool = new GitProcessPool(config.getGitExecutable(), 4, 0);
+        DiffEngine process = new GitDiffEngine();
+        DiffEngine pooled = new GitDiffEngine(pool);
+        NativeGitRepositories repositories = new NativeGitRepositories(config.getGitNativeDeltaCacheBytes());
+        DiffEngine inProcess = new NativeGitDiffEngine(repositories, process);
+        NativeGitRepository nativeRepository = repositories.get(repo);
+        if (nativeRepository == null) {
+            System.err.println("[GitEngineBenchmarkMain] Repository can't be read in-process: " + repo);
+            System.exit(2);
+        }
+
+        String repoPath = repo;
+        String rev = revision;
+        List<String> files = new ArrayList<>(process.getBlobIds(repo, revision).keySet());
+        files.sort(null);
+        List<String> sample = files.subList(0, Math.min(fileCount, files.size()));
+        System.out.println("Repository " + repo + " @ " + revision + ": " + files.size() + " files, reading " +
+                           sample.size() + " per blob iteration; " + warmup + " warmup + " + iterations +
+                           " measured iterations");
+        System.out.println(String.format(Locale.ROOT, "%-28s %10s %10s %10s", "operation", "mean ms", "p50 ms", "p95 ms"));
+
+        Bench bench = new Bench(warmup, iterations);
+        bench.run("blob ids / process", () -> process.getBlobIds(repoPath, rev));
+        bench.run("blob ids / cat-file pool", () -> pooled.getBlobIds(repoPath, rev));
+        bench.run("blob ids / native", () -> inProcess.getBlobIds(repoPath, rev));
+        bench.run("branches / process", () -> process.getBranches(repoPath));
+        bench.run("branches / native", () -> inProcess.getBranches(repoPath));
+        DiffEngine watched = new WatchedBranchDiffEngine(inProcess, config.getGitRefsWatchDebounceMs());
+        bench.run("branches / watched cache", () -> watched.getBranches(repoPath));
+        bench.run("blobs / process", () -> {
+            for (String file : sample) {
+                readWithGit(config.getGitExecutable(), repoPath, rev + ":" + file);
+            }
+        });
+        bench.run("blobs / cat-file pool", () -> {
+            for (String file : sample) {
+                pool.read(repoPath, rev + ":" + file, Integer.MAX_VALUE);
+            }
+        });
+        bench.run("blobs / native", () -> {
+            for (String file : sample) {
+                nativeRepository.readPath(rev, file, Integer.MAX_VALUE);
+            }
+        });
+        pool.close();
+    }
+
+    private static void readWithGit(String git, String repo, String object) throws Exception {
+        Process process = new ProcessBuilder(git, "-C", repo, "cat-file", "-p", object)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        process.getInputStream().readAllBytes();
+        process.waitFor();
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    private static class Bench {
+        private final int warmup;
+        private final int iterations;
+
+        Bench(int warmup, int iterations) {
+            this.warmup = warmup;
+            this.iterations = Math.max(1, iterations);
+        }
+
+        void run(String name, Operation operation) throws Exception {
+            for (int i = 0; i < warmup; i++) {
+                operation.run();
+            }
+            long[] nanos = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                operation.run();
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            double mean = Arrays.stream(nanos).average().orElse(0) / 1e6;
+            System.out.println(String.format(Locale.ROOT, "%-28s %10.3f %10.3f %10.3f", name, mean,
+                                             nanos[iterations / 2] / 1e6,
+                                             nanos[Math.min(iterations - 1, (int) Math.ceil(iterations * 0.95) - 1)] / 1e6));
+        }
+    }
+}
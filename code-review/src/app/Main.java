@@ -65,20 +65,25 @@ public class Main extends Application {
         AnalysisController analysisController = new AnalysisController(
             factory.getAnalyzeBranchService(),
             factory.getDiffEngine(),
-            currentUser
+            currentUser,
+            factory.getBackgroundExecutor()
         );
         
         HistoryController historyController = new HistoryController(
             factory.getHistoryQueryService(),
-            factory.getExportService()
+            factory.getExportService(),
+            factory.getAnalyzeBranchService(),
+            factory.getBackgroundExecutor()
         );
         
         AnalyticsController analyticsController = new AnalyticsController(
-            factory.getAnalyticsService()
+            factory.getAnalyticsService(),
+            factory.getBackgroundExecutor()
         );
         
         PolicyController policyController = new PolicyController(
-            factory.getPolicyAdminService()
+            factory.getPolicyAdminService(),
+            factory.getBackgroundExecutor()
         );
         
         // Create and show main window
@@ -0,0 +1,39 @@
+package app;
+
+import app.application.service.AnalysisJobWorker;
+import app.config.AppConfig;
+import app.config.AppFactory;
+
+/**
+ * Headless entry point that drains the analysis_jobs queue (no JavaFX).
+ * Start one per host (or several); they coordinate through the database only.
+ */
+public class WorkerMain {
+    
+    public static void main(String[] args) throws Exception {
+        System.out.println("Initializing analysis worker...");
+        
+        AppConfig.getInstance();
+        AppFactory factory = new AppFactory();
+        AnalysisJobWorker worker = factory.getAnalysisJobWorker();
+        
+        // Ctrl+C / SIGTERM: give running jobs back to the queue instead of waiting for lease expiry
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            worker.stop();
+            try {
+                if (!worker.awaitIdle(10_000)) {
+                    System.err.println("[WorkerMain] Jobs still running at exit; their leases will expire");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "worker-shutdown"));
+        
+        worker.start();
+        
+        // Claim loops run on daemon threads: keep the JVM alive until stopped
+        while (worker.isRunning()) {
+            Thread.sleep(1000);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package app.application.dto;
+
+/**
+ * DTO for a progress event of a running analysis.
+ * Published per file (diffed, analyzed) and per stage change.
+ */
+public class AnalysisProgressDTO {
+
+    /**
+     * Stage the event refers to.
+     */
+    public enum Stage {
+        PREPARING,
+        DIFF,
+        ANALYZE,
+        PERSIST,
+        COMPLETED,
+        CANCELLED
+    }
+
+    private final Long analysisRunId;
+    private final Stage stage;
+    private final int filesDiffed;
+    private final int filesAnalyzed;
+    private final int filesPersisted;
+    private final boolean diffComplete;
+    private final String currentFile;
+
+    public AnalysisProgressDTO(Long analysisRunId, Stage stage, int filesDiffed, int filesAnalyzed, int filesPersisted,
+                               boolean diffComplete, String currentFile) {
+        this.analysisRunId = analysisRunId;
+        this.stage = stage;
+        this.filesDiffed = filesDiffed;
+        this.filesAnalyzed = filesAnalyzed;
+        this.filesPersisted = filesPersisted;
+        this.diffComplete = diffComplete;
+        this.currentFile = currentFile;
+    }
+
+    /**
+     * Run the event belongs to (known from the first event on).
+     */
+    public Long getAnalysisRunId() {
+        return analysisRunId;
+    }
+    
+    public Stage getStage() {
+        return stage;
+    }
+
+    public int getFilesDiffed() {
+        return filesDiffed;
+    }
+
+    public int getFilesAnalyzed() {
+        return filesAnalyzed;
+    }
+
+    public int getFilesPersisted() {
+        return filesPersisted;
+    }
+
+    /**
+     * True once the diff has been fully read, i.e. filesDiffed is the final total.
+     */
+    public boolean isDiffComplete() {
+        return diffComplete;
+    }
+
+    public String getCurrentFile() {
+        return currentFile;
+    }
+
+    /**
+     * Fraction of files analyzed, or -1 while the total is still unknown.
+     */
+    public double getFraction() {
+        if (!diffComplete || filesDiffed == 0) {
+            return -1;
+        }
+        return (double) filesAnalyzed / filesDiffed;
+    }
+
+    @Override
+    public String toString() {
+        return "AnalysisProgressDTO{" +
+                "runId=" + analysisRunId +
+                ", stage=" + stage +
+                ", diffed=" + filesDiffed +
+                ", analyzed=" + filesAnalyzed +
+                ", persisted=" + filesPersisted +
+                ", currentFile='" + currentFile + '\'' +
+                '}';
+    }
+}
@@ -9,6 +9,8 @@ public class AnalysisRequestDTO {
     private String baseBranch;
     private String targetBranch;
     private String repositoryPath; // Temporary field for UI, resolved to ID by service
+    private Boolean incremental; // null = use configured default
+    private Long timeBudgetMs; // null = no deadline; otherwise the run may end PARTIAL
     
     public AnalysisRequestDTO() {
     }
@@ -59,4 +61,24 @@ public class AnalysisRequestDTO {
     public void setRepositoryPath(String repositoryPath) {
         this.repositoryPath = repositoryPath;
     }
+    
+    public Boolean getIncremental() {
+        return incremental;
+    }
+    
+    public void setIncremental(Boolean incremental) {
+        this.incremental = incremental;
+    }
+    
+    public Long getTimeBudgetMs() {
+        return timeBudgetMs;
+    }
+    
+    /**
+     * Deadline for the whole analysis, in ms from the call. Near it no more files are sent
+     * to the analyzers; the files in flight finish and the run is saved as PARTIAL.
+     */
+    public void setTimeBudgetMs(Long timeBudgetMs) {
+        this.timeBudgetMs = timeBudgetMs;
+    }
 }
@@ -17,6 +17,8 @@ public class AnalysisResultDTO {
     private LocalDateTime completedAt;
     private Long durationMs;
     private Integer totalFiles;
+    private Integer diffTotalFiles;
+    private int dedupSavedCalls;
     private Integer totalFindings;
     private Integer criticalCount;
     private Integer highCount;
@@ -78,6 +80,27 @@ public class AnalysisResultDTO {
         this.totalFiles = totalFiles;
     }
     
+    /**
+     * Files in the diff (null for runs recorded before it was tracked).
+     */
+    public Integer getDiffTotalFiles() {
+        return diffTotalFiles;
+    }
+    
+    public void setDiffTotalFiles(Integer diffTotalFiles) {
+        this.diffTotalFiles = diffTotalFiles;
+    }
+    
+    /**
+     * Fraction of the diff's files that were analyzed (1.0 when unknown or empty).
+     */
+    public double getCoverage() {
+        if (diffTotalFiles == null || diffTotalFiles == 0 || totalFiles == null) {
+            return 1.0;
+        }
+        return Math.min(1.0, (double) totalFiles / diffTotalFiles);
+    }
+    
     public Integer getTotalFindings() {
         return totalFindings;
     }
@@ -161,4 +184,24 @@ public class AnalysisResultDTO {
     public boolean isSuccess() {
         return status == RunStatus.SUCCESS;
     }
+    
+    public boolean isCancelled() {
+        return status == RunStatus.CANCELLED;
+    }
+    
+    /**
+     * Endpoint calls saved because files of the run had identical content (not persisted:
+     * 0 for runs loaded from history).
+     */
+    public int getDedupSavedCalls() {
+        return dedupSavedCalls;
+    }
+    
+    public void setDedupSavedCalls(int dedupSavedCalls) {
+        this.dedupSavedCalls = dedupSavedCalls;
+    }
+    
+    public boolean isPartial() {
+        return status == RunStatus.PARTIAL;
+    }
 }
@@ -0,0 +1,73 @@
+package app.application.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for a batch of branch analyses: a list of (repository, base, target) jobs.
+ */
+public class BatchAnalysisRequestDTO {
+    
+    /**
+     * Target placeholder expanded by the batch service to every branch of the repository except the base.
+     */
+    public static final String ALL_BRANCHES = "*";
+    
+    private Long userId;
+    private Boolean incremental; // null = use configured default
+    private final List<AnalysisRequestDTO> jobs = new ArrayList<>();
+    
+    public BatchAnalysisRequestDTO() {
+    }
+    
+    public BatchAnalysisRequestDTO(Long userId) {
+        this.userId = userId;
+    }
+    
+    /**
+     * Add one (repository, base, target) job.
+     */
+    public BatchAnalysisRequestDTO addJob(String repositoryPath, String baseBranch, String targetBranch) {
+        AnalysisRequestDTO job = new AnalysisRequestDTO(userId, null, baseBranch, targetBranch);
+        job.setRepositoryPath(repositoryPath);
+        jobs.add(job);
+        return this;
+    }
+    
+    /**
+     * Add one job per target branch against the same base.
+     */
+    public BatchAnalysisRequestDTO addJobs(String repositoryPath, String baseBranch, List<String> targetBranches) {
+        for (String target : targetBranches) {
+            addJob(repositoryPath, baseBranch, target);
+        }
+        return this;
+    }
+    
+    /**
+     * Add one job per branch of the repository (other than the base), resolved when the batch runs.
+     */
+    public BatchAnalysisRequestDTO addAllBranches(String repositoryPath, String baseBranch) {
+        return addJob(repositoryPath, baseBranch, ALL_BRANCHES);
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public Boolean getIncremental() {
+        return incremental;
+    }
+    
+    public void setIncremental(Boolean incremental) {
+        this.incremental = incremental;
+    }
+    
+    public List<AnalysisRequestDTO> getJobs() {
+        return jobs;
+    }
+}
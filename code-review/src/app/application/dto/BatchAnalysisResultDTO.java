@@ -0,0 +1,151 @@
+package app.application.dto;
+
+import app.domain.value.RunStatus;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * DTO for the aggregate result of a batch: one outcome per job plus totals.
+ */
+public class BatchAnalysisResultDTO {
+    
+    private final List<JobOutcome> outcomes = new ArrayList<>();
+    private long durationMs;
+    
+    /**
+     * Result of a single job: the run summary, or the error if no run could be created.
+     */
+    public static class JobOutcome {
+        private final String repositoryPath;
+        private final String baseBranch;
+        private final String targetBranch;
+        private final AnalysisResultDTO result;
+        private final String error;
+        
+        public JobOutcome(String repositoryPath, String baseBranch, String targetBranch,
+                          AnalysisResultDTO result, String error) {
+            this.repositoryPath = repositoryPath;
+            this.baseBranch = baseBranch;
+            this.targetBranch = targetBranch;
+            this.result = result;
+            this.error = error;
+        }
+        
+        public String getRepositoryPath() {
+            return repositoryPath;
+        }
+        
+        public String getBaseBranch() {
+            return baseBranch;
+        }
+        
+        public String getTargetBranch() {
+            return targetBranch;
+        }
+        
+        public AnalysisResultDTO getResult() {
+            return result;
+        }
+        
+        public String getError() {
+            return result != null ? result.getErrorMessage() : error;
+        }
+        
+        /**
+         * Run status, or ERROR when the job failed before creating a run.
+         */
+        public RunStatus getStatus() {
+            return result != null ? result.getStatus() : RunStatus.ERROR;
+        }
+    }
+    
+    public List<JobOutcome> getOutcomes() {
+        return outcomes;
+    }
+    
+    public void addOutcome(JobOutcome outcome) {
+        outcomes.add(outcome);
+    }
+    
+    public List<AnalysisResultDTO> getRuns() {
+        List<AnalysisResultDTO> runs = new ArrayList<>();
+        for (JobOutcome outcome : outcomes) {
+            if (outcome.getResult() != null) {
+                runs.add(outcome.getResult());
+            }
+        }
+        return runs;
+    }
+    
+    public long getDurationMs() {
+        return durationMs;
+    }
+    
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+    
+    public int getTotalJobs() {
+        return outcomes.size();
+    }
+    
+    public Map<RunStatus, Integer> getCountsByStatus() {
+        Map<RunStatus, Integer> counts = new EnumMap<>(RunStatus.class);
+        for (JobOutcome outcome : outcomes) {
+            counts.merge(outcome.getStatus(), 1, Integer::sum);
+        }
+        return counts;
+    }
+    
+    public int getTotalFiles() {
+        return sum(AnalysisResultDTO::getTotalFiles);
+    }
+    
+    public int getTotalFindings() {
+        return sum(AnalysisResultDTO::getTotalFindings);
+    }
+    
+    public int getCriticalCount() {
+        return sum(AnalysisResultDTO::getCriticalCount);
+    }
+    
+    public int getHighCount() {
+        return sum(AnalysisResultDTO::getHighCount);
+    }
+    
+    public int getMediumCount() {
+        return sum(AnalysisResultDTO::getMediumCount);
+    }
+    
+    public int getLowCount() {
+        return sum(AnalysisResultDTO::getLowCount);
+    }
+    
+    public int getInfoCount() {
+        return sum(AnalysisResultDTO::getInfoCount);
+    }
+    
+    private int sum(Function<AnalysisResultDTO, Integer> field) {
+        int total = 0;
+        for (AnalysisResultDTO run : getRuns()) {
+            Integer value = field.apply(run);
+            total += value != null ? value : 0;
+        }
+        return total;
+    }
+    
+    @Override
+    public String toString() {
+        return "BatchAnalysisResultDTO{" +
+                "jobs=" + getTotalJobs() +
+                ", byStatus=" + getCountsByStatus() +
+                ", files=" + getTotalFiles() +
+                ", findings=" + getTotalFindings() +
+                ", durationMs=" + durationMs +
+                '}';
+    }
+}
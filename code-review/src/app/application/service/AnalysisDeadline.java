@@ -0,0 +1,91 @@
+package app.application.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time budget of one run (time-budgeted mode). The diff stage asks it before dispatching each
+ * file; once the time left would not cover the files still in flight, dispatching stops for
+ * good, the in-flight files finish and the run is saved as PARTIAL. A run whose merge base or
+ * diff alone outlasts the budget is stopped by a timer calling expire().
+ *
+ * The time needed to drain is estimated from the files analyzed so far: average analysis time
+ * per file times the rounds the workers need for the in-flight files, never less than minReserve.
+ */
+final class AnalysisDeadline {
+
+    private final long budgetMs;
+    private final long deadlineNanos;
+    private final long minReserveNanos;
+    private final int workers;
+    private final AtomicInteger dispatched = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicLong analysisNanos = new AtomicLong();
+    private volatile boolean reached;
+
+    /**
+     * @param startNanos System.nanoTime() when the request started (the budget covers the whole run)
+     */
+    AnalysisDeadline(long budgetMs, long minReserveMs, int workers, long startNanos) {
+        this.budgetMs = budgetMs;
+        this.deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        this.minReserveNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, minReserveMs));
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * Called by the diff stage before dispatching a file. Returns false once the budget is
+     * near, and keeps returning false from then on.
+     */
+    boolean tryDispatch() {
+        if (reached) {
+            return false;
+        }
+        int inFlight = dispatched.get() - completed.get() + 1;
+        int rounds = (inFlight + workers - 1) / workers;
+        int done = completed.get();
+        long averageNanos = done > 0 ? analysisNanos.get() / done : 0;
+        long reserveNanos = Math.max(minReserveNanos, averageNanos * rounds);
+
+        if (deadlineNanos - System.nanoTime() <= reserveNanos) {
+            reached = true;
+            return false;
+        }
+        dispatched.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Stop dispatching from now on (the budget ran out before the diff got to ask).
+     */
+    void expire() {
+        reached = true;
+    }
+
+    /**
+     * Time left until only minReserve remains, when expire() is due; negative once past it.
+     */
+    long nanosUntilStop() {
+        return deadlineNanos - minReserveNanos - System.nanoTime();
+    }
+
+    /**
+     * Called by the analyzer stage when a dispatched file is done.
+     */
+    void recordAnalysis(long nanos) {
+        analysisNanos.addAndGet(nanos);
+        completed.incrementAndGet();
+    }
+
+    /**
+     * True if files were left undispatched because of the budget.
+     */
+    boolean isReached() {
+        return reached;
+    }
+
+    long getBudgetMs() {
+        return budgetMs;
+    }
+}
@@ -0,0 +1,327 @@
+package app.application.service;
+
+import app.application.dto.AnalysisRequestDTO;
+import app.application.dto.AnalysisResultDTO;
+import app.domain.entity.AnalysisJob;
+import app.domain.port.AnalysisJobRepository;
+import app.domain.port.CancellationToken;
+import app.domain.port.TxException;
+import app.domain.port.TxManager;
+import app.domain.value.RunStatus;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer side of the durable analysis queue. Runs `concurrency` claim loops; any number of
+ * worker processes (on any host) can drain the same analysis_jobs table.
+ *
+ * A claimed job is held with a lease renewed by a heartbeat every leaseSeconds / 3. If the
+ * process dies the lease expires and another worker claims the job again; since the job
+ * records its run id, the retry resumes that run from its last checkpoint. A worker that
+ * finds its lease lost cancels its own run and leaves the job to the new owner.
+ */
+public class AnalysisJobWorker {
+
+    private final AnalysisJobRepository jobRepo;
+    private final AnalyzeBranchService analyzeBranchService;
+    private final HistoryQueryService historyQueryService;
+    private final TxManager txManager;
+    private final ExecutorService loopExecutor;
+    private final ScheduledExecutorService heartbeatScheduler;
+    private final String workerId;
+    private final int concurrency;
+    private final int leaseSeconds;
+    private final long pollIntervalMs;
+    private final int retryDelaySeconds;
+    private final Map<Long, CancellationToken> activeJobs = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    /**
+     * @param loopExecutor Runs the claim loops; needs at least concurrency threads
+     * @param heartbeatScheduler Renews leases; tasks are short JDBC updates
+     * @param retryDelaySeconds Delay before a failed job is retried, doubled on every attempt
+     */
+    public AnalysisJobWorker(AnalysisJobRepository jobRepo, AnalyzeBranchService analyzeBranchService,
+                             HistoryQueryService historyQueryService, TxManager txManager,
+                             ExecutorService loopExecutor, ScheduledExecutorService heartbeatScheduler,
+                             int concurrency, int leaseSeconds, long pollIntervalMs, int retryDelaySeconds) {
+        this.jobRepo = jobRepo;
+        this.analyzeBranchService = analyzeBranchService;
+        this.historyQueryService = historyQueryService;
+        this.txManager = txManager;
+        this.loopExecutor = loopExecutor;
+        this.heartbeatScheduler = heartbeatScheduler;
+        this.workerId = ManagementFactory.getRuntimeMXBean().getName() + "-" +
+                        UUID.randomUUID().toString().substring(0, 8);
+        this.concurrency = Math.max(1, concurrency);
+        this.leaseSeconds = Math.max(3, leaseSeconds);
+        this.pollIntervalMs = Math.max(100, pollIntervalMs);
+        this.retryDelaySeconds = Math.max(0, retryDelaySeconds);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int slot = 1; slot <= concurrency; slot++) {
+            // One id per loop: a lease is owned by a loop, not shared by the whole process
+            String loopWorkerId = workerId + "#" + slot;
+            loopExecutor.execute(() -> claimLoop(loopWorkerId));
+        }
+        System.out.println("[AnalysisJobWorker] Worker " + workerId + " started with " + concurrency +
+                           " loops (lease " + leaseSeconds + "s)");
+    }
+
+    /**
+     * Stop claiming and cancel the running jobs; they are released back to the queue
+     * (their runs stay resumable).
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (CancellationToken token : activeJobs.values()) {
+            token.cancel();
+        }
+        System.out.println("[AnalysisJobWorker] Worker " + workerId + " stopping (" +
+                           activeJobs.size() + " jobs cancelled)");
+    }
+
+    /**
+     * Wait until the cancelled jobs have been released (or the timeout passes).
+     */
+    public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!activeJobs.isEmpty()) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(100);
+        }
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    private void claimLoop(String loopWorkerId) {
+        while (running) {
+            AnalysisJob job = null;
+            try {
+                job = claim(loopWorkerId);
+            } catch (Exception e) {
+                System.err.println("[AnalysisJobWorker] Claim failed: " + e.getMessage());
+            }
+
+            if (job == null) {
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+
+            try {
+                execute(job, loopWorkerId);
+            } catch (RuntimeException e) {
+                // Never let one job kill the loop
+                System.err.println("[AnalysisJobWorker] Job " + job.getId() + " crashed: " + e.getMessage());
+            }
+        }
+    }
+
+    private AnalysisJob claim(String loopWorkerId) throws Exception {
+        txManager.begin();
+        try {
+            Optional<AnalysisJob> job = jobRepo.claimNext(loopWorkerId, leaseSeconds);
+            txManager.commit();
+            return job.orElse(null);
+        } catch (Exception e) {
+            txManager.rollback();
+            throw e;
+        }
+    }
+
+    private void execute(AnalysisJob job, String loopWorkerId) {
+        System.out.println("[AnalysisJobWorker] " + loopWorkerId + " claimed " + job);
+
+        Lease lease = new Lease(job, loopWorkerId);
+        activeJobs.put(job.getId(), lease.cancellation);
+        if (!running) {
+            // stop() ran between the claim and here
+            lease.cancellation.cancel();
+        }
+        long heartbeatSeconds = Math.max(1, leaseSeconds / 3);
+        ScheduledFuture<?> heartbeat = heartbeatScheduler.scheduleAtFixedRate(
+            () -> renew(lease), heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+        try {
+            AnalysisResultDTO result = runJob(job, lease);
+            if (result.getAnalysisRunId() != null) {
+                lease.runId = result.getAnalysisRunId();
+            }
+            finish(lease, result.getStatus(), result.getErrorMessage());
+        } catch (RuntimeException e) {
+            // Run never created (e.g. invalid repository path) or resume refused
+            finish(lease, RunStatus.ERROR, e.getMessage());
+        } finally {
+            heartbeat.cancel(false);
+            activeJobs.remove(job.getId());
+        }
+    }
+
+    private AnalysisResultDTO runJob(AnalysisJob job, Lease lease) {
+        // Retry after a worker died: continue the run it started instead of a new one
+        if (job.getAnalysisRunId() != null) {
+            RunStatus previous = findRunStatus(job.getAnalysisRunId());
+            if (previous == RunStatus.SUCCESS || previous == RunStatus.EMPTY_DIFF) {
+                System.out.println("[AnalysisJobWorker] Job " + job.getId() + ": run " +
+                                   job.getAnalysisRunId() + " already finished");
+                return historyResult(job.getAnalysisRunId());
+            }
+            if (previous != null) {
+                System.out.println("[AnalysisJobWorker] Job " + job.getId() + ": resuming run " +
+                                   job.getAnalysisRunId());
+                return analyzeBranchService.resume(job.getAnalysisRunId(), lease.cancellation,
+                                                   progress -> lease.onRunStarted(progress.getAnalysisRunId()));
+            }
+        }
+
+        AnalysisRequestDTO request = new AnalysisRequestDTO(
+            job.getUserId(),
+            null,
+            job.getBaseBranch(),
+            job.getTargetBranch()
+        );
+        request.setRepositoryPath(job.getRepositoryPath());
+        request.setIncremental(job.getIncremental());
+        return analyzeBranchService.analyze(request, lease.cancellation,
+                                            progress -> lease.onRunStarted(progress.getAnalysisRunId()));
+    }
+
+    /**
+     * Record the outcome. Lease lost: another worker owns the job now, so leave it alone.
+     */
+    private void finish(Lease lease, RunStatus status, String error) {
+        Long jobId = lease.job.getId();
+        if (lease.lost) {
+            System.out.println("[AnalysisJobWorker] Job " + jobId + " lease lost; left to its new owner");
+            return;
+        }
+
+        try {
+            txManager.begin();
+            boolean updated;
+            if (status == RunStatus.SUCCESS || status == RunStatus.EMPTY_DIFF) {
+                updated = jobRepo.markSucceeded(jobId, lease.workerId, lease.runId);
+            } else if (status == RunStatus.CANCELLED && !running) {
+                updated = jobRepo.release(jobId, lease.workerId, lease.runId);
+            } else {
+                int delay = retryDelaySeconds * (1 << Math.min(10, Math.max(0, lease.job.getAttempts() - 1)));
+                updated = jobRepo.markFailed(jobId, lease.workerId, lease.runId,
+                                             error != null ? error : "Run ended as " + status, delay);
+            }
+            txManager.commit();
+            System.out.println("[AnalysisJobWorker] Job " + jobId + " finished: run " + lease.runId + " " + status +
+                               (updated ? "" : " (lease no longer held, not recorded)"));
+        } catch (Exception e) {
+            rollbackQuietly();
+            // The lease will expire and the job will be retried (resuming its run)
+            System.err.println("[AnalysisJobWorker] Failed to record job " + jobId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Heartbeat: extend the lease (and record the run id once known). Runs on the scheduler thread,
+     * which has its own connection.
+     */
+    private void renew(Lease lease) {
+        if (lease.lost) {
+            return;
+        }
+        try {
+            txManager.begin();
+            boolean held = jobRepo.renewLease(lease.job.getId(), lease.workerId, leaseSeconds, lease.runId);
+            txManager.commit();
+            if (!held) {
+                lease.lost = true;
+                System.err.println("[AnalysisJobWorker] Lease lost for job " + lease.job.getId() + ", cancelling");
+                lease.cancellation.cancel();
+            }
+        } catch (Exception e) {
+            // Transient DB error: the lease is still valid until it expires, try again next beat
+            rollbackQuietly();
+            System.err.println("[AnalysisJobWorker] Lease renewal failed for job " + lease.job.getId() +
+                               ": " + e.getMessage());
+        }
+    }
+
+    private RunStatus findRunStatus(Long runId) {
+        try {
+            return historyQueryService.getRunDetails(runId).getStatus();
+        } catch (Exception e) {
+            return null; // run deleted: start over
+        }
+    }
+
+    private AnalysisResultDTO historyResult(Long runId) {
+        try {
+            return historyQueryService.getRunDetails(runId);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load run " + runId + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void rollbackQuietly() {
+        try {
+            txManager.rollback();
+        } catch (TxException e) {
+            // Ignore
+        }
+    }
+
+    /**
+     * State of one claimed job, shared by its loop thread, the progress listener and the heartbeat.
+     */
+    private class Lease {
+        final AnalysisJob job;
+        final String workerId;
+        final CancellationToken cancellation = new CancellationToken();
+        volatile Long runId;
+        volatile boolean lost;
+
+        Lease(AnalysisJob job, String workerId) {
+            this.job = job;
+            this.workerId = workerId;
+            this.runId = job.getAnalysisRunId();
+        }
+
+        /**
+         * First progress event of a new run: record the run id right away (not at the next beat),
+         * so a crash from here on resumes this run.
+         */
+        void onRunStarted(Long analysisRunId) {
+            if (analysisRunId != null && !analysisRunId.equals(runId)) {
+                runId = analysisRunId;
+                heartbeatScheduler.execute(() -> renew(this));
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package app.application.service;
+
+import app.domain.entity.DiffFile;
+import app.domain.entity.Finding;
+import app.domain.port.CancellationToken;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Three-stage analysis pipeline: diff producer -> analyzer workers -> single batched writer.
+ *
+ * The producer and analyzers run on the stage executor; the writer runs on the calling
+ * thread so it can use the caller's transaction (TxManager is per-thread).
+ * A file holds an in-flight permit from the moment it is produced until it is written,
+ * so a slow writer or analyzer blocks the producer instead of buffering the whole run.
+ * Results are written in production order, whatever order the analyzers finish in.
+ * On cancellation the results already analyzed are still written before the
+ * CancellationException is rethrown, so the caller can keep a partial run.
+ * Analyzers that need the DB hand the work to the writer thread (writerExecutor).
+ * A pipeline runs once.
+ */
+class AnalysisPipeline {
+
+    /**
+     * Producer stage: emits diff files into the sink.
+     */
+    interface DiffSource {
+        void produce(Consumer<DiffFile> sink) throws Exception;
+    }
+
+    /**
+     * Analyzer stage: returns classified findings for one file. Must not touch the DB
+     * (DB work goes through writerExecutor).
+     */
+    interface FileAnalyzer {
+        List<Finding> analyze(DiffFile diffFile) throws Exception;
+    }
+
+    /**
+     * Writer stage: persists a batch of analyzed files, in order.
+     */
+    interface BatchWriter {
+        void write(List<AnalyzedFile> batch) throws Exception;
+    }
+
+    /**
+     * A diff file together with its findings.
+     */
+    static class AnalyzedFile {
+        final int sequence;
+        final DiffFile diffFile;
+        final List<Finding> findings;
+
+        AnalyzedFile(int sequence, DiffFile diffFile, List<Finding> findings) {
+            this.sequence = sequence;
+            this.diffFile = diffFile;
+            this.findings = findings;
+        }
+    }
+
+    private static final Object END = new Object();
+
+    private final ExecutorService stageExecutor;
+    private final int workers;
+    private final int queueCapacity;
+    private final int batchSize;
+    // Analyzed files, and tasks for the writer thread. Unbounded by type, bounded in practice
+    // by the in-flight permits (and one task per waiting analyzer)
+    private final BlockingQueue<Object> resultQueue = new LinkedBlockingQueue<>();
+
+    AnalysisPipeline(ExecutorService stageExecutor, int workers, int queueCapacity, int batchSize) {
+        this.stageExecutor = stageExecutor;
+        this.workers = Math.max(1, workers);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Runs tasks on the writer thread, between batches, so they can use the caller's
+     * transaction. Tasks still queued when the run is cancelled or fails are dropped.
+     */
+    Executor writerExecutor() {
+        return resultQueue::add;
+    }
+
+    /**
+     * Run the pipeline to completion. Returns stage counters; rethrows the first stage failure.
+     *
+     * @throws CancellationException if the token was cancelled (after writing the analyzed results)
+     */
+    PipelineStats run(DiffSource source, FileAnalyzer analyzer, BatchWriter writer,
+                      CancellationToken cancellation) throws Exception {
+        PipelineStats stats = new PipelineStats(workers);
+        Semaphore inFlight = new Semaphore(queueCapacity);
+        // Room for every permit plus one end marker per worker
+        BlockingQueue<Object> workQueue = new LinkedBlockingQueue<>(queueCapacity + workers);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger totalProduced = new AtomicInteger(-1); // set when producer is done
+
+        List<Future<?>> tasks = new ArrayList<>();
+
+        tasks.add(stageExecutor.submit(() -> {
+            long start = System.nanoTime();
+            AtomicLong blockedNanos = new AtomicLong();
+            try {
+                source.produce(diffFile -> {
+                    long waitStart = System.nanoTime();
+                    try {
+                        inFlight.acquire();
+                        workQueue.put(new AnalyzedFile(produced.getAndIncrement(), diffFile, null));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException("Diff producer interrupted");
+                    }
+                    blockedNanos.addAndGet(System.nanoTime() - waitStart);
+                    stats.getDiff().addItems(1);
+                });
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                stats.getDiff().addBlocked(blockedNanos.get());
+                stats.getDiff().addBusy(System.nanoTime() - start - blockedNanos.get());
+                totalProduced.set(produced.get());
+                for (int i = 0; i < workers; i++) {
+                    workQueue.offer(END);
+                }
+            }
+        }));
+
+        for (int i = 0; i < workers; i++) {
+            tasks.add(stageExecutor.submit(() -> {
+                try {
+                    while (true) {
+                        long waitStart = System.nanoTime();
+                        Object next = workQueue.take();
+                        stats.getAnalyze().addBlocked(System.nanoTime() - waitStart);
+                        if (next == END) {
+                            return;
+                        }
+                        AnalyzedFile work = (AnalyzedFile) next;
+                        long start = System.nanoTime();
+                        List<Finding> findings = analyzer.analyze(work.diffFile);
+                        stats.getAnalyze().addBusy(System.nanoTime() - start);
+                        stats.getAnalyze().addItems(1);
+                        resultQueue.add(new AnalyzedFile(work.sequence, work.diffFile, findings));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }));
+        }
+
+        try {
+            writeInOrder(writer, inFlight, failure, totalProduced, stats, cancellation);
+        } finally {
+            for (Future<?> task : tasks) {
+                task.cancel(true);
+            }
+            stats.markFinished();
+        }
+
+        System.out.println("[AnalysisPipeline] " + stats);
+        return stats;
+    }
+
+    /**
+     * Writer loop on the calling thread: reorders results by sequence and flushes them in batches,
+     * running writer tasks as they arrive.
+     */
+    private void writeInOrder(BatchWriter writer, Semaphore inFlight, AtomicReference<Throwable> failure,
+                              AtomicInteger totalProduced, PipelineStats stats,
+                              CancellationToken cancellation) throws Exception {
+        Map<Integer, AnalyzedFile> pending = new HashMap<>();
+        List<AnalyzedFile> batch = new ArrayList<>(batchSize);
+        int nextSequence = 0;
+
+        while (true) {
+            if (cancellation.isCancelled()) {
+                failure.compareAndSet(null, new CancellationException("Analysis cancelled"));
+            }
+            if (failure.get() instanceof CancellationException) {
+                writeAnalyzed(pending, batch, writer, inFlight, stats);
+            }
+            rethrow(failure.get());
+
+            int total = totalProduced.get();
+            if (total >= 0 && nextSequence >= total) {
+                break;
+            }
+
+            long waitStart = System.nanoTime();
+            Object next = resultQueue.poll(100, TimeUnit.MILLISECONDS);
+            stats.getWrite().addBlocked(System.nanoTime() - waitStart);
+            if (next == null && !batch.isEmpty()) {
+                flush(batch, writer, inFlight, stats);
+                continue;
+            }
+
+            while (next != null) {
+                if (next instanceof Runnable) {
+                    ((Runnable) next).run();
+                } else {
+                    AnalyzedFile result = (AnalyzedFile) next;
+                    pending.put(result.sequence, result);
+                }
+                next = resultQueue.poll();
+            }
+
+            AnalyzedFile ready;
+            while ((ready = pending.remove(nextSequence)) != null) {
+                batch.add(ready);
+                nextSequence++;
+                if (batch.size() >= batchSize) {
+                    flush(batch, writer, inFlight, stats);
+                }
+            }
+
+            // Flush a partial batch only when waiting longer would stall the pipeline:
+            // nothing arrived, the producer is out of permits, or the producer is done
+            boolean stalled = resultQueue.isEmpty() &&
+                (inFlight.availablePermits() == 0 || totalProduced.get() >= 0);
+            if (!batch.isEmpty() && stalled) {
+                flush(batch, writer, inFlight, stats);
+            }
+        }
+
+        // The producer may fail after emitting its last file (e.g. git exiting non-zero)
+        rethrow(failure.get());
+        if (!batch.isEmpty()) {
+            flush(batch, writer, inFlight, stats);
+        }
+    }
+
+    /**
+     * Cancellation: write every result analyzed so far, gaps in the sequence included.
+     */
+    private void writeAnalyzed(Map<Integer, AnalyzedFile> pending, List<AnalyzedFile> batch, BatchWriter writer,
+                               Semaphore inFlight, PipelineStats stats) throws Exception {
+        Object next;
+        while ((next = resultQueue.poll()) != null) {
+            if (next instanceof AnalyzedFile) {
+                AnalyzedFile result = (AnalyzedFile) next;
+                pending.put(result.sequence, result);
+            }
+        }
+        List<Integer> sequences = new ArrayList<>(pending.keySet());
+        Collections.sort(sequences);
+        for (Integer sequence : sequences) {
+            batch.add(pending.remove(sequence));
+            if (batch.size() >= batchSize) {
+                flush(batch, writer, inFlight, stats);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch, writer, inFlight, stats);
+        }
+    }
+
+    private void flush(List<AnalyzedFile> batch, BatchWriter writer, Semaphore inFlight,
+                       PipelineStats stats) throws Exception {
+        long start = System.nanoTime();
+        writer.write(new ArrayList<>(batch));
+        stats.getWrite().addBusy(System.nanoTime() - start);
+        stats.getWrite().addItems(batch.size());
+        inFlight.release(batch.size());
+        batch.clear();
+    }
+
+    private void rethrow(Throwable failure) throws Exception {
+        if (failure == null) {
+            return;
+        }
+        if (failure instanceof ExecutionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        if (failure instanceof Exception) {
+            throw (Exception) failure;
+        }
+        throw new ExecutionException(failure);
+    }
+}
@@ -0,0 +1,86 @@
+package app.application.service;
+
+import app.application.dto.AnalysisRequestDTO;
+import app.domain.entity.AnalysisJob;
+import app.domain.port.AnalysisJobRepository;
+import app.domain.port.TxManager;
+import app.domain.value.JobStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Producer side of the durable analysis queue: enqueue branch analyses for the workers
+ * (AnalysisJobWorker, in this or any other process) and query their state.
+ */
+public class AnalysisQueueService {
+
+    private final AnalysisJobRepository jobRepo;
+    private final TxManager txManager;
+    private final int defaultMaxAttempts;
+
+    public AnalysisQueueService(AnalysisJobRepository jobRepo, TxManager txManager, int defaultMaxAttempts) {
+        this.jobRepo = jobRepo;
+        this.txManager = txManager;
+        this.defaultMaxAttempts = Math.max(1, defaultMaxAttempts);
+    }
+
+    public AnalysisJob enqueue(AnalysisRequestDTO request) throws Exception {
+        return enqueueAll(List.of(request)).get(0);
+    }
+
+    /**
+     * Enqueue several analyses in one transaction: workers see all of them or none.
+     */
+    public List<AnalysisJob> enqueueAll(List<AnalysisRequestDTO> requests) throws Exception {
+        List<AnalysisJob> jobs = new ArrayList<>();
+        txManager.begin();
+        try {
+            for (AnalysisRequestDTO request : requests) {
+                if (request.getRepositoryPath() == null || request.getRepositoryPath().trim().isEmpty()) {
+                    throw new IllegalArgumentException("Repository path is required");
+                }
+                AnalysisJob job = new AnalysisJob(
+                    request.getUserId(),
+                    request.getRepositoryPath(),
+                    request.getBaseBranch(),
+                    request.getTargetBranch()
+                );
+                job.setIncremental(request.getIncremental());
+                job.setMaxAttempts(defaultMaxAttempts);
+                jobs.add(jobRepo.enqueue(job));
+            }
+            txManager.commit();
+        } catch (Exception e) {
+            txManager.rollback();
+            throw e;
+        }
+        System.out.println("[AnalysisQueueService] Enqueued " + jobs.size() + " analysis jobs");
+        return jobs;
+    }
+
+    public Optional<AnalysisJob> getJob(Long jobId) throws Exception {
+        txManager.begin();
+        try {
+            Optional<AnalysisJob> job = jobRepo.findById(jobId);
+            txManager.commit();
+            return job;
+        } catch (Exception e) {
+            txManager.rollback();
+            throw e;
+        }
+    }
+
+    public List<AnalysisJob> getJobs(JobStatus status, int limit) throws Exception {
+        txManager.begin();
+        try {
+            List<AnalysisJob> jobs = jobRepo.findByStatus(status, limit);
+            txManager.commit();
+            return jobs;
+        } catch (Exception e) {
+            txManager.rollback();
+            throw e;
+        }
+    }
+}
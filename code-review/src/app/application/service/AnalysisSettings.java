@@ -0,0 +1,140 @@
+package app.application.service;
+
+import app.domain.value.DiffMode;
+
+/**
+ * Tuning settings for AnalyzeBranchService, populated from app.properties by AppFactory.
+ */
+public class AnalysisSettings {
+
+    private int workers = 1;
+    private int queueCapacity = 64;
+    private int writeBatchSize = 50;
+    private boolean incrementalByDefault = false;
+    private boolean hunkMode = false;
+    private int hunkContextLines = 3;
+    private boolean riskScheduling = false;
+    private int riskHistoryRuns = 20;
+    private int riskWindowFiles = 256;
+    private long deadlineReserveMs = 500;
+    private boolean contentDedup = false;
+    private DiffMode diffMode = DiffMode.TWO_DOT;
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public void setWriteBatchSize(int writeBatchSize) {
+        this.writeBatchSize = Math.max(1, writeBatchSize);
+    }
+
+    public boolean isIncrementalByDefault() {
+        return incrementalByDefault;
+    }
+
+    public void setIncrementalByDefault(boolean incrementalByDefault) {
+        this.incrementalByDefault = incrementalByDefault;
+    }
+
+    /**
+     * When true, only the changed hunks (plus context) of each file are sent to the endpoint.
+     */
+    public boolean isHunkMode() {
+        return hunkMode;
+    }
+
+    public void setHunkMode(boolean hunkMode) {
+        this.hunkMode = hunkMode;
+    }
+
+    public int getHunkContextLines() {
+        return hunkContextLines;
+    }
+
+    public void setHunkContextLines(int hunkContextLines) {
+        this.hunkContextLines = Math.max(0, hunkContextLines);
+    }
+
+    /**
+     * When true, files are analyzed by descending risk (see RiskScheduler) within a window of
+     * riskWindowFiles files, instead of in git's order.
+     */
+    public boolean isRiskScheduling() {
+        return riskScheduling;
+    }
+
+    public void setRiskScheduling(boolean riskScheduling) {
+        this.riskScheduling = riskScheduling;
+    }
+
+    /**
+     * Number of previous runs of the repository whose findings feed the risk score.
+     */
+    public int getRiskHistoryRuns() {
+        return riskHistoryRuns;
+    }
+
+    public void setRiskHistoryRuns(int riskHistoryRuns) {
+        this.riskHistoryRuns = Math.max(0, riskHistoryRuns);
+    }
+
+    /**
+     * Files of the diff held back at most by risk scheduling to pick the riskiest one.
+     */
+    public int getRiskWindowFiles() {
+        return riskWindowFiles;
+    }
+
+    public void setRiskWindowFiles(int riskWindowFiles) {
+        this.riskWindowFiles = Math.max(1, riskWindowFiles);
+    }
+
+    /**
+     * Time-budgeted runs: minimum time kept to drain the files in flight and finalize the run.
+     */
+    public long getDeadlineReserveMs() {
+        return deadlineReserveMs;
+    }
+
+    public void setDeadlineReserveMs(long deadlineReserveMs) {
+        this.deadlineReserveMs = Math.max(0, deadlineReserveMs);
+    }
+
+    /**
+     * When true, files of a run with identical content share one endpoint call.
+     */
+    public boolean isContentDedup() {
+        return contentDedup;
+    }
+
+    public void setContentDedup(boolean contentDedup) {
+        this.contentDedup = contentDedup;
+    }
+
+    /**
+     * What the target branch is diffed against: the base branch tip or the merge base.
+     */
+    public DiffMode getDiffMode() {
+        return diffMode;
+    }
+
+    public void setDiffMode(DiffMode diffMode) {
+        this.diffMode = diffMode != null ? diffMode : DiffMode.TWO_DOT;
+    }
+}
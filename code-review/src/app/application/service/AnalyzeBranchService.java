@@ -1,17 +1,35 @@
 package app.application.service;
 
+import app.application.dto.AnalysisProgressDTO;
 import app.application.dto.AnalysisRequestDTO;
 import app.application.dto.AnalysisResultDTO;
 import app.domain.entity.*;
 import app.domain.port.*;
+import app.domain.value.ContentWindow;
+import app.domain.value.DiffMode;
+import app.domain.value.FileContent;
+import app.domain.value.LineRange;
+import app.domain.value.RunStatus;
 import app.domain.value.Severity;
 import app.infra.integration.EndpointMockClient;
 
-import java.io.File;
-import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Service for analyzing code between branches (UC-01).
@@ -20,6 +38,7 @@ import java.util.Map;
 public class AnalyzeBranchService {
     
     private final DiffEngine diffEngine;
+    private final ContentLoader contentLoader;
     private final EndpointClient endpointClient;
     private final PolicyEngine policyEngine;
     private final AnalysisRunRepository analysisRunRepo;
@@ -27,10 +46,22 @@ public class AnalyzeBranchService {
     private final FindingRepository findingRepo;
     private final SeverityPolicyRepository policyRepo;
     private final RepositoryRefRepository repositoryRepo;
+    private final RepositoryRegistry repositoryRegistry;
     private final TxManager txManager;
+    private final ExecutorService stageExecutor;
+    private final AnalysisSettings settings;
+    private final FindingCache findingCache;
+    private final Set<Long> activeRunIds = ConcurrentHashMap.newKeySet();
     
+    /**
+     * @param stageExecutor Executor for the diff producer and analyzer stages of the pipeline.
+     *                      Persistence always stays on the calling thread (TxManager is per-thread).
+     * @param settings Worker count, queue capacity and write batch size
+     * @param findingCache Content-addressed finding cache, or null to always call the endpoint
+     */
     public AnalyzeBranchService(
             DiffEngine diffEngine,
+            ContentLoader contentLoader,
             EndpointClient endpointClient,
             PolicyEngine policyEngine,
             AnalysisRunRepository analysisRunRepo,
@@ -38,8 +69,13 @@ public class AnalyzeBranchService {
             FindingRepository findingRepo,
             SeverityPolicyRepository policyRepo,
             RepositoryRefRepository repositoryRepo,
-            TxManager txManager) {
+            RepositoryRegistry repositoryRegistry,
+            TxManager txManager,
+            ExecutorService stageExecutor,
+            AnalysisSettings settings,
+            FindingCache findingCache) {
         this.diffEngine = diffEngine;
+        this.contentLoader = contentLoader;
         this.endpointClient = endpointClient;
         this.policyEngine = policyEngine;
         this.analysisRunRepo = analysisRunRepo;
@@ -47,24 +83,67 @@ public class AnalyzeBranchService {
         this.findingRepo = findingRepo;
         this.policyRepo = policyRepo;
         this.repositoryRepo = repositoryRepo;
+        this.repositoryRegistry = repositoryRegistry;
         this.txManager = txManager;
+        this.stageExecutor = stageExecutor;
+        this.settings = settings;
+        this.findingCache = findingCache;
     }
     
     /**
      * Execute branch analysis (UC-01 main flow).
      */
     public AnalysisResultDTO analyze(AnalysisRequestDTO request) {
+        return analyze(request, CancellationToken.none(), progress -> { });
+    }
+    
+    /**
+     * Execute branch analysis, publishing progress per file and stage.
+     * Cancelling the token stops the diff, the endpoint calls and the pipeline; the run is then
+     * saved as CANCELLED with the files and findings persisted so far.
+     * 
+     * @param progressListener Called from pipeline threads; must be thread-safe and fast
+     */
+    public AnalysisResultDTO analyze(AnalysisRequestDTO request, CancellationToken cancellation,
+                                     Consumer<AnalysisProgressDTO> progressListener) {
+        return analyze(request, null, cancellation, progressListener);
+    }
+    
+    /**
+     * Resolve the registered repository row for a request path (see RepositoryRegistry).
+     */
+    RepositoryRef resolveRepository(AnalysisRequestDTO request) throws Exception {
+        return getOrCreateRepository(request);
+    }
+    
+    /**
+     * @param repository Already resolved repository, or null to resolve it from the request path
+     */
+    AnalysisResultDTO analyze(AnalysisRequestDTO request, RepositoryRef repository, 
+                              CancellationToken cancellation, Consumer<AnalysisProgressDTO> progressListener) {
         AnalysisRun run = null;
+        // The time budget covers the whole request, repository resolution included
+        AnalysisDeadline deadline = request.getTimeBudgetMs() != null
+            ? new AnalysisDeadline(request.getTimeBudgetMs(), settings.getDeadlineReserveMs(), 
+                                   settings.getWorkers(), System.nanoTime())
+            : null;
         
         try {
-            System.out.println("[AnalyzeBranchService] Starting analysis for: " + request.getRepositoryPath());
+            System.out.println("[AnalyzeBranchService] Starting analysis for: " + request.getRepositoryPath() +
+                               (deadline != null ? " (time budget " + deadline.getBudgetMs() + " ms)" : ""));
             
             // Step 1: Get or create repository
-            System.out.println("[AnalyzeBranchService] Getting/creating repository...");
-            RepositoryRef repository = getOrCreateRepository(request);
+            if (repository == null) {
+                System.out.println("[AnalyzeBranchService] Getting/creating repository...");
+                repository = getOrCreateRepository(request);
+            }
             System.out.println("[AnalyzeBranchService] Repository ready: " + repository.getName());
             
-            // Step 2: Create and persist analysis run (with SUCCESS status, will change to ERROR if fails)
+            // Step 1b: Load previous run of this branch pair (before this run exists)
+            IncrementalBaseline baseline = isIncremental(request) ? loadIncrementalBaseline(request, repository) : null;
+            cancellation.throwIfCancelled();
+            
+            // Step 2: Create and persist analysis run (RUNNING until the pipeline finishes)
             System.out.println("[AnalyzeBranchService] Creating analysis run...");
             run = createAnalysisRun(request);
             run.setRepositoryId(repository.getId());
@@ -77,99 +156,263 @@ public class AnalyzeBranchService {
             
             System.out.println("[AnalyzeBranchService] Analysis run created with ID: " + run.getId());
             
-            // Step 3: Calculate diff
-            String repoPath = repository.getLocalPath();
-            List<DiffFile> diffFiles = diffEngine.calculateDiff(
-                repoPath, 
-                request.getBaseBranch(), 
-                request.getTargetBranch()
-            );
+            return executeRun(run, repository, baseline, Set.of(), deadline, cancellation, progressListener);
             
-            System.out.println("[AnalyzeBranchService] Diff calculated: " + diffFiles.size() + " files changed");
+        } catch (Exception e) {
+            System.err.println("[AnalyzeBranchService] ERROR: " + e.getMessage());
+            e.printStackTrace();
             
-            if (diffFiles.isEmpty()) {
-                return handleEmptyDiff(run);
+            if (run != null) {
+                handleError(run, e);
+                return mapToResultDTO(run);
+            } else {
+                // Run was never created, return error DTO
+                throw new RuntimeException("Analysis failed: " + e.getMessage(), e);
             }
+        }
+    }
+    
+    /**
+     * Continue an interrupted run (JVM stopped while RUNNING, ERROR or CANCELLED), or the
+     * files a PARTIAL run left out when its time budget ran out.
+     * Files with a persisted diff_files row were committed together with their findings,
+     * so they are skipped: they are neither sent to the endpoint again nor duplicated.
+     * The diff is recalculated from the run's branches.
+     */
+    public AnalysisResultDTO resume(Long runId, CancellationToken cancellation,
+                                    Consumer<AnalysisProgressDTO> progressListener) {
+        AnalysisRun run = null;
+        
+        try {
+            txManager.begin();
+            RepositoryRef repository;
+            Set<String> processedPaths = new HashSet<>();
+            try {
+                run = analysisRunRepo.findById(runId)
+                    .orElseThrow(() -> new Exception("Analysis run not found: " + runId));
+                if (!isResumable(run.getStatus())) {
+                    throw new Exception("Analysis run " + runId + " is " + run.getStatus() + " and cannot be resumed");
+                }
+                Long repositoryId = run.getRepositoryId();
+                repository = repositoryRepo.findById(repositoryId)
+                    .orElseThrow(() -> new Exception("Repository not found: " + repositoryId));
+                for (DiffFile file : diffFileRepo.findByAnalysisRunId(runId)) {
+                    processedPaths.add(file.getFilePath());
+                }
+                
+                run.setStatus(RunStatus.RUNNING);
+                run.setErrorMessage(null);
+                analysisRunRepo.save(run);
+                txManager.commit();
+            } catch (Exception e) {
+                txManager.rollback();
+                run = null; // nothing changed, leave the run as it was
+                throw e;
+            }
+            
+            System.out.println("[AnalyzeBranchService] Resuming run " + runId + " (" + 
+                               processedPaths.size() + " files already processed)");
+            
+            return executeRun(run, repository, null, processedPaths, null, cancellation, progressListener);
+            
+        } catch (Exception e) {
+            System.err.println("[AnalyzeBranchService] ERROR: " + e.getMessage());
+            e.printStackTrace();
+            
+            if (run != null) {
+                handleError(run, e);
+                return mapToResultDTO(run);
+            }
+            throw new RuntimeException("Resume failed: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Runs left RUNNING by a previous process, which can be resumed.
+     */
+    public List<AnalysisRun> findInterruptedRuns() throws Exception {
+        txManager.begin();
+        try {
+            List<AnalysisRun> runs = new ArrayList<>(analysisRunRepo.findByStatus(RunStatus.RUNNING));
+            txManager.commit();
+            runs.removeIf(run -> activeRunIds.contains(run.getId()));
+            return runs;
+        } catch (Exception e) {
+            txManager.rollback();
+            throw e;
+        }
+    }
+    
+    private boolean isResumable(RunStatus status) {
+        return status == RunStatus.RUNNING || status == RunStatus.ERROR || status == RunStatus.CANCELLED ||
+               status == RunStatus.PARTIAL;
+    }
+    
+    /**
+     * Steps 3-8: stream the diff through the pipeline, committing a checkpoint per written batch,
+     * then finalize the run.
+     * 
+     * @param processedPaths Files already persisted for this run (resume), skipped by the diff stage
+     * @param deadline Time budget of the run, or null to analyze every file
+     */
+    private AnalysisResultDTO executeRun(AnalysisRun run, RepositoryRef repository, 
+                                         IncrementalBaseline baseline, Set<String> processedPaths,
+                                         AnalysisDeadline deadline, CancellationToken cancellation,
+                                         Consumer<AnalysisProgressDTO> progressListener) throws Exception {
+        // Guards against resuming a run this process is still executing
+        if (!activeRunIds.add(run.getId())) {
+            throw new IllegalStateException("Analysis run " + run.getId() + " is already running");
+        }
+        
+        try {
+            // Step 3: Stream diff straight into the analysis pipeline
+            String repoPath = repository.getLocalPath();
             
-            // Step 4: Process each file
             txManager.begin();
             
             // Load active policy (inside transaction)
             SeverityPolicy activePolicy = policyRepo.findActivePolicy()
                 .orElse(null);
             
-            Map<Severity, Integer> severityCounts = new HashMap<>();
-            initializeSeverityCounts(severityCounts);
-            
-            int totalFindings = 0;
+            RunContext context = new RunContext(run, repoPath, activePolicy, cancellation, progressListener);
+            context.deadline = deadline;
+            if (settings.isContentDedup()) {
+                context.contentResults = new ConcurrentHashMap<>();
+            }
+            if (settings.isRiskScheduling()) {
+                context.scheduler = new RiskScheduler(
+                    findingRepo.countByPathAndSeverity(run.getRepositoryId(), settings.getRiskHistoryRuns()),
+                    settings.getRiskWindowFiles());
+            }
+            context.restoreCheckpoint(processedPaths.size());
+            publishProgress(context, AnalysisProgressDTO.Stage.PREPARING, null);
+            context.baseline = baseline;
+            context.hunkMode = settings.isHunkMode();
+            Map<Severity, Integer> severityCounts = context.severityCounts;
             
-            for (DiffFile diffFile : diffFiles) {
-                // Persist diff file
-                diffFile.setAnalysisRunId(run.getId());
-                DiffFile savedFile = diffFileRepo.save(diffFile);
-                
-                // Analyze file with endpoint
-                String fileContent = readFileContent(repoPath, diffFile.getFilePath());
-                List<Finding> findings = endpointClient.analyzeFile(
-                    diffFile.getFilePath(), 
-                    fileContent
+            // Step 4: Diff producer -> analyzer workers -> batched writer (this thread).
+            // Every written batch is committed with the run totals, so an interrupted run can resume.
+            // Time-budgeted: keep few files in flight so the drain after the deadline is short
+            int queueCapacity = deadline != null
+                ? Math.min(settings.getQueueCapacity(), 2 * settings.getWorkers())
+                : settings.getQueueCapacity();
+            AnalysisPipeline pipeline = new AnalysisPipeline(
+                stageExecutor,
+                settings.getWorkers(),
+                queueCapacity,
+                settings.getWriteBatchSize()
+            );
+            if (findingCache != null) {
+                // Cache misses are looked up by the writer, in this thread's transaction
+                context.cacheSession = findingCache.openSession(run.getEndpointId(), pipeline.writerExecutor());
+            }
+            // Time-budgeted: the merge base and the diff stop at the deadline even between
+            // files, while the analyzers keep the run's token and drain what was dispatched
+            context.diffCancellation = cancellation;
+            Runnable stopDiff = null;
+            CompletableFuture<Void> deadlineTimer = null;
+            if (deadline != null) {
+                CancellationToken diffCancellation = new CancellationToken();
+                stopDiff = diffCancellation::cancel;
+                cancellation.onCancel(stopDiff);
+                deadlineTimer = CompletableFuture.runAsync(() -> {
+                    deadline.expire();
+                    diffCancellation.cancel();
+                }, CompletableFuture.delayedExecutor(Math.max(0, deadline.nanosUntilStop()), TimeUnit.NANOSECONDS));
+                context.diffCancellation = diffCancellation;
+            }
+            boolean cancelled = false;
+            try {
+                pipeline.run(
+                    sink -> streamDiff(context, processedPaths, sink),
+                    diffFile -> analyzeFile(context, diffFile),
+                    batch -> persistBatch(context, batch),
+                    cancellation
                 );
-                
-                System.out.println("[AnalyzeBranchService] File " + diffFile.getFilePath() + " returned " + findings.size() + " findings");
-                
-                // Apply policy and persist findings
-                for (Finding finding : findings) {
-                    finding.setAnalysisRunId(run.getId());
-                    finding.setDiffFileId(savedFile.getId());
-                    
-                    // Apply policy classification
-                    if (activePolicy != null) {
-                        policyEngine.applyPolicy(finding, activePolicy);
-                    }
-                    
-                    findingRepo.save(finding);
-                    
-                    // Update counts
-                    Severity severity = finding.getSeverityFinal();
-                    severityCounts.put(severity, severityCounts.get(severity) + 1);
-                    totalFindings++;
+            } catch (CancellationException e) {
+                cancelled = true;
+                System.out.println("[AnalyzeBranchService] Analysis cancelled after " + 
+                                   context.filesPersisted.get() + " files");
+            } finally {
+                if (deadlineTimer != null) {
+                    deadlineTimer.cancel(false);
+                    cancellation.removeOnCancel(stopDiff);
                 }
             }
             
+            // Files actually persisted (all diffed files unless cancelled or out of time)
+            int totalFiles = context.filesPersisted.get();
+            boolean partial = !cancelled && deadline != null && deadline.isReached() &&
+                              (!context.diffComplete || totalFiles < context.filesDiffed.get());
+            run.setDiffTotalFiles(context.filesDiffed.get());
+            System.out.println("[AnalyzeBranchService] Diff calculated: " + context.filesDiffed.get() + " files changed");
+            
+            if (totalFiles == 0 && !cancelled && !partial) {
+                txManager.commit();
+                publishProgress(context, AnalysisProgressDTO.Stage.COMPLETED, null);
+                return handleEmptyDiff(run);
+            }
+            
+            int totalFindings = severityCounts.values().stream().mapToInt(Integer::intValue).sum();
+            
             System.out.println("[AnalyzeBranchService] Total findings: " + totalFindings);
+            if (baseline != null) {
+                System.out.println("[AnalyzeBranchService] Incremental: reused findings for " + 
+                                   context.reusedFiles.get() + " of " + totalFiles + 
+                                   " files from run " + baseline.getRunId());
+            }
+            
+            if (context.hunkMode) {
+                long full = context.fullChars.get();
+                System.out.println("[AnalyzeBranchService] Hunk mode: sent " + context.payloadChars.get() + 
+                                   " of " + full + " chars" +
+                                   (full > 0 ? " (" + (100 * context.payloadChars.get() / full) + "%)" : ""));
+            }
+            
+            if (context.cacheSession != null) {
+                context.cacheSession.flushPending();
+                System.out.println("[AnalyzeBranchService] " + findingCache);
+            }
+            
+            if (context.contentResults != null) {
+                System.out.println("[AnalyzeBranchService] Dedup: " + context.contentResults.size() + 
+                                   " unique contents, " + context.dedupSavedCalls.get() + " endpoint calls saved");
+            }
             
             // Step 6: Update run with results
-            run.setTotalFiles(diffFiles.size());
-            run.setTotalFindings(totalFindings);
-            run.setCriticalCount(severityCounts.get(Severity.CRITICAL));
-            run.setHighCount(severityCounts.get(Severity.HIGH));
-            run.setMediumCount(severityCounts.get(Severity.MEDIUM));
-            run.setLowCount(severityCounts.get(Severity.LOW));
-            run.setInfoCount(severityCounts.get(Severity.INFO));
-            run.markAsCompleted();
+            context.applyTotals();
+            if (cancelled) {
+                run.markAsCancelled();
+            } else if (partial) {
+                // Without the full diff the total is unknown: coverage is of the files seen so far
+                run.markAsPartial("Time budget of " + deadline.getBudgetMs() + " ms reached: " + totalFiles +
+                                  (context.diffComplete
+                                      ? " of " + context.filesDiffed.get() + " files analyzed"
+                                      : " of the first " + context.filesDiffed.get() +
+                                        " files diffed analyzed (diff stopped at the deadline)"));
+                System.out.println("[AnalyzeBranchService] " + run.getErrorMessage());
+            } else {
+                run.markAsCompleted();
+            }
             
             analysisRunRepo.save(run);
             txManager.commit();
             
+            if (cancelled) {
+                publishProgress(context, AnalysisProgressDTO.Stage.CANCELLED, null);
+                return mapToResultDTO(run, context);
+            }
+            
             // Step 7: Update repository last analyzed timestamp
             updateRepositoryTimestamp(repository);
             
             // Step 8: Rotate to next mock scenario for next analysis
             rotateMockScenario();
             
-            return mapToResultDTO(run);
-            
-        } catch (Exception e) {
-            System.err.println("[AnalyzeBranchService] ERROR: " + e.getMessage());
-            e.printStackTrace();
-            
-            if (run != null) {
-                handleError(run, e);
-                return mapToResultDTO(run);
-            } else {
-                // Run was never created, return error DTO
-                throw new RuntimeException("Analysis failed: " + e.getMessage(), e);
-            }
+            publishProgress(context, AnalysisProgressDTO.Stage.COMPLETED, null);
+            return mapToResultDTO(run, context);
+        } finally {
+            activeRunIds.remove(run.getId());
         }
     }
     
@@ -207,36 +450,7 @@ public class AnalyzeBranchService {
      * Get or create repository based on local path from request.
      */
     private RepositoryRef getOrCreateRepository(AnalysisRequestDTO request) throws Exception {
-        String repoPath = request.getRepositoryPath();
-        if (repoPath == null || repoPath.trim().isEmpty()) {
-            throw new Exception("Repository path is required");
-        }
-        
-        txManager.begin();
-        try {
-            // For now, just create a temporary repository object
-            // In production, you'd search by path and reuse existing ones
-            String repoName = extractRepoName(repoPath);
-            RepositoryRef newRepo = new RepositoryRef(null, repoName, repoPath);
-            newRepo = repositoryRepo.save(newRepo);
-            txManager.commit();
-            
-            System.out.println("[AnalyzeBranchService] Created repository: " + repoName + " (ID: " + newRepo.getId() + ")");
-            return newRepo;
-            
-        } catch (Exception e) {
-            txManager.rollback();
-            throw e;
-        }
-    }
-    
-    /**
-     * Extract repository name from path.
-     */
-    private String extractRepoName(String path) {
-        String normalized = path.replace("\\", "/");
-        String[] parts = normalized.split("/");
-        return parts[parts.length - 1];
+        return repositoryRegistry.resolve(request.getRepositoryPath());
     }
     
     private AnalysisResultDTO handleEmptyDiff(AnalysisRun run) {
@@ -267,7 +481,12 @@ public class AnalyzeBranchService {
             
             txManager.begin();
             if (run != null && run.getId() != null) {
-                run.markAsFailed(e.getMessage());
+                // Cancelled before the pipeline started: nothing was persisted
+                if (e instanceof CancellationException) {
+                    run.markAsCancelled();
+                } else {
+                    run.markAsFailed(e.getMessage());
+                }
                 analysisRunRepo.save(run);
             }
             txManager.commit();
@@ -297,25 +516,353 @@ public class AnalyzeBranchService {
         }
     }
     
-    private String readFileContent(String repoPath, String filePath) {
+    /**
+     * Writer stage: persist a batch of analyzed files and their findings, keeping severity counts.
+     * The batch is committed with the updated run totals: a diff_files row marks its file as processed.
+     */
+    private void persistBatch(RunContext context, List<AnalysisPipeline.AnalyzedFile> batch) 
+            throws RepositoryException, TxException {
+        AnalysisRun run = context.run;
+        Map<Severity, Integer> severityCounts = context.severityCounts;
+        List<DiffFile> files = new ArrayList<>(batch.size());
+        for (AnalysisPipeline.AnalyzedFile analyzed : batch) {
+            analyzed.diffFile.setAnalysisRunId(run.getId());
+            files.add(analyzed.diffFile);
+        }
+        diffFileRepo.saveAll(files);
+        context.filesPersisted.addAndGet(files.size());
+        
+        List<Finding> findings = new ArrayList<>();
+        for (AnalysisPipeline.AnalyzedFile analyzed : batch) {
+            for (Finding finding : analyzed.findings) {
+                finding.setAnalysisRunId(run.getId());
+                finding.setDiffFileId(analyzed.diffFile.getId());
+                finding.setFilePath(analyzed.diffFile.getFilePath());
+                findings.add(finding);
+                
+                // Update counts
+                Severity severity = finding.getSeverityFinal();
+                severityCounts.put(severity, severityCounts.get(severity) + 1);
+            }
+        }
+        findingRepo.saveAll(findings);
+        
+        if (context.cacheSession != null) {
+            context.cacheSession.flushPending();
+        }
+        
+        // Checkpoint: files, findings and run totals become durable together
+        context.applyTotals();
+        analysisRunRepo.save(run);
+        txManager.commit();
+        txManager.begin();
+        
+        publishProgress(context, AnalysisProgressDTO.Stage.PERSIST, null);
+    }
+    
+    /**
+     * Diff stage: resolve the diff base, then stream changed files into the pipeline, publishing
+     * one event per file. In hunk mode each file comes with its changed line ranges.
+     * With risk scheduling files go through the scheduler's window (metadata only, no
+     * contents), which lets the riskiest of the next files go first.
+     * Time-budgeted runs stop here at the deadline: git is killed instead of read to the end.
+     */
+    private void streamDiff(RunContext context, Set<String> processedPaths, Consumer<DiffFile> sink) 
+            throws DiffException {
         try {
-            File file = new File(repoPath, filePath);
-            if (!file.exists() || !file.isFile()) {
-                return "";
+            resolveDiffBase(context);
+            streamDiffFiles(context, processedPaths, sink);
+        } catch (CancellationException e) {
+            if (context.cancellation.isCancelled() || context.deadline == null || !context.deadline.isReached()) {
+                throw e;
             }
-            return Files.readString(file.toPath());
-        } catch (Exception e) {
-            System.err.println("Failed to read file content: " + filePath);
-            return "";
+            System.out.println("[AnalyzeBranchService] Time budget reached: diff stopped after " + 
+                               context.filesDiffed.get() + " files");
         }
     }
     
-    private void initializeSeverityCounts(Map<Severity, Integer> counts) {
-        counts.put(Severity.CRITICAL, 0);
-        counts.put(Severity.HIGH, 0);
-        counts.put(Severity.MEDIUM, 0);
-        counts.put(Severity.LOW, 0);
-        counts.put(Severity.INFO, 0);
+    private void resolveDiffBase(RunContext context) throws DiffException {
+        AnalysisRun run = context.run;
+        context.diffBase = run.getBaseBranch();
+        if (settings.getDiffMode() == DiffMode.MERGE_BASE) {
+            // Only what the target changed since it forked, not what the base got meanwhile
+            context.diffBase = diffEngine.getMergeBase(context.repoPath, run.getBaseBranch(), run.getTargetBranch(),
+                                                       context.diffCancellation);
+            System.out.println("[AnalyzeBranchService] Diffing " + run.getTargetBranch() + " against merge base " +
+                               context.diffBase + " of " + run.getBaseBranch());
+        }
+    }
+    
+    private void streamDiffFiles(RunContext context, Set<String> processedPaths, Consumer<DiffFile> sink) 
+            throws DiffException {
+        RiskScheduler scheduler = context.scheduler;
+        Consumer<DiffFile> consumer = diffFile -> {
+            context.diffCancellation.throwIfCancelled();
+            context.filesDiffed.incrementAndGet();
+            publishProgress(context, AnalysisProgressDTO.Stage.DIFF, diffFile.getFilePath());
+            // Resume: already checkpointed with its findings
+            if (processedPaths.contains(diffFile.getFilePath())) {
+                return;
+            }
+            DiffFile next = scheduler != null ? scheduler.offer(diffFile) : diffFile;
+            if (next != null && !dispatch(context, next, sink)) {
+                // Out of time: the rest of the diff would only be read to be dropped
+                context.diffCancellation.cancel();
+                context.diffCancellation.throwIfCancelled();
+            }
+        };
+        if (context.hunkMode) {
+            diffEngine.streamDiffWithHunks(context.repoPath, context.diffBase, context.run.getTargetBranch(),
+                                           settings.getHunkContextLines(), consumer, context.diffCancellation);
+        } else {
+            diffEngine.streamDiff(context.repoPath, context.diffBase, context.run.getTargetBranch(),
+                                  consumer, context.diffCancellation);
+        }
+        context.diffComplete = true;
+        
+        if (scheduler != null) {
+            DiffFile diffFile;
+            while ((diffFile = scheduler.poll()) != null) {
+                context.cancellation.throwIfCancelled();
+                if (!dispatch(context, diffFile, sink)) {
+                    break;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Hand a file to the analyzers unless the run's time budget is near.
+     */
+    private boolean dispatch(RunContext context, DiffFile diffFile, Consumer<DiffFile> sink) {
+        if (context.deadline != null && !context.deadline.tryDispatch()) {
+            return false;
+        }
+        sink.accept(diffFile);
+        return true;
+    }
+    
+    /**
+     * Read, analyze and classify a single file. Safe to run on a worker thread (no DB access).
+     */
+    private List<Finding> analyzeFile(RunContext context, DiffFile diffFile) throws EndpointException {
+        context.cancellation.throwIfCancelled();
+        long start = System.nanoTime();
+        List<Finding> findings = null;
+        
+        if (context.hunkMode) {
+            diffFile.setHunkKey(IncrementalBaseline.hunkKey(diffFile.getChangedLines()));
+        }
+        // Incremental: reuse previous findings when the target blob (set by the diff) is unchanged.
+        // Read from the object database the content is that blob; working tree files are
+        // checked against it once loaded (analyzeContent)
+        if (context.baseline != null && contentLoader.readsRevisions()) {
+            findings = reuse(context, diffFile);
+        }
+        
+        if (findings == null) {
+            findings = analyzeContent(context, diffFile);
+        }
+        
+        // Apply policy classification (also re-classifies reused findings under the active policy)
+        if (context.policy != null) {
+            for (Finding finding : findings) {
+                policyEngine.applyPolicy(finding, context.policy);
+            }
+        }
+        
+        if (context.deadline != null) {
+            context.deadline.recordAnalysis(System.nanoTime() - start);
+        }
+        context.filesAnalyzed.incrementAndGet();
+        publishProgress(context, AnalysisProgressDTO.Stage.ANALYZE, diffFile.getFilePath());
+        return findings;
+    }
+    
+    private List<Finding> reuse(RunContext context, DiffFile diffFile) {
+        List<Finding> findings = context.baseline.reuse(diffFile);
+        if (findings != null) {
+            context.reusedFiles.incrementAndGet();
+        }
+        return findings;
+    }
+    
+    /**
+     * Load the file (bounded window), then take findings from the cache or the endpoint.
+     * Binary files are flagged and skipped. In hunk mode only the changed windows are sent.
+     * Files with the same content (copies, renames, vendored duplicates) cost one endpoint
+     * call per run: the first one analyzes it, the others wait for and copy its findings.
+     */
+    private List<Finding> analyzeContent(RunContext context, DiffFile diffFile) throws EndpointException {
+        FileContent content = contentLoader.load(context.repoPath, context.run.getTargetBranch(), diffFile.getFilePath());
+        if (!content.isMissing()) {
+            diffFile.setContentBytes(content.getSizeBytes());
+            diffFile.setContentCharset(content.getCharset());
+            diffFile.setTruncated(content.isTruncated());
+            diffFile.setBinary(content.isBinary());
+        }
+        
+        // Working tree: the diff's blob id only describes the file if it wasn't edited since.
+        // Otherwise the blob id isn't recorded, so a later run doesn't reuse these findings either
+        if (!contentLoader.readsRevisions() && diffFile.getBlobId() != null) {
+            if (!diffFile.getBlobId().equals(FindingCache.contentHash(content.getText()))) {
+                diffFile.setBlobId(null);
+            } else if (context.baseline != null) {
+                List<Finding> reused = reuse(context, diffFile);
+                if (reused != null) {
+                    return reused;
+                }
+            }
+        }
+        if (content.isBinary()) {
+            System.out.println("[AnalyzeBranchService] Skipping binary file " + diffFile.getFilePath());
+            return new ArrayList<>();
+        }
+        
+        String fileContent = content.getText();
+
+        
+        // Hunk mode: files without hunks in the diff (e.g. pure renames) still go whole
+        List<ContentWindow> windows = null;
+        List<LineRange> ranges = diffFile.getChangedLines();
+        if (ranges != null) {
+            windows = HunkWindows.slice(fileContent, ranges);
+            if (windows.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+        
+        String contentSha = null;
+        if (context.cacheSession != null || context.contentResults != null) {
+            contentSha = FindingCache.contentHash(windows != null ? HunkWindows.cacheKeyText(windows) : fileContent);
+        }
+        
+        CompletableFuture<List<Finding>> shared = null;
+        if (context.contentResults != null) {
+            shared = new CompletableFuture<>();
+            CompletableFuture<List<Finding>> first = context.contentResults.putIfAbsent(contentSha, shared);
+            if (first != null) {
+                List<Finding> findings = copyRaw(awaitShared(first, context.cancellation));
+                context.dedupSavedCalls.incrementAndGet();
+                System.out.println("[AnalyzeBranchService] File " + diffFile.getFilePath() + 
+                                   " has the same content as an analyzed file, reused " + findings.size() + " findings");
+                return findings;
+            }
+        }
+        
+        try {
+            List<Finding> findings = loadFindings(context, diffFile, fileContent, windows, contentSha);
+            if (shared != null) {
+                // Copy now: the policy is applied to this file's findings after this returns
+                shared.complete(copyRaw(findings));
+            }
+            return findings;
+        } catch (EndpointException | RuntimeException e) {
+            if (shared != null) {
+                shared.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Findings for one content, from the cache or the endpoint.
+     */
+    private List<Finding> loadFindings(RunContext context, DiffFile diffFile, String fileContent,
+                                       List<ContentWindow> windows, String contentSha) throws EndpointException {
+        if (context.cacheSession != null) {
+            List<Finding> cached = context.cacheSession.lookup(contentSha, context.cancellation);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        
+        List<Finding> findings;
+        if (windows != null) {
+            context.payloadChars.addAndGet(HunkWindows.payloadLength(windows));
+            context.fullChars.addAndGet(fileContent.length());
+            findings = endpointClient.analyzeWindows(diffFile.getFilePath(), windows, context.cancellation);
+        } else {
+            findings = endpointClient.analyzeFile(diffFile.getFilePath(), fileContent, context.cancellation);
+        }
+        if (context.cacheSession != null) {
+            context.cacheSession.put(contentSha, findings);
+        }
+        System.out.println("[AnalyzeBranchService] File " + diffFile.getFilePath() + " returned " + findings.size() + " findings");
+        return findings;
+    }
+    
+    /**
+     * Wait for the findings of the file with the same content. Analyzed by another worker (or
+     * earlier by this one), so the wait is at most one endpoint call.
+     */
+    private List<Finding> awaitShared(CompletableFuture<List<Finding>> shared, CancellationToken cancellation) 
+            throws EndpointException {
+        try {
+            while (true) {
+                cancellation.throwIfCancelled();
+                try {
+                    return shared.get(100, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // Check cancellation again
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for identical content");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof EndpointException) {
+                throw (EndpointException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new EndpointException("Analysis of identical content failed", e.getCause());
+        }
+    }
+    
+    private static List<Finding> copyRaw(List<Finding> findings) {
+        List<Finding> copies = new ArrayList<>(findings.size());
+        for (Finding finding : findings) {
+            copies.add(finding.copyRaw());
+        }
+        return copies;
+    }
+    
+    private boolean isIncremental(AnalysisRequestDTO request) {
+        return request.getIncremental() != null 
+            ? request.getIncremental() 
+            : settings.isIncrementalByDefault();
+    }
+    
+    /**
+     * Load blob ids and findings of the previous successful run of the same branch pair.
+     * Returns an empty baseline when there is none, so this run still records its blob ids.
+     */
+    private IncrementalBaseline loadIncrementalBaseline(AnalysisRequestDTO request, RepositoryRef repository) 
+            throws Exception {
+        txManager.begin();
+        try {
+            Optional<AnalysisRun> previous = analysisRunRepo.findLatestSuccessful(
+                repository.getLocalPath(),
+                request.getBaseBranch(),
+                request.getTargetBranch()
+            );
+            IncrementalBaseline baseline = previous.isPresent()
+                ? new IncrementalBaseline(
+                    previous.get().getId(),
+                    diffFileRepo.findByAnalysisRunId(previous.get().getId()),
+                    findingRepo.findByAnalysisRunId(previous.get().getId()))
+                : new IncrementalBaseline(null, List.of(), List.of());
+            txManager.commit();
+            
+            System.out.println("[AnalyzeBranchService] Incremental baseline: run " + baseline.getRunId() + 
+                               " with " + baseline.size() + " recorded blobs");
+            return baseline;
+        } catch (Exception e) {
+            txManager.rollback();
+            throw e;
+        }
     }
     
     /**
@@ -327,6 +874,100 @@ public class AnalyzeBranchService {
         }
     }
     
+    private void publishProgress(RunContext context, AnalysisProgressDTO.Stage stage, String currentFile) {
+        try {
+            context.progressListener.accept(new AnalysisProgressDTO(
+                context.run.getId(),
+                stage,
+                context.filesDiffed.get(),
+                context.filesAnalyzed.get(),
+                context.filesPersisted.get(),
+                context.diffComplete,
+                currentFile
+            ));
+        } catch (RuntimeException e) {
+            // A broken listener must not fail the analysis
+            System.err.println("[AnalyzeBranchService] Progress listener failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Per-run state shared with the pipeline stages.
+     * Analyzer workers only read it (apart from the atomic counters); the writer owns severityCounts.
+     */
+    private static class RunContext {
+        final AnalysisRun run;
+        final String repoPath;
+        final SeverityPolicy policy;
+        final Map<Severity, Integer> severityCounts = new HashMap<>();
+        final CancellationToken cancellation;
+        CancellationToken diffCancellation;   // the run's token, or one also cancelled at the deadline
+        final Consumer<AnalysisProgressDTO> progressListener;
+        final AtomicInteger reusedFiles = new AtomicInteger();
+        final AtomicInteger filesDiffed = new AtomicInteger();
+        final AtomicInteger filesAnalyzed = new AtomicInteger();
+        final AtomicInteger filesPersisted = new AtomicInteger();
+        volatile boolean diffComplete;
+        String diffBase;   // base branch, or its merge base with the target
+        IncrementalBaseline baseline;        // null when not incremental
+        boolean hunkMode;   // files come with their changed line ranges
+        RiskScheduler scheduler;   // null when files go in diff order
+        AnalysisDeadline deadline;   // null when not time-budgeted
+        FindingCache.Session cacheSession;   // null when the cache is off
+        Map<String, CompletableFuture<List<Finding>>> contentResults;   // null when dedup is off
+        final AtomicInteger dedupSavedCalls = new AtomicInteger();
+        final AtomicLong payloadChars = new AtomicLong();
+        final AtomicLong fullChars = new AtomicLong();
+        
+        RunContext(AnalysisRun run, String repoPath, SeverityPolicy policy,
+                   CancellationToken cancellation, Consumer<AnalysisProgressDTO> progressListener) {
+            this.run = run;
+            this.repoPath = repoPath;
+            this.policy = policy;
+            this.cancellation = cancellation;
+            this.progressListener = progressListener;
+            for (Severity severity : Severity.values()) {
+                severityCounts.put(severity, 0);
+            }
+        }
+        
+        /**
+         * Resume: start counters from the totals committed with the last checkpoint.
+         */
+        void restoreCheckpoint(int processedFiles) {
+            filesAnalyzed.set(processedFiles);
+            filesPersisted.set(processedFiles);
+            severityCounts.put(Severity.CRITICAL, valueOrZero(run.getCriticalCount()));
+            severityCounts.put(Severity.HIGH, valueOrZero(run.getHighCount()));
+            severityCounts.put(Severity.MEDIUM, valueOrZero(run.getMediumCount()));
+            severityCounts.put(Severity.LOW, valueOrZero(run.getLowCount()));
+            severityCounts.put(Severity.INFO, valueOrZero(run.getInfoCount()));
+        }
+        
+        /**
+         * Copy the current totals onto the run (writer thread only).
+         */
+        void applyTotals() {
+            run.setTotalFiles(filesPersisted.get());
+            run.setTotalFindings(severityCounts.values().stream().mapToInt(Integer::intValue).sum());
+            run.setCriticalCount(severityCounts.get(Severity.CRITICAL));
+            run.setHighCount(severityCounts.get(Severity.HIGH));
+            run.setMediumCount(severityCounts.get(Severity.MEDIUM));
+            run.setLowCount(severityCounts.get(Severity.LOW));
+            run.setInfoCount(severityCounts.get(Severity.INFO));
+        }
+        
+        private static int valueOrZero(Integer value) {
+            return value != null ? value : 0;
+        }
+    }
+    
+    private AnalysisResultDTO mapToResultDTO(AnalysisRun run, RunContext context) {
+        AnalysisResultDTO dto = mapToResultDTO(run);
+        dto.setDedupSavedCalls(context.dedupSavedCalls.get());
+        return dto;
+    }
+    
     private AnalysisResultDTO mapToResultDTO(AnalysisRun run) {
         AnalysisResultDTO dto = new AnalysisResultDTO();
         dto.setAnalysisRunId(run.getId());
@@ -335,6 +976,7 @@ public class AnalyzeBranchService {
         dto.setCompletedAt(run.getCompletedAt());
         dto.setDurationMs(run.getDurationMs());
         dto.setTotalFiles(run.getTotalFiles());
+        dto.setDiffTotalFiles(run.getDiffTotalFiles());
         dto.setTotalFindings(run.getTotalFindings());
         dto.setCriticalCount(run.getCriticalCount());
         dto.setHighCount(run.getHighCount());
@@ -0,0 +1,196 @@
+package app.application.service;
+
+import app.application.dto.AnalysisRequestDTO;
+import app.application.dto.AnalysisResultDTO;
+import app.application.dto.BatchAnalysisRequestDTO;
+import app.application.dto.BatchAnalysisResultDTO;
+import app.domain.entity.RepositoryRef;
+import app.domain.port.CancellationToken;
+import app.domain.port.DiffEngine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs many branch analyses (repository x base x target) concurrently, at most
+ * maxConcurrentJobs at a time, and aggregates their results.
+ *
+ * Each distinct repository is resolved once (one repositories row and one branch listing
+ * per batch) and all jobs share the same DiffEngine. Jobs run on their own executor,
+ * separate from the pipeline stage executor, so a full batch can't starve its own pipelines.
+ */
+public class BatchAnalysisService {
+
+    private final AnalyzeBranchService analyzeBranchService;
+    private final DiffEngine diffEngine;
+    private final ExecutorService jobExecutor;
+    private final int maxConcurrentJobs;
+
+    public BatchAnalysisService(AnalyzeBranchService analyzeBranchService, DiffEngine diffEngine,
+                                ExecutorService jobExecutor, int maxConcurrentJobs) {
+        this.analyzeBranchService = analyzeBranchService;
+        this.diffEngine = diffEngine;
+        this.jobExecutor = jobExecutor;
+        this.maxConcurrentJobs = Math.max(1, maxConcurrentJobs);
+    }
+
+    public BatchAnalysisResultDTO analyzeAll(BatchAnalysisRequestDTO request) {
+        return analyzeAll(request, CancellationToken.none());
+    }
+
+    /**
+     * Run every job of the batch and wait for all of them.
+     * Cancelling the token cancels the running analyses (saved as CANCELLED) and skips the pending ones.
+     */
+    public BatchAnalysisResultDTO analyzeAll(BatchAnalysisRequestDTO request, CancellationToken cancellation) {
+        long start = System.nanoTime();
+        BatchAnalysisResultDTO batchResult = new BatchAnalysisResultDTO();
+
+        // Shared per repository: one repositories row and one branch listing
+        Map<String, RepositoryRef> repositories = new HashMap<>();
+        Map<String, List<String>> branchesByRepo = new HashMap<>();
+        Map<String, String> repositoryErrors = new HashMap<>();
+
+        List<AnalysisRequestDTO> jobs = expandJobs(request, repositories, branchesByRepo, repositoryErrors);
+        System.out.println("[BatchAnalysisService] Running " + jobs.size() + " jobs across " +
+                           repositories.size() + " repositories (max " + maxConcurrentJobs + " concurrent)");
+
+        Semaphore permits = new Semaphore(maxConcurrentJobs);
+        Map<AnalysisRequestDTO, Future<AnalysisResultDTO>> futures = new LinkedHashMap<>();
+        Map<AnalysisRequestDTO, String> errors = new HashMap<>();
+
+        for (AnalysisRequestDTO job : jobs) {
+            String error = validateJob(job, branchesByRepo, repositoryErrors);
+            if (error != null) {
+                errors.put(job, error);
+                futures.put(job, null);
+                continue;
+            }
+
+            RepositoryRef repository = repositories.get(job.getRepositoryPath());
+            futures.put(job, jobExecutor.submit(() -> {
+                permits.acquire();
+                try {
+                    cancellation.throwIfCancelled();
+                    return analyzeBranchService.analyze(job, repository, cancellation, progress -> { });
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        for (Map.Entry<AnalysisRequestDTO, Future<AnalysisResultDTO>> entry : futures.entrySet()) {
+            AnalysisRequestDTO job = entry.getKey();
+            AnalysisResultDTO result = null;
+            String error = errors.get(job);
+            if (entry.getValue() != null) {
+                try {
+                    result = entry.getValue().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancellation.cancel();
+                    error = "Batch interrupted";
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    error = cause instanceof CancellationException ? "Cancelled before start" : cause.getMessage();
+                }
+            }
+            batchResult.addOutcome(new BatchAnalysisResultDTO.JobOutcome(
+                job.getRepositoryPath(), job.getBaseBranch(), job.getTargetBranch(), result, error));
+        }
+
+        batchResult.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        System.out.println("[BatchAnalysisService] " + batchResult);
+        return batchResult;
+    }
+
+    /**
+     * Resolve each repository once and expand ALL_BRANCHES targets from its branch listing.
+     */
+    private List<AnalysisRequestDTO> expandJobs(BatchAnalysisRequestDTO request,
+                                                Map<String, RepositoryRef> repositories,
+                                                Map<String, List<String>> branchesByRepo,
+                                                Map<String, String> repositoryErrors) {
+        List<AnalysisRequestDTO> jobs = new ArrayList<>();
+        for (AnalysisRequestDTO job : request.getJobs()) {
+            String repoPath = job.getRepositoryPath();
+            if (!repositories.containsKey(repoPath) && !repositoryErrors.containsKey(repoPath)) {
+                resolveRepository(job, repositories, branchesByRepo, repositoryErrors);
+            }
+
+            List<String> branches = branchesByRepo.get(repoPath);
+            if (BatchAnalysisRequestDTO.ALL_BRANCHES.equals(job.getTargetBranch()) && branches != null) {
+                for (String branch : branches) {
+                    if (!branch.equals(job.getBaseBranch())) {
+                        jobs.add(copyJob(request, job, branch));
+                    }
+                }
+            } else {
+                jobs.add(copyJob(request, job, job.getTargetBranch()));
+            }
+        }
+        return jobs;
+    }
+
+    private void resolveRepository(AnalysisRequestDTO job, Map<String, RepositoryRef> repositories,
+                                   Map<String, List<String>> branchesByRepo,
+                                   Map<String, String> repositoryErrors) {
+        String repoPath = job.getRepositoryPath();
+        try {
+            if (!diffEngine.isValidRepository(repoPath)) {
+                throw new IllegalArgumentException("Invalid Git repository: " + repoPath);
+            }
+            branchesByRepo.put(repoPath, diffEngine.getBranches(repoPath));
+            repositories.put(repoPath, analyzeBranchService.resolveRepository(job));
+        } catch (Exception e) {
+            System.err.println("[BatchAnalysisService] Repository " + repoPath + " skipped: " + e.getMessage());
+            repositoryErrors.put(repoPath, e.getMessage());
+        }
+    }
+
+    private AnalysisRequestDTO copyJob(BatchAnalysisRequestDTO request, AnalysisRequestDTO job, String target) {
+        AnalysisRequestDTO copy = new AnalysisRequestDTO(
+            request.getUserId() != null ? request.getUserId() : job.getUserId(),
+            job.getRepositoryId(),
+            job.getBaseBranch(),
+            target
+        );
+        copy.setRepositoryPath(job.getRepositoryPath());
+        copy.setIncremental(job.getIncremental() != null ? job.getIncremental() : request.getIncremental());
+        return copy;
+    }
+
+    /**
+     * Fail fast on bad jobs without creating a run.
+     */
+    private String validateJob(AnalysisRequestDTO job, Map<String, List<String>> branchesByRepo,
+                               Map<String, String> repositoryErrors) {
+        String repoError = repositoryErrors.get(job.getRepositoryPath());
+        if (repoError != null) {
+            return repoError;
+        }
+        if (job.getBaseBranch() == null || job.getTargetBranch() == null ||
+                BatchAnalysisRequestDTO.ALL_BRANCHES.equals(job.getTargetBranch())) {
+            return "Base and target branches are required";
+        }
+        if (job.getBaseBranch().equals(job.getTargetBranch())) {
+            return "Base and target branches must be different";
+        }
+        List<String> branches = branchesByRepo.get(job.getRepositoryPath());
+        for (String branch : new String[] { job.getBaseBranch(), job.getTargetBranch() }) {
+            if (branches != null && !branches.contains(branch)) {
+                return "Unknown branch: " + branch;
+            }
+        }
+        return null;
+    }
+}
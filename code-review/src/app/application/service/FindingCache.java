@@ -0,0 +1,288 @@
+package app.application.service;
+
+import app.domain.entity.Finding;
+import app.domain.port.CancellationToken;
+import app.domain.port.FindingCacheRepository;
+import app.domain.port.RepositoryException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed cache of raw endpoint findings, keyed by (content SHA, endpoint id, endpoint version).
+ *
+ * A bounded in-memory LRU, shared by all runs, sits in front of the finding_cache tables.
+ * Each run works through its own Session, which holds the run's endpoint and its unwritten
+ * entries. Analyzer workers never touch the database: a memory miss is queued and looked up
+ * on the pipeline writer, together with the other misses queued meanwhile, inside the run
+ * transaction; new entries are written there too (see Session.flushPending).
+ * Changing endpoint_mocks.version drops the entries of the old version.
+ */
+public class FindingCache {
+
+    private final FindingCacheRepository repository;
+    private final int maxEntries;
+    private final Map<String, List<Finding>> entries;
+    private final Map<Long, String> endpointVersions = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong dbHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FindingCache(FindingCacheRepository repository, int maxEntries) {
+        this.repository = repository;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Finding>> eldest) {
+                if (size() > FindingCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Start a run with this endpoint, resolving its current version. Must be called inside
+     * the caller's transaction. When the version changed since the endpoint's last run, its
+     * stale entries are dropped from the database (in memory they are never hit again).
+     *
+     * @param databaseExecutor Runs database lookups on the thread owning the run transaction
+     */
+    public Session openSession(Long endpointId, Executor databaseExecutor) throws RepositoryException {
+        String version = repository.findEndpointVersion(endpointId).orElse("unversioned");
+        synchronized (this) {
+            if (!version.equals(endpointVersions.get(endpointId))) {
+                int deleted = repository.deleteOtherVersions(endpointId, version);
+                endpointVersions.put(endpointId, version);
+                System.out.println("[FindingCache] Endpoint " + endpointId + " version " + version +
+                                   " (dropped " + deleted + " stale entries)");
+            }
+        }
+        return new Session(endpointId, version, databaseExecutor);
+    }
+
+    /**
+     * The cache as seen by one run: its endpoint version, queued lookups and unwritten entries.
+     */
+    public class Session {
+
+        private final Long endpointId;
+        private final String endpointVersion;
+        private final Executor databaseExecutor;
+        private final Queue<PendingLookup> pendingLookups = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean lookupScheduled = new AtomicBoolean();
+        private final Queue<PendingEntry> pendingWrites = new ConcurrentLinkedQueue<>();
+
+        private Session(Long endpointId, String endpointVersion, Executor databaseExecutor) {
+            this.endpointId = endpointId;
+            this.endpointVersion = endpointVersion;
+            this.databaseExecutor = databaseExecutor;
+        }
+
+        /**
+         * Copies of the cached raw findings for this content, or null on a miss. A memory miss
+         * waits for the database lookup on the writer.
+         */
+        public List<Finding> lookup(String contentSha, CancellationToken cancellation) {
+            String key = key(contentSha);
+            List<Finding> cached;
+            synchronized (FindingCache.this) {
+                cached = entries.get(key);
+            }
+            if (cached != null) {
+                hits.incrementAndGet();
+                return copyRaw(cached);
+            }
+
+            PendingLookup lookup = new PendingLookup(contentSha);
+            pendingLookups.add(lookup);
+            // One task drains every lookup queued until it runs
+            if (lookupScheduled.compareAndSet(false, true)) {
+                databaseExecutor.execute(this::loadPending);
+            }
+            List<Finding> stored = await(lookup.result, cancellation);
+            if (stored == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            dbHits.incrementAndGet();
+            return copyRaw(stored);
+        }
+
+        /**
+         * Remember raw findings for this content. Persisted on the next flushPending.
+         */
+        public void put(String contentSha, List<Finding> findings) {
+            List<Finding> raw = copyRaw(findings);
+            synchronized (FindingCache.this) {
+                entries.put(key(contentSha), raw);
+            }
+            pendingWrites.add(new PendingEntry(contentSha, raw));
+        }
+
+        /**
+         * Write queued entries. Must be called inside the caller's transaction.
+         */
+        public void flushPending() throws RepositoryException {
+            PendingEntry entry;
+            while ((entry = pendingWrites.poll()) != null) {
+                repository.save(entry.contentSha, endpointId, endpointVersion, entry.findings);
+            }
+        }
+
+        /**
+         * Writer thread: look up every queued content in one query.
+         */
+        private void loadPending() {
+            // Cleared first: a lookup queued after the drain below schedules the next task
+            lookupScheduled.set(false);
+            Map<String, List<PendingLookup>> lookups = new LinkedHashMap<>();
+            PendingLookup lookup;
+            while ((lookup = pendingLookups.poll()) != null) {
+                lookups.computeIfAbsent(lookup.contentSha, sha -> new ArrayList<>()).add(lookup);
+            }
+            if (lookups.isEmpty()) {
+                return;
+            }
+
+            Map<String, List<Finding>> stored;
+            try {
+                stored = repository.findAll(lookups.keySet(), endpointId, endpointVersion);
+            } catch (Exception e) {
+                // A cache failure must not fail the analysis
+                System.err.println("[FindingCache] Lookup failed, treating as miss: " + e.getMessage());
+                stored = Map.of();
+            }
+            for (Map.Entry<String, List<PendingLookup>> entry : lookups.entrySet()) {
+                List<Finding> findings = stored.get(entry.getKey());
+                if (findings != null) {
+                    synchronized (FindingCache.this) {
+                        entries.put(key(entry.getKey()), findings);
+                    }
+                }
+                for (PendingLookup waiting : entry.getValue()) {
+                    waiting.result.complete(findings);
+                }
+            }
+        }
+
+        private String key(String contentSha) {
+            return contentSha + ':' + endpointId + ':' + endpointVersion;
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getDbHits() {
+        return dbHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    @Override
+    public String toString() {
+        return "FindingCache{size=" + getSize() + "/" + maxEntries + ", hits=" + getHits() +
+               ", dbHits=" + getDbHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + '}';
+    }
+
+    /**
+     * SHA-1 of the content in git blob format ("blob <size>\0" + bytes), so it matches
+     * the blob id when the working tree file equals the committed one.
+     */
+    public static String contentHash(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(("blob " + bytes.length + "\0").getBytes(StandardCharsets.US_ASCII));
+            byte[] hash = digest.digest(bytes);
+            StringBuilder hex = new StringBuilder(40);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    private static List<Finding> await(CompletableFuture<List<Finding>> result, CancellationToken cancellation) {
+        try {
+            while (true) {
+                cancellation.throwIfCancelled();
+                try {
+                    return result.get(100, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // Check cancellation again
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for a cache lookup");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Cache lookup failed", e.getCause());
+        }
+    }
+
+    private static List<Finding> copyRaw(List<Finding> findings) {
+        List<Finding> copies = new ArrayList<>(findings.size());
+        for (Finding finding : findings) {
+            copies.add(finding.copyRaw());
+        }
+        return copies;
+    }
+
+    private static class PendingLookup {
+        final String contentSha;
+        final CompletableFuture<List<Finding>> result = new CompletableFuture<>();
+
+        PendingLookup(String contentSha) {
+            this.contentSha = contentSha;
+        }
+    }
+
+    private static class PendingEntry {
+        final String contentSha;
+        final List<Finding> findings;
+
+        PendingEntry(String contentSha, List<Finding> findings) {
+            this.contentSha = contentSha;
+            this.findings = findings;
+        }
+    }
+}
@@ -235,6 +235,7 @@ public class HistoryQueryService {
         dto.setCompletedAt(run.getCompletedAt());
         dto.setDurationMs(run.getDurationMs());
         dto.setTotalFiles(run.getTotalFiles());
+        dto.setDiffTotalFiles(run.getDiffTotalFiles());
         dto.setTotalFindings(run.getTotalFindings());
         dto.setCriticalCount(run.getCriticalCount());
         dto.setHighCount(run.getHighCount());
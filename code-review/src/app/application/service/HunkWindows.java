@@ -0,0 +1,70 @@
+package app.application.service;
+
+import app.domain.value.ContentWindow;
+import app.domain.value.LineRange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cuts the windows of a file's text that cover the changed line ranges (hunk mode).
+ */
+final class HunkWindows {
+
+    private HunkWindows() {
+    }
+
+    /**
+     * One window per range, in a single pass over the text. Ranges must be sorted and
+     * non-overlapping (as set by DiffEngine.streamDiffWithHunks); the parts past the end of
+     * the text (e.g. a truncated file) are dropped.
+     */
+    static List<ContentWindow> slice(String text, List<LineRange> ranges) {
+        List<ContentWindow> windows = new ArrayList<>(ranges.size());
+        int line = 1;
+        int offset = 0;
+        for (LineRange range : ranges) {
+            while (line < range.getStart() && offset < text.length()) {
+                offset = nextLine(text, offset);
+                line++;
+            }
+            if (offset >= text.length()) {
+                break;
+            }
+            int windowStart = offset;
+            int firstLine = line;
+            while (line <= range.getEnd() && offset < text.length()) {
+                offset = nextLine(text, offset);
+                line++;
+            }
+            windows.add(new ContentWindow(firstLine, line - firstLine, text.substring(windowStart, offset)));
+        }
+        return windows;
+    }
+
+    /**
+     * Payload key for the finding cache: the windows' text together with their offsets,
+     * since findings are stored with absolute line numbers.
+     */
+    static String cacheKeyText(List<ContentWindow> windows) {
+        StringBuilder key = new StringBuilder();
+        for (ContentWindow window : windows) {
+            key.append("@@ ").append(window.getStartLine()).append(',').append(window.getLineCount()).append('\n');
+            key.append(window.getText());
+        }
+        return key.toString();
+    }
+
+    static int payloadLength(List<ContentWindow> windows) {
+        int length = 0;
+        for (ContentWindow window : windows) {
+            length += window.getText().length();
+        }
+        return length;
+    }
+
+    private static int nextLine(String text, int offset) {
+        int newline = text.indexOf('\n', offset);
+        return newline < 0 ? text.length() : newline + 1;
+    }
+}
@@ -0,0 +1,80 @@
+package app.application.service;
+
+import app.domain.entity.DiffFile;
+import app.domain.entity.Finding;
+import app.domain.value.LineRange;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Blob ids and findings of the previous successful run of the same branch pair.
+ * Used by incremental analysis to skip files whose analyzed input has not changed: the same
+ * blob, and in hunk mode the same changed line ranges (a file analyzed whole only matches
+ * a file analyzed whole).
+ */
+class IncrementalBaseline {
+
+    private final Long runId;
+    private final Map<String, String> blobIdsByPath = new HashMap<>();
+    private final Map<String, String> hunkKeysByPath = new HashMap<>();
+    private final Map<String, List<Finding>> findingsByPath = new HashMap<>();
+
+    IncrementalBaseline(Long runId, List<DiffFile> diffFiles, List<Finding> findings) {
+        this.runId = runId;
+        for (DiffFile file : diffFiles) {
+            if (file.getBlobId() != null) {
+                blobIdsByPath.put(file.getFilePath(), file.getBlobId());
+                hunkKeysByPath.put(file.getFilePath(), file.getHunkKey());
+            }
+        }
+        for (Finding finding : findings) {
+            findingsByPath.computeIfAbsent(finding.getFilePath(), path -> new ArrayList<>()).add(finding);
+        }
+    }
+
+    Long getRunId() {
+        return runId;
+    }
+
+    int size() {
+        return blobIdsByPath.size();
+    }
+
+    /**
+     * Copies of the previous findings for this file if its blob and hunk key are unchanged,
+     * otherwise null. Copies start from the raw endpoint severity so the active policy can
+     * re-classify them.
+     */
+    List<Finding> reuse(DiffFile diffFile) {
+        String blobId = diffFile.getBlobId();
+        if (blobId == null || !blobId.equals(blobIdsByPath.get(diffFile.getFilePath())) ||
+                !Objects.equals(diffFile.getHunkKey(), hunkKeysByPath.get(diffFile.getFilePath()))) {
+            return null;
+        }
+
+        List<Finding> previous = findingsByPath.getOrDefault(diffFile.getFilePath(), List.of());
+        List<Finding> copies = new ArrayList<>(previous.size());
+        for (Finding old : previous) {
+            copies.add(old.copyRaw());
+        }
+        return copies;
+    }
+
+    /**
+     * Key of the line ranges a hunk-mode run sends for a file, or null when the whole file goes.
+     */
+    static String hunkKey(List<LineRange> changedLines) {
+        if (changedLines == null) {
+            return null;
+        }
+        StringBuilder ranges = new StringBuilder();
+        for (LineRange range : changedLines) {
+            ranges.append(range.getStart()).append('-').append(range.getEnd()).append(',');
+        }
+        return FindingCache.contentHash(ranges.toString());
+    }
+}
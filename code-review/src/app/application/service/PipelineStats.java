@@ -0,0 +1,127 @@
+package app.application.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput counters for the stages of an analysis pipeline run.
+ * Busy time excludes time spent blocked on queues, so the stage with the
+ * highest busy time per thread is the bottleneck.
+ */
+public class PipelineStats {
+
+    private final StageCounter diff = new StageCounter("diff", 1);
+    private final StageCounter analyze;
+    private final StageCounter write = new StageCounter("write", 1);
+    private final long startedAt = System.nanoTime();
+    private volatile long finishedAt;
+
+    public PipelineStats(int analyzerWorkers) {
+        this.analyze = new StageCounter("analyze", analyzerWorkers);
+    }
+
+    public StageCounter getDiff() {
+        return diff;
+    }
+
+    public StageCounter getAnalyze() {
+        return analyze;
+    }
+
+    public StageCounter getWrite() {
+        return write;
+    }
+
+    void markFinished() {
+        finishedAt = System.nanoTime();
+    }
+
+    public long getElapsedMs() {
+        long end = finishedAt != 0 ? finishedAt : System.nanoTime();
+        return TimeUnit.NANOSECONDS.toMillis(end - startedAt);
+    }
+
+    /**
+     * Stage with the highest busy time per thread.
+     */
+    public StageCounter getSlowestStage() {
+        StageCounter slowest = diff;
+        for (StageCounter stage : new StageCounter[] { analyze, write }) {
+            if (stage.getBusyMsPerThread() > slowest.getBusyMsPerThread()) {
+                slowest = stage;
+            }
+        }
+        return slowest;
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineStats{elapsed=" + getElapsedMs() + "ms, " + diff + ", " + analyze + ", " + write +
+               ", slowest=" + getSlowestStage().getName() + '}';
+    }
+
+    /**
+     * Counters for a single stage.
+     */
+    public static class StageCounter {
+        private final String name;
+        private final int threads;
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong blockedNanos = new AtomicLong();
+
+        StageCounter(String name, int threads) {
+            this.name = name;
+            this.threads = Math.max(1, threads);
+        }
+
+        void addItems(long count) {
+            items.addAndGet(count);
+        }
+
+        void addBusy(long nanos) {
+            busyNanos.addAndGet(nanos);
+        }
+
+        void addBlocked(long nanos) {
+            blockedNanos.addAndGet(nanos);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getItems() {
+            return items.get();
+        }
+
+        public long getBusyMs() {
+            return TimeUnit.NANOSECONDS.toMillis(busyNanos.get());
+        }
+
+        public long getBlockedMs() {
+            return TimeUnit.NANOSECONDS.toMillis(blockedNanos.get());
+        }
+
+        public long getBusyMsPerThread() {
+            return getBusyMs() / threads;
+        }
+
+        /**
+         * Items per second of busy time across all threads of the stage.
+         */
+        public double getThroughput() {
+            long busy = busyNanos.get() / threads;
+            if (busy <= 0) {
+                return 0;
+            }
+            return items.get() * 1_000_000_000.0 / busy;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s=%d items, busy %dms, blocked %dms, %.1f/s",
+                name, getItems(), getBusyMs(), getBlockedMs(), getThroughput());
+        }
+    }
+}
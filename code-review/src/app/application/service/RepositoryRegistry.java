@@ -0,0 +1,163 @@
+package app.application.service;
+
+import app.domain.entity.RepositoryRef;
+import app.domain.port.RepositoryRefRepository;
+import app.domain.port.TxManager;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical repository registry: one repositories row per local repository.
+ *
+ * Paths are normalized (absolute, symlinks resolved, forward slashes, no trailing slash)
+ * so "C:\repo", "C:/repo/" and "./repo" map to the same row. Resolved rows are cached in
+ * memory by both the raw and the normalized path; only the first analysis of a repository
+ * reaches the database, and the unique local_path index keeps concurrent processes on one row.
+ */
+public class RepositoryRegistry {
+
+    private final RepositoryRefRepository repositoryRepo;
+    private final TxManager txManager;
+    private final Map<String, RepositoryRef> cache = new ConcurrentHashMap<>();
+
+    public RepositoryRegistry(RepositoryRefRepository repositoryRepo, TxManager txManager) {
+        this.repositoryRepo = repositoryRepo;
+        this.txManager = txManager;
+    }
+
+    /**
+     * Return the registered repository for a path, creating its row on first use.
+     */
+    public RepositoryRef resolve(String repositoryPath) throws Exception {
+        if (repositoryPath == null || repositoryPath.trim().isEmpty()) {
+            throw new Exception("Repository path is required");
+        }
+
+        RepositoryRef cached = cache.get(repositoryPath);
+        if (cached != null) {
+            return cached;
+        }
+
+        String canonicalPath = normalizePath(repositoryPath);
+        RepositoryRef repository = cache.get(canonicalPath);
+        if (repository == null) {
+            // Misses are rare (once per repository): serialize them instead of racing on the insert
+            synchronized (this) {
+                repository = cache.get(canonicalPath);
+                if (repository == null) {
+                    repository = findOrCreate(canonicalPath);
+                    cache.put(canonicalPath, repository);
+                }
+            }
+        }
+        cache.put(repositoryPath, repository);
+        return repository;
+    }
+
+    /**
+     * Forget every cached row (after rows were merged or deleted outside the registry).
+     */
+    public void invalidate() {
+        cache.clear();
+    }
+
+    /**
+     * One-off cleanup of the rows created before the registry existed (one per analysis):
+     * rows whose paths normalize to the same repository are merged into the oldest one,
+     * their analysis runs are repointed to it and it keeps the normalized path.
+     *
+     * @return Number of duplicate rows removed
+     */
+    public int compactDuplicates() throws Exception {
+        int removed = 0;
+        int repointed = 0;
+
+        txManager.begin();
+        try {
+            // findAll is ordered by id: the first row of each group is the oldest
+            Map<String, List<RepositoryRef>> groups = new LinkedHashMap<>();
+            for (RepositoryRef repository : repositoryRepo.findAll()) {
+                groups.computeIfAbsent(normalizePath(repository.getLocalPath()), path -> new ArrayList<>())
+                      .add(repository);
+            }
+
+            for (Map.Entry<String, List<RepositoryRef>> group : groups.entrySet()) {
+                RepositoryRef canonical = group.getValue().get(0);
+                List<Long> duplicateIds = new ArrayList<>();
+                for (RepositoryRef duplicate : group.getValue().subList(1, group.getValue().size())) {
+                    duplicateIds.add(duplicate.getId());
+                }
+                if (duplicateIds.isEmpty() && group.getKey().equals(canonical.getLocalPath())) {
+                    continue;
+                }
+                repointed += repositoryRepo.merge(canonical.getId(), group.getKey(), duplicateIds);
+                removed += duplicateIds.size();
+            }
+            txManager.commit();
+        } catch (Exception e) {
+            txManager.rollback();
+            throw e;
+        }
+
+        invalidate();
+        System.out.println("[RepositoryRegistry] Compaction removed " + removed + " duplicate repositories (" +
+                           repointed + " analysis runs repointed)");
+        return removed;
+    }
+
+    /**
+     * Canonical form of a local repository path. Paths that do not exist (any more) are only
+     * normalized lexically.
+     */
+    public static String normalizePath(String repositoryPath) {
+        Path path;
+        try {
+            path = Paths.get(repositoryPath.trim()).toAbsolutePath().normalize();
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("Invalid repository path: " + repositoryPath, e);
+        }
+        try {
+            path = path.toRealPath();
+        } catch (IOException e) {
+            // Not on disk: keep the lexical form
+        }
+
+        String normalized = path.toString().replace('\\', '/');
+        // Keep the root ("/" or "C:/") intact
+        while (normalized.length() > 1 && normalized.endsWith("/") && !normalized.endsWith(":/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    private RepositoryRef findOrCreate(String canonicalPath) throws Exception {
+        txManager.begin();
+        try {
+            RepositoryRef repository = repositoryRepo.findByLocalPath(canonicalPath).orElse(null);
+            if (repository == null) {
+                // Another process may insert the same path first: save then returns its row
+                repository = repositoryRepo.save(new RepositoryRef(null, nameOf(canonicalPath), canonicalPath));
+                System.out.println("[RepositoryRegistry] Registered repository: " + repository.getName() +
+                                   " (ID: " + repository.getId() + ")");
+            }
+            txManager.commit();
+            return repository;
+        } catch (Exception e) {
+            txManager.rollback();
+            throw e;
+        }
+    }
+
+    private String nameOf(String canonicalPath) {
+        String[] parts = canonicalPath.split("/");
+        return parts.length > 0 ? parts[parts.length - 1] : canonicalPath;
+    }
+}
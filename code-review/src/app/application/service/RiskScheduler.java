@@ -0,0 +1,178 @@
+package app.application.service;
+
+import app.domain.entity.DiffFile;
+import app.domain.value.FileChangeType;
+import app.domain.value.Severity;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Orders the files of a run by risk, so the files most likely to hold severe findings are
+ * analyzed (and persisted) first instead of in git's order.
+ *
+ * Files are reordered within a window of the next windowFiles files of the diff: once the
+ * window is full, each new file lets the riskiest one in the window go. The diff keeps
+ * streaming and memory stays bounded; a window as large as the diff orders the whole run.
+ *
+ * The score adds three parts:
+ * - path: security-sensitive names and source code weigh more; docs, tests and generated
+ *   or vendored files weigh less; deleted files have nothing to analyze and go last
+ * - churn: log2 of the lines added + removed
+ * - history: severity-weighted findings of the path in the last runs of the repository,
+ *   relative to the path with most history in the repository
+ */
+final class RiskScheduler {
+
+    private static final String[] SENSITIVE_KEYWORDS = {
+        "auth", "login", "password", "passwd", "secret", "token", "credential", "crypto", "security",
+        "session", "permission", "admin", "payment", "sql", "query", "exec", "upload", "serial"
+    };
+    private static final String[] SOURCE_EXTENSIONS = {
+        ".java", ".kt", ".scala", ".js", ".jsx", ".ts", ".tsx", ".py", ".go", ".rb", ".php",
+        ".cs", ".c", ".cc", ".cpp", ".h", ".hpp", ".rs", ".swift", ".sql", ".sh", ".ps1"
+    };
+    private static final String[] CONFIG_EXTENSIONS = {
+        ".properties", ".yml", ".yaml", ".xml", ".json", ".toml", ".ini", ".conf", ".gradle"
+    };
+    private static final String[] LOW_RISK_DIRECTORIES = {
+        "/test/", "/tests/", "/docs/", "/vendor/", "/node_modules/", "/generated/", "/dist/"
+    };
+    private static final String[] LOW_RISK_EXTENSIONS = {
+        ".min.js", ".lock", ".md", ".txt", ".png", ".jpg", ".gif", ".svg", ".ico"
+    };
+
+    private static final double SENSITIVE_WEIGHT = 3.0;
+    private static final double SOURCE_WEIGHT = 1.5;
+    private static final double CONFIG_WEIGHT = 1.0;
+    private static final double LOW_RISK_FACTOR = 0.25;
+    private static final double CHURN_WEIGHT = 0.3;
+    private static final double HISTORY_WEIGHT = 4.0;
+
+    /** Riskiest first; ties keep the diff order. */
+    private static final Comparator<Scored> RISKIEST_FIRST = Comparator
+        .comparingDouble((Scored scored) -> scored.score).reversed()
+        .thenComparingLong(scored -> scored.sequence);
+
+    private final Map<String, Double> historyWeights = new HashMap<>();
+    private final double maxHistoryWeight;
+    private final int windowFiles;
+    private final PriorityQueue<Scored> window = new PriorityQueue<>(RISKIEST_FIRST);
+    private long sequence;
+
+    /**
+     * @param history Finding counts per path and severity (FindingRepository.countByPathAndSeverity)
+     * @param windowFiles Files held back at most to pick the riskiest one
+     */
+    RiskScheduler(Map<String, Map<Severity, Integer>> history, int windowFiles) {
+        this.windowFiles = Math.max(1, windowFiles);
+        double max = 0;
+        for (Map.Entry<String, Map<Severity, Integer>> path : history.entrySet()) {
+            double weight = 0;
+            for (Map.Entry<Severity, Integer> count : path.getValue().entrySet()) {
+                weight += severityWeight(count.getKey()) * count.getValue();
+            }
+            historyWeights.put(path.getKey(), weight);
+            max = Math.max(max, weight);
+        }
+        this.maxHistoryWeight = max;
+    }
+
+    /**
+     * Add the next file of the diff to the window.
+     *
+     * @return The riskiest file of the window once it is full (to analyze now), or null
+     */
+    DiffFile offer(DiffFile file) {
+        window.add(new Scored(file, score(file), sequence++));
+        return window.size() > windowFiles ? window.poll().file : null;
+    }
+
+    /**
+     * Once the diff is complete: the riskiest file left in the window, or null when empty.
+     */
+    DiffFile poll() {
+        Scored scored = window.poll();
+        return scored != null ? scored.file : null;
+    }
+
+    double score(DiffFile file) {
+        if (file.getChangeType() == FileChangeType.DELETED) {
+            return 0;
+        }
+        String path = file.getFilePath().replace('\\', '/').toLowerCase(Locale.ROOT);
+
+        double pathScore = 0;
+        if (containsAny(path, SENSITIVE_KEYWORDS)) {
+            pathScore += SENSITIVE_WEIGHT;
+        }
+        if (endsWithAny(path, SOURCE_EXTENSIONS)) {
+            pathScore += SOURCE_WEIGHT;
+        } else if (endsWithAny(path, CONFIG_EXTENSIONS) || path.endsWith("dockerfile")) {
+            pathScore += CONFIG_WEIGHT;
+        }
+
+        int churn = valueOrZero(file.getLinesAdded()) + valueOrZero(file.getLinesRemoved());
+        double churnScore = CHURN_WEIGHT * (Math.log(1 + churn) / Math.log(2));
+
+        double historyScore = 0;
+        Double history = historyWeights.get(file.getFilePath());
+        if (history != null && maxHistoryWeight > 0) {
+            historyScore = HISTORY_WEIGHT * history / maxHistoryWeight;
+        }
+
+        double score = pathScore + churnScore;
+        if (containsAny("/" + path, LOW_RISK_DIRECTORIES) || endsWithAny(path, LOW_RISK_EXTENSIONS)) {
+            score *= LOW_RISK_FACTOR;
+        }
+        // Past findings count in full, even in a test or docs file
+        return score + historyScore;
+    }
+
+    private static double severityWeight(Severity severity) {
+        switch (severity) {
+            case CRITICAL: return 10;
+            case HIGH: return 5;
+            case MEDIUM: return 2;
+            case LOW: return 1;
+            default: return 0.25;
+        }
+    }
+
+    private static boolean containsAny(String path, String[] markers) {
+        for (String marker : markers) {
+            if (path.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean endsWithAny(String path, String[] extensions) {
+        for (String extension : extensions) {
+            if (path.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static final class Scored {
+        final DiffFile file;
+        final double score;
+        final long sequence;
+
+        Scored(DiffFile file, double score, long sequence) {
+            this.file = file;
+            this.score = score;
+            this.sequence = sequence;
+        }
+    }
+}
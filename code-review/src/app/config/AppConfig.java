@@ -103,6 +103,32 @@ public class AppConfig {
         return properties.getProperty(key, defaultValue);
     }
     
+    public int getIntProperty(String key, int defaultValue) {
+        String value = getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("[AppConfig] Invalid integer for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+    
+    public double getDoubleProperty(String key, double defaultValue) {
+        String value = getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("[AppConfig] Invalid number for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+    
     // Database configuration
     public String getDbUrl() {
         return getProperty("db.url");
@@ -121,6 +147,30 @@ public class AppConfig {
         return getProperty("git.executable", "git");
     }
     
+    public String getGitEngine() {
+        return getProperty("git.engine", "process");
+    }
+    
+    public long getGitNativeDeltaCacheBytes() {
+        return getIntProperty("git.native.deltaCacheBytes", 32 * 1024 * 1024);
+    }
+    
+    public int getGitPoolMaxProcesses() {
+        return getIntProperty("git.pool.maxProcesses", 8);
+    }
+    
+    public long getGitPoolIdleTimeoutMs() {
+        return getIntProperty("git.pool.idleTimeoutMs", 120000);
+    }
+    
+    public boolean isGitRefsWatchEnabled() {
+        return Boolean.parseBoolean(getProperty("git.refs.watch.enabled", "false"));
+    }
+    
+    public long getGitRefsWatchDebounceMs() {
+        return getIntProperty("git.refs.watch.debounceMs", 200);
+    }
+    
     // Endpoint configuration
     public boolean isEndpointMockEnabled() {
         return Boolean.parseBoolean(getProperty("endpoint.mock.enabled", "true"));
@@ -130,6 +180,172 @@ public class AppConfig {
         return getProperty("endpoint.mock.dataPath");
     }
     
+    public boolean isEndpointSimulationEnabled() {
+        return Boolean.parseBoolean(getProperty("endpoint.mock.simulation.enabled", "false"));
+    }
+    
+    public long getEndpointSimulationSeed() {
+        return getIntProperty("endpoint.mock.simulation.seed", 42);
+    }
+    
+    public String getEndpointSimulationLatency() {
+        return getProperty("endpoint.mock.simulation.latency", "none");
+    }
+    
+    public int getEndpointSimulationLatencyMs() {
+        return getIntProperty("endpoint.mock.simulation.latencyMs", 200);
+    }
+    
+    public int getEndpointSimulationLatencyMinMs() {
+        return getIntProperty("endpoint.mock.simulation.latencyMinMs", 50);
+    }
+    
+    public int getEndpointSimulationLatencyMaxMs() {
+        return getIntProperty("endpoint.mock.simulation.latencyMaxMs", 2000);
+    }
+    
+    public double getEndpointSimulationLatencySigma() {
+        return getDoubleProperty("endpoint.mock.simulation.latencySigma", 0.8);
+    }
+    
+    public double getEndpointSimulationErrorRate() {
+        return getDoubleProperty("endpoint.mock.simulation.errorRate", 0);
+    }
+    
+    public double getEndpointSimulationTimeoutRate() {
+        return getDoubleProperty("endpoint.mock.simulation.timeoutRate", 0);
+    }
+    
+    public int getEndpointSimulationTimeoutMs() {
+        return getIntProperty("endpoint.mock.simulation.timeoutMs", 5000);
+    }
+    
+    public double getEndpointSimulationFindingsPerKb() {
+        return getDoubleProperty("endpoint.mock.simulation.findingsPerKb", 0);
+    }
+    
+    public int getEndpointSimulationMaxFindingsPerFile() {
+        return getIntProperty("endpoint.mock.simulation.maxFindingsPerFile", 50);
+    }
+    
+    // Executor configuration
+    public String getExecutorMode() {
+        return getProperty("executor.mode", "platform");
+    }
+    
+    // Analysis configuration
+    public boolean isAnalysisParallelEnabled() {
+        return Boolean.parseBoolean(getProperty("analysis.parallel.enabled", "false"));
+    }
+    
+    public int getAnalysisParallelWorkers() {
+        return getIntProperty("analysis.parallel.workers", 4);
+    }
+    
+    public String getAnalysisDiffMode() {
+        return getProperty("analysis.diff.mode", "two-dot");
+    }
+    
+    public boolean isAnalysisIncrementalEnabled() {
+        return Boolean.parseBoolean(getProperty("analysis.incremental.enabled", "false"));
+    }
+    
+    public boolean isAnalysisCacheEnabled() {
+        return Boolean.parseBoolean(getProperty("analysis.cache.enabled", "false"));
+    }
+    
+    public int getAnalysisCacheMaxEntries() {
+        return getIntProperty("analysis.cache.maxEntries", 5000);
+    }
+    
+    public int getAnalysisQueueCapacity() {
+        return getIntProperty("analysis.pipeline.queueCapacity", 64);
+    }
+    
+    public int getAnalysisWriteBatchSize() {
+        return getIntProperty("analysis.pipeline.batchSize", 50);
+    }
+    
+    public boolean isAnalysisHunksEnabled() {
+        return Boolean.parseBoolean(getProperty("analysis.hunks.enabled", "false"));
+    }
+    
+    public int getAnalysisHunkContextLines() {
+        return getIntProperty("analysis.hunks.contextLines", 3);
+    }
+    
+    public boolean isAnalysisRiskSchedulingEnabled() {
+        return Boolean.parseBoolean(getProperty("analysis.riskScheduling.enabled", "false"));
+    }
+    
+    public int getAnalysisRiskHistoryRuns() {
+        return getIntProperty("analysis.riskScheduling.historyRuns", 20);
+    }
+    
+    public int getAnalysisRiskWindowFiles() {
+        return getIntProperty("analysis.riskScheduling.windowFiles", 256);
+    }
+    
+    public boolean isAnalysisDedupEnabled() {
+        return Boolean.parseBoolean(getProperty("analysis.dedup.enabled", "false"));
+    }
+    
+    public long getAnalysisDeadlineReserveMs() {
+        return getIntProperty("analysis.deadline.reserveMs", 500);
+    }
+    
+    public int getAnalysisBatchMaxConcurrentJobs() {
+        return getIntProperty("analysis.batch.maxConcurrentJobs", 2);
+    }
+    
+    // Analysis job queue configuration
+    public int getQueueWorkerConcurrency() {
+        return getIntProperty("queue.worker.concurrency", 1);
+    }
+    
+    public int getQueueWorkerLeaseSeconds() {
+        return getIntProperty("queue.worker.leaseSeconds", 60);
+    }
+    
+    public int getQueueWorkerPollIntervalMs() {
+        return getIntProperty("queue.worker.pollIntervalMs", 2000);
+    }
+    
+    public int getQueueWorkerRetryDelaySeconds() {
+        return getIntProperty("queue.worker.retryDelaySeconds", 30);
+    }
+    
+    public int getQueueJobMaxAttempts() {
+        return getIntProperty("queue.job.maxAttempts", 3);
+    }
+    
+    // CLI configuration
+    public long getCliStartupBudgetMs() {
+        return getIntProperty("cli.startupBudgetMs", 1500);
+    }
+    
+    // Content loading configuration
+    public int getContentMaxBytes() {
+        return getIntProperty("content.maxBytes", 1024 * 1024);
+    }
+    
+    public int getContentMmapThresholdBytes() {
+        return getIntProperty("content.mmapThresholdBytes", 256 * 1024);
+    }
+    
+    public int getContentSniffBytes() {
+        return getIntProperty("content.sniffBytes", 8000);
+    }
+    
+    public String getContentFallbackCharset() {
+        return getProperty("content.fallbackCharset", "windows-1252");
+    }
+    
+    public String getContentSource() {
+        return getProperty("content.source", "filesystem");
+    }
+    
+    
     // Policy configuration
     public String getPolicyDefaultName() {
         return getProperty("policy.default.name");
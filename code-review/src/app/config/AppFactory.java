@@ -3,134 +3,454 @@ package app.config;
 import app.application.service.*;
 import app.domain.entity.User;
 import app.domain.port.*;
+import app.domain.value.DiffMode;
 import app.domain.value.UserRole;
 import app.infra.integration.EndpointMockClient;
+import app.infra.integration.EndpointSimulation;
+import app.infra.integration.FileSystemContentLoader;
 import app.infra.integration.GitDiffEngine;
+import app.infra.integration.GitObjectContentLoader;
+import app.infra.integration.GitProcessPool;
+import app.infra.integration.NativeGitDiffEngine;
+import app.infra.integration.NativeGitRepositories;
 import app.infra.integration.PolicyEngineImpl;
+import app.infra.integration.WatchedBranchDiffEngine;
 import app.infra.persistence.*;
+import app.infra.concurrent.TaskExecutors;
 import app.infra.tx.JdbcTxManager;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * Factory para crear e inyectar dependencias.
  * Wiring manual de todos los componentes.
+ * 
+ * Cada componente se construye la primera vez que se pide (y una sola vez), así un proceso
+ * que solo usa el análisis (CLI, worker) no paga por repositorios, servicios ni executors
+ * que nunca usa.
  */
 public class AppFactory {
     
+    private final AppConfig config;
     private final JdbcTxManager txManager;
+    private final TaskExecutors.Mode executorMode;
     
     // Repositories
-    private final UserRepository userRepository;
-    private final RepositoryRefRepository repositoryRefRepository;
-    private final AnalysisRunRepository analysisRunRepository;
-    private final DiffFileRepository diffFileRepository;
-    private final FindingRepository findingRepository;
-    private final SeverityPolicyRepository severityPolicyRepository;
+    private UserRepository userRepository;
+    private RepositoryRefRepository repositoryRefRepository;
+    private AnalysisRunRepository analysisRunRepository;
+    private DiffFileRepository diffFileRepository;
+    private FindingRepository findingRepository;
+    private SeverityPolicyRepository severityPolicyRepository;
+    private FindingCacheRepository findingCacheRepository;
+    private AnalysisJobRepository analysisJobRepository;
     
     // Engines
-    private final DiffEngine diffEngine;
-    private final EndpointClient endpointClient;
-    private final PolicyEngine policyEngine;
+    private DiffEngine diffEngine;
+    private GitProcessPool gitProcessPool;
+    private NativeGitRepositories nativeGitRepositories;
+    private EndpointClient endpointClient;
+    private ContentLoader contentLoader;
+    private PolicyEngine policyEngine;
+    
+    // Workers
+    private ExecutorService backgroundExecutor;
+    private ExecutorService analysisExecutor;
+    private ExecutorService batchExecutor;
     
     // Services
-    private final AnalyzeBranchService analyzeBranchService;
-    private final HistoryQueryService historyQueryService;
-    private final AnalyticsService analyticsService;
-    private final PolicyAdminService policyAdminService;
-    private final ExportService exportService;
-    private final LoginService loginService;
+    private RepositoryRegistry repositoryRegistry;
+    private AnalyzeBranchService analyzeBranchService;
+    private BatchAnalysisService batchAnalysisService;
+    private AnalysisQueueService analysisQueueService;
+    private AnalysisJobWorker analysisJobWorker;
+    private HistoryQueryService historyQueryService;
+    private AnalyticsService analyticsService;
+    private PolicyAdminService policyAdminService;
+    private ExportService exportService;
+    private LoginService loginService;
     
     public AppFactory() {
         // Load config
-        AppConfig.getInstance();
-        
+        this.config = AppConfig.getInstance();
         this.txManager = JdbcTxManager.getInstance();
-        
-        // Initialize repositories
-        this.userRepository = new JdbcUserRepository(txManager);
-        this.repositoryRefRepository = new JdbcRepositoryRefRepository(txManager);
-        this.analysisRunRepository = new JdbcAnalysisRunRepository(txManager);
-        this.diffFileRepository = new JdbcDiffFileRepository(txManager);
-        this.findingRepository = new JdbcFindingRepository(txManager);
-        this.severityPolicyRepository = new JdbcSeverityPolicyRepository(txManager);
-        
-        // Initialize engines
-        this.diffEngine = new GitDiffEngine();
-        this.endpointClient = new EndpointMockClient();
-        this.policyEngine = new PolicyEngineImpl();
-        
-        // Initialize services
-        this.analyzeBranchService = new AnalyzeBranchService(
-            diffEngine,
-            endpointClient,
-            policyEngine,
-            analysisRunRepository,
-            diffFileRepository,
-            findingRepository,
-            severityPolicyRepository,
-            repositoryRefRepository,
-            txManager
-        );
-        
-        this.historyQueryService = new HistoryQueryService(
-            analysisRunRepository,
-            findingRepository,
-            diffFileRepository,
-            txManager
-        );
-        
-        this.analyticsService = new AnalyticsService(
-            analysisRunRepository,
-            txManager
+        this.executorMode = TaskExecutors.parseMode(config.getExecutorMode());
+    }
+    
+    // Repositories
+    private synchronized RepositoryRefRepository repositoryRefRepository() {
+        if (repositoryRefRepository == null) {
+            repositoryRefRepository = new JdbcRepositoryRefRepository(txManager);
+        }
+        return repositoryRefRepository;
+    }
+    
+    private synchronized AnalysisRunRepository analysisRunRepository() {
+        if (analysisRunRepository == null) {
+            analysisRunRepository = new JdbcAnalysisRunRepository(txManager);
+        }
+        return analysisRunRepository;
+    }
+    
+    private synchronized DiffFileRepository diffFileRepository() {
+        if (diffFileRepository == null) {
+            diffFileRepository = new JdbcDiffFileRepository(txManager);
+        }
+        return diffFileRepository;
+    }
+    
+    private synchronized FindingRepository findingRepository() {
+        if (findingRepository == null) {
+            findingRepository = new JdbcFindingRepository(txManager);
+        }
+        return findingRepository;
+    }
+    
+    private synchronized SeverityPolicyRepository severityPolicyRepository() {
+        if (severityPolicyRepository == null) {
+            severityPolicyRepository = new JdbcSeverityPolicyRepository(txManager);
+        }
+        return severityPolicyRepository;
+    }
+    
+    private synchronized FindingCacheRepository findingCacheRepository() {
+        if (findingCacheRepository == null) {
+            findingCacheRepository = new JdbcFindingCacheRepository(txManager);
+        }
+        return findingCacheRepository;
+    }
+    
+    private synchronized AnalysisJobRepository analysisJobRepository() {
+        if (analysisJobRepository == null) {
+            analysisJobRepository = new JdbcAnalysisJobRepository(txManager);
+        }
+        return analysisJobRepository;
+    }
+    
+    // Engines
+    private synchronized EndpointClient endpointClient() {
+        if (endpointClient == null) {
+            endpointClient = new EndpointMockClient(createEndpointSimulation(config));
+        }
+        return endpointClient;
+    }
+    
+    private synchronized ContentLoader contentLoader() {
+        if (contentLoader == null) {
+            contentLoader = createContentLoader(config);
+        }
+        return contentLoader;
+    }
+    
+    private synchronized PolicyEngine policyEngine() {
+        if (policyEngine == null) {
+            policyEngine = new PolicyEngineImpl();
+        }
+        return policyEngine;
+    }
+    
+    // Workers
+    private synchronized ExecutorService analysisExecutor() {
+        if (analysisExecutor == null) {
+            analysisExecutor = TaskExecutors.newTaskExecutor(executorMode, "analysis-stage");
+        }
+        return analysisExecutor;
+    }
+    
+    private synchronized ExecutorService batchExecutor() {
+        if (batchExecutor == null) {
+            // Separado de analysisExecutor: un job del batch espera a las etapas de su pipeline
+            batchExecutor = transactional(TaskExecutors.newBoundedExecutor(
+                executorMode, config.getAnalysisBatchMaxConcurrentJobs(), "batch-job"));
+        }
+        return batchExecutor;
+    }
+    
+    /**
+     * Worker de la cola de análisis. Se crea detenido: solo WorkerMain lo inicia.
+     */
+    private AnalysisJobWorker createAnalysisJobWorker(AppConfig config) {
+        int concurrency = config.getQueueWorkerConcurrency();
+        return new AnalysisJobWorker(
+            analysisJobRepository(),
+            getAnalyzeBranchService(),
+            getHistoryQueryService(),
+            txManager,
+            transactional(TaskExecutors.newBoundedExecutor(executorMode, concurrency, "analysis-worker")),
+            TaskExecutors.newScheduledExecutor("job-heartbeat"),
+            concurrency,
+            config.getQueueWorkerLeaseSeconds(),
+            config.getQueueWorkerPollIntervalMs(),
+            config.getQueueWorkerRetryDelaySeconds()
         );
-        
-        this.policyAdminService = new PolicyAdminService(
-            severityPolicyRepository,
-            policyEngine,
-            txManager
+    }
+    
+    /**
+     * Lee la configuración del pipeline de análisis (workers, colas, batches).
+     */
+    private AnalysisSettings createAnalysisSettings(AppConfig config) {
+        AnalysisSettings settings = new AnalysisSettings();
+        if (config.isAnalysisParallelEnabled()) {
+            settings.setWorkers(config.getAnalysisParallelWorkers());
+            System.out.println("[AppFactory] Parallel analysis enabled with " + settings.getWorkers() + 
+                               " workers (" + executorMode + " threads)");
+        }
+        settings.setQueueCapacity(config.getAnalysisQueueCapacity());
+        settings.setWriteBatchSize(config.getAnalysisWriteBatchSize());
+        settings.setIncrementalByDefault(config.isAnalysisIncrementalEnabled());
+        settings.setHunkMode(config.isAnalysisHunksEnabled());
+        settings.setHunkContextLines(config.getAnalysisHunkContextLines());
+        settings.setRiskScheduling(config.isAnalysisRiskSchedulingEnabled());
+        settings.setRiskHistoryRuns(config.getAnalysisRiskHistoryRuns());
+        settings.setRiskWindowFiles(config.getAnalysisRiskWindowFiles());
+        settings.setDeadlineReserveMs(config.getAnalysisDeadlineReserveMs());
+        settings.setContentDedup(config.isAnalysisDedupEnabled());
+        settings.setDiffMode("merge-base".equalsIgnoreCase(config.getAnalysisDiffMode())
+            ? DiffMode.MERGE_BASE
+            : DiffMode.TWO_DOT);
+        return settings;
+    }
+    
+    /**
+     * Simulación de latencia/errores del mock para pruebas de carga (deshabilitada por defecto).
+     */
+    private EndpointSimulation createEndpointSimulation(AppConfig config) {
+        EndpointSimulation simulation = new EndpointSimulation();
+        simulation.setEnabled(config.isEndpointSimulationEnabled());
+        simulation.setSeed(config.getEndpointSimulationSeed());
+        simulation.setLatencyDistribution(EndpointSimulation.LatencyDistribution.parse(config.getEndpointSimulationLatency()));
+        simulation.setLatencyMs(config.getEndpointSimulationLatencyMs());
+        simulation.setLatencyMinMs(config.getEndpointSimulationLatencyMinMs());
+        simulation.setLatencyMaxMs(config.getEndpointSimulationLatencyMaxMs());
+        simulation.setLatencySigma(config.getEndpointSimulationLatencySigma());
+        simulation.setErrorRate(config.getEndpointSimulationErrorRate());
+        simulation.setTimeoutRate(config.getEndpointSimulationTimeoutRate());
+        simulation.setTimeoutMs(config.getEndpointSimulationTimeoutMs());
+        simulation.setFindingsPerKb(config.getEndpointSimulationFindingsPerKb());
+        simulation.setMaxFindingsPerFile(config.getEndpointSimulationMaxFindingsPerFile());
+        return simulation;
+    }
+    
+    /**
+     * Lector de contenido con límite de memoria por archivo.
+     */
+    private ContentLoader createContentLoader(AppConfig config) {
+        ContentLoader workingTree = new FileSystemContentLoader(
+            config.getContentMaxBytes(),
+            config.getContentMmapThresholdBytes(),
+            config.getContentSniffBytes(),
+            config.getContentFallbackCharset()
         );
-        
-        this.exportService = new ExportService(
-            analysisRunRepository,
-            findingRepository,
-            txManager
+        if (!"git".equalsIgnoreCase(config.getContentSource())) {
+            return workingTree;
+        }
+        // Blobs de la revisión destino vía "git cat-file --batch" (no depende del checkout)
+        return new GitObjectContentLoader(
+            workingTree,
+            nativeGitRepositories(),
+            getGitProcessPool(),
+            config.getContentMaxBytes(),
+            config.getContentSniffBytes(),
+            config.getContentFallbackCharset()
         );
-        
-        this.loginService = new LoginService(userRepository);
+    }
+    
+    /**
+     * Caché de hallazgos por contenido; null si está deshabilitada.
+     */
+    private FindingCache createFindingCache(AppConfig config) {
+        if (!config.isAnalysisCacheEnabled()) {
+            return null;
+        }
+        System.out.println("[AppFactory] Finding cache enabled (max " + 
+                           config.getAnalysisCacheMaxEntries() + " entries in memory)");
+        return new FindingCache(findingCacheRepository(), config.getAnalysisCacheMaxEntries());
     }
     
     public JdbcTxManager getTxManager() {
         return txManager;
     }
     
-    public AnalyzeBranchService getAnalyzeBranchService() {
+    /**
+     * Executor para tareas en background de la UI (análisis, historial, analytics).
+     */
+    public synchronized ExecutorService getBackgroundExecutor() {
+        if (backgroundExecutor == null) {
+            backgroundExecutor = transactional(TaskExecutors.newTaskExecutor(executorMode, "background-task"));
+        }
+        return backgroundExecutor;
+    }
+    
+    /**
+     * Executor para tareas que usan transacciones: la conexión vive en un ThreadLocal del hilo,
+     * así que al terminar cada tarea se descarta la transacción que haya quedado abierta
+     * (tarea que falló entre begin y commit/rollback) antes de reutilizar el hilo.
+     */
+    private ExecutorService transactional(ExecutorService executor) {
+        return TaskExecutors.withAfterTask(executor, () -> {
+            if (txManager.isActive()) {
+                System.err.println("[AppFactory] Rolling back a transaction left open by " +
+                                   Thread.currentThread().getName());
+                txManager.forceCleanup();
+            }
+        });
+    }
+    
+    /**
+     * Registro canónico de repositorios (una fila por ruta, cacheada en memoria).
+     */
+    public synchronized RepositoryRegistry getRepositoryRegistry() {
+        if (repositoryRegistry == null) {
+            repositoryRegistry = new RepositoryRegistry(repositoryRefRepository(), txManager);
+        }
+        return repositoryRegistry;
+    }
+    
+    public synchronized AnalyzeBranchService getAnalyzeBranchService() {
+        if (analyzeBranchService == null) {
+            analyzeBranchService = new AnalyzeBranchService(
+                getDiffEngine(),
+                contentLoader(),
+                endpointClient(),
+                policyEngine(),
+                analysisRunRepository(),
+                diffFileRepository(),
+                findingRepository(),
+                severityPolicyRepository(),
+                repositoryRefRepository(),
+                getRepositoryRegistry(),
+                txManager,
+                analysisExecutor(),
+                createAnalysisSettings(config),
+                createFindingCache(config)
+            );
+        }
         return analyzeBranchService;
     }
     
-    public HistoryQueryService getHistoryQueryService() {
+    public synchronized BatchAnalysisService getBatchAnalysisService() {
+        if (batchAnalysisService == null) {
+            batchAnalysisService = new BatchAnalysisService(
+                getAnalyzeBranchService(),
+                getDiffEngine(),
+                batchExecutor(),
+                config.getAnalysisBatchMaxConcurrentJobs()
+            );
+        }
+        return batchAnalysisService;
+    }
+    
+    public synchronized AnalysisQueueService getAnalysisQueueService() {
+        if (analysisQueueService == null) {
+            analysisQueueService = new AnalysisQueueService(
+                analysisJobRepository(),
+                txManager,
+                config.getQueueJobMaxAttempts()
+            );
+        }
+        return analysisQueueService;
+    }
+    
+    public synchronized AnalysisJobWorker getAnalysisJobWorker() {
+        if (analysisJobWorker == null) {
+            analysisJobWorker = createAnalysisJobWorker(config);
+        }
+        return analysisJobWorker;
+    }
+    
+    public synchronized HistoryQueryService getHistoryQueryService() {
+        if (historyQueryService == null) {
+            historyQueryService = new HistoryQueryService(
+                analysisRunRepository(),
+                findingRepository(),
+                diffFileRepository(),
+                txManager
+            );
+        }
         return historyQueryService;
     }
     
-    public AnalyticsService getAnalyticsService() {
+    public synchronized AnalyticsService getAnalyticsService() {
+        if (analyticsService == null) {
+            analyticsService = new AnalyticsService(
+                analysisRunRepository(),
+                txManager
+            );
+        }
         return analyticsService;
     }
     
-    public PolicyAdminService getPolicyAdminService() {
+    public synchronized PolicyAdminService getPolicyAdminService() {
+        if (policyAdminService == null) {
+            policyAdminService = new PolicyAdminService(
+                severityPolicyRepository(),
+                policyEngine(),
+                txManager
+            );
+        }
         return policyAdminService;
     }
     
-    public ExportService getExportService() {
+    public synchronized ExportService getExportService() {
+        if (exportService == null) {
+            exportService = new ExportService(
+                analysisRunRepository(),
+                findingRepository(),
+                txManager
+            );
+        }
         return exportService;
     }
     
-    public DiffEngine getDiffEngine() {
+    /**
+     * Procesos "git cat-file" persistentes por repositorio, compartidos por los adaptadores git.
+     */
+    public synchronized GitProcessPool getGitProcessPool() {
+        if (gitProcessPool == null) {
+            gitProcessPool = new GitProcessPool(
+                config.getGitExecutable(),
+                config.getGitPoolMaxProcesses(),
+                config.getGitPoolIdleTimeoutMs()
+            );
+        }
+        return gitProcessPool;
+    }
+    
+    /**
+     * Lectores git en proceso (sin subprocesos); null si git.engine=process.
+     */
+    private synchronized NativeGitRepositories nativeGitRepositories() {
+        if (nativeGitRepositories == null && "native".equalsIgnoreCase(config.getGitEngine())) {
+            nativeGitRepositories = new NativeGitRepositories(config.getGitNativeDeltaCacheBytes());
+        }
+        return nativeGitRepositories;
+    }
+    
+    public synchronized DiffEngine getDiffEngine() {
+        if (diffEngine == null) {
+            DiffEngine processEngine = new GitDiffEngine(getGitProcessPool());
+            NativeGitRepositories repositories = nativeGitRepositories();
+            // Refs, árboles, blobs y diffs en proceso; los hunks siguen usando git
+            diffEngine = repositories != null ? new NativeGitDiffEngine(repositories, processEngine) : processEngine;
+            if (config.isGitRefsWatchEnabled()) {
+                // Ramas en memoria, invalidadas al cambiar los refs del repositorio
+                diffEngine = new WatchedBranchDiffEngine(diffEngine, config.getGitRefsWatchDebounceMs());
+            }
+        }
         return diffEngine;
     }
     
-    public UserRepository getUserRepository() {
+    public synchronized UserRepository getUserRepository() {
+        if (userRepository == null) {
+            userRepository = new JdbcUserRepository(txManager);
+        }
         return userRepository;
     }
     
-    public LoginService getLoginService() {
+    public synchronized LoginService getLoginService() {
+        if (loginService == null) {
+            loginService = new LoginService(getUserRepository());
+        }
         return loginService;
     }
     
@@ -142,7 +462,7 @@ public class AppFactory {
             txManager.begin();
             
             // Intentar obtener usuario existente
-            var optUser = userRepository.findByUsername("demo");
+            var optUser = getUserRepository().findByUsername("demo");
             if (optUser.isPresent()) {
                 txManager.commit();
                 return optUser.get();
@@ -151,7 +471,7 @@ public class AppFactory {
             // Crear usuario demo
             User user = new User(null, "demo", "demo@example.com", UserRole.DEVELOPER);
             
-            user = userRepository.save(user);
+            user = getUserRepository().save(user);
             txManager.commit();
             return user;
             
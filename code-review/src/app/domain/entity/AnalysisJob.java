@@ -0,0 +1,195 @@
+package app.domain.entity;
+
+import app.domain.value.JobStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * A branch analysis waiting in (or taken from) the durable job queue.
+ * Workers claim jobs with a lease; analysisRunId links the run the job produced, so a retry
+ * after a worker died can resume that run instead of starting over.
+ */
+public class AnalysisJob {
+    private Long id;
+    private Long userId;
+    private String repositoryPath;
+    private String baseBranch;
+    private String targetBranch;
+    private Boolean incremental;
+    private JobStatus status;
+    private int attempts;
+    private int maxAttempts;
+    private String workerId;
+    private LocalDateTime leaseUntil;
+    private LocalDateTime availableAt;
+    private Long analysisRunId;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public AnalysisJob() {
+        this.status = JobStatus.QUEUED;
+        this.maxAttempts = 3;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public AnalysisJob(Long userId, String repositoryPath, String baseBranch, String targetBranch) {
+        this();
+        this.userId = userId;
+        this.repositoryPath = repositoryPath;
+        this.baseBranch = baseBranch;
+        this.targetBranch = targetBranch;
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getRepositoryPath() {
+        return repositoryPath;
+    }
+
+    public void setRepositoryPath(String repositoryPath) {
+        this.repositoryPath = repositoryPath;
+    }
+
+    public String getBaseBranch() {
+        return baseBranch;
+    }
+
+    public void setBaseBranch(String baseBranch) {
+        this.baseBranch = baseBranch;
+    }
+
+    public String getTargetBranch() {
+        return targetBranch;
+    }
+
+    public void setTargetBranch(String targetBranch) {
+        this.targetBranch = targetBranch;
+    }
+
+    /**
+     * Incremental mode for the run, or null for the configured default.
+     */
+    public Boolean getIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(Boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Times the job was claimed, including the current claim.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    public void setWorkerId(String workerId) {
+        this.workerId = workerId;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public LocalDateTime getAvailableAt() {
+        return availableAt;
+    }
+
+    public void setAvailableAt(LocalDateTime availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public Long getAnalysisRunId() {
+        return analysisRunId;
+    }
+
+    public void setAnalysisRunId(Long analysisRunId) {
+        this.analysisRunId = analysisRunId;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public boolean canRetry() {
+        return attempts < maxAttempts;
+    }
+
+    @Override
+    public String toString() {
+        return "AnalysisJob{" +
+                "id=" + id +
+                ", repo='" + repositoryPath + '\'' +
+                ", " + baseBranch + ".." + targetBranch +
+                ", status=" + status +
+                ", attempts=" + attempts + "/" + maxAttempts +
+                ", worker='" + workerId + '\'' +
+                ", runId=" + analysisRunId +
+                '}';
+    }
+}
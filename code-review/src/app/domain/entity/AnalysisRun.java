@@ -18,6 +18,7 @@ public class AnalysisRun {
     private LocalDateTime startedAt;
     private LocalDateTime completedAt;
     private Integer totalFiles;
+    private Integer diffTotalFiles; // Files in the diff; more than totalFiles when not all were analyzed
     private Integer totalFindings;
     private Integer criticalCount;
     private Integer highCount;
@@ -28,7 +29,7 @@ public class AnalysisRun {
     private Long durationMs;
 
     public AnalysisRun() {
-        this.status = RunStatus.SUCCESS; // Will be set to ERROR if fails
+        this.status = RunStatus.RUNNING; // Until marked completed, failed, cancelled or empty
         this.startedAt = LocalDateTime.now();
     }
 
@@ -53,6 +54,26 @@ public class AnalysisRun {
         this.durationMs = java.time.Duration.between(startedAt, completedAt).toMillis();
     }
     
+    /**
+     * Stopped by the user; totals reflect the files persisted before cancelling.
+     */
+    public void markAsCancelled() {
+        this.status = RunStatus.CANCELLED;
+        this.completedAt = LocalDateTime.now();
+        this.errorMessage = "Cancelled by user";
+        this.durationMs = java.time.Duration.between(startedAt, completedAt).toMillis();
+    }
+    
+    /**
+     * Out of time budget; totals reflect the files analyzed before the deadline.
+     */
+    public void markAsPartial(String reason) {
+        this.status = RunStatus.PARTIAL;
+        this.completedAt = LocalDateTime.now();
+        this.errorMessage = reason;
+        this.durationMs = java.time.Duration.between(startedAt, completedAt).toMillis();
+    }
+    
     public void markAsEmptyDiff() {
         this.status = RunStatus.EMPTY_DIFF;
         this.completedAt = LocalDateTime.now();
@@ -148,6 +169,14 @@ public class AnalysisRun {
         this.totalFiles = totalFiles;
     }
 
+    public Integer getDiffTotalFiles() {
+        return diffTotalFiles;
+    }
+
+    public void setDiffTotalFiles(Integer diffTotalFiles) {
+        this.diffTotalFiles = diffTotalFiles;
+    }
+
     public Integer getTotalFindings() {
         return totalFindings;
     }
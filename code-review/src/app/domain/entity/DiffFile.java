@@ -1,6 +1,9 @@
 package app.domain.entity;
 
 import app.domain.value.FileChangeType;
+import app.domain.value.LineRange;
+
+import java.util.List;
 
 /**
  * Represents a file detected in the Git diff.
@@ -13,6 +16,13 @@ public class DiffFile {
     private Integer linesAdded;
     private Integer linesRemoved;
     private String oldPath; // For renamed files
+    private String blobId; // Git blob SHA in the target revision (incremental analysis), null if not what was analyzed
+    private String hunkKey; // Hash of the line ranges analyzed in hunk mode, null for the whole file
+    private boolean binary; // Not sent to the endpoint
+    private boolean truncated; // Only the first part of the file was analyzed
+    private Long contentBytes; // Size of the file that was read, null if not read
+    private String contentCharset; // Charset the content was decoded with
+    private List<LineRange> changedLines; // Changed ranges in the target (hunk mode), not persisted
 
     public DiffFile() {
         this.linesAdded = 0;
@@ -82,6 +92,66 @@ public class DiffFile {
         this.oldPath = oldPath;
     }
 
+    public String getBlobId() {
+        return blobId;
+    }
+
+    public void setBlobId(String blobId) {
+        this.blobId = blobId;
+    }
+
+    public String getHunkKey() {
+        return hunkKey;
+    }
+
+    public void setHunkKey(String hunkKey) {
+        this.hunkKey = hunkKey;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public Long getContentBytes() {
+        return contentBytes;
+    }
+
+    public void setContentBytes(Long contentBytes) {
+        this.contentBytes = contentBytes;
+    }
+
+    public String getContentCharset() {
+        return contentCharset;
+    }
+
+    public void setContentCharset(String contentCharset) {
+        this.contentCharset = contentCharset;
+    }
+
+    /**
+     * Changed line ranges in the target version, widened by the context lines, in line order;
+     * null when the diff wasn't asked for hunks or the file has none (binary, pure rename).
+     */
+    public List<LineRange> getChangedLines() {
+        return changedLines;
+    }
+
+    public void setChangedLines(List<LineRange> changedLines) {
+        this.changedLines = changedLines;
+    }
+
     @Override
     public String toString() {
         return "DiffFile{" +
@@ -29,6 +29,23 @@ public class Finding {
         this.severityFinal = severity;
     }
 
+    /**
+     * Copy of the endpoint result only (no ids, path or policy classification),
+     * so it can be reused for another file or run.
+     */
+    public Finding copyRaw() {
+        Finding copy = new Finding();
+        copy.ruleId = ruleId;
+        copy.category = category;
+        copy.message = message;
+        copy.severityRaw = severityRaw;
+        copy.severityFinal = severityRaw;
+        copy.lineNumber = lineNumber;
+        copy.codeSnippet = codeSnippet;
+        copy.suggestion = suggestion;
+        return copy;
+    }
+
     // Getters and setters
     public Long getId() {
         return id;
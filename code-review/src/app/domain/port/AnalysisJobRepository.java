@@ -0,0 +1,52 @@
+package app.domain.port;
+
+import app.domain.entity.AnalysisJob;
+import app.domain.value.JobStatus;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Durable queue of analysis jobs shared by every worker process.
+ * Lease and availability times use the database clock, so workers on different hosts agree.
+ * State changes of a claimed job only apply while the caller still holds its lease.
+ */
+public interface AnalysisJobRepository {
+    
+    AnalysisJob enqueue(AnalysisJob job) throws RepositoryException;
+    
+    Optional<AnalysisJob> findById(Long id) throws RepositoryException;
+    
+    List<AnalysisJob> findByStatus(JobStatus status, int limit) throws RepositoryException;
+    
+    /**
+     * Claim the oldest available job: QUEUED and due, or RUNNING with an expired lease
+     * (its worker died). Rows locked by other workers are skipped, not waited for.
+     * Expired jobs that already used all their attempts are marked FAILED instead.
+     * Must run inside a transaction; the claim is visible to others once it commits.
+     * 
+     * @return the claimed job (attempts already incremented), or empty if none is available
+     */
+    Optional<AnalysisJob> claimNext(String workerId, int leaseSeconds) throws RepositoryException;
+    
+    /**
+     * Extend the lease and record the job's run once it exists.
+     * 
+     * @param analysisRunId Run created for the job, or null if not known yet
+     * @return false if the lease was lost (expired and claimed by another worker, or job finished)
+     */
+    boolean renewLease(Long jobId, String workerId, int leaseSeconds, Long analysisRunId) 
+            throws RepositoryException;
+    
+    boolean markSucceeded(Long jobId, String workerId, Long analysisRunId) throws RepositoryException;
+    
+    /**
+     * Record a failed attempt: back to QUEUED after retryDelaySeconds, or FAILED when no attempts remain.
+     */
+    boolean markFailed(Long jobId, String workerId, Long analysisRunId, String error, int retryDelaySeconds) 
+            throws RepositoryException;
+    
+    /**
+     * Give the job back without counting the attempt (worker shutting down).
+     */
+    boolean release(Long jobId, String workerId, Long analysisRunId) throws RepositoryException;
+}
@@ -1,6 +1,7 @@
 package app.domain.port;
 
 import app.domain.entity.AnalysisRun;
+import app.domain.value.RunStatus;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -21,4 +22,12 @@ public interface AnalysisRunRepository {
     List<AnalysisRun> findByDateRange(LocalDateTime from, LocalDateTime to) throws RepositoryException;
     
     List<AnalysisRun> findRecent(int limit) throws RepositoryException;
+    
+    List<AnalysisRun> findByStatus(RunStatus status) throws RepositoryException;
+    
+    /**
+     * Find the most recent successful run for the same repository path and branch pair.
+     */
+    Optional<AnalysisRun> findLatestSuccessful(String repositoryPath, String baseBranch, 
+                                               String targetBranch) throws RepositoryException;
 }
@@ -0,0 +1,74 @@
+package app.domain.port;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cooperative cancellation flag shared by the caller and the stages of a long operation.
+ * Blocking work that can't poll the flag (e.g. an external process) registers an onCancel callback.
+ */
+public class CancellationToken {
+    
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final List<Runnable> callbacks = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Token that is never cancelled.
+     */
+    public static CancellationToken none() {
+        return new CancellationToken();
+    }
+    
+    /**
+     * Request cancellation and run the registered callbacks. Later calls do nothing.
+     */
+    public void cancel() {
+        if (!cancelled.compareAndSet(false, true)) {
+            return;
+        }
+        for (Runnable callback : callbacks) {
+            // remove() decides who runs it when onCancel races with cancel
+            if (callbacks.remove(callback)) {
+                runQuietly(callback);
+            }
+        }
+    }
+    
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+    
+    /**
+     * @throws CancellationException if cancellation was requested
+     */
+    public void throwIfCancelled() {
+        if (cancelled.get()) {
+            throw new CancellationException("Operation cancelled");
+        }
+    }
+    
+    /**
+     * Run the callback on cancellation (immediately if already cancelled).
+     * Callers must remove it with removeOnCancel when the guarded work ends.
+     */
+    public void onCancel(Runnable callback) {
+        callbacks.add(callback);
+        if (cancelled.get() && callbacks.remove(callback)) {
+            runQuietly(callback);
+        }
+    }
+    
+    public void removeOnCancel(Runnable callback) {
+        callbacks.remove(callback);
+    }
+    
+    private void runQuietly(Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            System.err.println("[CancellationToken] Cancel callback failed: " + e.getMessage());
+        }
+    }
+}
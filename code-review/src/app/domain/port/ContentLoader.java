@@ -0,0 +1,35 @@
+package app.domain.port;
+
+import app.domain.value.FileContent;
+
+/**
+ * Port for loading file contents to analyze, with bounded memory per call.
+ */
+public interface ContentLoader {
+    
+    /**
+     * Load a file of the repository.
+     * Never fails: unreadable or absent files come back as FileContent.missing().
+     * 
+     * @param repositoryPath Local path to the git repository
+     * @param filePath Path relative to the repository root
+     * @return Decoded text (possibly truncated), or a binary/missing marker
+     */
+    FileContent load(String repositoryPath, String filePath);
+    
+    /**
+     * Load a file as of a revision (branch, tag or commit) instead of the working tree.
+     * Loaders that cannot read git objects fall back to the working tree.
+     */
+    default FileContent load(String repositoryPath, String revision, String filePath) {
+        return load(repositoryPath, filePath);
+    }
+    
+    /**
+     * True if load with a revision reads the committed blob, so the content is exactly the
+     * blob the diff reported. False for loaders that read the working tree, which may differ.
+     */
+    default boolean readsRevisions() {
+        return false;
+    }
+}
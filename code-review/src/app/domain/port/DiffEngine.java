@@ -2,6 +2,9 @@ package app.domain.port;
 
 import app.domain.entity.DiffFile;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Port for Git diff operations.
@@ -21,6 +24,68 @@ public interface DiffEngine {
     List<DiffFile> calculateDiff(String repositoryPath, String baseBranch, String targetBranch) 
             throws DiffException;
     
+    /**
+     * Stream diff between two branches, handing each file to the consumer as soon as
+     * it is parsed, while git is still producing output.
+     * Emits the same files, in the same order, as calculateDiff. Files present in the
+     * target carry their blob id there (DiffFile.getBlobId), for incremental analysis.
+     * 
+     * @param repositoryPath Local path to the git repository
+     * @param baseBranch Base branch name
+     * @param targetBranch Target branch name
+     * @param consumer Receives each changed file; runtime exceptions abort the diff
+     * @param cancellation Stops the diff (and any git process) when cancelled
+     * @throws DiffException if git command fails or repository is invalid
+     * @throws java.util.concurrent.CancellationException if cancelled before the diff finished
+     */
+    void streamDiff(String repositoryPath, String baseBranch, String targetBranch, 
+                    Consumer<DiffFile> consumer, CancellationToken cancellation) throws DiffException;
+    
+    /**
+     * Stream diff between two branches like streamDiff, each file also carrying its changed
+     * line ranges in the target version (DiffFile.getChangedLines), for hunk mode. Each range
+     * is widened by contextLines on both sides and overlapping ranges are merged. Files
+     * without content hunks (binary, pure renames, deletions) carry none.
+     * 
+     * @param repositoryPath Local path to the git repository
+     * @param baseBranch Base branch name
+     * @param targetBranch Target branch name
+     * @param contextLines Unchanged lines kept around each change
+     * @param consumer Receives each changed file; runtime exceptions abort the diff
+     * @param cancellation Stops the diff (and any git process) when cancelled
+     * @throws DiffException if git command fails or repository is invalid
+     * @throws java.util.concurrent.CancellationException if cancelled before the diff finished
+     */
+    void streamDiffWithHunks(String repositoryPath, String baseBranch, String targetBranch, int contextLines,
+                             Consumer<DiffFile> consumer, CancellationToken cancellation) throws DiffException;
+    
+    /**
+     * Get the merge base of two branches: the best common ancestor, where the target forked
+     * from the base. Diffing it against the target ("base...target") shows only what the
+     * target changed, without the changes made on the base since the fork.
+     * 
+     * @param repositoryPath Local path to the git repository
+     * @param baseBranch Base branch name
+     * @param targetBranch Target branch name
+     * @param cancellation Stops the search (and any git process) when cancelled
+     * @return Commit id of the merge base
+     * @throws DiffException if a branch doesn't resolve, the branches share no history,
+     *         or the repository is invalid
+     * @throws java.util.concurrent.CancellationException if cancelled before the merge base was found
+     */
+    String getMergeBase(String repositoryPath, String baseBranch, String targetBranch,
+                        CancellationToken cancellation) throws DiffException;
+    
+    /**
+     * Get the blob id of every file in a revision.
+     * 
+     * @param repositoryPath Local path to the git repository
+     * @param revision Branch name or commit
+     * @return Map of file path to git blob SHA
+     * @throws DiffException if git command fails or repository is invalid
+     */
+    Map<String, String> getBlobIds(String repositoryPath, String revision) throws DiffException;
+    
     /**
      * Validate that a repository path is a valid git repository.
      * 
@@ -37,4 +102,17 @@ public interface DiffEngine {
      * @throws DiffException if repository is invalid
      */
     List<String> getBranches(String repositoryPath) throws DiffException;
+    
+    /**
+     * Register a listener told when branches appear or disappear in a repository already
+     * listed by getBranches. It receives the repository path and its new branch list,
+     * on a background thread. Engines that don't watch repositories never call it.
+     * 
+     * @param listener Receives (repositoryPath, branches); must be thread-safe
+     */
+    default void addBranchListener(BiConsumer<String, List<String>> listener) {
+    }
+    
+    default void removeBranchListener(BiConsumer<String, List<String>> listener) {
+    }
 }
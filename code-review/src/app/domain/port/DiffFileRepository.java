@@ -11,6 +11,11 @@ public interface DiffFileRepository {
     
     DiffFile save(DiffFile diffFile) throws RepositoryException;
     
+    /**
+     * Save several diff files in one batch, assigning generated IDs in order.
+     */
+    List<DiffFile> saveAll(List<DiffFile> diffFiles) throws RepositoryException;
+    
     Optional<DiffFile> findById(Long id) throws RepositoryException;
     
     List<DiffFile> findByAnalysisRunId(Long analysisRunId) throws RepositoryException;
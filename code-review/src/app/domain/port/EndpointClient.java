@@ -1,6 +1,9 @@
 package app.domain.port;
 
 import app.domain.entity.Finding;
+import app.domain.value.ContentWindow;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -18,6 +21,65 @@ public interface EndpointClient {
      */
     List<Finding> analyzeFile(String filePath, String fileContent) throws EndpointException;
     
+    /**
+     * Analyze a file unless the operation was cancelled.
+     * Clients with long-running calls should override this to abort the call itself.
+     * 
+     * @throws java.util.concurrent.CancellationException if cancelled before or during the call
+     */
+    default List<Finding> analyzeFile(String filePath, String fileContent, CancellationToken cancellation) 
+            throws EndpointException {
+        cancellation.throwIfCancelled();
+        List<Finding> findings = analyzeFile(filePath, fileContent);
+        cancellation.throwIfCancelled();
+        return findings;
+    }
+    
+    /**
+     * Analyze only some windows of a file (the changed hunks plus context), in one call.
+     * The windows are sent back to back as a single content, so a file costs one request
+     * however many hunks it has. Findings come back with line numbers of the full file;
+     * findings the endpoint reports outside every window are dropped.
+     * Clients whose endpoint takes windows natively should override it.
+     * 
+     * @param windows Non-overlapping windows, in line order
+     * @throws java.util.concurrent.CancellationException if cancelled before or during the call
+     */
+    default List<Finding> analyzeWindows(String filePath, List<ContentWindow> windows, 
+                                         CancellationToken cancellation) throws EndpointException {
+        // First line of each window in the joined content
+        int[] firstLines = new int[windows.size()];
+        StringBuilder content = new StringBuilder();
+        int lines = 0;
+        for (int i = 0; i < windows.size(); i++) {
+            ContentWindow window = windows.get(i);
+            firstLines[i] = lines + 1;
+            content.append(window.getText());
+            if (!window.getText().endsWith("\n")) {
+                content.append('\n');
+            }
+            lines += window.getLineCount();
+        }
+        
+        List<Finding> findings = new ArrayList<>();
+        for (Finding finding : analyzeFile(filePath, content.toString(), cancellation)) {
+            if (finding.getLineNumber() == null) {
+                findings.add(finding);
+                continue;
+            }
+            int window = Arrays.binarySearch(firstLines, finding.getLineNumber());
+            window = window >= 0 ? window : -window - 2;
+            int line = window >= 0
+                ? windows.get(window).toAbsoluteLine(finding.getLineNumber() - firstLines[window] + 1)
+                : -1;
+            if (line > 0) {
+                finding.setLineNumber(line);
+                findings.add(finding);
+            }
+        }
+        return findings;
+    }
+    
     /**
      * Check if endpoint is available.
      * 
@@ -0,0 +1,39 @@
+package app.domain.port;
+
+import app.domain.entity.Finding;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repository for the content-addressed finding cache.
+ * Entries are keyed by (content SHA, endpoint id, endpoint version) and hold raw endpoint findings.
+ */
+public interface FindingCacheRepository {
+    
+    /**
+     * Cached raw findings by content SHA, for the contents analyzed with this endpoint version
+     * (the others are left out).
+     */
+    Map<String, List<Finding>> findAll(Collection<String> contentShas, Long endpointId, String endpointVersion) 
+            throws RepositoryException;
+    
+    /**
+     * Store raw findings for this content. An existing entry for the same key is kept.
+     */
+    void save(String contentSha, Long endpointId, String endpointVersion, List<Finding> findings) 
+            throws RepositoryException;
+    
+    /**
+     * Current version of the endpoint (endpoint_mocks.version), if the endpoint is registered.
+     */
+    Optional<String> findEndpointVersion(Long endpointId) throws RepositoryException;
+    
+    /**
+     * Delete entries of this endpoint recorded with any other version.
+     * 
+     * @return number of entries deleted
+     */
+    int deleteOtherVersions(Long endpointId, String currentVersion) throws RepositoryException;
+}
@@ -3,6 +3,7 @@ package app.domain.port;
 import app.domain.entity.Finding;
 import app.domain.value.Severity;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -12,6 +13,11 @@ public interface FindingRepository {
     
     Finding save(Finding finding) throws RepositoryException;
     
+    /**
+     * Save several findings in one batch, assigning generated IDs in order.
+     */
+    List<Finding> saveAll(List<Finding> findings) throws RepositoryException;
+    
     Optional<Finding> findById(Long id) throws RepositoryException;
     
     List<Finding> findByAnalysisRunId(Long analysisRunId) throws RepositoryException;
@@ -20,5 +26,12 @@ public interface FindingRepository {
     
     List<Finding> findBySeverity(Long analysisRunId, Severity severity) throws RepositoryException;
     
+    /**
+     * Count findings per file path and final severity over the last runs of a repository
+     * (finding history for risk-based file scheduling).
+     */
+    Map<String, Map<Severity, Integer>> countByPathAndSeverity(Long repositoryId, int lastRuns) 
+            throws RepositoryException;
+    
     void deleteByAnalysisRunId(Long analysisRunId) throws RepositoryException;
 }
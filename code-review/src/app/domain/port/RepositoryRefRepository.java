@@ -15,6 +15,21 @@ public interface RepositoryRefRepository {
     
     Optional<RepositoryRef> findByName(String name) throws RepositoryException;
     
+    /**
+     * Find the repository registered for an exact (already normalized) local path.
+     */
+    Optional<RepositoryRef> findByLocalPath(String localPath) throws RepositoryException;
+    
+    List<RepositoryRef> findAll() throws RepositoryException;
+    
+    /**
+     * Move the runs of the duplicate rows to the canonical one, delete the duplicates and
+     * store the canonical path on the surviving row.
+     * 
+     * @return Number of analysis runs repointed
+     */
+    int merge(Long canonicalId, String canonicalPath, List<Long> duplicateIds) throws RepositoryException;
+    
     List<RepositoryRef> findAllActive() throws RepositoryException;
     
     void deleteById(Long id) throws RepositoryException;
@@ -0,0 +1,50 @@
+package app.domain.value;
+
+/**
+ * A slice of a file sent to the analysis endpoint instead of the whole content:
+ * the text of whole lines starting at startLine (1-based, in the full file).
+ */
+public final class ContentWindow {
+
+    private final int startLine;
+    private final int lineCount;
+    private final String text;
+
+    public ContentWindow(int startLine, int lineCount, String text) {
+        this.startLine = startLine;
+        this.lineCount = lineCount;
+        this.text = text;
+    }
+
+    public int getStartLine() {
+        return startLine;
+    }
+
+    public int getEndLine() {
+        return startLine + lineCount - 1;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Map a line number relative to the window (1 = first line of the window) to the full file.
+     * Returns -1 when the line is outside the window.
+     */
+    public int toAbsoluteLine(int windowLine) {
+        if (windowLine < 1 || windowLine > lineCount) {
+            return -1;
+        }
+        return startLine + windowLine - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "ContentWindow{" + startLine + "-" + getEndLine() + ", " + text.length() + " chars}";
+    }
+}
@@ -0,0 +1,17 @@
+package app.domain.value;
+
+/**
+ * What the target branch is compared with in an analysis.
+ */
+public enum DiffMode {
+    /**
+     * The tip of the base branch ("base..target"): changes made on the base since the
+     * target forked show up too, as if the target had undone them
+     */
+    TWO_DOT,
+    
+    /**
+     * The merge base of both branches ("base...target"): only what the target changed
+     */
+    MERGE_BASE
+}
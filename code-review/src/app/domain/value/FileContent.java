@@ -0,0 +1,82 @@
+package app.domain.value;
+
+/**
+ * Text content of a file as handed to the analysis endpoint.
+ * Large files are cut to a bounded window; binary and missing files carry no text.
+ */
+public final class FileContent {
+    
+    private static final FileContent MISSING = new FileContent("", null, -1, false, false);
+    
+    private final String text;
+    private final String charset;
+    private final long sizeBytes;
+    private final boolean truncated;
+    private final boolean binary;
+    
+    private FileContent(String text, String charset, long sizeBytes, boolean truncated, boolean binary) {
+        this.text = text;
+        this.charset = charset;
+        this.sizeBytes = sizeBytes;
+        this.truncated = truncated;
+        this.binary = binary;
+    }
+    
+    /**
+     * @param truncated true when text holds only the first part of the file
+     */
+    public static FileContent text(String text, String charset, long sizeBytes, boolean truncated) {
+        return new FileContent(text, charset, sizeBytes, truncated, false);
+    }
+    
+    public static FileContent binary(long sizeBytes) {
+        return new FileContent("", null, sizeBytes, false, true);
+    }
+    
+    /**
+     * File not present (deleted in the working tree, or unreadable).
+     */
+    public static FileContent missing() {
+        return MISSING;
+    }
+    
+    public String getText() {
+        return text;
+    }
+    
+    /**
+     * Charset the text was decoded with, or null for binary/missing files.
+     */
+    public String getCharset() {
+        return charset;
+    }
+    
+    /**
+     * Full size of the file in bytes (not just the loaded window), or -1 if missing.
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+    
+    public boolean isTruncated() {
+        return truncated;
+    }
+    
+    public boolean isBinary() {
+        return binary;
+    }
+    
+    public boolean isMissing() {
+        return sizeBytes < 0;
+    }
+    
+    @Override
+    public String toString() {
+        return "FileContent{" +
+                "size=" + sizeBytes +
+                ", charset=" + charset +
+                ", truncated=" + truncated +
+                ", binary=" + binary +
+                '}';
+    }
+}
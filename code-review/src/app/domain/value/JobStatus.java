@@ -0,0 +1,27 @@
+package app.domain.value;
+
+/**
+ * Status of a queued analysis job.
+ * Must match values stored in analysis_jobs.status.
+ */
+public enum JobStatus {
+    /**
+     * Waiting for a worker (new, released, or retrying after a failure)
+     */
+    QUEUED,
+    
+    /**
+     * Claimed by a worker holding a lease; if the lease expires the job can be claimed again
+     */
+    RUNNING,
+    
+    /**
+     * Analysis run finished (SUCCESS or EMPTY_DIFF)
+     */
+    SUCCEEDED,
+    
+    /**
+     * Gave up after max_attempts
+     */
+    FAILED
+}
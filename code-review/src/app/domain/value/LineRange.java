@@ -0,0 +1,70 @@
+package app.domain.value;
+
+/**
+ * Inclusive range of 1-based line numbers in the target version of a file.
+ */
+public final class LineRange {
+
+    private final int start;
+    private final int end;
+
+    public LineRange(int start, int end) {
+        if (start < 1 || end < start) {
+            throw new IllegalArgumentException("Invalid line range: " + start + "-" + end);
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public int getLineCount() {
+        return end - start + 1;
+    }
+
+    public boolean contains(int line) {
+        return line >= start && line <= end;
+    }
+
+    /**
+     * This range plus contextLines on each side (never before line 1).
+     */
+    public LineRange expand(int contextLines) {
+        return new LineRange(Math.max(1, start - contextLines), end + contextLines);
+    }
+
+    /**
+     * True when both ranges overlap or are adjacent, i.e. can be sent as one window.
+     */
+    public boolean touches(LineRange other) {
+        return other.start <= end + 1 && start <= other.end + 1;
+    }
+
+    public LineRange union(LineRange other) {
+        return new LineRange(Math.min(start, other.start), Math.max(end, other.end));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LineRange)) return false;
+        LineRange other = (LineRange) o;
+        return start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start + end;
+    }
+
+    @Override
+    public String toString() {
+        return start + "-" + end;
+    }
+}
@@ -5,6 +5,11 @@ package app.domain.value;
  * Must match values in run_status_type catalog table.
  */
 public enum RunStatus {
+    /**
+     * Analysis in progress, or interrupted before finishing (resumable)
+     */
+    RUNNING,
+    
     /**
      * Analysis completed successfully
      */
@@ -18,5 +23,15 @@ public enum RunStatus {
     /**
      * No changes found to analyze
      */
-    EMPTY_DIFF
+    EMPTY_DIFF,
+    
+    /**
+     * Cancelled by the user; holds the results persisted up to that point
+     */
+    CANCELLED,
+    
+    /**
+     * Stopped dispatching files at its time budget; holds the files analyzed until then (resumable)
+     */
+    PARTIAL
 }
@@ -0,0 +1,233 @@
+package app.infra.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory for the executors used by services and controllers for blocking work
+ * (git processes, file I/O, endpoint calls, JDBC).
+ *
+ * PLATFORM mode uses daemon platform threads.
+ * VIRTUAL mode uses one virtual thread per task (Java 21+); on older runtimes it
+ * falls back to PLATFORM so the application still starts.
+ */
+public final class TaskExecutors {
+
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * Parse mode from configuration (case-insensitive), defaulting to PLATFORM.
+     */
+    public static Mode parseMode(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return Mode.PLATFORM;
+        }
+        try {
+            return Mode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("[TaskExecutors] Unknown executor mode '" + value + "', using PLATFORM");
+            return Mode.PLATFORM;
+        }
+    }
+
+    /**
+     * Check if the running JVM supports virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return findVirtualExecutorFactory() != null;
+    }
+
+    /**
+     * Create an unbounded executor that starts a thread per task (UI background tasks).
+     */
+    public static ExecutorService newTaskExecutor(Mode mode, String namePrefix) {
+        if (mode == Mode.VIRTUAL) {
+            ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+            if (virtual != null) {
+                return virtual;
+            }
+            System.err.println("[TaskExecutors] Virtual threads not available on this JVM, using PLATFORM");
+        }
+        return Executors.newCachedThreadPool(daemonThreadFactory(namePrefix));
+    }
+
+    /**
+     * Create an executor that runs at most maxConcurrency tasks at the same time.
+     * In PLATFORM mode this is a fixed pool; in VIRTUAL mode every task gets its own
+     * virtual thread and waits on a semaphore, which is cheap for virtual threads.
+     */
+    public static ExecutorService newBoundedExecutor(Mode mode, int maxConcurrency, String namePrefix) {
+        int permits = Math.max(1, maxConcurrency);
+        if (mode == Mode.VIRTUAL) {
+            ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+            if (virtual != null) {
+                return new BoundedExecutorService(virtual, permits);
+            }
+            System.err.println("[TaskExecutors] Virtual threads not available on this JVM, using PLATFORM");
+        }
+        return Executors.newFixedThreadPool(permits, daemonThreadFactory(namePrefix));
+    }
+
+    /**
+     * Create a single daemon thread for short periodic tasks (lease heartbeats, housekeeping).
+     * Always a platform thread: scheduled tasks must not block.
+     */
+    public static ScheduledExecutorService newScheduledExecutor(String namePrefix) {
+        return Executors.newSingleThreadScheduledExecutor(daemonThreadFactory(namePrefix));
+    }
+
+    /**
+     * Wrap an executor so afterTask runs on the task's thread once each task ends, failed or not
+     * (e.g. to release per-thread state a failed task left behind on a pooled thread).
+     */
+    public static ExecutorService withAfterTask(ExecutorService delegate, Runnable afterTask) {
+        return new AfterTaskExecutorService(delegate, afterTask);
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        Method factory = findVirtualExecutorFactory();
+        if (factory == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) factory.invoke(null);
+        } catch (Exception e) {
+            System.err.println("[TaskExecutors] Failed to create virtual thread executor: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Method findVirtualExecutorFactory() {
+        try {
+            // Resolved reflectively so the code still compiles and runs on Java 17
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, namePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Executor decorator that limits how many submitted tasks run concurrently.
+     */
+    private static class BoundedExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        BoundedExecutorService(ExecutorService delegate, int maxConcurrency) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                // Uninterruptible: a cancelled FutureTask simply returns immediately once it runs
+                permits.acquireUninterruptibly();
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+
+    /**
+     * Executor decorator that runs a cleanup step after every task, on the same thread.
+     */
+    private static class AfterTaskExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+        private final Runnable afterTask;
+
+        AfterTaskExecutorService(ExecutorService delegate, Runnable afterTask) {
+            this.delegate = delegate;
+            this.afterTask = afterTask;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    afterTask.run();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
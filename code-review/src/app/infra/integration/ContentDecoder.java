@@ -0,0 +1,152 @@
+package app.infra.integration;
+
+import app.domain.value.FileContent;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns the first bytes of a file into a FileContent: binary detection, charset sniffing
+ * and line-aligned truncation.
+ *
+ * - Binary: a NUL byte in the first sniffBytes (same heuristic as git), unless a UTF-16 BOM is present.
+ * - Charset: BOM if present, else UTF-8 when the window is valid UTF-8, else the fallback charset.
+ * - Truncation: when the window is shorter than the file, the text ends at the last complete line.
+ */
+class ContentDecoder {
+
+    private final int sniffBytes;
+    private final Charset fallbackCharset;
+
+    ContentDecoder(int sniffBytes, Charset fallbackCharset) {
+        this.sniffBytes = Math.max(1, sniffBytes);
+        this.fallbackCharset = fallbackCharset;
+    }
+
+    /**
+     * Charset by name, or ISO-8859-1 (which accepts any byte) when unknown.
+     */
+    static Charset resolveCharset(String name) {
+        try {
+            return Charset.forName(name);
+        } catch (Exception e) {
+            System.err.println("[ContentLoader] Unknown fallback charset '" + name + "', using ISO-8859-1");
+            return StandardCharsets.ISO_8859_1;
+        }
+    }
+
+    /**
+     * @param window First bytes of the file (position..limit); consumed by this call
+     * @param totalSize Full file size; the window is truncated when it is smaller
+     */
+    FileContent decode(ByteBuffer window, long totalSize) {
+        boolean truncated = window.remaining() < totalSize;
+
+        Charset bomCharset = detectBom(window);
+        if (bomCharset == null && containsNul(window)) {
+            return FileContent.binary(totalSize);
+        }
+
+        Charset charset = bomCharset;
+        if (charset == null) {
+            charset = isValidUtf8(window.duplicate(), truncated) ? StandardCharsets.UTF_8 : fallbackCharset;
+        }
+
+        String text = decodeLenient(window, charset, truncated);
+        if (truncated) {
+            int lastNewline = text.lastIndexOf('\n');
+            if (lastNewline >= 0) {
+                text = text.substring(0, lastNewline + 1);
+            }
+        }
+        return FileContent.text(text, charset.name(), totalSize, truncated);
+    }
+
+    /**
+     * Skips the BOM and returns its charset, or null if there is none.
+     */
+    private Charset detectBom(ByteBuffer window) {
+        int start = window.position();
+        if (window.remaining() >= 3 && (window.get(start) & 0xFF) == 0xEF
+                && (window.get(start + 1) & 0xFF) == 0xBB && (window.get(start + 2) & 0xFF) == 0xBF) {
+            window.position(start + 3);
+            return StandardCharsets.UTF_8;
+        }
+        if (window.remaining() >= 2) {
+            int b0 = window.get(start) & 0xFF;
+            int b1 = window.get(start + 1) & 0xFF;
+            if (b0 == 0xFF && b1 == 0xFE) {
+                window.position(start + 2);
+                return StandardCharsets.UTF_16LE;
+            }
+            if (b0 == 0xFE && b1 == 0xFF) {
+                window.position(start + 2);
+                return StandardCharsets.UTF_16BE;
+            }
+        }
+        return null;
+    }
+
+    private boolean containsNul(ByteBuffer window) {
+        int end = window.position() + Math.min(sniffBytes, window.remaining());
+        for (int i = window.position(); i < end; i++) {
+            if (window.get(i) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Strict UTF-8 check. An incomplete sequence at the end of a truncated window is accepted.
+     */
+    private boolean isValidUtf8(ByteBuffer bytes, boolean truncated) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer chars = CharBuffer.allocate(Math.min(8192, Math.max(16, bytes.remaining())));
+        while (true) {
+            CoderResult result = decoder.decode(bytes, chars, !truncated);
+            if (result.isError()) {
+                return false;
+            }
+            if (result.isUnderflow()) {
+                break;
+            }
+            chars.clear(); // overflow: only validity matters, drop the chars
+        }
+        if (!truncated) {
+            chars.clear();
+            return !decoder.flush(chars).isError();
+        }
+        return true;
+    }
+
+    private String decodeLenient(ByteBuffer bytes, Charset charset, boolean truncated) {
+        CharsetDecoder decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        int capacity = (int) Math.ceil(bytes.remaining() * (double) decoder.maxCharsPerByte());
+        CharBuffer chars = CharBuffer.allocate(Math.max(1, capacity));
+        try {
+            // endOfInput=false on a truncated window drops a trailing partial character
+            CoderResult result = decoder.decode(bytes, chars, !truncated);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (!truncated) {
+                decoder.flush(chars);
+            }
+        } catch (CharacterCodingException e) {
+            // Unreachable with REPLACE; keep what was decoded
+        }
+        chars.flip();
+        return chars.toString();
+    }
+}
@@ -1,30 +1,67 @@
 package app.infra.integration;
 
 import app.domain.entity.Finding;
+import app.domain.port.CancellationToken;
 import app.domain.port.EndpointClient;
 import app.domain.port.EndpointException;
 import app.domain.value.Severity;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Mock endpoint client with 3 different scenarios.
  * Rotates between scenarios to generate varied analysis results.
+ * 
+ * With an enabled EndpointSimulation it behaves like a slow, flaky service instead
+ * (latency, errors, timeouts, findings scaled by file size), reproducibly for a given seed.
  */
 public class EndpointMockClient implements EndpointClient {
     
+    private static final long SLEEP_SLICE_MS = 50;
+    // Retries come within a few calls of the failure, so only recent contents keep a count
+    private static final int CALL_COUNT_ENTRIES = 4096;
+    
     private final Map<Integer, List<MockFinding>> scenarios;
     private int currentScenario = 0;
     
+    private final EndpointSimulation simulation;
+    private final Map<String, Integer> callsPerContent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > CALL_COUNT_ENTRIES;
+        }
+    };
+    private final AtomicLong simulatedCalls = new AtomicLong();
+    private final AtomicLong simulatedErrors = new AtomicLong();
+    private final AtomicLong simulatedTimeouts = new AtomicLong();
+    
     public EndpointMockClient() {
+        this(null);
+    }
+    
+    /**
+     * @param simulation Simulation settings; null or disabled returns the scenario instantly
+     */
+    public EndpointMockClient(EndpointSimulation simulation) {
         this.scenarios = loadAllScenarios();
+        this.simulation = simulation != null && simulation.isEnabled() ? simulation : null;
+        if (this.simulation != null) {
+            System.out.println("[EndpointMock] Simulation enabled: " + this.simulation);
+        }
     }
     
     @Override
     public List<Finding> analyzeFile(String filePath, String fileContent) throws EndpointException {
+        if (simulation != null) {
+            return analyzeFile(filePath, fileContent, CancellationToken.none());
+        }
+        
         // Select scenario (rotate or random)
         List<MockFinding> scenarioData = scenarios.get(currentScenario);
         
@@ -34,23 +71,64 @@ public class EndpointMockClient implements EndpointClient {
         
         // Return ALL findings from the selected scenario (not random subset)
         for (MockFinding mock : scenarioData) {
-            Finding finding = new Finding();
-            finding.setRuleId(mock.ruleId);
-            finding.setCategory(mock.category);
-            finding.setMessage(mock.message);
-            finding.setSeverityRaw(mock.severity);
-            finding.setSeverityFinal(mock.severity);
-            finding.setLineNumber(mock.lineNumber);
-            finding.setCodeSnippet(mock.codeSnippet);
-            finding.setSuggestion(mock.suggestion);
-            
-            findings.add(finding);
+            findings.add(toFinding(mock, mock.lineNumber));
         }
         
         System.out.println("[EndpointMock] Returning " + findings.size() + " findings for " + filePath);
         return findings;
     }
     
+    /**
+     * Simulated call: waits the drawn latency (or the timeout) in short slices so cancellation
+     * stops it, then fails or returns findings scaled by the content size.
+     */
+    @Override
+    public List<Finding> analyzeFile(String filePath, String fileContent, CancellationToken cancellation)
+            throws EndpointException {
+        if (simulation == null) {
+            return EndpointClient.super.analyzeFile(filePath, fileContent, cancellation);
+        }
+        cancellation.throwIfCancelled();
+        simulatedCalls.incrementAndGet();
+        String content = fileContent != null ? fileContent : "";
+        SplittableRandom random = randomFor(filePath, content);
+        
+        // Always the same draws in the same order, so each one depends only on the seed
+        long latencyMs = drawLatency(random);
+        double outcome = random.nextDouble();
+        
+        if (outcome < simulation.getTimeoutRate()) {
+            sleep(simulation.getTimeoutMs(), cancellation);
+            simulatedTimeouts.incrementAndGet();
+            System.err.println("[EndpointMock] Simulated timeout for " + filePath);
+            throw new EndpointException("Simulated endpoint timeout after " + simulation.getTimeoutMs() +
+                                        " ms: " + filePath);
+        }
+        sleep(latencyMs, cancellation);
+        if (outcome < simulation.getTimeoutRate() + simulation.getErrorRate()) {
+            simulatedErrors.incrementAndGet();
+            System.err.println("[EndpointMock] Simulated error for " + filePath);
+            throw new EndpointException("Simulated endpoint error (HTTP 503): " + filePath);
+        }
+        
+        List<Finding> findings = simulatedFindings(random, content);
+        System.out.println("[EndpointMock] Returning " + findings.size() + " findings for " + filePath + 
+                           " after " + latencyMs + " ms");
+        return findings;
+    }
+    
+    public long getSimulatedCalls() {
+        return simulatedCalls.get();
+    }
+    
+    public long getSimulatedErrors() {
+        return simulatedErrors.get();
+    }
+    
+    public long getSimulatedTimeouts() {
+        return simulatedTimeouts.get();
+    }
+    
     /**
      * Rotate to next scenario for the next analysis.
      */
@@ -81,6 +159,108 @@ public class EndpointMockClient implements EndpointClient {
         return true; // Mock is always available
     }
     
+    /**
+     * Generator for one call: seed, path, content and how many times this content was already
+     * requested (a retry draws again instead of repeating the same failure). Counts are kept
+     * for the most recent contents only; a content requested again after dropping out starts over.
+     */
+    private SplittableRandom randomFor(String filePath, String content) {
+        String key = filePath + '\0' + content.length() + '\0' + content.hashCode();
+        int call;
+        synchronized (callsPerContent) {
+            call = callsPerContent.merge(key, 1, Integer::sum) - 1;
+        }
+        long seed = simulation.getSeed();
+        seed = seed * 31 + String.valueOf(filePath).hashCode();
+        seed = seed * 31 + content.hashCode();
+        seed = seed * 31 + content.length();
+        seed = seed * 31 + call;
+        return new SplittableRandom(seed);
+    }
+    
+    private long drawLatency(SplittableRandom random) {
+        // Drawn even when unused, so switching distributions doesn't shift the other draws
+        double uniform = random.nextDouble();
+        double gaussian = random.nextGaussian();
+        switch (simulation.getLatencyDistribution()) {
+            case FIXED:
+                return simulation.getLatencyMs();
+            case UNIFORM:
+                int min = Math.min(simulation.getLatencyMinMs(), simulation.getLatencyMaxMs());
+                int max = Math.max(simulation.getLatencyMinMs(), simulation.getLatencyMaxMs());
+                return min + Math.round(uniform * (max - min));
+            case LOGNORMAL:
+                // Median latencyMs; sigma sets how long the tail is
+                double latency = simulation.getLatencyMs() * Math.exp(simulation.getLatencySigma() * gaussian);
+                return Math.round(Math.min(latency, simulation.getLatencyMaxMs()));
+            default:
+                return 0;
+        }
+    }
+    
+    /**
+     * findingsPerKb per KB of content on average (the fractional part decides one more),
+     * picked from the current scenario at random lines of the content.
+     */
+    private List<Finding> simulatedFindings(SplittableRandom random, String content) {
+        List<MockFinding> scenarioData = scenarios.get(currentScenario);
+        List<Finding> findings = new ArrayList<>();
+        if (simulation.getFindingsPerKb() <= 0) {
+            for (MockFinding mock : scenarioData) {
+                findings.add(toFinding(mock, mock.lineNumber));
+            }
+            return findings;
+        }
+        
+        double expected = simulation.getFindingsPerKb() * content.length() / 1024.0;
+        int count = (int) expected + (random.nextDouble() < expected - Math.floor(expected) ? 1 : 0);
+        count = Math.min(count, simulation.getMaxFindingsPerFile());
+        int lines = countLines(content);
+        for (int i = 0; i < count; i++) {
+            MockFinding mock = scenarioData.get(random.nextInt(scenarioData.size()));
+            findings.add(toFinding(mock, 1 + random.nextInt(lines)));
+        }
+        return findings;
+    }
+    
+    private void sleep(long millis, CancellationToken cancellation) throws EndpointException {
+        long end = System.nanoTime() + millis * 1_000_000L;
+        try {
+            long left;
+            while ((left = end - System.nanoTime()) > 0) {
+                cancellation.throwIfCancelled();
+                Thread.sleep(Math.min(SLEEP_SLICE_MS, Math.max(1, left / 1_000_000L)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EndpointException("Interrupted while waiting for the endpoint", e);
+        }
+        cancellation.throwIfCancelled();
+    }
+    
+    private static int countLines(String content) {
+        int lines = 1;
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+    
+    private static Finding toFinding(MockFinding mock, int lineNumber) {
+        Finding finding = new Finding();
+        finding.setRuleId(mock.ruleId);
+        finding.setCategory(mock.category);
+        finding.setMessage(mock.message);
+        finding.setSeverityRaw(mock.severity);
+        finding.setSeverityFinal(mock.severity);
+        finding.setLineNumber(lineNumber);
+        finding.setCodeSnippet(mock.codeSnippet);
+        finding.setSuggestion(mock.suggestion);
+        return finding;
+    }
+    
     /**
      * Load all 3 scenarios from JSON files.
      */
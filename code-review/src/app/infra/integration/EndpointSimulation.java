@@ -0,0 +1,177 @@
+package app.infra.integration;
+
+import java.util.Locale;
+
+/**
+ * Simulation settings for EndpointMockClient (load testing), populated from app.properties by
+ * AppFactory. With simulation on, each call waits a latency drawn from the configured
+ * distribution, may fail or time out, and returns a number of findings that grows with the
+ * size of the file.
+ *
+ * Every draw comes from a generator seeded with the seed, the file path, its content and the
+ * number of earlier calls for that same file, so a run is reproducible whatever the worker
+ * count or the order the files are analyzed in, and a retried call gets a fresh draw.
+ */
+public class EndpointSimulation {
+
+    /**
+     * Latency distribution of one call.
+     * FIXED waits latencyMs; UNIFORM draws between latencyMinMs and latencyMaxMs; LOGNORMAL has
+     * its median at latencyMs and a long tail set by latencySigma (capped at latencyMaxMs).
+     */
+    public enum LatencyDistribution {
+        NONE, FIXED, UNIFORM, LOGNORMAL;
+
+        public static LatencyDistribution parse(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return NONE;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                System.err.println("[EndpointSimulation] Unknown latency distribution: " + value + " (using NONE)");
+                return NONE;
+            }
+        }
+    }
+
+    private boolean enabled = false;
+    private long seed = 42;
+    private LatencyDistribution latencyDistribution = LatencyDistribution.NONE;
+    private int latencyMs = 200;
+    private int latencyMinMs = 50;
+    private int latencyMaxMs = 2000;
+    private double latencySigma = 0.8;
+    private double errorRate = 0;
+    private double timeoutRate = 0;
+    private int timeoutMs = 5000;
+    private double findingsPerKb = 0;
+    private int maxFindingsPerFile = 50;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public LatencyDistribution getLatencyDistribution() {
+        return latencyDistribution;
+    }
+
+    public void setLatencyDistribution(LatencyDistribution latencyDistribution) {
+        this.latencyDistribution = latencyDistribution != null ? latencyDistribution : LatencyDistribution.NONE;
+    }
+
+    /**
+     * FIXED: latency of every call. LOGNORMAL: median latency.
+     */
+    public int getLatencyMs() {
+        return latencyMs;
+    }
+
+    public void setLatencyMs(int latencyMs) {
+        this.latencyMs = Math.max(0, latencyMs);
+    }
+
+    public int getLatencyMinMs() {
+        return latencyMinMs;
+    }
+
+    public void setLatencyMinMs(int latencyMinMs) {
+        this.latencyMinMs = Math.max(0, latencyMinMs);
+    }
+
+    /**
+     * UNIFORM: upper bound. LOGNORMAL: cap of the tail.
+     */
+    public int getLatencyMaxMs() {
+        return latencyMaxMs;
+    }
+
+    public void setLatencyMaxMs(int latencyMaxMs) {
+        this.latencyMaxMs = Math.max(0, latencyMaxMs);
+    }
+
+    /**
+     * LOGNORMAL: standard deviation of ln(latency). 0.5 is a mild tail, above 1 a heavy one.
+     */
+    public double getLatencySigma() {
+        return latencySigma;
+    }
+
+    public void setLatencySigma(double latencySigma) {
+        this.latencySigma = Math.max(0, latencySigma);
+    }
+
+    /**
+     * Fraction of calls (0..1) that fail after their latency.
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = clampRate(errorRate);
+    }
+
+    /**
+     * Fraction of calls (0..1) that hang for timeoutMs and then fail.
+     */
+    public double getTimeoutRate() {
+        return timeoutRate;
+    }
+
+    public void setTimeoutRate(double timeoutRate) {
+        this.timeoutRate = clampRate(timeoutRate);
+    }
+
+    public int getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(int timeoutMs) {
+        this.timeoutMs = Math.max(0, timeoutMs);
+    }
+
+    /**
+     * Average findings per KB of content; 0 keeps the scenario's fixed findings.
+     */
+    public double getFindingsPerKb() {
+        return findingsPerKb;
+    }
+
+    public void setFindingsPerKb(double findingsPerKb) {
+        this.findingsPerKb = Math.max(0, findingsPerKb);
+    }
+
+    public int getMaxFindingsPerFile() {
+        return maxFindingsPerFile;
+    }
+
+    public void setMaxFindingsPerFile(int maxFindingsPerFile) {
+        this.maxFindingsPerFile = Math.max(0, maxFindingsPerFile);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+            "seed=%d, latency=%s(ms=%d, min=%d, max=%d, sigma=%.2f), errorRate=%.3f, timeoutRate=%.3f " +
+            "(timeoutMs=%d), findingsPerKb=%.2f (max %d)",
+            seed, latencyDistribution, latencyMs, latencyMinMs, latencyMaxMs, latencySigma,
+            errorRate, timeoutRate, timeoutMs, findingsPerKb, maxFindingsPerFile);
+    }
+
+    private static double clampRate(double rate) {
+        return Double.isNaN(rate) ? 0 : Math.min(1, Math.max(0, rate));
+    }
+}
@@ -0,0 +1,79 @@
+package app.infra.integration;
+
+import app.domain.port.ContentLoader;
+import app.domain.value.FileContent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads files from the working tree, reading at most maxBytes per file.
+ *
+ * Files up to mmapThresholdBytes are read in chunks into a heap buffer of the window size;
+ * bigger ones map only the window, so their bytes stay off-heap. Either way the heap used
+ * per call is bounded by maxBytes (plus the decoded text).
+ */
+public class FileSystemContentLoader implements ContentLoader {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final int maxBytes;
+    private final int mmapThresholdBytes;
+    private final ContentDecoder decoder;
+
+    public FileSystemContentLoader(int maxBytes, int mmapThresholdBytes, int sniffBytes, String fallbackCharset) {
+        this.maxBytes = Math.max(1, maxBytes);
+        this.mmapThresholdBytes = Math.max(0, mmapThresholdBytes);
+        this.decoder = new ContentDecoder(sniffBytes, ContentDecoder.resolveCharset(fallbackCharset));
+    }
+
+    @Override
+    public FileContent load(String repositoryPath, String filePath) {
+        Path path = Paths.get(repositoryPath, filePath);
+        if (!Files.isRegularFile(path)) {
+            return FileContent.missing();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int windowSize = (int) Math.min(size, maxBytes);
+
+            ByteBuffer window;
+            if (size >= mmapThresholdBytes && windowSize > 0) {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, 0, windowSize);
+            } else {
+                window = readWindow(channel, windowSize);
+            }
+
+            FileContent content = decoder.decode(window, size);
+            if (content.isTruncated()) {
+                System.out.println("[ContentLoader] " + filePath + " truncated to " +
+                                   content.getText().length() + " chars (" + size + " bytes on disk)");
+            }
+            return content;
+        } catch (IOException e) {
+            System.err.println("[ContentLoader] Failed to read file content: " + filePath + " (" + e.getMessage() + ")");
+            return FileContent.missing();
+        }
+    }
+
+    private ByteBuffer readWindow(FileChannel channel, int windowSize) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(windowSize);
+        while (window.hasRemaining()) {
+            // Chunked reads: a single huge read may be split by the OS anyway
+            int limit = Math.min(window.capacity(), window.position() + CHUNK_SIZE);
+            window.limit(limit);
+            if (channel.read(window) < 0) {
+                break; // file shrank while reading
+            }
+            window.limit(window.capacity());
+        }
+        window.flip();
+        return window;
+    }
+}
@@ -0,0 +1,277 @@
+package app.infra.integration;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * git's commit-graph (objects/info/commit-graph, or the split chain under
+ * objects/info/commit-graphs): parents, commit time and generation number of each commit,
+ * without inflating commit objects.
+ *
+ * The generation number is the topological level: 1 for root commits, 1 + the highest of the
+ * parents otherwise, so an ancestor always has a lower one than its descendants. Commits
+ * written after the graph aren't in it. The files are read into memory rather than mapped, so
+ * git can replace them (gc, fetch) while the application runs.
+ */
+final class GitCommitGraph {
+
+    static final int NOT_FOUND = -1;
+    /** Generation of commits without one (not in the graph, or written by a git without them). */
+    static final int GENERATION_INFINITY = Integer.MAX_VALUE;
+
+    private static final int SIGNATURE = 0x43475048;          // "CGPH"
+    private static final int CHUNK_OID_FANOUT = 0x4f494446;   // "OIDF"
+    private static final int CHUNK_OID_LOOKUP = 0x4f49444c;   // "OIDL"
+    private static final int CHUNK_COMMIT_DATA = 0x43444154;  // "CDAT"
+    private static final int CHUNK_EXTRA_EDGES = 0x45444745;  // "EDGE"
+    private static final int PARENT_NONE = 0x70000000;
+    /** On the second parent: the parents are in the extra edges list, from this index on. */
+    private static final int PARENT_EXTRA_EDGES = 0x80000000;
+    /** On an extra edge: the last parent of the commit. */
+    private static final int LAST_EDGE = 0x80000000;
+    private static final int ID_LENGTH = GitPackFile.ID_LENGTH;
+    /** Tree id, two parent positions, generation and commit time. */
+    private static final int DATA_WIDTH = ID_LENGTH + 16;
+
+    private final List<Layer> layers;
+    private final int commitCount;
+
+    private GitCommitGraph(List<Layer> layers) {
+        this.layers = layers;
+        Layer top = layers.get(layers.size() - 1);
+        this.commitCount = top.first + top.count;
+    }
+
+    /**
+     * @return The graph, or null if the repository has none
+     * @throws IOException if the graph is unreadable or in an unsupported format
+     */
+    static GitCommitGraph open(Path objectsDirectory) throws IOException {
+        Path info = objectsDirectory.resolve("info");
+        Path single = info.resolve("commit-graph");
+        if (Files.isRegularFile(single)) {
+            return new GitCommitGraph(List.of(new Layer(single, Files.readAllBytes(single), 0, 0)));
+        }
+        Path chain = info.resolve("commit-graphs").resolve("commit-graph-chain");
+        if (!Files.isRegularFile(chain)) {
+            return null;
+        }
+        // One "graph-<hash>.graph" file per line, base layer first
+        List<Layer> layers = new ArrayList<>();
+        int first = 0;
+        for (String line : Files.readAllLines(chain, StandardCharsets.UTF_8)) {
+            String hash = line.trim();
+            if (hash.isEmpty()) {
+                continue;
+            }
+            Path file = chain.resolveSibling("graph-" + hash + ".graph");
+            Layer layer = new Layer(file, Files.readAllBytes(file), layers.size(), first);
+            layers.add(layer);
+            first += layer.count;
+        }
+        return layers.isEmpty() ? null : new GitCommitGraph(layers);
+    }
+
+    /**
+     * Changes when the graph is rewritten, so callers know to open it again; 0 without a graph.
+     */
+    static long stamp(Path objectsDirectory) throws IOException {
+        Path info = objectsDirectory.resolve("info");
+        for (Path file : new Path[] { info.resolve("commit-graph"),
+                                      info.resolve("commit-graphs").resolve("commit-graph-chain") }) {
+            if (Files.isRegularFile(file)) {
+                return Files.getLastModifiedTime(file).toMillis() * 31 + Files.size(file);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Position of a commit in the graph, or NOT_FOUND.
+     */
+    int find(byte[] id) {
+        for (Layer layer : layers) {
+            int local = layer.find(id);
+            if (local >= 0) {
+                return layer.first + local;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    String id(int position) {
+        Layer layer = layerOf(position);
+        return layer.id(position - layer.first);
+    }
+
+    int generation(int position) {
+        Layer layer = layerOf(position);
+        int level = layer.data.getInt(layer.entry(position - layer.first) + ID_LENGTH + 8) >>> 2;
+        return level == 0 ? GENERATION_INFINITY : level;
+    }
+
+    /**
+     * Committer time, in seconds since the epoch (34 bits).
+     */
+    long commitTime(int position) {
+        Layer layer = layerOf(position);
+        int entry = layer.entry(position - layer.first);
+        long high = layer.data.getInt(entry + ID_LENGTH + 8) & 0x3L;
+        return (high << 32) | (layer.data.getInt(entry + ID_LENGTH + 12) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Positions of the parents of a commit, in order.
+     */
+    int[] parents(int position) throws IOException {
+        Layer layer = layerOf(position);
+        int entry = layer.entry(position - layer.first);
+        int first = layer.data.getInt(entry + ID_LENGTH);
+        int second = layer.data.getInt(entry + ID_LENGTH + 4);
+        if (first == PARENT_NONE) {
+            return new int[0];
+        }
+        if (second == PARENT_NONE) {
+            return checked(new int[] { first }, layer);
+        }
+        if ((second & PARENT_EXTRA_EDGES) == 0) {
+            return checked(new int[] { first, second }, layer);
+        }
+        // Octopus merge: the second and later parents are in the extra edges list
+        if (layer.edgesOffset < 0) {
+            throw new IOException("Commit graph without extra edges: " + layer.file);
+        }
+        List<Integer> parents = new ArrayList<>();
+        parents.add(first);
+        int edge = layer.edgesOffset + (second & ~PARENT_EXTRA_EDGES) * 4;
+        while (true) {
+            if (edge + 4 > layer.data.capacity()) {
+                throw new IOException("Truncated commit graph: " + layer.file);
+            }
+            int value = layer.data.getInt(edge);
+            parents.add(value & ~LAST_EDGE);
+            if ((value & LAST_EDGE) != 0) {
+                break;
+            }
+            edge += 4;
+        }
+        return checked(parents.stream().mapToInt(Integer::intValue).toArray(), layer);
+    }
+
+    private int[] checked(int[] parents, Layer layer) throws IOException {
+        for (int parent : parents) {
+            if (parent < 0 || parent >= commitCount) {
+                throw new IOException("Bad parent position in commit graph: " + layer.file);
+            }
+        }
+        return parents;
+    }
+
+    private Layer layerOf(int position) {
+        for (int i = layers.size() - 1; i > 0; i--) {
+            if (position >= layers.get(i).first) {
+                return layers.get(i);
+            }
+        }
+        return layers.get(0);
+    }
+
+    /**
+     * One graph file. Positions are global: a layer's commits come after those of its bases.
+     */
+    private static final class Layer {
+        final Path file;
+        final ByteBuffer data;
+        final int first;
+        final int count;
+        int fanoutOffset = -1;
+        int lookupOffset = -1;
+        int dataOffset = -1;
+        int edgesOffset = -1;
+
+        Layer(Path file, byte[] bytes, int expectedBases, int first) throws IOException {
+            this.file = file;
+            this.data = ByteBuffer.wrap(bytes);
+            this.first = first;
+            if (bytes.length < 8 || data.getInt(0) != SIGNATURE) {
+                throw new IOException("Not a commit graph: " + file);
+            }
+            if (bytes[4] != 1 || bytes[5] != 1) {
+                throw new IOException("Unsupported commit graph version or hash: " + file);
+            }
+            if ((bytes[7] & 0xFF) != expectedBases) {
+                throw new IOException("Commit graph chain doesn't match its layers: " + file);
+            }
+            int chunks = bytes[6] & 0xFF;
+            for (int i = 0; i < chunks; i++) {
+                int position = 8 + i * 12;
+                if (position + 12 > bytes.length) {
+                    throw new IOException("Truncated commit graph: " + file);
+                }
+                long offset = data.getLong(position + 4);
+                if (offset < 0 || offset > bytes.length) {
+                    throw new IOException("Bad chunk offset in commit graph: " + file);
+                }
+                switch (data.getInt(position)) {
+                    case CHUNK_OID_FANOUT: fanoutOffset = (int) offset; break;
+                    case CHUNK_OID_LOOKUP: lookupOffset = (int) offset; break;
+                    case CHUNK_COMMIT_DATA: dataOffset = (int) offset; break;
+                    case CHUNK_EXTRA_EDGES: edgesOffset = (int) offset; break;
+                    default: break; // Generation data, bloom filters, base graphs: not needed
+                }
+            }
+            if (fanoutOffset < 0 || lookupOffset < 0 || dataOffset < 0 || fanoutOffset + 256 * 4 > bytes.length) {
+                throw new IOException("Commit graph without ids or commit data: " + file);
+            }
+            this.count = data.getInt(fanoutOffset + 255 * 4);
+            if (count < 0 || lookupOffset + (long) count * ID_LENGTH > bytes.length
+                    || dataOffset + (long) count * DATA_WIDTH > bytes.length) {
+                throw new IOException("Truncated commit graph: " + file);
+            }
+        }
+
+        /**
+         * Local position of an id, or -1: binary search bounded by the fanout table.
+         */
+        int find(byte[] id) {
+            int firstByte = id[0] & 0xFF;
+            int low = firstByte == 0 ? 0 : data.getInt(fanoutOffset + (firstByte - 1) * 4);
+            int high = data.getInt(fanoutOffset + firstByte * 4) - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compareId(lookupOffset + mid * ID_LENGTH, id);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        String id(int local) {
+            return GitTreeParser.toHex(data.array(), lookupOffset + local * ID_LENGTH, ID_LENGTH);
+        }
+
+        int entry(int local) {
+            return dataOffset + local * DATA_WIDTH;
+        }
+
+        private int compareId(int position, byte[] id) {
+            for (int i = 0; i < ID_LENGTH; i++) {
+                int cmp = (data.get(position + i) & 0xFF) - (id[i] & 0xFF);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -2,80 +2,390 @@ package app.infra.integration;
 
 import app.config.AppConfig;
 import app.domain.entity.DiffFile;
+import app.domain.port.CancellationToken;
 import app.domain.port.DiffEngine;
 import app.domain.port.DiffException;
-import app.domain.value.FileChangeType;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Git diff engine implementation using ProcessBuilder to execute git commands.
+ * Object lookups (blob ids, commit ids) go through the long-lived cat-file processes of the
+ * GitProcessPool when one is given; diffs and ref listings still run one git command each.
+ * Merge bases are memoized per commit pair.
  */
 public class GitDiffEngine implements DiffEngine {
     
+    private static final int MERGE_BASE_CACHE_ENTRIES = 1024;
+    private static final long FAILED_EXIT_WAIT_MS = 200;
+    
     private final String gitExecutable;
+    private final GitProcessPool processPool;
+    private final MergeBaseCache mergeBases = new MergeBaseCache(MERGE_BASE_CACHE_ENTRIES);
     
     public GitDiffEngine() {
+        this(null);
+    }
+    
+    /**
+     * @param processPool Pool for object lookups; null runs "git ls-tree" for each lookup
+     */
+    public GitDiffEngine(GitProcessPool processPool) {
         this.gitExecutable = AppConfig.getInstance().getGitExecutable();
+        this.processPool = processPool;
     }
     
     @Override
     public List<DiffFile> calculateDiff(String repositoryPath, String baseBranch, String targetBranch) 
             throws DiffException {
+        List<DiffFile> diffFiles = new ArrayList<>();
+        streamDiff(repositoryPath, baseBranch, targetBranch, diffFiles::add, CancellationToken.none());
+        return diffFiles;
+    }
+    
+    @Override
+    public void streamDiff(String repositoryPath, String baseBranch, String targetBranch,
+                           Consumer<DiffFile> consumer, CancellationToken cancellation) throws DiffException {
         
         if (!isValidRepository(repositoryPath)) {
             throw new DiffException("Invalid repository path: " + repositoryPath);
         }
         
-        List<String> command = List.of(
+        // --numstat gives the line counts of each file
+        List<String> numstatCommand = List.of(
             gitExecutable,
             "-C", repositoryPath,
             "diff",
             "--numstat",
-            "--summary",
+            "-z",
+            baseBranch + ".." + targetBranch
+        );
+        
+        GitDiffOutputParser parser = new GitDiffOutputParser(consumer);
+        streamGitOutput(repositoryPath,
+                        List.of(rawDiffCommand(repositoryPath, baseBranch, targetBranch), numstatCommand),
+                        outputs -> parser.parse(outputs.get(0), outputs.get(1), cancellation), cancellation);
+    }
+    
+    @Override
+    public void streamDiffWithHunks(String repositoryPath, String baseBranch, String targetBranch, int contextLines,
+                                    Consumer<DiffFile> consumer, CancellationToken cancellation) 
+            throws DiffException {
+        
+        if (!isValidRepository(repositoryPath)) {
+            throw new DiffException("Invalid repository path: " + repositoryPath);
+        }
+        
+        // -U0: only hunk headers matter (they give the line counts too), context is added by
+        // the parser so it doesn't cost diff output. Options set explicitly so that user
+        // configuration can't change the sections or fuse hunks
+        List<String> patchCommand = List.of(
+            gitExecutable,
+            "-C", repositoryPath,
+            "diff",
+            "-U0",
+            "--inter-hunk-context=0",
+            "--no-color",
+            "--no-ext-diff",
+            "--no-textconv",
+            "--submodule=short",
+            "--src-prefix=a/",
+            "--dst-prefix=b/",
             baseBranch + ".." + targetBranch
         );
         
+        GitDiffOutputParser parser = new GitDiffOutputParser(consumer);
+        streamGitOutput(repositoryPath,
+                        List.of(rawDiffCommand(repositoryPath, baseBranch, targetBranch), patchCommand),
+                        outputs -> parser.parseWithHunks(outputs.get(0), outputs.get(1), contextLines, cancellation),
+                        cancellation);
+    }
+    
+    /**
+     * "git diff --raw": status, old path and blob id of each file. -z writes paths verbatim
+     * (spaces, "=>", any byte). A single git would write every raw record before the first
+     * line count, so the counts come from a second git read side by side.
+     */
+    private List<String> rawDiffCommand(String repositoryPath, String baseBranch, String targetBranch) {
+        return List.of(
+            gitExecutable,
+            "-C", repositoryPath,
+            "diff",
+            "--raw",
+            "-z",
+            "--no-abbrev",
+            baseBranch + ".." + targetBranch
+        );
+    }
+    
+    /**
+     * Run git commands side by side, handing their outputs to the reader while git is still
+     * running. Cancelling kills git.
+     */
+    private void streamGitOutput(String repositoryPath, List<List<String>> commands, OutputReader outputReader,
+                                 CancellationToken cancellation) throws DiffException {
+        List<Process> processes = new ArrayList<>();
+        Runnable killGit = () -> processes.forEach(Process::destroyForcibly);
+        boolean killOnCancel = false;
+        try {
+            cancellation.throwIfCancelled();
+            for (List<String> command : commands) {
+                ProcessBuilder pb = new ProcessBuilder(command);
+                pb.directory(new File(repositoryPath));
+                processes.add(pb.start());
+            }
+            
+            // Reading the process output can't be interrupted: cancelling kills git instead
+            cancellation.onCancel(killGit);
+            killOnCancel = true;
+            
+            List<InputStream> outputs = new ArrayList<>();
+            for (Process process : processes) {
+                outputs.add(process.getInputStream());
+            }
+            try {
+                outputReader.read(outputs);
+            } catch (IOException e) {
+                // A failing git ends its output early: its own error says more than the parser's
+                cancellation.throwIfCancelled();
+                for (Process process : processes) {
+                    if (process.waitFor(FAILED_EXIT_WAIT_MS, TimeUnit.MILLISECONDS) && process.exitValue() != 0) {
+                        throw gitFailure("Git diff failed: ", process);
+                    }
+                }
+                throw e;
+            } finally {
+                for (InputStream output : outputs) {
+                    output.close();
+                }
+            }
+            
+            for (Process process : processes) {
+                int exitCode = process.waitFor();
+                cancellation.throwIfCancelled();
+                if (exitCode != 0) {
+                    throw gitFailure("Git diff failed: ", process);
+                }
+            }
+            
+        } catch (CancellationException | DiffException e) {
+            throw e;
+        } catch (Exception e) {
+            // Output cut short because git was killed on cancellation
+            cancellation.throwIfCancelled();
+            throw new DiffException("Failed to execute git diff", e);
+        } finally {
+            if (killOnCancel) {
+                cancellation.removeOnCancel(killGit);
+            }
+            // Consumer aborted mid-stream: don't leave git running
+            for (Process process : processes) {
+                if (process.isAlive()) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Error for a git that exited non-zero, with what it wrote to stderr.
+     */
+    private DiffException gitFailure(String message, Process process) throws IOException {
+        try (BufferedReader errorReader = new BufferedReader(
+                new InputStreamReader(process.getErrorStream()))) {
+            StringBuilder error = new StringBuilder();
+            String errorLine;
+            while ((errorLine = errorReader.readLine()) != null) {
+                error.append(errorLine).append("\n");
+            }
+            return new DiffException(message + error.toString());
+        }
+    }
+    
+    /**
+     * Resolves both branches to commit ids (one cat-file round trip with the pool), then runs
+     * "git merge-base" only for a commit pair not seen before.
+     */
+    @Override
+    public String getMergeBase(String repositoryPath, String baseBranch, String targetBranch,
+                               CancellationToken cancellation) throws DiffException {
+        if (!isValidRepository(repositoryPath)) {
+            throw new DiffException("Invalid repository path: " + repositoryPath);
+        }
+        List<String> commits = resolveCommits(repositoryPath, cancellation, baseBranch, targetBranch);
+        String mergeBase = mergeBases.get(repositoryPath, commits.get(0), commits.get(1));
+        if (mergeBase != null) {
+            return mergeBase;
+        }
+        
+        List<String> output = readGitOutput(repositoryPath, List.of(
+            gitExecutable,
+            "-C", repositoryPath,
+            "merge-base",
+            commits.get(0),
+            commits.get(1)
+        ), cancellation);
+        // Exit code 1: no common ancestor (any other failure already threw with git's error)
+        if (output == null || output.isEmpty()) {
+            throw new DiffException("No common history between " + baseBranch + " and " + targetBranch);
+        }
+        mergeBase = output.get(0);
+        mergeBases.put(repositoryPath, commits.get(0), commits.get(1), mergeBase);
+        return mergeBase;
+    }
+    
+    /**
+     * Commit ids of revisions (tags peeled), in order.
+     */
+    private List<String> resolveCommits(String repositoryPath, CancellationToken cancellation, String... revisions)
+            throws DiffException {
+        List<String> objects = new ArrayList<>();
+        for (String revision : revisions) {
+            objects.add(revision + "^{commit}");
+        }
+        List<String> commits = new ArrayList<>();
+        if (processPool != null) {
+            try {
+                for (GitProcessPool.GitObject commit : processPool.checkAll(repositoryPath, objects)) {
+                    commits.add(commit.isMissing() ? null : commit.getSha());
+                }
+            } catch (IOException e) {
+                throw new DiffException("Failed to resolve revisions", e);
+            }
+        } else {
+            for (String object : objects) {
+                List<String> output = readGitOutput(repositoryPath, List.of(
+                    gitExecutable, "-C", repositoryPath, "rev-parse", "--verify", "-q", object), cancellation);
+                commits.add(output != null && !output.isEmpty() ? output.get(0) : null);
+            }
+        }
+        for (int i = 0; i < revisions.length; i++) {
+            if (commits.get(i) == null) {
+                throw new DiffException("Unknown revision: " + revisions[i]);
+            }
+        }
+        return commits;
+    }
+    
+    /**
+     * Run a short git command and return its output lines, or null if it exited with status 1
+     * (merge-base: no common ancestor; rev-parse --verify: no such object). Cancelling kills git.
+     *
+     * @throws DiffException with git's error output for any other non-zero exit
+     */
+    private List<String> readGitOutput(String repositoryPath, List<String> command, CancellationToken cancellation)
+            throws DiffException {
+        Process process = null;
+        Runnable killGit = null;
         try {
+            cancellation.throwIfCancelled();
             ProcessBuilder pb = new ProcessBuilder(command);
             pb.directory(new File(repositoryPath));
-            Process process = pb.start();
-            
-            List<DiffFile> diffFiles = new ArrayList<>();
+            process = pb.start();
+            killGit = process::destroyForcibly;
+            cancellation.onCancel(killGit);
             
+            List<String> lines = new ArrayList<>();
             try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-                
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    DiffFile file = parseDiffLine(line);
-                    if (file != null) {
-                        diffFiles.add(file);
-                    }
+                    lines.add(line.trim());
                 }
             }
-            
             int exitCode = process.waitFor();
+            cancellation.throwIfCancelled();
+            if (exitCode == 1) {
+                return null;
+            }
             if (exitCode != 0) {
-                try (BufferedReader errorReader = new BufferedReader(
-                        new InputStreamReader(process.getErrorStream()))) {
-                    StringBuilder error = new StringBuilder();
-                    String errorLine;
-                    while ((errorLine = errorReader.readLine()) != null) {
-                        error.append(errorLine).append("\n");
+                throw gitFailure("Git " + command.get(3) + " failed: ", process);
+            }
+            return lines;
+            
+        } catch (CancellationException | DiffException e) {
+            throw e;
+        } catch (Exception e) {
+            cancellation.throwIfCancelled();
+            throw new DiffException("Failed to execute git " + command.get(3), e);
+        } finally {
+            if (killGit != null) {
+                cancellation.removeOnCancel(killGit);
+            }
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+    
+    @Override
+    public Map<String, String> getBlobIds(String repositoryPath, String revision) throws DiffException {
+        if (!isValidRepository(repositoryPath)) {
+            throw new DiffException("Invalid repository path: " + repositoryPath);
+        }
+        if (processPool != null) {
+            return readBlobIds(repositoryPath, revision);
+        }
+        
+        // -z keeps paths verbatim (no quoting of spaces or non-ASCII names)
+        List<String> command = List.of(
+            gitExecutable,
+            "-C", repositoryPath,
+            "ls-tree",
+            "-r",
+            "-z",
+            "--full-tree",
+            revision
+        );
+        
+        try {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.directory(new File(repositoryPath));
+            pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+            Process process = pb.start();
+            
+            Map<String, String> blobIds = new HashMap<>();
+            
+            // Entry format: <mode> SP <type> SP <sha> TAB <path> NUL
+            try (Scanner scanner = new Scanner(process.getInputStream(), StandardCharsets.UTF_8)) {
+                scanner.useDelimiter("\0");
+                while (scanner.hasNext()) {
+                    String entry = scanner.next();
+                    int tab = entry.indexOf('\t');
+                    if (tab < 0) {
+                        continue;
+                    }
+                    String[] meta = entry.substring(0, tab).split(" ");
+                    if (meta.length == 3 && meta[1].equals("blob")) {
+                        blobIds.put(entry.substring(tab + 1), meta[2]);
                     }
-                    throw new DiffException("Git diff failed: " + error.toString());
                 }
             }
             
-            return diffFiles;
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new DiffException("Git ls-tree failed for revision: " + revision);
+            }
             
+            return blobIds;
+            
+        } catch (DiffException e) {
+            throw e;
         } catch (Exception e) {
-            throw new DiffException("Failed to execute git diff", e);
+            throw new DiffException("Failed to list blob ids", e);
         }
     }
     
@@ -96,28 +406,14 @@ public class GitDiffEngine implements DiffEngine {
             throw new DiffException("Invalid repository path: " + repositoryPath);
         }
         
-        // Get both local and remote branches
-        List<String> branches = new ArrayList<>();
-        
-        // Get local branches
-        branches.addAll(getLocalBranches(repositoryPath));
-        
-        // Get remote branches
-        branches.addAll(getRemoteBranches(repositoryPath));
-        
-        return branches;
-    }
-    
-    /**
-     * Get list of local branches.
-     */
-    private List<String> getLocalBranches(String repositoryPath) throws DiffException {
+        // Local then remote branches (refs/heads sorts first) from a single git command
         List<String> command = List.of(
             gitExecutable,
             "-C", repositoryPath,
-            "branch",
-            "--list",
-            "--format=%(refname:short)"
+            "for-each-ref",
+            "--format=%(refname)",
+            "refs/heads",
+            "refs/remotes"
         );
         
         try {
@@ -128,13 +424,16 @@ public class GitDiffEngine implements DiffEngine {
             List<String> branches = new ArrayList<>();
             
             try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
                 
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    String branch = line.trim();
-                    if (!branch.isEmpty()) {
-                        branches.add(branch);
+                    String ref = line.trim();
+                    if (ref.startsWith("refs/heads/")) {
+                        branches.add(ref.substring("refs/heads/".length()));
+                    } else if (ref.startsWith("refs/remotes/") && !ref.endsWith("/HEAD")) {
+                        // Filter out HEAD references (origin/HEAD)
+                        branches.add(ref.substring("refs/remotes/".length()));
                     }
                 }
             }
@@ -148,132 +447,64 @@ public class GitDiffEngine implements DiffEngine {
                     while ((errorLine = errorReader.readLine()) != null) {
                         error.append(errorLine).append("\n");
                     }
-                    throw new DiffException("Failed to list local branches: " + error.toString());
+                    throw new DiffException("Failed to list branches: " + error.toString());
                 }
             }
             
             return branches;
             
+        } catch (DiffException e) {
+            throw e;
         } catch (Exception e) {
-            throw new DiffException("Failed to get local branches", e);
+            throw new DiffException("Failed to get branches", e);
         }
     }
     
     /**
-     * Get list of remote branches (without duplicates).
+     * Blob id of every file of a revision, walking its trees through the cat-file pool:
+     * each level of the tree is one pipelined request, without forking git.
      */
-    private List<String> getRemoteBranches(String repositoryPath) throws DiffException {
-        List<String> command = List.of(
-            gitExecutable,
-            "-C", repositoryPath,
-            "branch",
-            "-r",
-            "--list",
-            "--format=%(refname:short)"
-        );
-        
+    private Map<String, String> readBlobIds(String repositoryPath, String revision) throws DiffException {
+        Map<String, String> blobIds = new HashMap<>();
+        List<String> prefixes = List.of("");
+        List<String> trees = List.of(revision + "^{tree}");
         try {
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.directory(new File(repositoryPath));
-            Process process = pb.start();
-            
-            List<String> branches = new ArrayList<>();
-            
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-                
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    String branch = line.trim();
-                    // Filter out HEAD references
-                    if (!branch.isEmpty() && !branch.contains("HEAD")) {
-                        branches.add(branch);
+            while (!trees.isEmpty()) {
+                List<GitProcessPool.GitObject> objects = processPool.readAll(repositoryPath, trees, Integer.MAX_VALUE);
+                List<String> nextPrefixes = new ArrayList<>();
+                List<String> nextTrees = new ArrayList<>();
+                for (int i = 0; i < objects.size(); i++) {
+                    GitProcessPool.GitObject tree = objects.get(i);
+                    if (tree.isMissing() || !"tree".equals(tree.getType())) {
+                        if (prefixes.get(i).isEmpty()) {
+                            throw new DiffException("Git ls-tree failed for revision: " + revision);
+                        }
+                        continue;
                     }
+                    String prefix = prefixes.get(i);
+                    // Subtrees go to the next level; submodules are skipped, like "ls-tree -r"
+                    GitTreeParser.parse(tree.getData(), tree.getSha().length() / 2, (mode, name, id) -> {
+                        if (mode.equals(GitTreeParser.MODE_TREE)) {
+                            nextPrefixes.add(prefix + name + "/");
+                            nextTrees.add(id);
+                        } else if (!mode.equals(GitTreeParser.MODE_SUBMODULE)) {
+                            blobIds.put(prefix + name, id);
+                        }
+                    });
                 }
+                prefixes = nextPrefixes;
+                trees = nextTrees;
             }
-            
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                // Remote branches might not exist, return empty list instead of throwing
-                return new ArrayList<>();
-            }
-            
-            return branches;
-            
-        } catch (Exception e) {
-            // If remote listing fails, just return empty list (repo might not have remotes)
-            return new ArrayList<>();
+            return blobIds;
+        } catch (IOException e) {
+            throw new DiffException("Failed to list blob ids", e);
         }
     }
     
     /**
-     * Parse a line from git diff --numstat --summary output.
-     * Format: <added> <removed> <filename>
-     * Or summary lines like: create mode 100644 <filename>
+     * Reads the outputs of git commands, in the order the commands were given.
      */
-    private DiffFile parseDiffLine(String line) {
-        if (line.trim().isEmpty()) {
-            return null;
-        }
-        
-        // Check for summary lines (create, delete, rename, copy)
-        if (line.startsWith(" create mode")) {
-            String path = line.substring(line.lastIndexOf(' ') + 1);
-            DiffFile file = new DiffFile(path, FileChangeType.ADDED);
-            return file;
-        }
-        
-        if (line.startsWith(" delete mode")) {
-            String path = line.substring(line.lastIndexOf(' ') + 1);
-            DiffFile file = new DiffFile(path, FileChangeType.DELETED);
-            return file;
-        }
-        
-        if (line.startsWith(" rename ")) {
-            // Format: rename <old> => <new> (similarity%)
-            int arrowPos = line.indexOf(" => ");
-            if (arrowPos > 0) {
-                int startPos = line.indexOf(' ', 1) + 1;
-                String oldPath = line.substring(startPos, arrowPos).trim();
-                int endPos = line.indexOf(" (", arrowPos);
-                if (endPos < 0) endPos = line.length();
-                String newPath = line.substring(arrowPos + 4, endPos).trim();
-                
-                DiffFile file = new DiffFile(newPath, FileChangeType.RENAMED);
-                file.setOldPath(oldPath);
-                return file;
-            }
-        }
-        
-        if (line.startsWith(" copy ")) {
-            int arrowPos = line.indexOf(" => ");
-            if (arrowPos > 0) {
-                int endPos = line.indexOf(" (", arrowPos);
-                if (endPos < 0) endPos = line.length();
-                String newPath = line.substring(arrowPos + 4, endPos).trim();
-                
-                DiffFile file = new DiffFile(newPath, FileChangeType.COPIED);
-                return file;
-            }
-        }
-        
-        // Parse numstat line: <added> <removed> <filename>
-        String[] parts = line.split("\\s+", 3);
-        if (parts.length == 3) {
-            try {
-                int added = parts[0].equals("-") ? 0 : Integer.parseInt(parts[0]);
-                int removed = parts[1].equals("-") ? 0 : Integer.parseInt(parts[1]);
-                String path = parts[2];
-                
-                DiffFile file = new DiffFile(path, FileChangeType.MODIFIED);
-                file.setLinesAdded(added);
-                file.setLinesRemoved(removed);
-                return file;
-            } catch (NumberFormatException e) {
-                // Not a valid numstat line, skip
-            }
-        }
-        
-        return null;
+    private interface OutputReader {
+        void read(List<InputStream> outputs) throws IOException;
     }
 }
@@ -0,0 +1,380 @@
+package app.infra.integration;
+
+import app.domain.entity.DiffFile;
+import app.domain.port.CancellationToken;
+import app.domain.value.FileChangeType;
+import app.domain.value.LineRange;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streaming parser of "git diff --raw -z --no-abbrev" output joined with the
+ * "git diff --numstat -z" output of the same diff, working on bytes.
+ *
+ * With -z every path is written verbatim and ends with a NUL, so names with spaces, tabs,
+ * newlines, "=>" or any non-UTF-8 byte come through intact:
+ *   :100644 100644 <old id> <new id> M NUL path NUL
+ *   :100644 100644 <old id> <new id> R086 NUL old path NUL new path NUL
+ *   added TAB removed TAB path NUL                  ("-" for binary files)
+ *   added TAB removed TAB NUL old path NUL new path NUL
+ * A single git process writes every raw record before the first numstat one, so the two come
+ * from two processes read side by side: both list the files in the same order, and each raw
+ * record is completed by the next numstat record (its path checked byte for byte) and handed
+ * over at once. Nothing is held per file, and the consumer gets the first file while git is
+ * still diffing the rest. Paths are decoded once, when their file is handed over; numstat
+ * paths are only compared, never decoded.
+ *
+ * In hunk mode a "git diff -U0" patch takes the place of the numstat output: its sections
+ * come in the same order (a type change shows as two, the deletion and then the addition),
+ * and their hunk headers give both the line counts and the changed ranges of the file, so
+ * each file is handed over with its hunks. Only the start of each patch line is looked at:
+ * section and hunk headers; the changed lines themselves are skipped.
+ *
+ * Each output is read into its own reused buffer (see GitOutputReader) and records are parsed
+ * in place. One parser reads one diff.
+ */
+public class GitDiffOutputParser {
+
+    private static final int ID_HEX_LENGTH = GitPackFile.ID_LENGTH * 2;
+
+    private final Consumer<DiffFile> consumer;
+
+    /**
+     * @param consumer Receives each file once its line counts are known, in git's order
+     */
+    public GitDiffOutputParser(Consumer<DiffFile> consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * @param rawOutput "git diff --raw -z --no-abbrev" output
+     * @param numstatOutput "git diff --numstat -z" output of the same diff
+     */
+    public void parse(InputStream rawOutput, InputStream numstatOutput, CancellationToken cancellation)
+            throws IOException {
+        parse(new GitOutputReader(rawOutput), new NumstatReader(new GitOutputReader(numstatOutput)), cancellation);
+    }
+
+    /**
+     * @param rawOutput "git diff --raw -z --no-abbrev" output
+     * @param patchOutput "git diff -U0" output of the same diff
+     * @param contextLines Unchanged lines added around each changed range
+     */
+    public void parseWithHunks(InputStream rawOutput, InputStream patchOutput, int contextLines,
+                               CancellationToken cancellation) throws IOException {
+        parse(new GitOutputReader(rawOutput), new PatchReader(new GitOutputReader(patchOutput), contextLines),
+              cancellation);
+    }
+
+    private void parse(GitOutputReader raw, LineStats stats, CancellationToken cancellation) throws IOException {
+        while (!raw.atEnd()) {
+            cancellation.throwIfCancelled();
+            parseRaw(raw, stats);
+        }
+        stats.finish();
+    }
+
+    /**
+     * Parse the next raw record, read its line counts and hand the file over.
+     */
+    private void parseRaw(GitOutputReader raw, LineStats stats) throws IOException {
+        int headerEnd = raw.indexOf((byte) 0, 0);
+        if (headerEnd == -1) {
+            throw new IOException("git diff output ended inside a record");
+        }
+        // ":<old mode> <new mode> <old id> <new id> <status>[score]"
+        byte[] data = raw.data();
+        int start = raw.start();
+        int newMode = indexOf(data, (byte) ' ', start, start + headerEnd) + 1;
+        int oldId = indexOf(data, (byte) ' ', newMode, start + headerEnd) + 1;
+        int newId = indexOf(data, (byte) ' ', oldId, start + headerEnd) + 1;
+        int status = indexOf(data, (byte) ' ', newId, start + headerEnd) + 1;
+        if (data[start] != ':' || newMode == 0 || oldId == 0 || newId == 0 || status == 0 ||
+                status >= start + headerEnd) {
+            throw new IOException("Unexpected raw diff record: " +
+                                  new String(data, start, headerEnd, StandardCharsets.UTF_8));
+        }
+        byte kind = data[status];
+        boolean twoPaths = kind == 'R' || kind == 'C';
+        // Files that exist on the target side (not deletions, not submodule commits)
+        boolean deleted = data[newMode] == '0' && data[newMode + 1] == '0';
+        boolean submodule = data[newMode] == '1' && data[newMode + 1] == '6';
+        String blobId = !deleted && !submodule && status - 1 - newId == ID_HEX_LENGTH
+            ? new String(data, newId, ID_HEX_LENGTH, StandardCharsets.ISO_8859_1)
+            : null;
+
+        // Offsets from here on: the path lookups may move the record in the buffer
+        int firstEnd = raw.indexOf((byte) 0, headerEnd + 1);
+        int pathStart = headerEnd + 1;
+        int pathEnd = firstEnd;
+        if (twoPaths && firstEnd != -1) {
+            pathStart = firstEnd + 1;
+            pathEnd = raw.indexOf((byte) 0, pathStart);
+        }
+        if (pathEnd == -1) {
+            throw new IOException("git diff output ended inside a record");
+        }
+
+        data = raw.data();
+        start = raw.start();
+        DiffFile file = new DiffFile(decode(data, start + pathStart, start + pathEnd), changeType(kind));
+        if (twoPaths) {
+            file.setOldPath(decode(data, start + headerEnd + 1, start + firstEnd));
+        }
+        file.setBlobId(blobId);
+        stats.next(file, kind, data, start + pathStart, start + pathEnd);
+        raw.advance(pathEnd + 1);
+        consumer.accept(file);
+    }
+
+    /**
+     * Line counts of the files of the raw output, from a second output listing them in the
+     * same order.
+     */
+    private interface LineStats {
+
+        /**
+         * Read the counts of the next file into it.
+         *
+         * @param status Status letter of its raw record
+         * @param path Its (target) path bytes, path[pathStart, pathEnd)
+         */
+        void next(DiffFile file, byte status, byte[] path, int pathStart, int pathEnd) throws IOException;
+
+        /**
+         * Called after the last raw record: fails if files are left over.
+         */
+        void finish() throws IOException;
+    }
+
+    /**
+     * One numstat record per raw record.
+     */
+    private static class NumstatReader implements LineStats {
+        private final GitOutputReader numstat;
+
+        NumstatReader(GitOutputReader numstat) {
+            this.numstat = numstat;
+        }
+
+        @Override
+        public void next(DiffFile file, byte status, byte[] path, int pathStart, int pathEnd) throws IOException {
+            int addedEnd = numstat.indexOf((byte) '\t', 0);
+            int removedEnd = addedEnd == -1 ? -1 : numstat.indexOf((byte) '\t', addedEnd + 1);
+            if (removedEnd == -1 || !numstat.require(removedEnd + 2)) {
+                throw new IOException("git numstat output ended before " + file.getFilePath());
+            }
+            int nameStart;
+            int end;
+            if (numstat.data()[numstat.start() + removedEnd + 1] == 0) {
+                // Rename or copy: empty path, then old and new paths
+                int oldEnd = numstat.indexOf((byte) 0, removedEnd + 2);
+                nameStart = oldEnd + 1;
+                end = oldEnd == -1 ? -1 : numstat.indexOf((byte) 0, nameStart);
+            } else {
+                nameStart = removedEnd + 1;
+                end = numstat.indexOf((byte) 0, nameStart);
+            }
+            if (end == -1) {
+                throw new IOException("git numstat output ended inside a record");
+            }
+
+            byte[] data = numstat.data();
+            int start = numstat.start();
+            if (!Arrays.equals(data, start + nameStart, start + end, path, pathStart, pathEnd)) {
+                throw new IOException("git numstat output doesn't follow the raw output at " + file.getFilePath());
+            }
+            file.setLinesAdded(count(data, start, start + addedEnd));
+            file.setLinesRemoved(count(data, start + addedEnd + 1, start + removedEnd));
+            numstat.advance(end + 1);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!numstat.atEnd()) {
+                throw new IOException("git numstat output lists more files than the raw output");
+            }
+        }
+    }
+
+    /**
+     * One patch section per raw record, two for a type change: line counts from the hunk
+     * headers, and the target-side ranges of the (last) section, widened by the context
+     * lines and merged.
+     */
+    private static class PatchReader implements LineStats {
+        private static final byte[] SECTION_HEADER = "diff --git ".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] HUNK_HEADER = "@@ -".getBytes(StandardCharsets.US_ASCII);
+
+        private final GitOutputReader patch;
+        private final int contextLines;
+
+        PatchReader(GitOutputReader patch, int contextLines) {
+            this.patch = patch;
+            this.contextLines = Math.max(0, contextLines);
+        }
+
+        @Override
+        public void next(DiffFile file, byte status, byte[] path, int pathStart, int pathEnd) throws IOException {
+            int[] counts = new int[2];
+            List<LineRange> ranges = null;
+            for (int section = status == 'T' ? 2 : 1; section > 0; section--) {
+                if (patch.atEnd()) {
+                    throw new IOException("git patch output ended before " + file.getFilePath());
+                }
+                if (!startsWith(SECTION_HEADER)) {
+                    throw new IOException("git patch output doesn't follow the raw output at " + file.getFilePath());
+                }
+                ranges = readSection(counts);
+            }
+            file.setLinesAdded(counts[0]);
+            file.setLinesRemoved(counts[1]);
+            // Deleted files have nothing left to analyze
+            file.setChangedLines(status == 'D' || ranges.isEmpty() ? null : ranges);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!patch.atEnd()) {
+                throw new IOException("git patch output lists more files than the raw output");
+            }
+        }
+
+        /**
+         * Read one section, from its "diff --git" line to the next one.
+         *
+         * @param counts Added and removed lines, increased by the section's hunks
+         * @return Target-side ranges of the section, in line order
+         */
+        private List<LineRange> readSection(int[] counts) throws IOException {
+            List<LineRange> ranges = new ArrayList<>();
+            patch.skipPast((byte) '\n');
+            while (!patch.atEnd() && !startsWith(SECTION_HEADER)) {
+                if (!startsWith(HUNK_HEADER)) {
+                    patch.skipPast((byte) '\n');
+                    continue;
+                }
+                int lineEnd = patch.indexOf((byte) '\n', 0);
+                int end = lineEnd == -1 ? patch.available() : lineEnd;
+                addHunk(patch.data(), patch.start(), patch.start() + end, counts, ranges);
+                patch.advance(lineEnd == -1 ? end : lineEnd + 1);
+            }
+            return ranges;
+        }
+
+        /**
+         * Format: @@ -<start>[,<count>] +<start>[,<count>] @@
+         * A target count of 0 (pure deletion) points at the line before the removed block.
+         * Ranges arrive in line order, so merging with the last one is enough.
+         */
+        private void addHunk(byte[] data, int start, int end, int[] counts, List<LineRange> ranges)
+                throws IOException {
+            int[] old = parseRange(data, start + HUNK_HEADER.length, end);
+            int plus = indexOf(data, (byte) '+', start + HUNK_HEADER.length, end);
+            if (old == null || plus == -1) {
+                throw new IOException("Unexpected hunk header: " +
+                                      new String(data, start, end - start, StandardCharsets.UTF_8));
+            }
+            int[] target = parseRange(data, plus + 1, end);
+            if (target == null) {
+                throw new IOException("Unexpected hunk header: " +
+                                      new String(data, start, end - start, StandardCharsets.UTF_8));
+            }
+            counts[0] += target[1];
+            counts[1] += old[1];
+
+            int first = Math.max(1, target[0]);
+            LineRange range = new LineRange(first, target[1] == 0 ? first : first + target[1] - 1)
+                .expand(contextLines);
+            int last = ranges.size() - 1;
+            if (last >= 0 && ranges.get(last).touches(range)) {
+                ranges.set(last, ranges.get(last).union(range));
+            } else {
+                ranges.add(range);
+            }
+        }
+
+        /**
+         * "<start>[,<count>]" up to the next space.
+         *
+         * @return { start, count }, or null if malformed
+         */
+        private static int[] parseRange(byte[] data, int from, int to) {
+            int[] range = { 0, 1 };
+            int field = 0;
+            boolean digits = false;
+            for (int i = from; i < to && data[i] != ' '; i++) {
+                if (data[i] == ',' && field == 0 && digits) {
+                    field = 1;
+                    range[1] = 0;
+                    digits = false;
+                } else if (data[i] >= '0' && data[i] <= '9' && range[field] <= (Integer.MAX_VALUE - 9) / 10) {
+                    range[field] = range[field] * 10 + (data[i] - '0');
+                    digits = true;
+                } else {
+                    return null;
+                }
+            }
+            return digits ? range : null;
+        }
+
+        private boolean startsWith(byte[] prefix) throws IOException {
+            if (!patch.require(prefix.length)) {
+                return false;
+            }
+            return Arrays.equals(patch.data(), patch.start(), patch.start() + prefix.length, prefix, 0, prefix.length);
+        }
+    }
+
+    /**
+     * Decimal line count; "-" (binary file) counts as 0.
+     */
+    private static int count(byte[] data, int start, int end) throws IOException {
+        if (end - start == 1 && data[start] == '-') {
+            return 0;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10) {
+                throw new IOException("Unexpected numstat count: " +
+                                      new String(data, start, end - start, StandardCharsets.ISO_8859_1));
+            }
+            value = value * 10 + digit;
+        }
+        return end > start ? value : 0;
+    }
+
+    private static FileChangeType changeType(byte status) {
+        switch (status) {
+            case 'A': return FileChangeType.ADDED;
+            case 'D': return FileChangeType.DELETED;
+            case 'R': return FileChangeType.RENAMED;
+            case 'C': return FileChangeType.COPIED;
+            default: return FileChangeType.MODIFIED;   // M, T (type change)
+        }
+    }
+
+    /**
+     * Paths are bytes in git; UTF-8 covers every sane repository, and anything else still
+     * decodes (with replacement characters) instead of breaking the record.
+     */
+    private static String decode(byte[] data, int start, int end) {
+        return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private static int indexOf(byte[] data, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
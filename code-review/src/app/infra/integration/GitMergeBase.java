@@ -0,0 +1,244 @@
+package app.infra.integration;
+
+import app.domain.port.CancellationToken;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Merge base of two commits, computed like "git merge-base": walking down from both tips,
+ * each commit is painted with the tips it is reachable from, and a commit reachable from both
+ * is a candidate whose ancestors are marked stale. The walk ends when only stale commits are
+ * left to visit.
+ *
+ * Commits are visited by decreasing generation number (then commit time). With the numbers of
+ * the commit-graph, a commit is only visited once all its descendants in the walk were, so
+ * the walk doesn't go much below the fork point. Commits missing from the graph count as
+ * newer than all of it, and without any graph the order is by commit time alone, as in git.
+ * One walker is used for one question (the paint stays on its commits).
+ */
+final class GitMergeBase {
+
+    private static final int PARENT1 = 1;
+    private static final int PARENT2 = 2;
+    private static final int STALE = 4;
+    private static final int RESULT = 8;
+
+    private static final Comparator<Commit> NEWEST_FIRST = Comparator
+        .comparingInt((Commit commit) -> commit.generation).reversed()
+        .thenComparing(Comparator.comparingLong((Commit commit) -> commit.time).reversed());
+
+    private final GitObjectDatabase objects;
+    private final GitCommitGraph graph;
+    private final CancellationToken cancellation;
+    private final Map<String, Commit> commits = new HashMap<>();
+
+    /**
+     * @param graph The repository's commit-graph, or null
+     * @param cancellation Checked for every commit visited
+     */
+    GitMergeBase(GitObjectDatabase objects, GitCommitGraph graph, CancellationToken cancellation) {
+        this.objects = objects;
+        this.graph = graph;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * @return The merge base id, or null if the two histories have no commit in common.
+     *         With several (criss-cross merges), the most recently committed one.
+     */
+    String find(String first, String second) throws IOException {
+        if (first.equals(second)) {
+            return first;
+        }
+        Commit one = commit(first);
+        Commit two = commit(second);
+        one.flags |= PARENT1;
+        two.flags |= PARENT2;
+        PriorityQueue<Commit> queue = new PriorityQueue<>(NEWEST_FIRST);
+        queue.add(one);
+        queue.add(two);
+
+        List<Commit> found = new ArrayList<>();
+        while (hasNonStale(queue)) {
+            cancellation.throwIfCancelled();
+            Commit commit = queue.poll();
+            int flags = commit.flags & (PARENT1 | PARENT2 | STALE);
+            if (flags == (PARENT1 | PARENT2)) {
+                if ((commit.flags & RESULT) == 0) {
+                    commit.flags |= RESULT;
+                    found.add(commit);
+                }
+                // Its ancestors are common too, but not the best ones
+                flags |= STALE;
+            }
+            for (String parentId : commit.parents) {
+                Commit parent = commit(parentId);
+                if ((parent.flags & flags) == flags) {
+                    continue;
+                }
+                parent.flags |= flags;
+                queue.add(parent);
+            }
+        }
+
+        List<Commit> candidates = new ArrayList<>();
+        for (Commit commit : found) {
+            if ((commit.flags & STALE) == 0) {
+                candidates.add(commit);
+            }
+        }
+        if (candidates.size() > 1) {
+            candidates = removeRedundant(candidates);
+        }
+        // Like git: the most recently committed one (ties in the order they were found)
+        candidates.sort(Comparator.comparingLong((Commit commit) -> commit.time).reversed());
+        return candidates.isEmpty() ? null : candidates.get(0).id;
+    }
+
+    private static boolean hasNonStale(PriorityQueue<Commit> queue) {
+        for (Commit commit : queue) {
+            if ((commit.flags & STALE) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop candidates that are ancestors of another candidate.
+     */
+    private List<Commit> removeRedundant(List<Commit> candidates) throws IOException {
+        List<Commit> best = new ArrayList<>();
+        for (Commit candidate : candidates) {
+            boolean redundant = false;
+            for (Commit other : candidates) {
+                if (other != candidate && isAncestor(candidate, other)) {
+                    redundant = true;
+                    break;
+                }
+            }
+            if (!redundant) {
+                best.add(candidate);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Whether ancestor can be reached from descendant. Commits with a lower generation than
+     * ancestor can't lead to it, so they aren't walked.
+     */
+    private boolean isAncestor(Commit ancestor, Commit descendant) throws IOException {
+        Deque<Commit> pending = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        pending.push(descendant);
+        seen.add(descendant.id);
+        while (!pending.isEmpty()) {
+            cancellation.throwIfCancelled();
+            Commit commit = pending.pop();
+            if (commit == ancestor) {
+                return true;
+            }
+            for (String parentId : commit.parents) {
+                Commit parent = commit(parentId);
+                if (parent.generation < ancestor.generation || !seen.add(parentId)) {
+                    continue;
+                }
+                pending.push(parent);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A commit's parents, generation and time, from the graph when it has the commit,
+     * from the commit object otherwise.
+     */
+    private Commit commit(String id) throws IOException {
+        Commit commit = commits.get(id);
+        if (commit != null) {
+            return commit;
+        }
+        int position = graph != null ? graph.find(GitObjectDatabase.parseId(id)) : GitCommitGraph.NOT_FOUND;
+        if (position != GitCommitGraph.NOT_FOUND) {
+            int[] parentPositions = graph.parents(position);
+            String[] parents = new String[parentPositions.length];
+            for (int i = 0; i < parents.length; i++) {
+                parents[i] = graph.id(parentPositions[i]);
+            }
+            commit = new Commit(id, parents, graph.generation(position), graph.commitTime(position));
+        } else {
+            commit = parse(id);
+        }
+        commits.put(id, commit);
+        return commit;
+    }
+
+    /**
+     * Parents ("parent" headers) and committer time of a commit object.
+     */
+    private Commit parse(String id) throws IOException {
+        GitProcessPool.GitObject object = objects.read(id, Integer.MAX_VALUE);
+        if (object == null || !"commit".equals(object.getType())) {
+            throw new IOException("Expected a commit at " + id);
+        }
+        byte[] data = object.getData();
+        List<String> parents = new ArrayList<>();
+        long time = 0;
+        int pos = 0;
+        // Headers end at the first empty line
+        while (pos < data.length && data[pos] != '\n') {
+            int end = pos;
+            while (end < data.length && data[end] != '\n') {
+                end++;
+            }
+            String line = new String(data, pos, end - pos, StandardCharsets.UTF_8);
+            if (line.startsWith("parent ")) {
+                parents.add(line.substring("parent ".length()).trim());
+            } else if (line.startsWith("committer ")) {
+                time = committerTime(line);
+            }
+            pos = end + 1;
+        }
+        return new Commit(id, parents.toArray(new String[0]), GitCommitGraph.GENERATION_INFINITY, time);
+    }
+
+    /**
+     * "committer Name <email> 1700000000 +0100" -> 1700000000
+     */
+    private static long committerTime(String line) {
+        int email = line.lastIndexOf('>');
+        String[] rest = line.substring(email + 1).trim().split(" ");
+        try {
+            return Long.parseLong(rest[0]);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static final class Commit {
+        final String id;
+        final String[] parents;
+        final int generation;
+        final long time;
+        int flags;
+
+        Commit(String id, String[] parents, int generation, long time) {
+            this.id = id;
+            this.parents = parents;
+            this.generation = generation;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package app.infra.integration;
+
+import app.domain.port.ContentLoader;
+import app.domain.value.FileContent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Loads files as of a revision straight from the git object database, so the content is the
+ * target branch's even when another branch is checked out.
+ *
+ * Blobs are read in-process (NativeGitRepository) when the repository supports it; otherwise,
+ * or if that read fails, the request ("rev:path") goes to the repository's long-lived
+ * "git cat-file --batch" process in the shared GitProcessPool. Only maxBytes of each blob are
+ * kept (the rest is skipped), and they are decoded like working tree files.
+ */
+public class GitObjectContentLoader implements ContentLoader {
+
+    private final ContentLoader workingTree;
+    private final NativeGitRepositories nativeRepositories;
+    private final GitProcessPool processPool;
+    private final int maxBytes;
+    private final ContentDecoder decoder;
+
+    /**
+     * @param workingTree Loader for calls without a revision
+     * @param nativeRepositories In-process readers; null reads every blob through git
+     */
+    public GitObjectContentLoader(ContentLoader workingTree, NativeGitRepositories nativeRepositories,
+                                  GitProcessPool processPool, int maxBytes, int sniffBytes, String fallbackCharset) {
+        this.workingTree = workingTree;
+        this.nativeRepositories = nativeRepositories;
+        this.processPool = processPool;
+        this.maxBytes = Math.max(1, maxBytes);
+        this.decoder = new ContentDecoder(sniffBytes, ContentDecoder.resolveCharset(fallbackCharset));
+    }
+
+    @Override
+    public FileContent load(String repositoryPath, String filePath) {
+        return workingTree.load(repositoryPath, filePath);
+    }
+
+    @Override
+    public boolean readsRevisions() {
+        return true;
+    }
+
+    @Override
+    public FileContent load(String repositoryPath, String revision, String filePath) {
+        if (revision == null) {
+            return load(repositoryPath, filePath);
+        }
+        if (filePath.indexOf('\n') >= 0 || revision.indexOf('\n') >= 0) {
+            // The batch protocol is line based
+            System.err.println("[GitObjectContentLoader] Cannot request a path with a newline: " + filePath);
+            return FileContent.missing();
+        }
+
+        String object = revision + ":" + filePath.replace('\\', '/');
+        GitProcessPool.GitObject blob;
+        try {
+            blob = readNative(repositoryPath, revision, filePath);
+            if (blob == null) {
+                blob = processPool.read(repositoryPath, object, maxBytes);
+            }
+        } catch (IOException e) {
+            System.err.println("[GitObjectContentLoader] Failed to read " + object + " (" + e.getMessage() + ")");
+            return FileContent.missing();
+        }
+        // Submodule or directory at that path: nothing to analyze
+        if (blob.isMissing() || !"blob".equals(blob.getType())) {
+            return FileContent.missing();
+        }
+
+        FileContent content = decoder.decode(ByteBuffer.wrap(blob.getData()), blob.getSize());
+        if (content.isTruncated()) {
+            System.out.println("[GitObjectContentLoader] " + filePath + " truncated to " +
+                               content.getText().length() + " chars");
+        }
+        return content;
+    }
+    
+    /**
+     * @return The object (possibly missing), or null to ask git instead
+     */
+    private GitProcessPool.GitObject readNative(String repositoryPath, String revision, String filePath) {
+        NativeGitRepository repository = nativeRepositories != null ? nativeRepositories.get(repositoryPath) : null;
+        if (repository == null) {
+            return null;
+        }
+        try {
+            GitProcessPool.GitObject blob = repository.readPath(revision, filePath, maxBytes);
+            return blob != null ? blob : GitProcessPool.GitObject.MISSING;
+        } catch (IOException e) {
+            // Revision syntax the native reader doesn't know, or an unreadable object
+            return null;
+        }
+    }
+}
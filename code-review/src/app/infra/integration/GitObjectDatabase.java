@@ -0,0 +1,485 @@
+package app.infra.integration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * In-process reader of a repository's objects (SHA-1 repositories): packfiles first, then
+ * loose objects, in the repository's object directory and its alternates.
+ *
+ * Delta objects are rebuilt from their chain; the objects used as bases (and trees and
+ * commits) are kept in a cache bounded by cacheBytes (least recently used first out), since a
+ * base usually serves many deltas of the same file. The pack list is scanned again when an object isn't found, so
+ * packs written by a later fetch or gc are picked up, and the packs gc removed are closed.
+ */
+public class GitObjectDatabase implements Closeable {
+
+    private static final String[] TYPE_NAMES = { null, "commit", "tree", "blob", "tag" };
+    private static final int MAX_CHAIN_LENGTH = 10000;
+
+    private final List<Path> objectDirectories;
+    private final DeltaBaseCache baseCache;
+    private volatile List<GitPackFile> packs = List.of();
+    private volatile Map<Path, Long> packDirectoryStamps = Map.of();
+
+    /**
+     * @param objectsDirectory The repository's objects directory (alternates are read from it)
+     * @param cacheBytes Delta base cache budget
+     */
+    public GitObjectDatabase(Path objectsDirectory, long cacheBytes) throws IOException {
+        this.objectDirectories = new ArrayList<>();
+        objectDirectories.add(objectsDirectory);
+        readAlternates(objectsDirectory);
+        this.baseCache = new DeltaBaseCache(cacheBytes);
+        scanPacks();
+    }
+
+    /**
+     * Read an object by its hex id. Only the first maxBytes of a non-delta object are inflated;
+     * deltas are always rebuilt in full and then cut.
+     *
+     * @return The object, or null if no pack or loose file has it
+     */
+    public GitProcessPool.GitObject read(String id, int maxBytes) throws IOException {
+        byte[] rawId = parseId(id);
+        if (rawId == null) {
+            return null;
+        }
+        GitProcessPool.GitObject object = find(id, rawId, maxBytes);
+        if (object == null && scanPacks()) {
+            object = find(id, rawId, maxBytes);
+        }
+        return object;
+    }
+
+    private GitProcessPool.GitObject find(String id, byte[] rawId, int maxBytes) throws IOException {
+        for (GitPackFile pack : packs) {
+            long offset = pack.find(rawId);
+            if (offset >= 0) {
+                return readPacked(id, pack, offset, maxBytes);
+            }
+        }
+        return readLoose(id, maxBytes);
+    }
+
+    /**
+     * Walk the delta chain down to a base (a full object or a cached one), then apply the
+     * deltas back up.
+     */
+    private GitProcessPool.GitObject readPacked(String id, GitPackFile pack, long offset, int maxBytes)
+            throws IOException {
+        Deque<PendingDelta> chain = new ArrayDeque<>();
+        GitPackFile currentPack = pack;
+        long current = offset;
+        int baseType;
+        byte[] base;
+
+        while (true) {
+            CachedBase cached = baseCache.get(currentPack, current);
+            if (cached != null) {
+                baseType = cached.type;
+                base = cached.data;
+                break;
+            }
+            GitPackFile.Entry entry = currentPack.readEntry(current);
+            if (!entry.isDelta()) {
+                if (chain.isEmpty()) {
+                    // Not a delta: inflate only what the caller keeps
+                    byte[] data = currentPack.inflate(entry, maxBytes);
+                    if (isStructural(entry.type) && data.length == entry.size) {
+                        baseCache.put(currentPack, current, entry.type, data);
+                    }
+                    return new GitProcessPool.GitObject(id, TYPE_NAMES[entry.type], entry.size, data);
+                }
+                baseType = entry.type;
+                base = currentPack.inflate(entry, entry.size);
+                baseCache.put(currentPack, current, baseType, base);
+                break;
+            }
+            if (chain.size() >= MAX_CHAIN_LENGTH) {
+                throw new IOException("Delta chain too long for " + id);
+            }
+            chain.push(new PendingDelta(currentPack, current, currentPack.inflate(entry, entry.size)));
+
+            if (entry.type == GitPackFile.OBJ_OFS_DELTA) {
+                current = entry.baseOffset;
+                continue;
+            }
+            // REF_DELTA: the base may be in any pack (or, in thin packs fixed up by git, loose)
+            String baseId = GitTreeParser.toHex(entry.baseId, 0, entry.baseId.length);
+            PackLocation location = locate(entry.baseId);
+            if (location == null) {
+                GitProcessPool.GitObject loose = readLoose(baseId, Integer.MAX_VALUE);
+                if (loose == null) {
+                    throw new IOException("Missing delta base " + baseId + " for " + id);
+                }
+                baseType = typeCode(loose.getType());
+                base = loose.getData();
+                break;
+            }
+            currentPack = location.pack;
+            current = location.offset;
+        }
+
+        while (!chain.isEmpty()) {
+            PendingDelta delta = chain.pop();
+            base = applyDelta(base, delta.data, id);
+            if (!chain.isEmpty() || isStructural(baseType)) {
+                // An intermediate result is the base of the next delta up
+                baseCache.put(delta.pack, delta.offset, baseType, base);
+            }
+        }
+        byte[] data = base.length > maxBytes ? Arrays.copyOf(base, maxBytes) : base;
+        return new GitProcessPool.GitObject(id, TYPE_NAMES[baseType], base.length, data);
+    }
+
+    /**
+     * Trees and commits are read again and again (path lookups, tree walks, resolving the same
+     * branch), so they stay in the cache even when nothing is deltified against them.
+     */
+    private static boolean isStructural(int type) {
+        return type == GitPackFile.OBJ_TREE || type == GitPackFile.OBJ_COMMIT;
+    }
+    
+    private PackLocation locate(byte[] rawId) {
+        for (GitPackFile pack : packs) {
+            long offset = pack.find(rawId);
+            if (offset >= 0) {
+                return new PackLocation(pack, offset);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Loose object: objects/xx/yyyy..., zlib of "<type> <size>\0<data>".
+     */
+    private GitProcessPool.GitObject readLoose(String id, int maxBytes) throws IOException {
+        for (Path directory : objectDirectories) {
+            Path file = directory.resolve(id.substring(0, 2)).resolve(id.substring(2));
+            byte[] compressed;
+            try {
+                compressed = Files.readAllBytes(file);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            return inflateLoose(id, compressed, maxBytes);
+        }
+        return null;
+    }
+
+    private GitProcessPool.GitObject inflateLoose(String id, byte[] compressed, int maxBytes) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            // The header fits in 32 bytes ("commit 1234567890\0")
+            byte[] header = new byte[32];
+            int headerLength = inflater.inflate(header);
+            int nul = 0;
+            while (nul < headerLength && header[nul] != 0) {
+                nul++;
+            }
+            int space = 0;
+            while (space < nul && header[space] != ' ') {
+                space++;
+            }
+            if (nul == headerLength || space == nul) {
+                throw new IOException("Corrupt loose object " + id);
+            }
+            String type = new String(header, 0, space, StandardCharsets.US_ASCII);
+            long size = Long.parseLong(new String(header, space + 1, nul - space - 1,
+                                                  StandardCharsets.US_ASCII));
+
+            byte[] data = new byte[(int) Math.min(size, maxBytes)];
+            int filled = Math.min(data.length, headerLength - nul - 1);
+            System.arraycopy(header, nul + 1, data, 0, filled);
+            while (filled < data.length) {
+                int n = inflater.inflate(data, filled, data.length - filled);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Truncated loose object " + id);
+                }
+                filled += n;
+            }
+            return new GitProcessPool.GitObject(id, type, size, data);
+        } catch (DataFormatException | NumberFormatException e) {
+            throw new IOException("Corrupt loose object " + id, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Rebuild an object from its base and a delta: sizes, then copy (from the base) and
+     * insert (literal bytes) instructions.
+     */
+    static byte[] applyDelta(byte[] base, byte[] delta, String id) throws IOException {
+        int[] pos = { 0 };
+        long baseSize = readVarint(delta, pos);
+        long resultSize = readVarint(delta, pos);
+        if (baseSize != base.length || resultSize > Integer.MAX_VALUE - 8) {
+            throw new IOException("Delta does not match its base for " + id);
+        }
+        byte[] result = new byte[(int) resultSize];
+        int out = 0;
+        int p = pos[0];
+        try {
+            while (p < delta.length) {
+                int cmd = delta[p++] & 0xFF;
+                if ((cmd & 0x80) != 0) {
+                    long copyOffset = 0;
+                    int copySize = 0;
+                    if ((cmd & 0x01) != 0) copyOffset |= (delta[p++] & 0xFFL);
+                    if ((cmd & 0x02) != 0) copyOffset |= (delta[p++] & 0xFFL) << 8;
+                    if ((cmd & 0x04) != 0) copyOffset |= (delta[p++] & 0xFFL) << 16;
+                    if ((cmd & 0x08) != 0) copyOffset |= (delta[p++] & 0xFFL) << 24;
+                    if ((cmd & 0x10) != 0) copySize |= (delta[p++] & 0xFF);
+                    if ((cmd & 0x20) != 0) copySize |= (delta[p++] & 0xFF) << 8;
+                    if ((cmd & 0x40) != 0) copySize |= (delta[p++] & 0xFF) << 16;
+                    if (copySize == 0) {
+                        copySize = 0x10000;
+                    }
+                    System.arraycopy(base, (int) copyOffset, result, out, copySize);
+                    out += copySize;
+                } else if (cmd != 0) {
+                    System.arraycopy(delta, p, result, out, cmd);
+                    p += cmd;
+                    out += cmd;
+                } else {
+                    throw new IOException("Invalid delta instruction for " + id);
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt delta for " + id, e);
+        }
+        if (out != result.length) {
+            throw new IOException("Delta result has the wrong size for " + id);
+        }
+        return result;
+    }
+
+    private static long readVarint(byte[] data, int[] pos) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (pos[0] >= data.length) {
+                throw new IOException("Truncated delta header");
+            }
+            b = data[pos[0]++] & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Close every pack file; a later read scans and opens them again.
+     */
+    @Override
+    public synchronized void close() {
+        for (GitPackFile pack : packs) {
+            closeQuietly(pack);
+        }
+        packs = List.of();
+        packDirectoryStamps = Map.of();
+    }
+
+    /**
+     * Open every pack whose pack directory changed since the last scan, and close the packs
+     * that are gone (a read still running on one fails, and its caller falls back to git).
+     *
+     * @return true if the pack list changed
+     */
+    private synchronized boolean scanPacks() throws IOException {
+        Map<Path, Long> stamps = new HashMap<>();
+        for (Path directory : objectDirectories) {
+            Path packDirectory = directory.resolve("pack");
+            stamps.put(packDirectory, Files.isDirectory(packDirectory)
+                ? Files.getLastModifiedTime(packDirectory).toMillis() : -1L);
+        }
+        if (stamps.equals(packDirectoryStamps)) {
+            return false;
+        }
+
+        Map<Path, GitPackFile> existing = new HashMap<>();
+        for (GitPackFile pack : packs) {
+            existing.put(pack.getPackPath(), pack);
+        }
+        List<GitPackFile> scanned = new ArrayList<>();
+        for (Path directory : objectDirectories) {
+            Path packDirectory = directory.resolve("pack");
+            if (!Files.isDirectory(packDirectory)) {
+                continue;
+            }
+            try (DirectoryStream<Path> indexes = Files.newDirectoryStream(packDirectory, "pack-*.idx")) {
+                for (Path index : indexes) {
+                    String name = index.getFileName().toString();
+                    Path packPath = index.resolveSibling(name.substring(0, name.length() - 4) + ".pack");
+                    GitPackFile pack = existing.get(packPath);
+                    if (pack == null && Files.exists(packPath)) {
+                        pack = GitPackFile.open(index);
+                    }
+                    if (pack != null) {
+                        scanned.add(pack);
+                    }
+                }
+            }
+        }
+        packs = List.copyOf(scanned);
+        packDirectoryStamps = stamps;
+        existing.values().removeAll(scanned);
+        for (GitPackFile removed : existing.values()) {
+            closeQuietly(removed);
+        }
+        return true;
+    }
+
+    private static void closeQuietly(GitPackFile pack) {
+        try {
+            pack.close();
+        } catch (IOException e) {
+            System.err.println("[GitObjectDatabase] Can't close " + pack.getPackPath() + ": " + e.getMessage());
+        }
+    }
+
+    private void readAlternates(Path objectsDirectory) throws IOException {
+        Path alternates = objectsDirectory.resolve("info").resolve("alternates");
+        if (!Files.isRegularFile(alternates)) {
+            return;
+        }
+        for (String line : Files.readAllLines(alternates)) {
+            String alternate = line.trim();
+            if (!alternate.isEmpty() && !alternate.startsWith("#")) {
+                objectDirectories.add(objectsDirectory.resolve(alternate).normalize());
+            }
+        }
+    }
+
+    static byte[] parseId(String id) {
+        if (id == null || id.length() != GitPackFile.ID_LENGTH * 2) {
+            return null;
+        }
+        byte[] raw = new byte[GitPackFile.ID_LENGTH];
+        for (int i = 0; i < raw.length; i++) {
+            int high = Character.digit(id.charAt(i * 2), 16);
+            int low = Character.digit(id.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            raw[i] = (byte) ((high << 4) | low);
+        }
+        return raw;
+    }
+
+    private static int typeCode(String type) throws IOException {
+        for (int i = 1; i < TYPE_NAMES.length; i++) {
+            if (TYPE_NAMES[i].equals(type)) {
+                return i;
+            }
+        }
+        throw new IOException("Unknown object type: " + type);
+    }
+
+    private static final class PendingDelta {
+        final GitPackFile pack;
+        final long offset;
+        final byte[] data;
+
+        PendingDelta(GitPackFile pack, long offset, byte[] data) {
+            this.pack = pack;
+            this.offset = offset;
+            this.data = data;
+        }
+    }
+
+    private static final class PackLocation {
+        final GitPackFile pack;
+        final long offset;
+
+        PackLocation(GitPackFile pack, long offset) {
+            this.pack = pack;
+            this.offset = offset;
+        }
+    }
+
+    private static final class CachedBase {
+        final int type;
+        final byte[] data;
+
+        CachedBase(int type, byte[] data) {
+            this.type = type;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Bases of delta chains keyed by (pack, offset), bounded by total bytes.
+     */
+    private static final class DeltaBaseCache {
+        private final long maxBytes;
+        private final Map<CacheKey, CachedBase> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long bytes;
+
+        DeltaBaseCache(long maxBytes) {
+            this.maxBytes = Math.max(0, maxBytes);
+        }
+
+        synchronized CachedBase get(GitPackFile pack, long offset) {
+            return entries.get(new CacheKey(pack, offset));
+        }
+
+        synchronized void put(GitPackFile pack, long offset, int type, byte[] data) {
+            if (data.length > maxBytes / 4) {
+                return;   // One huge base would flush everything else
+            }
+            CachedBase previous = entries.put(new CacheKey(pack, offset), new CachedBase(type, data));
+            bytes += data.length - (previous != null ? previous.data.length : 0);
+            Iterator<CachedBase> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().data.length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private static final class CacheKey {
+        final GitPackFile pack;
+        final long offset;
+
+        CacheKey(GitPackFile pack, long offset) {
+            this.pack = pack;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey key = (CacheKey) other;
+            return pack == key.pack && offset == key.offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(pack), offset);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package app.infra.integration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Output of one git process read into a buffer reused for the whole stream (grown only for a
+ * record that doesn't fit), for parsers that work on records in place.
+ *
+ * Offsets are relative to the start of the current record, so they stay valid while more
+ * output is read; data() and start() may change with every read and are fetched again after it.
+ */
+final class GitOutputReader {
+
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+    private final InputStream input;
+    private byte[] data = new byte[INITIAL_BUFFER_BYTES];
+    private int start;
+    private int end;
+    private boolean ended;
+
+    GitOutputReader(InputStream input) {
+        this.input = input;
+    }
+
+    byte[] data() {
+        return data;
+    }
+
+    /**
+     * Index in data() where the current record starts.
+     */
+    int start() {
+        return start;
+    }
+
+    /**
+     * Bytes of the current record read so far.
+     */
+    int available() {
+        return end - start;
+    }
+
+    /**
+     * Offset of the first value at or after offset in the current record, reading more output
+     * as needed.
+     *
+     * @return -1 if the output ends first
+     */
+    int indexOf(byte value, int offset) throws IOException {
+        int scanned = offset;
+        while (true) {
+            for (int i = start + scanned; i < end; i++) {
+                if (data[i] == value) {
+                    return i - start;
+                }
+            }
+            scanned = Math.max(scanned, end - start);
+            if (!fill()) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Read until the current record holds at least length bytes.
+     *
+     * @return false if the output ends first
+     */
+    boolean require(int length) throws IOException {
+        while (end - start < length) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * End the current record after length bytes.
+     */
+    void advance(int length) {
+        start += length;
+    }
+
+    /**
+     * Drop the output up to and including the next value without keeping it, however long
+     * that is.
+     *
+     * @return false if the output ends first
+     */
+    boolean skipPast(byte value) throws IOException {
+        while (true) {
+            for (int i = start; i < end; i++) {
+                if (data[i] == value) {
+                    start = i + 1;
+                    return true;
+                }
+            }
+            start = end;
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * True once every byte of the output was consumed.
+     */
+    boolean atEnd() throws IOException {
+        return start == end && !fill();
+    }
+
+    /**
+     * Read more output after the buffered bytes, moving the current record to the front of
+     * the buffer, or growing it when the record fills it.
+     *
+     * @return false at the end of the output
+     */
+    private boolean fill() throws IOException {
+        if (ended) {
+            return false;
+        }
+        if (start > 0) {
+            System.arraycopy(data, start, data, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        if (end == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        int read = input.read(data, end, data.length - end);
+        if (read < 0) {
+            ended = true;
+            return false;
+        }
+        end += read;
+        return true;
+    }
+}
@@ -0,0 +1,287 @@
+package app.infra.integration;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * One packfile and its version 2 index.
+ *
+ * The index is looked up through its fanout table: entry N holds how many object ids start
+ * with a byte <= N, which bounds the binary search over the sorted id table. It is read into
+ * memory; the pack is read with positional reads on an open channel. Neither is mapped: a
+ * mapping can't be released before it is garbage collected, and on Windows it keeps git
+ * (gc, repack) from deleting the pack, while an open channel doesn't and is closed by close().
+ */
+final class GitPackFile implements Closeable {
+
+    static final int OBJ_COMMIT = 1;
+    static final int OBJ_TREE = 2;
+    static final int OBJ_BLOB = 3;
+    static final int OBJ_TAG = 4;
+    static final int OBJ_OFS_DELTA = 6;
+    static final int OBJ_REF_DELTA = 7;
+
+    static final int ID_LENGTH = 20;
+
+    private static final int IDX_MAGIC = 0xff744f63;   // "\377tOc"
+    private static final int FANOUT_OFFSET = 8;
+    private static final int NAMES_OFFSET = FANOUT_OFFSET + 256 * 4;
+
+    /** Type, size and delta base of an entry fit in this many bytes. */
+    private static final int HEADER_BYTES = 64;
+    /** Compressed data is read in pieces of at most this size. */
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+    private static final ThreadLocal<byte[]> CHUNK = ThreadLocal.withInitial(() -> new byte[CHUNK_BYTES]);
+
+    private final Path packPath;
+    private final ByteBuffer index;
+    private final long packSize;
+    private final int objectCount;
+    private final int offsetsOffset;
+    private final int largeOffsetsOffset;
+    private volatile FileChannel channel;
+    private volatile boolean closed;
+
+    private GitPackFile(Path packPath, ByteBuffer index, FileChannel channel) throws IOException {
+        this.packPath = packPath;
+        this.index = index;
+        this.channel = channel;
+        this.packSize = channel.size();
+
+        if (index.capacity() < NAMES_OFFSET || index.getInt(0) != IDX_MAGIC || index.getInt(4) != 2) {
+            throw new IOException("Unsupported pack index (only version 2 is read): " + packPath);
+        }
+        ByteBuffer signature = ByteBuffer.allocate(4);
+        if (packSize < 12 || channel.read(signature, 0) != 4 || signature.getInt(0) != 0x5041434b) {   // "PACK"
+            throw new IOException("Not a packfile: " + packPath);
+        }
+        this.objectCount = index.getInt(NAMES_OFFSET - 4);
+        // After the ids: one CRC32 per object, then one 4-byte offset per object
+        this.offsetsOffset = NAMES_OFFSET + objectCount * (ID_LENGTH + 4);
+        this.largeOffsetsOffset = offsetsOffset + objectCount * 4;
+    }
+
+    /**
+     * Open a pack from its .idx path (the .pack sits next to it).
+     */
+    static GitPackFile open(Path indexPath) throws IOException {
+        String name = indexPath.getFileName().toString();
+        Path packPath = indexPath.resolveSibling(name.substring(0, name.length() - ".idx".length()) + ".pack");
+        ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+        FileChannel channel = FileChannel.open(packPath, StandardOpenOption.READ);
+        try {
+            return new GitPackFile(packPath, index, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Close the pack file. Reads after this fail.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+
+    Path getPackPath() {
+        return packPath;
+    }
+
+    /**
+     * Offset of an object in the pack, or -1 if this pack doesn't have it.
+     */
+    long find(byte[] id) {
+        int first = id[0] & 0xFF;
+        int low = first == 0 ? 0 : index.getInt(FANOUT_OFFSET + (first - 1) * 4);
+        int high = index.getInt(FANOUT_OFFSET + first * 4) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareId(NAMES_OFFSET + mid * ID_LENGTH, id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return offsetAt(mid);
+            }
+        }
+        return -1;
+    }
+
+    private int compareId(int position, byte[] id) {
+        for (int i = 0; i < ID_LENGTH; i++) {
+            int cmp = (index.get(position + i) & 0xFF) - (id[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private long offsetAt(int position) {
+        int offset = index.getInt(offsetsOffset + position * 4);
+        if (offset >= 0) {
+            return offset;
+        }
+        // MSB set: index into the table of 8-byte offsets
+        return index.getLong(largeOffsetsOffset + (offset & 0x7FFFFFFF) * 8);
+    }
+
+    /**
+     * Header of the entry at offset: type, inflated size and, for deltas, where the base is.
+     */
+    Entry readEntry(long offset) throws IOException {
+        if (offset < 12 || offset >= packSize) {
+            throw new IOException("Bad object offset " + offset + " in " + packPath);
+        }
+        byte[] header = new byte[(int) Math.min(HEADER_BYTES, packSize - offset)];
+        readFully(header, header.length, offset);
+        try {
+            int pos = 0;
+            int b = header[pos++] & 0xFF;
+            int type = (b >> 4) & 0x7;
+            long size = b & 0x0F;
+            int shift = 4;
+            while ((b & 0x80) != 0) {
+                b = header[pos++] & 0xFF;
+                size |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            }
+
+            Entry entry = new Entry(type, size);
+            if (type == OBJ_OFS_DELTA) {
+                // Big-endian base-128 where each continuation byte also adds 1
+                b = header[pos++] & 0xFF;
+                long distance = b & 0x7F;
+                while ((b & 0x80) != 0) {
+                    b = header[pos++] & 0xFF;
+                    distance = ((distance + 1) << 7) | (b & 0x7F);
+                }
+                entry.baseOffset = offset - distance;
+            } else if (type == OBJ_REF_DELTA) {
+                entry.baseId = new byte[ID_LENGTH];
+                System.arraycopy(header, pos, entry.baseId, 0, ID_LENGTH);
+                pos += ID_LENGTH;
+            } else if (type < OBJ_COMMIT || type > OBJ_TAG) {
+                throw new IOException("Unknown object type " + type + " at " + offset + " in " + packPath);
+            }
+            entry.dataOffset = offset + pos;
+            return entry;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated object header at " + offset + " in " + packPath, e);
+        }
+    }
+
+    /**
+     * Inflate the first limit bytes of the entry's data (the whole object if limit >= size).
+     * The compressed data is read piece by piece, starting with about the size of the object
+     * (deflate rarely makes data bigger), so small objects take one read.
+     */
+    byte[] inflate(Entry entry, long limit) throws IOException {
+        long length = Math.min(entry.size, limit);
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Object too large: " + entry.size + " bytes in " + packPath);
+        }
+        byte[] data = new byte[(int) length];
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        byte[] chunk = CHUNK.get();
+        long position = entry.dataOffset;
+        int request = (int) Math.min(CHUNK_BYTES, length + length / 64 + 32);
+        try {
+            int filled = 0;
+            while (filled < data.length) {
+                if (inflater.needsInput()) {
+                    int n = (int) Math.min(request, packSize - position);
+                    if (n <= 0) {
+                        throw new IOException("Truncated object data in " + packPath);
+                    }
+                    readFully(chunk, n, position);
+                    position += n;
+                    inflater.setInput(chunk, 0, n);
+                    request = CHUNK_BYTES;
+                }
+                int n = inflater.inflate(data, filled, data.length - filled);
+                if (n == 0 && (inflater.finished() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated object data in " + packPath);
+                }
+                filled += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt object data in " + packPath, e);
+        }
+        return data;
+    }
+
+    private void readFully(byte[] target, int length, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(target, 0, length);
+        while (buffer.hasRemaining()) {
+            int n;
+            try {
+                n = channel().read(buffer, position + buffer.position());
+            } catch (ClosedByInterruptException e) {
+                throw e;   // This thread was interrupted
+            } catch (ClosedChannelException e) {
+                // Closed under us by another, interrupted reader (not by close()): read again
+                n = reopened().read(buffer, position + buffer.position());
+            }
+            if (n < 0) {
+                throw new EOFException("Unexpected end of " + packPath);
+            }
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        FileChannel current = channel;
+        return current.isOpen() ? current : reopened();
+    }
+
+    /**
+     * A thread interrupted during a read closes the channel for every thread; open it again
+     * unless the pack itself was closed.
+     */
+    private synchronized FileChannel reopened() throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        if (!channel.isOpen()) {
+            channel = FileChannel.open(packPath, StandardOpenOption.READ);
+        }
+        return channel;
+    }
+
+    /**
+     * Entry header: the data (deflated) starts at dataOffset.
+     */
+    static final class Entry {
+        final int type;
+        final long size;
+        long dataOffset;
+        long baseOffset = -1;   // OFS_DELTA
+        byte[] baseId;          // REF_DELTA
+
+        Entry(int type, long size) {
+            this.type = type;
+            this.size = size;
+        }
+
+        boolean isDelta() {
+            return type == OBJ_OFS_DELTA || type == OBJ_REF_DELTA;
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package app.infra.integration;
+
+import app.infra.concurrent.TaskExecutors;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-lived "git cat-file" processes, one per repository and mode, shared by the git adapters
+ * so object lookups are served over already-open pipes instead of forking git each time.
+ *
+ * --batch answers with the object contents, --batch-check with their headers only. Requests
+ * to one process are serialized. A list of objects is pipelined: requests are written in
+ * chunks small enough to sit in the pipe while git answers, then the answers are read back in
+ * order, so a chunk costs one round trip. A process found dead is replaced, and a request that
+ * fails on a broken pipe is retried once on a fresh process. At most maxProcesses are kept
+ * (the least recently used idle one is closed first) and a housekeeping thread closes the ones
+ * idle for longer than idleTimeoutMs.
+ */
+public class GitProcessPool {
+
+    /** Requests written before reading the answers back; well below the usual 64 KB pipe buffer. */
+    private static final int PIPELINE_CHUNK_BYTES = 16 * 1024;
+
+    public enum Mode {
+        BATCH("--batch"), CHECK("--batch-check");
+
+        private final String flag;
+
+        Mode(String flag) {
+            this.flag = flag;
+        }
+    }
+
+    private final String gitExecutable;
+    private final int maxProcesses;
+    private final long idleTimeoutNanos;
+    private final Map<String, CatFileProcess> processes = new LinkedHashMap<>(16, 0.75f, true);
+    private ScheduledExecutorService housekeeping;
+
+    /**
+     * @param idleTimeoutMs Idle time after which a process is closed; 0 keeps them until close()
+     */
+    public GitProcessPool(String gitExecutable, int maxProcesses, long idleTimeoutMs) {
+        this.gitExecutable = gitExecutable;
+        this.maxProcesses = Math.max(1, maxProcesses);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, idleTimeoutMs));
+    }
+
+    /**
+     * Read one object. Only the first maxBytes of the content are kept, the rest is skipped.
+     *
+     * @param object Anything cat-file accepts: sha, "rev:path", "rev^{tree}"...
+     */
+    public GitObject read(String repositoryPath, String object, int maxBytes) throws IOException {
+        return readAll(repositoryPath, List.of(object), maxBytes).get(0);
+    }
+
+    /**
+     * Read several objects in pipelined round trips. Answers come back in request order.
+     */
+    public List<GitObject> readAll(String repositoryPath, List<String> objects, int maxBytes) throws IOException {
+        int limit = Math.max(0, maxBytes);
+        return withProcess(repositoryPath, Mode.BATCH, process -> process.pipeline(objects, limit));
+    }
+
+    /**
+     * Header (sha, type, size) of one object, without its content.
+     */
+    public GitObject check(String repositoryPath, String object) throws IOException {
+        return checkAll(repositoryPath, List.of(object)).get(0);
+    }
+
+    public List<GitObject> checkAll(String repositoryPath, List<String> objects) throws IOException {
+        return withProcess(repositoryPath, Mode.CHECK, process -> process.pipeline(objects, -1));
+    }
+
+    /**
+     * Stop every process. They also exit on their own when this JVM exits (stdin closes).
+     */
+    public synchronized void close() {
+        for (CatFileProcess process : processes.values()) {
+            process.close();
+        }
+        processes.clear();
+        if (housekeeping != null) {
+            housekeeping.shutdownNow();
+            housekeeping = null;
+        }
+    }
+
+    public synchronized int getProcessCount() {
+        return processes.size();
+    }
+
+    private <T> T withProcess(String repositoryPath, Mode mode, Request<T> request) throws IOException {
+        String key = mode.flag + " " + repositoryPath;
+        // One retry: the process may have died or been evicted since it was last used
+        for (int attempt = 1; ; attempt++) {
+            CatFileProcess process = null;
+            try {
+                process = acquire(key, repositoryPath, mode);
+                return process.run(request);
+            } catch (IOException e) {
+                discard(key, process);
+                if (attempt >= 2) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private synchronized CatFileProcess acquire(String key, String repositoryPath, Mode mode) throws IOException {
+        CatFileProcess process = processes.get(key);
+        if (process != null && process.isAlive()) {
+            process.users.incrementAndGet();
+            return process;
+        }
+        if (process != null) {
+            process.close();
+        }
+        process = new CatFileProcess(repositoryPath, mode);
+        process.users.incrementAndGet();
+        processes.put(key, process);
+
+        // Access order: least recently used first; processes in use are left alone
+        Iterator<CatFileProcess> eldest = processes.values().iterator();
+        while (processes.size() > maxProcesses && eldest.hasNext()) {
+            CatFileProcess candidate = eldest.next();
+            if (candidate != process && candidate.users.get() == 0) {
+                candidate.close();
+                eldest.remove();
+            }
+        }
+        startHousekeeping();
+        return process;
+    }
+
+    private synchronized void discard(String key, CatFileProcess process) {
+        if (process == null) {
+            return;
+        }
+        process.close();
+        processes.remove(key, process);
+    }
+
+    private void startHousekeeping() {
+        if (housekeeping != null || idleTimeoutNanos == 0) {
+            return;
+        }
+        long periodMs = Math.max(1000, TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos) / 2);
+        housekeeping = TaskExecutors.newScheduledExecutor("git-pool");
+        housekeeping.scheduleWithFixedDelay(this::evictIdle, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Close processes that are dead or unused for idleTimeout.
+     */
+    private synchronized void evictIdle() {
+        long now = System.nanoTime();
+        Iterator<CatFileProcess> iterator = processes.values().iterator();
+        while (iterator.hasNext()) {
+            CatFileProcess process = iterator.next();
+            boolean idle = process.users.get() == 0 && now - process.lastUsedNanos > idleTimeoutNanos;
+            if (idle || !process.isAlive()) {
+                process.close();
+                iterator.remove();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Request<T> {
+        T apply(CatFileProcess process) throws IOException;
+    }
+
+    /**
+     * One object as answered by cat-file. Missing objects have no sha, type or data;
+     * --batch-check answers have no data.
+     */
+    public static class GitObject {
+        static final GitObject MISSING = new GitObject(null, null, -1, null);
+
+        private final String sha;
+        private final String type;
+        private final long size;
+        private final byte[] data;
+
+        GitObject(String sha, String type, long size, byte[] data) {
+            this.sha = sha;
+            this.type = type;
+            this.size = size;
+            this.data = data;
+        }
+
+        public boolean isMissing() {
+            return sha == null;
+        }
+
+        public String getSha() {
+            return sha;
+        }
+
+        /**
+         * "blob", "tree", "commit" or "tag".
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * Full size of the object, even when its data was cut at maxBytes.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public boolean isTruncated() {
+            return data != null && data.length < size;
+        }
+    }
+
+    /**
+     * One "git cat-file --batch[-check]" process and its pipes.
+     */
+    private class CatFileProcess {
+        private final Process process;
+        private final boolean withContent;
+        private final OutputStream requests;
+        private final InputStream responses;
+        private final AtomicInteger users = new AtomicInteger();
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        CatFileProcess(String repositoryPath, Mode mode) throws IOException {
+            ProcessBuilder builder = new ProcessBuilder(gitExecutable, "cat-file", mode.flag);
+            builder.directory(new File(repositoryPath));
+            builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+            this.process = builder.start();
+            this.withContent = mode == Mode.BATCH;
+            this.requests = process.getOutputStream();
+            this.responses = new BufferedInputStream(process.getInputStream(), 64 * 1024);
+        }
+
+        synchronized <T> T run(Request<T> request) throws IOException {
+            try {
+                return request.apply(this);
+            } finally {
+                lastUsedNanos = System.nanoTime();
+                users.decrementAndGet();
+            }
+        }
+
+        /**
+         * Write the requests chunk by chunk, reading each chunk's answers before the next.
+         */
+        List<GitObject> pipeline(List<String> objects, int maxBytes) throws IOException {
+            List<GitObject> answers = new ArrayList<>(objects.size());
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream(PIPELINE_CHUNK_BYTES);
+            List<Boolean> sent = new ArrayList<>();
+            for (String object : objects) {
+                // The protocol is line based: such a name can't be asked for
+                boolean valid = object.indexOf('\n') < 0 && !object.isEmpty();
+                if (valid) {
+                    chunk.write((object + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+                sent.add(valid);
+                if (chunk.size() >= PIPELINE_CHUNK_BYTES) {
+                    flush(chunk, sent, maxBytes, answers);
+                }
+            }
+            flush(chunk, sent, maxBytes, answers);
+            return answers;
+        }
+
+        private void flush(ByteArrayOutputStream chunk, List<Boolean> sent, int maxBytes,
+                           List<GitObject> answers) throws IOException {
+            if (chunk.size() > 0) {
+                chunk.writeTo(requests);
+                requests.flush();
+                chunk.reset();
+            }
+            for (boolean valid : sent) {
+                answers.add(valid ? readAnswer(maxBytes) : GitObject.MISSING);
+            }
+            sent.clear();
+        }
+
+        private GitObject readAnswer(int maxBytes) throws IOException {
+            // "<sha> <type> <size>" or "<object> missing" / "<object> ambiguous"
+            String header = readLine();
+            if (header.endsWith(" missing") || header.endsWith(" ambiguous")) {
+                return GitObject.MISSING;
+            }
+            String[] parts = header.split(" ");
+            long size;
+            try {
+                size = parts.length == 3 ? Long.parseLong(parts[2]) : -1;
+            } catch (NumberFormatException e) {
+                size = -1;
+            }
+            if (size < 0) {
+                throw new IOException("Unexpected cat-file header: " + header);
+            }
+            if (!withContent) {
+                return new GitObject(parts[0], parts[1], size, null);
+            }
+
+            int windowSize = (int) Math.min(size, maxBytes);
+            byte[] window = responses.readNBytes(windowSize);
+            if (window.length < windowSize) {
+                throw new IOException("cat-file output ended inside " + parts[0]);
+            }
+            skip(size - windowSize + 1); // rest of the object and the trailing newline
+            return new GitObject(parts[0], parts[1], size, window);
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        void close() {
+            try {
+                requests.close(); // cat-file exits on end of input
+            } catch (IOException e) {
+                // Ignore
+            }
+            process.destroy();
+        }
+
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+            int b;
+            while ((b = responses.read()) != '\n') {
+                if (b < 0) {
+                    throw new IOException("cat-file process ended");
+                }
+                line.write(b);
+            }
+            return line.toString(StandardCharsets.UTF_8);
+        }
+
+        private void skip(long count) throws IOException {
+            if (count <= 0) {
+                return;
+            }
+            try {
+                responses.skipNBytes(count);
+            } catch (EOFException e) {
+                throw new IOException("cat-file output ended early", e);
+            }
+        }
+    }
+}
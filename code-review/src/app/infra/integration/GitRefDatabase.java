@@ -0,0 +1,162 @@
+package app.infra.integration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * In-process reader of a repository's refs (files backend): loose ref files under refs/ and
+ * the packed-refs file. A loose ref wins over its packed copy, like in git. packed-refs is
+ * parsed again only when its size or modification time changed.
+ */
+public class GitRefDatabase {
+
+    private static final int MAX_SYMREF_DEPTH = 5;
+
+    private final Path gitDirectory;
+    private final Path commonDirectory;
+    private Map<String, String> packedRefs = Map.of();
+    private long packedRefsStamp = Long.MIN_VALUE;
+
+    /**
+     * @param gitDirectory The repository's .git directory (HEAD lives here)
+     * @param commonDirectory Where refs/ and packed-refs live (differs from gitDirectory in worktrees)
+     */
+    public GitRefDatabase(Path gitDirectory, Path commonDirectory) {
+        this.gitDirectory = gitDirectory;
+        this.commonDirectory = commonDirectory;
+    }
+
+    /**
+     * Object id a name points to, trying the places git tries for a short name:
+     * the name itself, refs/, refs/tags/, refs/heads/, refs/remotes/ and refs/remotes/NAME/HEAD.
+     * A full hex id is returned as is.
+     *
+     * @return The id, or null if no ref has that name (or it uses revision syntax)
+     */
+    public String resolve(String name) throws IOException {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        if (isHexId(name)) {
+            return name.toLowerCase();
+        }
+        for (String candidate : new String[] {
+                name, "refs/" + name, "refs/tags/" + name, "refs/heads/" + name,
+                "refs/remotes/" + name, "refs/remotes/" + name + "/HEAD" }) {
+            String id = readRef(candidate, 0);
+            if (id != null) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Full names of the refs under the prefixes (e.g. "refs/heads/"), sorted like for-each-ref.
+     */
+    public List<String> listRefs(String... prefixes) throws IOException {
+        TreeSet<String> names = new TreeSet<>();
+        for (String name : packedRefs().keySet()) {
+            if (startsWithAny(name, prefixes)) {
+                names.add(name);
+            }
+        }
+        for (String prefix : prefixes) {
+            Path directory = commonDirectory.resolve(prefix);
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.filter(Files::isRegularFile)
+                     .map(file -> commonDirectory.relativize(file).toString().replace('\\', '/'))
+                     .filter(name -> !name.endsWith(".lock"))
+                     .forEach(names::add);
+            }
+        }
+        return List.copyOf(names);
+    }
+
+    /**
+     * Follow a ref (and symbolic refs such as HEAD) to an object id.
+     */
+    private String readRef(String name, int depth) throws IOException {
+        if (depth > MAX_SYMREF_DEPTH || name.contains("..") || name.endsWith("/") || name.endsWith(".lock")) {
+            return null;
+        }
+        // HEAD and other root refs are per worktree; refs/ are shared
+        Path file = (name.startsWith("refs/") ? commonDirectory : gitDirectory).resolve(name);
+        String content = null;
+        if (Files.isRegularFile(file)) {
+            try {
+                content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+            } catch (NoSuchFileException e) {
+                // Packed by a concurrent gc: fall through to packed-refs
+            }
+        }
+        if (content == null) {
+            return name.startsWith("refs/") ? packedRefs().get(name) : null;
+        }
+        if (content.startsWith("ref: ")) {
+            return readRef(content.substring(5).trim(), depth + 1);
+        }
+        return isHexId(content) ? content : null;
+    }
+
+    private synchronized Map<String, String> packedRefs() throws IOException {
+        Path file = commonDirectory.resolve("packed-refs");
+        long stamp;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            stamp = attributes.lastModifiedTime().toMillis() * 31 + attributes.size();
+        } catch (NoSuchFileException e) {
+            stamp = -1;
+        }
+        if (stamp == packedRefsStamp) {
+            return packedRefs;
+        }
+
+        Map<String, String> refs = new HashMap<>();
+        if (stamp != -1) {
+            // "<id> <name>" lines; "^<id>" (peeled tag) and "#" (header) lines are skipped
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int space = line.indexOf(' ');
+                if (space > 0 && !line.startsWith("#") && !line.startsWith("^") && isHexId(line.substring(0, space))) {
+                    refs.put(line.substring(space + 1).trim(), line.substring(0, space));
+                }
+            }
+        }
+        packedRefs = refs;
+        packedRefsStamp = stamp;
+        return refs;
+    }
+
+    private static boolean startsWithAny(String name, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isHexId(String value) {
+        if (value.length() != GitPackFile.ID_LENGTH * 2) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,461 @@
+package app.infra.integration;
+
+import app.domain.entity.DiffFile;
+import app.domain.port.CancellationToken;
+import app.domain.value.FileChangeType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Diff of two tree objects, read in-process. Subtrees with the same id on both sides are
+ * skipped without being read, so the cost follows the size of the change, not of the
+ * repository. Produces what "git diff --numstat" reports between the two trees:
+ * - added, deleted and modified files (mode-only changes included)
+ * - renames, as git detects them by default: identical content first, then files at least
+ *   50% similar (shared lines weighted by bytes), unless there are too many candidates
+ * - added/removed line counts (0 for binary files)
+ *
+ * Files are handed over as the walk finds them, in path order, except added and deleted
+ * files: only they can be renames, so they are held back (entries only, no content) and
+ * handed over in path order once the walk is done and renames are paired.
+ */
+final class GitTreeDiff {
+
+    private static final int RENAME_SCORE_PERCENT = 50;
+    /** Like diff.renameLimit: beyond this many sources or destinations, only exact renames. */
+    private static final int RENAME_LIMIT = 1000;
+    /** Files this big are counted as binary, like core.bigFileThreshold. */
+    private static final long BIG_FILE_BYTES = 64L * 1024 * 1024;
+    /** Line signatures of rename sources kept between comparisons; the others are read again. */
+    private static final long RENAME_CACHE_BYTES = 32L * 1024 * 1024;
+
+    private final NativeGitRepository repository;
+    private final CancellationToken cancellation;
+    private final List<Change> pending = new ArrayList<>();
+    private final Map<String, Lines> sourceLines = new HashMap<>();
+    private long sourceLinesBytes;
+    private Consumer<DiffFile> consumer;
+
+    GitTreeDiff(NativeGitRepository repository, CancellationToken cancellation) {
+        this.repository = repository;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * @param baseTree Tree id of the old side
+     * @param targetTree Tree id of the new side
+     * @param consumer Receives each changed file
+     */
+    void diff(String baseTree, String targetTree, Consumer<DiffFile> consumer) throws IOException {
+        this.consumer = consumer;
+        walk("", baseTree, targetTree);
+        detectRenames();
+        sourceLines.clear();
+
+        for (Change change : pending) {
+            if (change.renamedTo) {
+                continue; // Reported as its destination's old path
+            }
+            cancellation.throwIfCancelled();
+            consumer.accept(toDiffFile(change));
+        }
+    }
+
+    /**
+     * Hand a change over now, or hold it back if it can be one side of a rename.
+     */
+    private void found(Change change) throws IOException {
+        boolean renameCandidate = change.type == FileChangeType.DELETED ? change.old.isFile()
+                                : change.type == FileChangeType.ADDED && change.now.isFile();
+        if (renameCandidate) {
+            pending.add(change);
+        } else {
+            consumer.accept(toDiffFile(change));
+        }
+    }
+
+    /**
+     * Compare two trees (either may be null: everything under the other one was added or
+     * deleted), going down only into subtrees whose ids differ.
+     */
+    private void walk(String prefix, String baseTree, String targetTree) throws IOException {
+        cancellation.throwIfCancelled();
+        if (baseTree != null && baseTree.equals(targetTree)) {
+            return;
+        }
+        Map<String, Entry> base = entries(baseTree);
+        Map<String, Entry> target = entries(targetTree);
+
+        // git orders entries as if tree names ended with '/'; a file and a directory with the
+        // same name are different entries (one deleted, the other added)
+        TreeMap<String, Entry[]> merged = new TreeMap<>();
+        for (Entry entry : base.values()) {
+            merged.computeIfAbsent(entry.sortKey(), key -> new Entry[2])[0] = entry;
+        }
+        for (Entry entry : target.values()) {
+            merged.computeIfAbsent(entry.sortKey(), key -> new Entry[2])[1] = entry;
+        }
+
+        for (Entry[] pair : merged.values()) {
+            Entry old = pair[0];
+            Entry now = pair[1];
+            String name = (now != null ? now : old).name;
+            String path = prefix + name;
+
+            if (old != null && now != null) {
+                if (old.id.equals(now.id) && old.mode.equals(now.mode)) {
+                    continue;
+                }
+                if (old.isTree()) {
+                    walk(path + "/", old.id, now.id);
+                } else {
+                    found(new Change(FileChangeType.MODIFIED, path, old, now));
+                }
+            } else if (old != null) {
+                if (old.isTree()) {
+                    walk(path + "/", old.id, null);
+                } else {
+                    found(new Change(FileChangeType.DELETED, path, old, null));
+                }
+            } else {
+                if (now.isTree()) {
+                    walk(path + "/", null, now.id);
+                } else {
+                    found(new Change(FileChangeType.ADDED, path, null, now));
+                }
+            }
+        }
+    }
+
+    private Map<String, Entry> entries(String treeId) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        if (treeId == null) {
+            return entries;
+        }
+        GitProcessPool.GitObject tree = repository.getObjects().read(treeId, Integer.MAX_VALUE);
+        if (tree == null || !"tree".equals(tree.getType())) {
+            throw new IOException("Expected a tree at " + treeId);
+        }
+        GitTreeParser.parse(tree.getData(), GitPackFile.ID_LENGTH,
+                            (mode, name, id) -> entries.put(name, new Entry(mode, name, id)));
+        return entries;
+    }
+
+    /**
+     * Pair deleted and added files into renames. The destination keeps its place in the
+     * output and its source is dropped, like in git.
+     */
+    private void detectRenames() throws IOException {
+        List<Change> deleted = new ArrayList<>();
+        List<Change> added = new ArrayList<>();
+        for (Change change : pending) {
+            if (change.type == FileChangeType.DELETED) {
+                deleted.add(change);
+            } else {
+                added.add(change);
+            }
+        }
+        if (deleted.isEmpty() || added.isEmpty()) {
+            return;
+        }
+
+        // Exact renames: same blob on both sides
+        Map<String, List<Change>> deletedById = new HashMap<>();
+        for (Change source : deleted) {
+            deletedById.computeIfAbsent(source.old.id, id -> new ArrayList<>()).add(source);
+        }
+        List<Change> unmatched = new ArrayList<>();
+        for (Change destination : added) {
+            List<Change> sources = deletedById.get(destination.now.id);
+            if (sources != null && !sources.isEmpty()) {
+                rename(sources.remove(0), destination);
+            } else {
+                unmatched.add(destination);
+            }
+        }
+
+        List<Change> sources = new ArrayList<>();
+        for (Change source : deleted) {
+            if (!source.renamedTo) {
+                sources.add(source);
+            }
+        }
+        if (sources.isEmpty() || unmatched.isEmpty()
+                || sources.size() > RENAME_LIMIT || unmatched.size() > RENAME_LIMIT) {
+            return;
+        }
+
+        // Similar content: best scores first, each source used once. Sizes are compared first,
+        // so a source's lines are only needed for destinations of a similar size
+        long[] sourceSizes = new long[sources.size()];
+        for (int s = 0; s < sources.size(); s++) {
+            cancellation.throwIfCancelled();
+            sourceSizes[s] = sourceLines(sources.get(s).old).size;
+        }
+        List<long[]> candidates = new ArrayList<>();   // { score, source index, destination index }
+        for (int d = 0; d < unmatched.size(); d++) {
+            cancellation.throwIfCancelled();
+            Lines destination = lines(unmatched.get(d).now);
+            if (destination.isBinary()) {
+                continue;
+            }
+            for (int s = 0; s < sources.size(); s++) {
+                long larger = Math.max(sourceSizes[s], destination.size);
+                long smaller = Math.min(sourceSizes[s], destination.size);
+                // Can't reach the minimum score when the sizes are too far apart
+                if (larger == 0 || smaller * 100 < larger * RENAME_SCORE_PERCENT) {
+                    continue;
+                }
+                Lines source = sourceLines(sources.get(s).old);
+                if (source.isBinary()) {
+                    continue;
+                }
+                long score = source.sharedBytes(destination) * 100 / larger;
+                if (score >= RENAME_SCORE_PERCENT) {
+                    candidates.add(new long[] { score, s, d });
+                }
+            }
+        }
+        candidates.sort((a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0])
+                                               : a[2] != b[2] ? Long.compare(a[2], b[2]) : Long.compare(a[1], b[1]));
+        boolean[] destinationUsed = new boolean[unmatched.size()];
+        for (long[] candidate : candidates) {
+            Change source = sources.get((int) candidate[1]);
+            int d = (int) candidate[2];
+            if (!source.renamedTo && !destinationUsed[d]) {
+                destinationUsed[d] = true;
+                rename(source, unmatched.get(d));
+            }
+        }
+    }
+
+    /**
+     * Lines of a rename source, kept while the cache has room (each source is compared with
+     * many destinations); past RENAME_CACHE_BYTES they are read again when needed.
+     */
+    private Lines sourceLines(Entry entry) throws IOException {
+        Lines lines = sourceLines.get(entry.id);
+        if (lines != null) {
+            return lines;
+        }
+        lines = lines(entry);
+        long bytes = lines.memoryBytes();
+        if (sourceLinesBytes + bytes <= RENAME_CACHE_BYTES) {
+            sourceLines.put(entry.id, lines);
+            sourceLinesBytes += bytes;
+        }
+        return lines;
+    }
+
+    private Lines lines(Entry entry) throws IOException {
+        return Lines.of(content(entry));
+    }
+
+    private static void rename(Change source, Change destination) {
+        source.renamedTo = true;
+        destination.type = FileChangeType.RENAMED;
+        destination.oldPath = source.path;
+        destination.old = source.old;
+    }
+
+    private DiffFile toDiffFile(Change change) throws IOException {
+        DiffFile file = new DiffFile(change.path, change.type);
+        if (change.oldPath != null) {
+            file.setOldPath(change.oldPath);
+        }
+        if (change.now != null && change.now.isFile()) {
+            file.setBlobId(change.now.id);
+        }
+
+        byte[] oldContent = sideContent(change.old);
+        byte[] newContent = sideContent(change.now);
+        int added = 0;
+        int removed = 0;
+        boolean unchanged = change.old != null && change.now != null && change.old.id.equals(change.now.id);
+        if (!unchanged && !LineDiffCounter.isBinary(oldContent) && !LineDiffCounter.isBinary(newContent)) {
+            if (oldContent.length == 0) {
+                added = LineDiffCounter.countLines(newContent);
+            } else if (newContent.length == 0) {
+                removed = LineDiffCounter.countLines(oldContent);
+            } else {
+                int[] counts = LineDiffCounter.count(oldContent, newContent);
+                added = counts[0];
+                removed = counts[1];
+            }
+        }
+        file.setLinesAdded(added);
+        file.setLinesRemoved(removed);
+        return file;
+    }
+
+    /**
+     * What git counts lines in for one side of a change: nothing for a missing side, the
+     * "Subproject commit <id>" line for a submodule, the blob otherwise.
+     */
+    private byte[] sideContent(Entry entry) throws IOException {
+        if (entry == null) {
+            return new byte[0];
+        }
+        if (!entry.isFile()) {
+            return ("Subproject commit " + entry.id + "\n").getBytes(StandardCharsets.US_ASCII);
+        }
+        return content(entry);
+    }
+
+    /**
+     * Content of a blob. Files above BIG_FILE_BYTES come back as a single NUL byte, which the
+     * counters take for binary.
+     */
+    private byte[] content(Entry entry) throws IOException {
+        GitProcessPool.GitObject blob = repository.getObjects().read(entry.id, (int) BIG_FILE_BYTES);
+        if (blob == null) {
+            throw new IOException("Missing blob " + entry.id);
+        }
+        return blob.isTruncated() ? new byte[1] : blob.getData();
+    }
+
+    private static final class Entry {
+        final String mode;
+        final String name;
+        final String id;
+
+        Entry(String mode, String name, String id) {
+            this.mode = mode;
+            this.name = name;
+            this.id = id;
+        }
+
+        boolean isTree() {
+            return mode.equals(GitTreeParser.MODE_TREE);
+        }
+
+        /**
+         * Regular file or symlink (not a submodule).
+         */
+        boolean isFile() {
+            return !isTree() && !mode.equals(GitTreeParser.MODE_SUBMODULE);
+        }
+
+        String sortKey() {
+            return isTree() ? name + "/" : name;
+        }
+    }
+
+    /**
+     * Size of a blob and how many times each of its lines (newline included) appears. A line
+     * is a 64-bit key: a 40-bit hash of its bytes and its length, so a file costs 12 bytes per
+     * distinct line, and two files compare in one pass over their sorted keys.
+     */
+    private static final class Lines {
+        private static final int LENGTH_BITS = 24;
+        private static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+
+        final long size;
+        private final long[] keys;    // sorted, distinct; null for binary files
+        private final int[] counts;
+
+        private Lines(long size, long[] keys, int[] counts) {
+            this.size = size;
+            this.keys = keys;
+            this.counts = counts;
+        }
+
+        static Lines of(byte[] data) {
+            if (LineDiffCounter.isBinary(data)) {
+                return new Lines(data.length, null, null);
+            }
+            long[] lines = new long[LineDiffCounter.countLines(data)];
+            int count = 0;
+            int start = 0;
+            for (int i = 0; i < data.length; i++) {
+                if (data[i] == '\n' || i == data.length - 1) {
+                    lines[count++] = key(data, start, i + 1);
+                    start = i + 1;
+                }
+            }
+            lines = count == lines.length ? lines : Arrays.copyOf(lines, count);
+            Arrays.sort(lines);
+
+            long[] keys = new long[count];
+            int[] counts = new int[count];
+            int distinct = 0;
+            for (int i = 0; i < count; i++) {
+                if (distinct > 0 && keys[distinct - 1] == lines[i]) {
+                    counts[distinct - 1]++;
+                } else {
+                    keys[distinct] = lines[i];
+                    counts[distinct++] = 1;
+                }
+            }
+            return new Lines(data.length, Arrays.copyOf(keys, distinct), Arrays.copyOf(counts, distinct));
+        }
+
+        /**
+         * FNV-1a of the line, mixed, in the high 40 bits; its length (capped) in the low ones.
+         */
+        private static long key(byte[] data, int start, int end) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = start; i < end; i++) {
+                hash = (hash ^ (data[i] & 0xFF)) * 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            return (hash & ~LENGTH_MASK) | Math.min(end - start, LENGTH_MASK);
+        }
+
+        boolean isBinary() {
+            return keys == null;
+        }
+
+        long memoryBytes() {
+            return 64 + (keys != null ? keys.length * 12L : 0);
+        }
+
+        /**
+         * Bytes of the lines both files contain.
+         */
+        long sharedBytes(Lines other) {
+            long shared = 0;
+            int i = 0;
+            int j = 0;
+            while (i < keys.length && j < other.keys.length) {
+                if (keys[i] < other.keys[j]) {
+                    i++;
+                } else if (keys[i] > other.keys[j]) {
+                    j++;
+                } else {
+                    shared += (long) Math.min(counts[i], other.counts[j]) * (keys[i] & LENGTH_MASK);
+                    i++;
+                    j++;
+                }
+            }
+            return shared;
+        }
+    }
+
+    private static final class Change {
+        FileChangeType type;
+        final String path;
+        Entry old;
+        final Entry now;
+        String oldPath;
+        boolean renamedTo;
+
+        Change(FileChangeType type, String path, Entry old, Entry now) {
+            this.type = type;
+            this.path = path;
+            this.old = old;
+            this.now = now;
+        }
+    }
+}
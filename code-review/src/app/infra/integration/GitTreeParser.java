@@ -0,0 +1,60 @@
+package app.infra.integration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the entries of a raw git tree object: <mode> SP <name> NUL <raw object id>, repeated.
+ */
+final class GitTreeParser {
+
+    static final String MODE_TREE = "40000";
+    static final String MODE_SUBMODULE = "160000";
+
+    /**
+     * Receives each entry of a tree, in tree order (sorted by name).
+     */
+    @FunctionalInterface
+    interface EntryHandler {
+        void entry(String mode, String name, String id) throws IOException;
+    }
+
+    private GitTreeParser() {
+    }
+
+    /**
+     * @param idLength Raw id length: 20 bytes for SHA-1, 32 for SHA-256
+     */
+    static void parse(byte[] data, int idLength, EntryHandler handler) throws IOException {
+        int pos = 0;
+        while (pos < data.length) {
+            int space = indexOf(data, (byte) ' ', pos);
+            int nul = space < 0 ? -1 : indexOf(data, (byte) 0, space + 1);
+            if (nul < 0 || nul + idLength >= data.length) {
+                throw new IOException("Malformed tree object");
+            }
+            String mode = new String(data, pos, space - pos, StandardCharsets.US_ASCII);
+            String name = new String(data, space + 1, nul - space - 1, StandardCharsets.UTF_8);
+            String id = toHex(data, nul + 1, idLength);
+            pos = nul + 1 + idLength;
+            handler.entry(mode, name, id);
+        }
+    }
+
+    static String toHex(byte[] data, int offset, int length) {
+        StringBuilder hex = new StringBuilder(length * 2);
+        for (int i = offset; i < offset + length; i++) {
+            hex.append(Character.forDigit((data[i] >> 4) & 0xF, 16)).append(Character.forDigit(data[i] & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static int indexOf(byte[] data, byte value, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,143 @@
+package app.infra.integration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Added and removed line counts between two versions of a file, as "git diff --numstat"
+ * reports them. Lines are interned to ints, the common prefix and suffix are skipped, and the
+ * rest is measured with Myers' greedy edit distance (the counts of any minimal diff are the
+ * same: removed = old lines - LCS, added = new lines - LCS). Past WORK_LIMIT steps, the LCS is
+ * estimated by the lines both versions share instead.
+ */
+final class LineDiffCounter {
+
+    /** git treats a file as binary when its first 8000 bytes hold a NUL. */
+    private static final int BINARY_SNIFF_BYTES = 8000;
+    private static final long WORK_LIMIT = 50_000_000L;
+    /** Outside the ISO-8859-1 range, so no line content can end with it. */
+    private static final char NO_NEWLINE_MARKER = '\u0100';
+
+    private LineDiffCounter() {
+    }
+
+    static boolean isBinary(byte[] data) {
+        int end = Math.min(data.length, BINARY_SNIFF_BYTES);
+        for (int i = 0; i < end; i++) {
+            if (data[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lines of a file; a last line without a newline counts.
+     */
+    static int countLines(byte[] data) {
+        int lines = 0;
+        for (byte b : data) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+        return data.length > 0 && data[data.length - 1] != '\n' ? lines + 1 : lines;
+    }
+
+    /**
+     * @return { added, removed }
+     */
+    static int[] count(byte[] oldData, byte[] newData) {
+        Map<String, Integer> interned = new HashMap<>();
+        int[] a = intern(oldData, interned);
+        int[] b = intern(newData, interned);
+
+        int start = 0;
+        while (start < a.length && start < b.length && a[start] == b[start]) {
+            start++;
+        }
+        int endA = a.length;
+        int endB = b.length;
+        while (endA > start && endB > start && a[endA - 1] == b[endB - 1]) {
+            endA--;
+            endB--;
+        }
+
+        int n = endA - start;
+        int m = endB - start;
+        int common = lcsLength(a, b, start, n, m, interned.size());
+        return new int[] { m - common, n - common };
+    }
+
+    private static int lcsLength(int[] a, int[] b, int start, int n, int m, int distinctLines) {
+        if (n == 0 || m == 0) {
+            return 0;
+        }
+        int max = n + m;
+        int[] v = new int[2 * max + 2];
+        long work = 0;
+        for (int d = 0; d <= max; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && v[max + k - 1] < v[max + k + 1])) ? v[max + k + 1] : v[max + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[start + x] == b[start + y]) {
+                    x++;
+                    y++;
+                }
+                v[max + k] = x;
+                if (x >= n && y >= m) {
+                    return (n + m - d) / 2;
+                }
+            }
+            work += d + 1;
+            if (work > WORK_LIMIT) {
+                break;
+            }
+        }
+        return sharedLines(a, b, start, n, m, distinctLines);
+    }
+
+    /**
+     * Upper bound of the LCS: lines present in both, counted as often as in the version
+     * that has fewer of them.
+     */
+    private static int sharedLines(int[] a, int[] b, int start, int n, int m, int distinctLines) {
+        int[] counts = new int[distinctLines];
+        for (int i = start; i < start + n; i++) {
+            counts[a[i]]++;
+        }
+        int shared = 0;
+        for (int i = start; i < start + m; i++) {
+            if (counts[b[i]] > 0) {
+                counts[b[i]]--;
+                shared++;
+            }
+        }
+        return shared;
+    }
+
+    private static int[] intern(byte[] data, Map<String, Integer> interned) {
+        int[] lines = new int[countLines(data)];
+        int line = 0;
+        int lineStart = 0;
+        for (int i = 0; i <= data.length; i++) {
+            if (i == data.length ? i > lineStart : data[i] == '\n') {
+                // ISO-8859-1 maps bytes 1:1, so any content makes a valid key; a last line
+                // without newline differs from the same line with one, like in git
+                String text = new String(data, lineStart, i - lineStart, StandardCharsets.ISO_8859_1);
+                if (i == data.length) {
+                    text += NO_NEWLINE_MARKER;
+                }
+                Integer id = interned.get(text);
+                if (id == null) {
+                    id = interned.size();
+                    interned.put(text, id);
+                }
+                lines[line++] = id;
+                lineStart = i + 1;
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,35 @@
+package app.infra.integration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Merge bases already found, by repository and pair of commit ids. The merge base of two
+ * given commits never changes (a branch that moves is a new pair), so entries are only
+ * dropped to stay under maxEntries, least recently used first.
+ */
+final class MergeBaseCache {
+
+    private final Map<String, String> entries;
+
+    MergeBaseCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized String get(String repositoryPath, String baseCommit, String targetCommit) {
+        return entries.get(key(repositoryPath, baseCommit, targetCommit));
+    }
+
+    synchronized void put(String repositoryPath, String baseCommit, String targetCommit, String mergeBase) {
+        entries.put(key(repositoryPath, baseCommit, targetCommit), mergeBase);
+    }
+
+    private static String key(String repositoryPath, String baseCommit, String targetCommit) {
+        return repositoryPath + '\0' + baseCommit + '\0' + targetCommit;
+    }
+}
@@ -0,0 +1,154 @@
+package app.infra.integration;
+
+import app.domain.entity.DiffFile;
+import app.domain.port.CancellationToken;
+import app.domain.port.DiffEngine;
+import app.domain.port.DiffException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * DiffEngine that reads refs, trees and blobs in-process (NativeGitRepository) instead of
+ * forking git. File-level diffs are tree diffs (GitTreeDiff) that skip unchanged subtrees;
+ * diffs with changed line ranges (hunk mode) still come from git. The git command line
+ * engine also answers what the native reader can't: unsupported repositories, revision
+ * syntax other than ref names and ids, or an unreadable object store.
+ */
+public class NativeGitDiffEngine implements DiffEngine {
+
+    private static final int MERGE_BASE_CACHE_ENTRIES = 1024;
+
+    private final NativeGitRepositories repositories;
+    private final DiffEngine processEngine;
+    private final MergeBaseCache mergeBases = new MergeBaseCache(MERGE_BASE_CACHE_ENTRIES);
+
+    /**
+     * @param processEngine Engine running git, for hunks and fallbacks
+     */
+    public NativeGitDiffEngine(NativeGitRepositories repositories, DiffEngine processEngine) {
+        this.repositories = repositories;
+        this.processEngine = processEngine;
+    }
+
+    @Override
+    public List<DiffFile> calculateDiff(String repositoryPath, String baseBranch, String targetBranch)
+            throws DiffException {
+        List<DiffFile> diffFiles = new ArrayList<>();
+        streamDiff(repositoryPath, baseBranch, targetBranch, diffFiles::add, CancellationToken.none());
+        return diffFiles;
+    }
+
+    /**
+     * "base..target" compares the two tips, so it is the diff of their root trees. Files are
+     * handed over during the tree walk; once one was, a failure can't fall back to git
+     * without reporting files twice, so it fails the diff.
+     */
+    @Override
+    public void streamDiff(String repositoryPath, String baseBranch, String targetBranch,
+                           Consumer<DiffFile> consumer, CancellationToken cancellation) throws DiffException {
+        NativeGitRepository repository = nativeRepository(repositoryPath);
+        if (repository != null) {
+            int[] emitted = { 0 };
+            try {
+                String baseTree = repository.resolveTree(baseBranch);
+                String targetTree = repository.resolveTree(targetBranch);
+                if (baseTree != null && targetTree != null) {
+                    new GitTreeDiff(repository, cancellation).diff(baseTree, targetTree, file -> {
+                        emitted[0]++;
+                        consumer.accept(file);
+                    });
+                    return;
+                }
+            } catch (IOException e) {
+                if (emitted[0] > 0) {
+                    throw new DiffException("Failed to diff " + baseBranch + ".." + targetBranch, e);
+                }
+                System.err.println("[NativeGitDiffEngine] Diffing " + baseBranch + ".." + targetBranch +
+                                   " through git: " + e.getMessage());
+            }
+        }
+        processEngine.streamDiff(repositoryPath, baseBranch, targetBranch, consumer, cancellation);
+    }
+
+    /**
+     * Hunks come from git's patch output, together with the rest of the diff.
+     */
+    @Override
+    public void streamDiffWithHunks(String repositoryPath, String baseBranch, String targetBranch,
+                                    int contextLines, Consumer<DiffFile> consumer,
+                                    CancellationToken cancellation) throws DiffException {
+        processEngine.streamDiffWithHunks(repositoryPath, baseBranch, targetBranch, contextLines, consumer,
+                                          cancellation);
+    }
+
+    /**
+     * Resolved to commit ids first, so a memoized answer costs two ref lookups.
+     */
+    @Override
+    public String getMergeBase(String repositoryPath, String baseBranch, String targetBranch,
+                               CancellationToken cancellation) throws DiffException {
+        NativeGitRepository repository = nativeRepository(repositoryPath);
+        if (repository != null) {
+            try {
+                String baseCommit = repository.resolveCommit(baseBranch);
+                String targetCommit = repository.resolveCommit(targetBranch);
+                if (baseCommit != null && targetCommit != null) {
+                    String mergeBase = mergeBases.get(repositoryPath, baseCommit, targetCommit);
+                    if (mergeBase == null) {
+                        mergeBase = repository.mergeBase(baseCommit, targetCommit, cancellation);
+                        if (mergeBase == null) {
+                            throw new DiffException("No common history between " + baseBranch + " and " + targetBranch);
+                        }
+                        mergeBases.put(repositoryPath, baseCommit, targetCommit, mergeBase);
+                    }
+                    return mergeBase;
+                }
+            } catch (IOException e) {
+                System.err.println("[NativeGitDiffEngine] Finding merge base through git: " + e.getMessage());
+            }
+        }
+        return processEngine.getMergeBase(repositoryPath, baseBranch, targetBranch, cancellation);
+    }
+
+    @Override
+    public Map<String, String> getBlobIds(String repositoryPath, String revision) throws DiffException {
+        NativeGitRepository repository = nativeRepository(repositoryPath);
+        if (repository != null) {
+            try {
+                String tree = repository.resolveTree(revision);
+                if (tree != null) {
+                    return repository.listBlobIds(tree);
+                }
+            } catch (IOException e) {
+                System.err.println("[NativeGitDiffEngine] Reading " + revision + " through git: " + e.getMessage());
+            }
+        }
+        return processEngine.getBlobIds(repositoryPath, revision);
+    }
+
+    @Override
+    public boolean isValidRepository(String repositoryPath) {
+        return processEngine.isValidRepository(repositoryPath);
+    }
+
+    @Override
+    public List<String> getBranches(String repositoryPath) throws DiffException {
+        NativeGitRepository repository = nativeRepository(repositoryPath);
+        if (repository != null) {
+            try {
+                return repository.listBranches();
+            } catch (IOException e) {
+                System.err.println("[NativeGitDiffEngine] Listing branches through git: " + e.getMessage());
+            }
+        }
+        return processEngine.getBranches(repositoryPath);
+    }
+
+    private NativeGitRepository nativeRepository(String repositoryPath) {
+        return isValidRepository(repositoryPath) ? repositories.get(repositoryPath) : null;
+    }
+}
@@ -0,0 +1,65 @@
+package app.infra.integration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opened NativeGitRepository per repository path, shared by the git adapters so packs are
+ * opened (and delta bases cached) once. Repositories that can't be read in-process are
+ * remembered, and callers use the git command line for them.
+ */
+public class NativeGitRepositories {
+
+    private final long cacheBytes;
+    private final Map<String, NativeGitRepository> repositories = new ConcurrentHashMap<>();
+    private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param cacheBytes Delta base cache budget of each repository
+     */
+    public NativeGitRepositories(long cacheBytes) {
+        this.cacheBytes = cacheBytes;
+    }
+
+    /**
+     * @return The repository, or null if it must be read through git
+     */
+    public NativeGitRepository get(String repositoryPath) {
+        NativeGitRepository repository = repositories.get(repositoryPath);
+        if (repository != null || unsupported.contains(repositoryPath)) {
+            return repository;
+        }
+        synchronized (this) {
+            repository = repositories.get(repositoryPath);
+            if (repository != null) {
+                return repository;
+            }
+            try {
+                repository = NativeGitRepository.open(repositoryPath, cacheBytes);
+                repositories.put(repositoryPath, repository);
+                return repository;
+            } catch (IOException e) {
+                // Not a repository (yet) is retried next time; an unsupported one isn't
+                if (Files.exists(Paths.get(repositoryPath, ".git"))) {
+                    unsupported.add(repositoryPath);
+                    System.err.println("[NativeGitRepositories] Using git for " + repositoryPath + ": " + e.getMessage());
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Close every opened repository (their pack files); the next get() opens them again.
+     */
+    public synchronized void close() {
+        for (NativeGitRepository repository : repositories.values()) {
+            repository.close();
+        }
+        repositories.clear();
+    }
+}
@@ -0,0 +1,284 @@
+package app.infra.integration;
+
+import app.domain.port.CancellationToken;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A git repository read in-process (no git subprocess): refs, commits, trees and blobs.
+ * Only the common layout is supported: SHA-1 objects and the files ref backend. open() rejects
+ * the rest (SHA-256, reftable) so callers can fall back to the git command line.
+ */
+public class NativeGitRepository {
+
+    private final Path commonDirectory;
+    private final GitObjectDatabase objects;
+    private final GitRefDatabase refs;
+    private GitCommitGraph commitGraph;
+    private long commitGraphStamp;
+
+    private NativeGitRepository(Path commonDirectory, GitObjectDatabase objects, GitRefDatabase refs) {
+        this.commonDirectory = commonDirectory;
+        this.objects = objects;
+        this.refs = refs;
+    }
+
+    /**
+     * @param repositoryPath Working tree root (with a .git directory, or a .git file for worktrees)
+     * @param cacheBytes Delta base cache budget
+     * @throws IOException if the repository can't be read in-process
+     */
+    public static NativeGitRepository open(String repositoryPath, long cacheBytes) throws IOException {
+        Path gitDirectory = gitDirectory(repositoryPath);
+        Path commonDirectory = commonDirectory(gitDirectory);
+
+        Path config = commonDirectory.resolve("config");
+        if (Files.isRegularFile(config)) {
+            String text = Files.readString(config, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT).replace(" ", "");
+            if (text.contains("objectformat=sha256")) {
+                throw new IOException("SHA-256 repositories are not supported in-process");
+            }
+            if (text.contains("refstorage=reftable")) {
+                throw new IOException("reftable repositories are not supported in-process");
+            }
+        }
+        if (Files.exists(commonDirectory.resolve("reftable"))) {
+            throw new IOException("reftable repositories are not supported in-process");
+        }
+
+        return new NativeGitRepository(
+            commonDirectory,
+            new GitObjectDatabase(commonDirectory.resolve("objects"), cacheBytes),
+            new GitRefDatabase(gitDirectory, commonDirectory)
+        );
+    }
+
+    /**
+     * Git directory of a working tree: ".git", or where a ".git" file points to.
+     */
+    static Path gitDirectory(String repositoryPath) throws IOException {
+        Path root = Paths.get(repositoryPath);
+        Path gitDirectory = root.resolve(".git");
+        if (Files.isRegularFile(gitDirectory)) {
+            // Linked worktree or submodule: "gitdir: <path>"
+            String content = Files.readString(gitDirectory, StandardCharsets.UTF_8).trim();
+            if (!content.startsWith("gitdir:")) {
+                throw new IOException("Unreadable .git file in " + repositoryPath);
+            }
+            gitDirectory = root.resolve(content.substring("gitdir:".length()).trim()).normalize();
+        }
+        if (!Files.isDirectory(gitDirectory)) {
+            throw new IOException("Not a git repository: " + repositoryPath);
+        }
+        return gitDirectory;
+    }
+
+    /**
+     * Directory holding the objects, branches and packed-refs shared by all worktrees.
+     */
+    static Path commonDirectory(Path gitDirectory) throws IOException {
+        Path commonFile = gitDirectory.resolve("commondir");
+        if (Files.isRegularFile(commonFile)) {
+            return gitDirectory.resolve(Files.readString(commonFile, StandardCharsets.UTF_8).trim()).normalize();
+        }
+        return gitDirectory;
+    }
+
+    /**
+     * Release the pack files (a later read opens them again).
+     */
+    public void close() {
+        objects.close();
+    }
+
+    public GitObjectDatabase getObjects() {
+        return objects;
+    }
+
+    public GitRefDatabase getRefs() {
+        return refs;
+    }
+
+    /**
+     * Commit a ref or id points to, peeling annotated tags.
+     *
+     * @return The commit id, or null if the name doesn't resolve to a commit
+     */
+    public String resolveCommit(String revision) throws IOException {
+        String id = refs.resolve(revision);
+        for (int depth = 0; id != null && depth < 10; depth++) {
+            GitProcessPool.GitObject object = objects.read(id, Integer.MAX_VALUE);
+            if (object == null) {
+                return null;
+            }
+            if ("commit".equals(object.getType())) {
+                return id;
+            }
+            if (!"tag".equals(object.getType())) {
+                return null;
+            }
+            id = headerValue(object.getData(), "object");
+        }
+        return null;
+    }
+
+    /**
+     * Root tree of a revision, or null if it doesn't resolve to a commit.
+     */
+    public String resolveTree(String revision) throws IOException {
+        String commit = resolveCommit(revision);
+        return commit != null ? commitTree(commit) : null;
+    }
+
+    /**
+     * Root tree of a commit.
+     */
+    public String commitTree(String commitId) throws IOException {
+        GitProcessPool.GitObject commit = readExisting(commitId, "commit");
+        return headerValue(commit.getData(), "tree");
+    }
+
+    /**
+     * Blob id of every file under a tree (submodules skipped), like "ls-tree -r".
+     */
+    public Map<String, String> listBlobIds(String treeId) throws IOException {
+        Map<String, String> blobIds = new HashMap<>();
+        List<String[]> pending = new ArrayList<>();
+        pending.add(new String[] { "", treeId });
+        while (!pending.isEmpty()) {
+            String[] next = pending.remove(pending.size() - 1);
+            String prefix = next[0];
+            GitTreeParser.parse(readExisting(next[1], "tree").getData(), GitPackFile.ID_LENGTH, (mode, name, id) -> {
+                if (mode.equals(GitTreeParser.MODE_TREE)) {
+                    pending.add(new String[] { prefix + name + "/", id });
+                } else if (!mode.equals(GitTreeParser.MODE_SUBMODULE)) {
+                    blobIds.put(prefix + name, id);
+                }
+            });
+        }
+        return blobIds;
+    }
+
+    /**
+     * Object at a path of a revision ("rev:path").
+     *
+     * @return The object, or null if the path doesn't exist there
+     * @throws IOException if the revision doesn't resolve or the object store is unreadable
+     */
+    public GitProcessPool.GitObject readPath(String revision, String path, int maxBytes) throws IOException {
+        String tree = resolveTree(revision);
+        if (tree == null) {
+            throw new IOException("Unknown revision: " + revision);
+        }
+        String id = tree;
+        for (String component : path.replace('\\', '/').split("/")) {
+            if (component.isEmpty()) {
+                continue;
+            }
+            id = findEntry(readExisting(id, "tree"), component);
+            if (id == null) {
+                return null;
+            }
+        }
+        GitProcessPool.GitObject object = objects.read(id, maxBytes);
+        if (object == null) {
+            throw new IOException("Missing object " + id);
+        }
+        return object;
+    }
+
+    private String findEntry(GitProcessPool.GitObject tree, String name) throws IOException {
+        String[] found = new String[1];
+        GitTreeParser.parse(tree.getData(), GitPackFile.ID_LENGTH, (mode, entryName, id) -> {
+            if (found[0] == null && entryName.equals(name)) {
+                found[0] = mode.equals(GitTreeParser.MODE_SUBMODULE) ? null : id;
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Best common ancestor of two commits, like "git merge-base" (see GitMergeBase).
+     *
+     * @param cancellation Stops the walk when cancelled
+     * @return Its id, or null if the histories have no commit in common
+     * @throws IOException in shallow clones (their cut history would give a wrong answer),
+     *         or if a commit can't be read
+     */
+    public String mergeBase(String firstCommit, String secondCommit, CancellationToken cancellation)
+            throws IOException {
+        if (Files.exists(commonDirectory.resolve("shallow"))) {
+            throw new IOException("Shallow repositories are not supported in-process");
+        }
+        return new GitMergeBase(objects, commitGraph(), cancellation).find(firstCommit, secondCommit);
+    }
+
+    /**
+     * The commit-graph, opened again when git rewrites it; null if there is none or it can't be read.
+     */
+    private synchronized GitCommitGraph commitGraph() throws IOException {
+        Path objectsDirectory = commonDirectory.resolve("objects");
+        long stamp = GitCommitGraph.stamp(objectsDirectory);
+        if (stamp != commitGraphStamp) {
+            try {
+                commitGraph = GitCommitGraph.open(objectsDirectory);
+            } catch (IOException e) {
+                System.err.println("[NativeGitRepository] Ignoring commit-graph: " + e.getMessage());
+                commitGraph = null;
+            }
+            commitGraphStamp = stamp;
+        }
+        return commitGraph;
+    }
+
+    /**
+     * Local then remote branch names, like "git branch" and "git branch -r" (remote HEADs left out).
+     */
+    public List<String> listBranches() throws IOException {
+        List<String> branches = new ArrayList<>();
+        for (String ref : refs.listRefs("refs/heads/", "refs/remotes/")) {
+            if (ref.startsWith("refs/heads/")) {
+                branches.add(ref.substring("refs/heads/".length()));
+            } else if (!ref.endsWith("/HEAD")) {
+                branches.add(ref.substring("refs/remotes/".length()));
+            }
+        }
+        return branches;
+    }
+
+    private GitProcessPool.GitObject readExisting(String id, String type) throws IOException {
+        GitProcessPool.GitObject object = id != null ? objects.read(id, Integer.MAX_VALUE) : null;
+        if (object == null || !type.equals(object.getType())) {
+            throw new IOException("Expected a " + type + " at " + id);
+        }
+        return object;
+    }
+
+    /**
+     * Value of a header line ("tree <id>", "object <id>") of a commit or tag.
+     */
+    private static String headerValue(byte[] data, String key) throws IOException {
+        int pos = 0;
+        while (pos < data.length && data[pos] != '\n') {
+            int end = pos;
+            while (end < data.length && data[end] != '\n') {
+                end++;
+            }
+            String line = new String(data, pos, end - pos, StandardCharsets.UTF_8);
+            if (line.startsWith(key + " ")) {
+                return line.substring(key.length() + 1).trim();
+            }
+            pos = end + 1;
+        }
+        throw new IOException("Object has no " + key + " header");
+    }
+}
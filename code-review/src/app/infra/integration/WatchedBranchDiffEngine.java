@@ -0,0 +1,351 @@
+package app.infra.integration;
+
+import app.domain.entity.DiffFile;
+import app.domain.port.CancellationToken;
+import app.domain.port.DiffEngine;
+import app.domain.port.DiffException;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * DiffEngine that keeps the branch list of each repository in memory, so repeated getBranches
+ * calls are a map lookup instead of a ref listing. The ref storage (refs/heads, refs/remotes
+ * and packed-refs) is watched with a WatchService: any change there (commit, branch, fetch,
+ * prune) marks the list stale, and when branch listeners are registered it is listed again
+ * and they are told if branches appeared or disappeared. Events are collected until git has
+ * been quiet for debounceMs, so one command (lock file, rename, reflog) is one refresh.
+ *
+ * A repository whose directories can't be watched isn't cached. Where the JDK has no native
+ * watcher (macOS polls), a change can take a few seconds to be seen. Everything else goes to
+ * the wrapped engine.
+ */
+public class WatchedBranchDiffEngine implements DiffEngine {
+
+    private final DiffEngine delegate;
+    private final long debounceMs;
+    private final Map<String, RefWatch> watches = new ConcurrentHashMap<>();
+    private final Map<WatchKey, RefWatch> watchesByKey = new ConcurrentHashMap<>();
+    private final Set<String> unwatchable = ConcurrentHashMap.newKeySet();
+    private final List<BiConsumer<String, List<String>>> listeners = new CopyOnWriteArrayList<>();
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public WatchedBranchDiffEngine(DiffEngine delegate, long debounceMs) {
+        this.delegate = delegate;
+        this.debounceMs = Math.max(0, debounceMs);
+    }
+
+    @Override
+    public List<DiffFile> calculateDiff(String repositoryPath, String baseBranch, String targetBranch)
+            throws DiffException {
+        return delegate.calculateDiff(repositoryPath, baseBranch, targetBranch);
+    }
+
+    @Override
+    public void streamDiff(String repositoryPath, String baseBranch, String targetBranch,
+                           Consumer<DiffFile> consumer, CancellationToken cancellation) throws DiffException {
+        delegate.streamDiff(repositoryPath, baseBranch, targetBranch, consumer, cancellation);
+    }
+
+    @Override
+    public void streamDiffWithHunks(String repositoryPath, String baseBranch, String targetBranch,
+                                    int contextLines, Consumer<DiffFile> consumer,
+                                    CancellationToken cancellation) throws DiffException {
+        delegate.streamDiffWithHunks(repositoryPath, baseBranch, targetBranch, contextLines, consumer, cancellation);
+    }
+
+    @Override
+    public String getMergeBase(String repositoryPath, String baseBranch, String targetBranch,
+                               CancellationToken cancellation) throws DiffException {
+        return delegate.getMergeBase(repositoryPath, baseBranch, targetBranch, cancellation);
+    }
+
+    @Override
+    public Map<String, String> getBlobIds(String repositoryPath, String revision) throws DiffException {
+        return delegate.getBlobIds(repositoryPath, revision);
+    }
+
+    @Override
+    public boolean isValidRepository(String repositoryPath) {
+        return delegate.isValidRepository(repositoryPath);
+    }
+
+    /**
+     * @return The branches, as an unmodifiable list shared by callers
+     */
+    @Override
+    public List<String> getBranches(String repositoryPath) throws DiffException {
+        RefWatch watch = watches.get(repositoryPath);
+        List<String> cached = watch != null ? watch.branches : null;
+        if (cached != null) {
+            return cached;
+        }
+        if (!delegate.isValidRepository(repositoryPath)) {
+            return delegate.getBranches(repositoryPath); // Reports the invalid path
+        }
+
+        // Watch first: a change made while listing makes the listing stale, not lost
+        watch = watch != null ? watch : watch(repositoryPath);
+        if (watch == null) {
+            return delegate.getBranches(repositoryPath);
+        }
+        long version = watch.version;
+        List<String> branches = Collections.unmodifiableList(new ArrayList<>(delegate.getBranches(repositoryPath)));
+        synchronized (watch) {
+            if (watch.version == version) {
+                watch.branches = branches;
+            }
+            watch.lastListed = branches;
+        }
+        return branches;
+    }
+
+    @Override
+    public void addBranchListener(BiConsumer<String, List<String>> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeBranchListener(BiConsumer<String, List<String>> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Start watching the ref storage of a repository.
+     *
+     * @return The watch, or null if the repository can't be watched
+     */
+    private synchronized RefWatch watch(String repositoryPath) {
+        RefWatch watch = watches.get(repositoryPath);
+        if (watch != null || unwatchable.contains(repositoryPath)) {
+            return watch;
+        }
+        try {
+            // Branches and packed-refs live in the common directory, shared by linked worktrees
+            Path commonDirectory = NativeGitRepository.commonDirectory(NativeGitRepository.gitDirectory(repositoryPath));
+            watch = new RefWatch(repositoryPath, commonDirectory);
+            register(watch, commonDirectory);
+            register(watch, watch.refsDirectory);
+            registerTree(watch, watch.refsDirectory.resolve("heads"));
+            registerTree(watch, watch.refsDirectory.resolve("remotes"));
+            watches.put(repositoryPath, watch);
+            return watch;
+        } catch (IOException | UnsupportedOperationException e) {
+            if (watch != null) {
+                cancel(watch);
+            }
+            unwatchable.add(repositoryPath);
+            System.err.println("[WatchedBranchDiffEngine] Not caching branches of " + repositoryPath + ": " +
+                               e.getMessage());
+            return null;
+        }
+    }
+
+    private void register(RefWatch watch, Path directory) throws IOException {
+        WatchKey key = directory.register(watchService(),
+                                          StandardWatchEventKinds.ENTRY_CREATE,
+                                          StandardWatchEventKinds.ENTRY_DELETE,
+                                          StandardWatchEventKinds.ENTRY_MODIFY);
+        watchesByKey.put(key, watch);
+        watch.keys.add(key);
+    }
+
+    /**
+     * Register a directory and all the directories under it (branch names with slashes and
+     * remotes are subdirectories; a WatchService only sees direct children).
+     */
+    private void registerTree(RefWatch watch, Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return; // Watched from its parent: registered when it is created
+        }
+        List<Path> directories;
+        try (Stream<Path> tree = Files.walk(directory)) {
+            directories = tree.filter(Files::isDirectory).toList();
+        }
+        for (Path subdirectory : directories) {
+            register(watch, subdirectory);
+        }
+    }
+
+    private synchronized WatchService watchService() throws IOException {
+        if (watchService == null) {
+            watchService = FileSystems.getDefault().newWatchService();
+            // Blocks on the watch service for as long as the application runs: its own thread
+            watchThread = new Thread(this::watchLoop, "git-refs-watch");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        }
+        return watchService;
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<RefWatch> changed = new LinkedHashSet<>();
+                while (key != null) {
+                    collect(key, changed);
+                    key = watchService.poll(debounceMs, TimeUnit.MILLISECONDS);
+                }
+                for (RefWatch watch : changed) {
+                    refresh(watch);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        } catch (RuntimeException e) {
+            System.err.println("[WatchedBranchDiffEngine] Ref watcher stopped, branch lists are no longer cached: " +
+                               e.getMessage());
+            watches.clear();
+            watchesByKey.clear();
+        }
+    }
+
+    /**
+     * Add the repository of a key to changed if one of its events touches branches.
+     */
+    private void collect(WatchKey key, Set<RefWatch> changed) {
+        RefWatch watch = watchesByKey.get(key);
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (watch == null) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed.add(watch);
+                continue;
+            }
+            String name = event.context().toString();
+            if (name.endsWith(".lock")) {
+                continue; // The rename that follows is the change
+            }
+            if (directory.equals(watch.commonDirectory)) {
+                // HEAD, index, logs, FETCH_HEAD... aren't branches
+                if (!name.equals("packed-refs")) {
+                    continue;
+                }
+            } else if (directory.equals(watch.refsDirectory)) {
+                if (!name.equals("heads") && !name.equals("remotes")) {
+                    continue;
+                }
+            }
+            Path child = directory.resolve(name);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && !directory.equals(watch.commonDirectory)
+                    && Files.isDirectory(child)) {
+                try {
+                    registerTree(watch, child); // New remote or branch namespace
+                } catch (IOException e) {
+                    System.err.println("[WatchedBranchDiffEngine] Can't watch " + child + ": " + e.getMessage());
+                    forget(watch);
+                    return;
+                }
+            }
+            changed.add(watch);
+        }
+        if (!key.reset()) {
+            // The directory is gone: a pruned namespace, or the whole repository
+            watchesByKey.remove(key);
+            if (watch != null) {
+                watch.keys.remove(key);
+                if (directory.equals(watch.commonDirectory)) {
+                    forget(watch);
+                } else {
+                    changed.add(watch);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop the cached list; if anyone listens, list the branches again and tell them when the
+     * set of branches changed (a commit or fetch that only moves tips is not reported).
+     */
+    private void refresh(RefWatch watch) {
+        List<String> previous;
+        synchronized (watch) {
+            watch.version++;
+            watch.branches = null;
+            previous = watch.lastListed;
+        }
+        if (listeners.isEmpty() || watches.get(watch.repositoryPath) != watch) {
+            return;
+        }
+        List<String> branches;
+        try {
+            branches = getBranches(watch.repositoryPath);
+        } catch (DiffException e) {
+            System.err.println("[WatchedBranchDiffEngine] Can't list branches of " + watch.repositoryPath + ": " +
+                               e.getMessage());
+            return;
+        }
+        if (branches.equals(previous)) {
+            return;
+        }
+        for (BiConsumer<String, List<String>> listener : listeners) {
+            try {
+                listener.accept(watch.repositoryPath, branches);
+            } catch (RuntimeException e) {
+                // A broken listener must not stop the watcher
+                System.err.println("[WatchedBranchDiffEngine] Branch listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stop caching a repository; the next getBranches watches it again.
+     */
+    private synchronized void forget(RefWatch watch) {
+        watches.remove(watch.repositoryPath, watch);
+        cancel(watch);
+    }
+
+    private void cancel(RefWatch watch) {
+        for (WatchKey key : watch.keys) {
+            key.cancel();
+            watchesByKey.remove(key);
+        }
+        watch.keys.clear();
+    }
+
+    /**
+     * Ref storage of one repository and its cached branch list.
+     */
+    private static class RefWatch {
+        final String repositoryPath;
+        final Path commonDirectory;
+        final Path refsDirectory;
+        final Set<WatchKey> keys = ConcurrentHashMap.newKeySet();
+        /** Null when stale. */
+        volatile List<String> branches;
+        /** Last list handed out, to tell listeners only about real changes. */
+        List<String> lastListed;
+        /** Incremented on each change, so a listing that raced one isn't cached. */
+        volatile long version;
+
+        RefWatch(String repositoryPath, Path commonDirectory) {
+            this.repositoryPath = repositoryPath;
+            this.commonDirectory = commonDirectory;
+            this.refsDirectory = commonDirectory.resolve("refs");
+        }
+    }
+}
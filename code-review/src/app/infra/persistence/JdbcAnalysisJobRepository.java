@@ -0,0 +1,303 @@
+package app.infra.persistence;
+
+import app.domain.entity.AnalysisJob;
+import app.domain.port.AnalysisJobRepository;
+import app.domain.port.RepositoryException;
+import app.domain.port.TxManager;
+import app.domain.value.JobStatus;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC implementation of AnalysisJobRepository (table analysis_jobs, MySQL 8).
+ * Claims use SELECT ... FOR UPDATE SKIP LOCKED, so concurrent workers never block on
+ * (or take) the same row.
+ */
+public class JdbcAnalysisJobRepository implements AnalysisJobRepository {
+
+    private final TxManager txManager;
+
+    public JdbcAnalysisJobRepository(TxManager txManager) {
+        this.txManager = txManager;
+    }
+
+    @Override
+    public AnalysisJob enqueue(AnalysisJob job) throws RepositoryException {
+        String sql = "INSERT INTO analysis_jobs (user_id, repo_path, base_branch, target_branch, " +
+                     "incremental, status, attempts, max_attempts, available_at, created_at, updated_at) " +
+                     "VALUES (?, ?, ?, ?, ?, 'QUEUED', 0, ?, NOW(), NOW(), NOW())";
+
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+
+            stmt.setLong(1, job.getUserId());
+            stmt.setString(2, job.getRepositoryPath());
+            stmt.setString(3, job.getBaseBranch());
+            stmt.setString(4, job.getTargetBranch());
+            if (job.getIncremental() != null) {
+                stmt.setBoolean(5, job.getIncremental());
+            } else {
+                stmt.setNull(5, Types.BOOLEAN);
+            }
+            stmt.setInt(6, job.getMaxAttempts());
+
+            stmt.executeUpdate();
+
+            ResultSet rs = stmt.getGeneratedKeys();
+            if (rs.next()) {
+                job.setId(rs.getLong(1));
+            }
+            rs.close();
+            stmt.close();
+
+            job.setStatus(JobStatus.QUEUED);
+            job.setAttempts(0);
+            return job;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to enqueue analysis job", e);
+        }
+    }
+
+    @Override
+    public Optional<AnalysisJob> findById(Long id) throws RepositoryException {
+        String sql = "SELECT * FROM analysis_jobs WHERE id = ?";
+
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+
+            stmt.setLong(1, id);
+
+            ResultSet rs = stmt.executeQuery();
+            AnalysisJob job = rs.next() ? mapRow(rs) : null;
+            rs.close();
+            stmt.close();
+            return Optional.ofNullable(job);
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to find analysis job", e);
+        }
+    }
+
+    @Override
+    public List<AnalysisJob> findByStatus(JobStatus status, int limit) throws RepositoryException {
+        String sql = "SELECT * FROM analysis_jobs WHERE status = ? ORDER BY id LIMIT ?";
+        List<AnalysisJob> jobs = new ArrayList<>();
+
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+
+            stmt.setString(1, status.name());
+            stmt.setInt(2, limit);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                jobs.add(mapRow(rs));
+            }
+            rs.close();
+            stmt.close();
+            return jobs;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to find analysis jobs by status", e);
+        }
+    }
+
+    @Override
+    public Optional<AnalysisJob> claimNext(String workerId, int leaseSeconds) throws RepositoryException {
+        String selectSql = "SELECT * FROM analysis_jobs " +
+                           "WHERE (status = 'QUEUED' AND available_at <= NOW()) " +
+                           "OR (status = 'RUNNING' AND lease_until < NOW()) " +
+                           "ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED";
+        String claimSql = "UPDATE analysis_jobs SET status = 'RUNNING', worker_id = ?, attempts = attempts + 1, " +
+                          "lease_until = DATE_ADD(NOW(), INTERVAL ? SECOND), updated_at = NOW() WHERE id = ?";
+        String expireSql = "UPDATE analysis_jobs SET status = 'FAILED', worker_id = NULL, lease_until = NULL, " +
+                           "last_error = ?, updated_at = NOW() WHERE id = ?";
+
+        try {
+            Connection conn = txManager.getConnection();
+            while (true) {
+                PreparedStatement stmt = conn.prepareStatement(selectSql);
+                ResultSet rs = stmt.executeQuery();
+                AnalysisJob job = rs.next() ? mapRow(rs) : null;
+                rs.close();
+                stmt.close();
+
+                if (job == null) {
+                    return Optional.empty();
+                }
+
+                // Lease expired on the last allowed attempt: the worker died every time
+                if (job.getStatus() == JobStatus.RUNNING && !job.canRetry()) {
+                    PreparedStatement expire = conn.prepareStatement(expireSql);
+                    expire.setString(1, "Worker lease expired after " + job.getAttempts() + " attempts (last worker: " +
+                                        job.getWorkerId() + ")");
+                    expire.setLong(2, job.getId());
+                    expire.executeUpdate();
+                    expire.close();
+                    continue;
+                }
+
+                PreparedStatement claim = conn.prepareStatement(claimSql);
+                claim.setString(1, workerId);
+                claim.setInt(2, leaseSeconds);
+                claim.setLong(3, job.getId());
+                claim.executeUpdate();
+                claim.close();
+
+                return findById(job.getId());
+            }
+        } catch (RepositoryException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to claim analysis job", e);
+        }
+    }
+
+    @Override
+    public boolean renewLease(Long jobId, String workerId, int leaseSeconds, Long analysisRunId)
+            throws RepositoryException {
+        String sql = "UPDATE analysis_jobs SET lease_until = DATE_ADD(NOW(), INTERVAL ? SECOND), " +
+                     "analysis_run_id = COALESCE(?, analysis_run_id), updated_at = NOW() " +
+                     "WHERE id = ? AND worker_id = ? AND status = 'RUNNING'";
+
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+
+            stmt.setInt(1, leaseSeconds);
+            setLong(stmt, 2, analysisRunId);
+            stmt.setLong(3, jobId);
+            stmt.setString(4, workerId);
+
+            int updated = stmt.executeUpdate();
+            stmt.close();
+            return updated > 0;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to renew analysis job lease", e);
+        }
+    }
+
+    @Override
+    public boolean markSucceeded(Long jobId, String workerId, Long analysisRunId) throws RepositoryException {
+        String sql = "UPDATE analysis_jobs SET status = 'SUCCEEDED', lease_until = NULL, last_error = NULL, " +
+                     "analysis_run_id = COALESCE(?, analysis_run_id), updated_at = NOW() " +
+                     "WHERE id = ? AND worker_id = ? AND status = 'RUNNING'";
+
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+
+            setLong(stmt, 1, analysisRunId);
+            stmt.setLong(2, jobId);
+            stmt.setString(3, workerId);
+
+            int updated = stmt.executeUpdate();
+            stmt.close();
+            return updated > 0;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to mark analysis job as succeeded", e);
+        }
+    }
+
+    @Override
+    public boolean markFailed(Long jobId, String workerId, Long analysisRunId, String error, int retryDelaySeconds)
+            throws RepositoryException {
+        String sql = "UPDATE analysis_jobs SET " +
+                     "status = IF(attempts < max_attempts, 'QUEUED', 'FAILED'), " +
+                     "available_at = DATE_ADD(NOW(), INTERVAL ? SECOND), " +
+                     "analysis_run_id = COALESCE(?, analysis_run_id), " +
+                     "worker_id = NULL, lease_until = NULL, last_error = ?, updated_at = NOW() " +
+                     "WHERE id = ? AND worker_id = ? AND status = 'RUNNING'";
+
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+
+            stmt.setInt(1, retryDelaySeconds);
+            setLong(stmt, 2, analysisRunId);
+            stmt.setString(3, error);
+            stmt.setLong(4, jobId);
+            stmt.setString(5, workerId);
+
+            int updated = stmt.executeUpdate();
+            stmt.close();
+            return updated > 0;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to mark analysis job as failed", e);
+        }
+    }
+
+    @Override
+    public boolean release(Long jobId, String workerId, Long analysisRunId) throws RepositoryException {
+        String sql = "UPDATE analysis_jobs SET status = 'QUEUED', attempts = GREATEST(attempts - 1, 0), " +
+                     "analysis_run_id = COALESCE(?, analysis_run_id), " +
+                     "available_at = NOW(), worker_id = NULL, lease_until = NULL, updated_at = NOW() " +
+                     "WHERE id = ? AND worker_id = ? AND status = 'RUNNING'";
+
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+
+            setLong(stmt, 1, analysisRunId);
+            stmt.setLong(2, jobId);
+            stmt.setString(3, workerId);
+
+            int updated = stmt.executeUpdate();
+            stmt.close();
+            return updated > 0;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to release analysis job", e);
+        }
+    }
+
+    private AnalysisJob mapRow(ResultSet rs) throws SQLException {
+        AnalysisJob job = new AnalysisJob();
+        job.setId(rs.getLong("id"));
+        job.setUserId(rs.getLong("user_id"));
+        job.setRepositoryPath(rs.getString("repo_path"));
+        job.setBaseBranch(rs.getString("base_branch"));
+        job.setTargetBranch(rs.getString("target_branch"));
+
+        boolean incremental = rs.getBoolean("incremental");
+        job.setIncremental(rs.wasNull() ? null : incremental);
+
+        job.setStatus(JobStatus.valueOf(rs.getString("status")));
+        job.setAttempts(rs.getInt("attempts"));
+        job.setMaxAttempts(rs.getInt("max_attempts"));
+        job.setWorkerId(rs.getString("worker_id"));
+
+        Timestamp leaseUntil = rs.getTimestamp("lease_until");
+        if (leaseUntil != null) {
+            job.setLeaseUntil(leaseUntil.toLocalDateTime());
+        }
+        Timestamp availableAt = rs.getTimestamp("available_at");
+        if (availableAt != null) {
+            job.setAvailableAt(availableAt.toLocalDateTime());
+        }
+
+        long runId = rs.getLong("analysis_run_id");
+        if (!rs.wasNull()) {
+            job.setAnalysisRunId(runId);
+        }
+
+        job.setLastError(rs.getString("last_error"));
+        job.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        if (updatedAt != null) {
+            job.setUpdatedAt(updatedAt.toLocalDateTime());
+        }
+        return job;
+    }
+
+    private void setLong(PreparedStatement stmt, int index, Long value) throws SQLException {
+        if (value != null) {
+            stmt.setLong(index, value);
+        } else {
+            stmt.setNull(index, Types.BIGINT);
+        }
+    }
+}
@@ -36,8 +36,8 @@ public class JdbcAnalysisRunRepository implements AnalysisRunRepository {
         String sql = "INSERT INTO analysis_runs (user_id, repo_id, base_branch, target_branch, " +
                      "status_code, started_at, completed_at, total_files, total_findings, " +
                      "critical_count, high_count, medium_count, low_count, info_count, " +
-                     "error_message, duration_ms, policy_id, endpoint_id) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                     "error_message, duration_ms, policy_id, endpoint_id, diff_files_total) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
         try {
             Connection conn = txManager.getConnection();
@@ -62,6 +62,7 @@ public class JdbcAnalysisRunRepository implements AnalysisRunRepository {
             setLong(stmt, 16, run.getDurationMs());
             setLong(stmt, 17, run.getPolicyId());
             setLong(stmt, 18, run.getEndpointId());
+            setInteger(stmt, 19, run.getDiffTotalFiles());
             
             stmt.executeUpdate();
             
@@ -81,7 +82,8 @@ public class JdbcAnalysisRunRepository implements AnalysisRunRepository {
     private AnalysisRun update(AnalysisRun run) throws RepositoryException {
         String sql = "UPDATE analysis_runs SET status_code = ?, completed_at = ?, total_files = ?, " +
                      "total_findings = ?, critical_count = ?, high_count = ?, medium_count = ?, " +
-                     "low_count = ?, info_count = ?, error_message = ?, duration_ms = ? WHERE id = ?";
+                     "low_count = ?, info_count = ?, error_message = ?, duration_ms = ?, diff_files_total = ? " +
+                     "WHERE id = ?";
         
         try {
             Connection conn = txManager.getConnection();
@@ -99,7 +101,8 @@ public class JdbcAnalysisRunRepository implements AnalysisRunRepository {
             setInteger(stmt, 9, run.getInfoCount());
             stmt.setString(10, run.getErrorMessage());
             setLong(stmt, 11, run.getDurationMs());
-            setLong(stmt, 12, run.getId());
+            setInteger(stmt, 12, run.getDiffTotalFiles());
+            setLong(stmt, 13, run.getId());
             
             stmt.executeUpdate();
             stmt.close();
@@ -220,6 +223,57 @@ public class JdbcAnalysisRunRepository implements AnalysisRunRepository {
         }
     }
     
+    @Override
+    public List<AnalysisRun> findByStatus(RunStatus status) throws RepositoryException {
+        String sql = "SELECT * FROM analysis_runs WHERE status_code = ? ORDER BY started_at DESC";
+        List<AnalysisRun> runs = new ArrayList<>();
+        
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            
+            stmt.setString(1, status.name());
+            
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                runs.add(mapRow(rs));
+            }
+            rs.close();
+            stmt.close();
+            return runs;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to find runs by status", e);
+        }
+    }
+    
+    @Override
+    public Optional<AnalysisRun> findLatestSuccessful(String repositoryPath, String baseBranch,
+                                                      String targetBranch) throws RepositoryException {
+        // Match on local_path: the same repository may have several rows in repositories
+        String sql = "SELECT ar.* FROM analysis_runs ar " +
+                     "JOIN repositories r ON r.id = ar.repo_id " +
+                     "WHERE r.local_path = ? AND ar.base_branch = ? AND ar.target_branch = ? " +
+                     "AND ar.status_code = 'SUCCESS' " +
+                     "ORDER BY ar.started_at DESC, ar.id DESC LIMIT 1";
+        
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            
+            stmt.setString(1, repositoryPath);
+            stmt.setString(2, baseBranch);
+            stmt.setString(3, targetBranch);
+            
+            ResultSet rs = stmt.executeQuery();
+            Optional<AnalysisRun> run = rs.next() ? Optional.of(mapRow(rs)) : Optional.empty();
+            rs.close();
+            stmt.close();
+            return run;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to find latest successful run", e);
+        }
+    }
+    
     private AnalysisRun mapRow(ResultSet rs) throws SQLException {
         AnalysisRun run = new AnalysisRun();
         run.setId(rs.getLong("id"));
@@ -236,6 +290,7 @@ public class JdbcAnalysisRunRepository implements AnalysisRunRepository {
         }
         
         run.setTotalFiles(getInteger(rs, "total_files"));
+        run.setDiffTotalFiles(getInteger(rs, "diff_files_total"));
         run.setTotalFindings(getInteger(rs, "total_findings"));
         run.setCriticalCount(getInteger(rs, "critical_count"));
         run.setHighCount(getInteger(rs, "high_count"));
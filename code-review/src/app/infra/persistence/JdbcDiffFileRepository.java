@@ -16,6 +16,10 @@ import java.util.Optional;
  */
 public class JdbcDiffFileRepository implements DiffFileRepository {
     
+    private static final String INSERT_SQL = "INSERT INTO diff_files (run_id, path, change_type_code, " +
+                                             "additions, deletions, blob_sha, hunk_key, is_binary, is_truncated, " +
+                                             "content_bytes, content_charset) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
     private final TxManager txManager;
     
     public JdbcDiffFileRepository(TxManager txManager) {
@@ -31,19 +35,50 @@ public class JdbcDiffFileRepository implements DiffFileRepository {
         }
     }
     
-    private DiffFile insert(DiffFile file) throws RepositoryException {
-        String sql = "INSERT INTO diff_files (run_id, path, change_type_code, " +
-                     "additions, deletions) VALUES (?, ?, ?, ?, ?)";
+    @Override
+    public List<DiffFile> saveAll(List<DiffFile> diffFiles) throws RepositoryException {
+        List<DiffFile> newFiles = new ArrayList<>();
+        for (DiffFile file : diffFiles) {
+            if (file.getId() == null) {
+                newFiles.add(file);
+            } else {
+                update(file);
+            }
+        }
+        if (newFiles.isEmpty()) {
+            return diffFiles;
+        }
         
         try {
             Connection conn = txManager.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
             
-            stmt.setLong(1, file.getAnalysisRunId());
-            stmt.setString(2, file.getFilePath());
-            stmt.setString(3, file.getChangeType().name());
-            stmt.setInt(4, file.getLinesAdded());
-            stmt.setInt(5, file.getLinesRemoved());
+            for (DiffFile file : newFiles) {
+                bindInsert(stmt, file);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            
+            ResultSet rs = stmt.getGeneratedKeys();
+            int index = 0;
+            while (rs.next() && index < newFiles.size()) {
+                newFiles.get(index++).setId(rs.getLong(1));
+            }
+            rs.close();
+            stmt.close();
+            
+            return diffFiles;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to batch insert diff files", e);
+        }
+    }
+    
+    private DiffFile insert(DiffFile file) throws RepositoryException {
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            
+            bindInsert(stmt, file);
             
             stmt.executeUpdate();
             
@@ -60,9 +95,27 @@ public class JdbcDiffFileRepository implements DiffFileRepository {
         }
     }
     
+    private void bindInsert(PreparedStatement stmt, DiffFile file) throws SQLException {
+        stmt.setLong(1, file.getAnalysisRunId());
+        stmt.setString(2, file.getFilePath());
+        stmt.setString(3, file.getChangeType().name());
+        stmt.setInt(4, file.getLinesAdded());
+        stmt.setInt(5, file.getLinesRemoved());
+        stmt.setString(6, file.getBlobId());
+        stmt.setString(7, file.getHunkKey());
+        stmt.setBoolean(8, file.isBinary());
+        stmt.setBoolean(9, file.isTruncated());
+        if (file.getContentBytes() != null) {
+            stmt.setLong(10, file.getContentBytes());
+        } else {
+            stmt.setNull(10, Types.BIGINT);
+        }
+        stmt.setString(11, file.getContentCharset());
+    }
+    
     private DiffFile update(DiffFile file) throws RepositoryException {
         String sql = "UPDATE diff_files SET path = ?, change_type_code = ?, " +
-                     "additions = ?, deletions = ? WHERE id = ?";
+                     "additions = ?, deletions = ?, blob_sha = ?, hunk_key = ? WHERE id = ?";
         
         try {
             Connection conn = txManager.getConnection();
@@ -72,7 +125,9 @@ public class JdbcDiffFileRepository implements DiffFileRepository {
             stmt.setString(2, file.getChangeType().name());
             stmt.setInt(3, file.getLinesAdded());
             stmt.setInt(4, file.getLinesRemoved());
-            stmt.setLong(5, file.getId());
+            stmt.setString(5, file.getBlobId());
+            stmt.setString(6, file.getHunkKey());
+            stmt.setLong(7, file.getId());
             
             stmt.executeUpdate();
             stmt.close();
@@ -152,6 +207,13 @@ public class JdbcDiffFileRepository implements DiffFileRepository {
         file.setChangeType(FileChangeType.valueOf(rs.getString("change_type_code")));
         file.setLinesAdded(rs.getInt("additions"));
         file.setLinesRemoved(rs.getInt("deletions"));
+        file.setBlobId(rs.getString("blob_sha"));
+        file.setHunkKey(rs.getString("hunk_key"));
+        file.setBinary(rs.getBoolean("is_binary"));
+        file.setTruncated(rs.getBoolean("is_truncated"));
+        long contentBytes = rs.getLong("content_bytes");
+        file.setContentBytes(rs.wasNull() ? null : contentBytes);
+        file.setContentCharset(rs.getString("content_charset"));
         return file;
     }
 }
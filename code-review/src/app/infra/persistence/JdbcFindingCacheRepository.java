@@ -0,0 +1,186 @@
+package app.infra.persistence;
+
+import app.domain.entity.Finding;
+import app.domain.port.FindingCacheRepository;
+import app.domain.port.RepositoryException;
+import app.domain.port.TxManager;
+import app.domain.value.Severity;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JDBC implementation of FindingCacheRepository (tables finding_cache / finding_cache_items).
+ */
+public class JdbcFindingCacheRepository implements FindingCacheRepository {
+
+    private final TxManager txManager;
+
+    public JdbcFindingCacheRepository(TxManager txManager) {
+        this.txManager = txManager;
+    }
+
+    @Override
+    public Map<String, List<Finding>> findAll(Collection<String> contentShas, Long endpointId,
+                                              String endpointVersion) throws RepositoryException {
+        Map<String, List<Finding>> found = new HashMap<>();
+        if (contentShas.isEmpty()) {
+            return found;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(contentShas.size(), "?"));
+        String sql = "SELECT c.id AS cache_id, c.content_sha, i.* FROM finding_cache c " +
+                     "LEFT JOIN finding_cache_items i ON i.cache_id = c.id " +
+                     "WHERE c.endpoint_id = ? AND c.endpoint_version = ? " +
+                     "AND c.content_sha IN (" + placeholders + ") " +
+                     "ORDER BY c.id, i.id";
+
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+
+            stmt.setLong(1, endpointId);
+            stmt.setString(2, endpointVersion);
+            int index = 3;
+            for (String contentSha : contentShas) {
+                stmt.setString(index++, contentSha);
+            }
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                List<Finding> findings = found.computeIfAbsent(rs.getString("content_sha"), sha -> new ArrayList<>());
+                // LEFT JOIN: an entry with no findings yields one row with null item columns
+                if (rs.getString("code") != null) {
+                    findings.add(mapItem(rs));
+                }
+            }
+            rs.close();
+            stmt.close();
+            return found;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to find cached findings", e);
+        }
+    }
+
+    @Override
+    public void save(String contentSha, Long endpointId, String endpointVersion, List<Finding> findings)
+            throws RepositoryException {
+        String entrySql = "INSERT IGNORE INTO finding_cache (content_sha, endpoint_id, endpoint_version, " +
+                          "finding_count, created_at) VALUES (?, ?, ?, ?, NOW())";
+        String itemSql = "INSERT INTO finding_cache_items (cache_id, code, title, category, " +
+                         "severity_raw_code, line_start, code_snippet, suggestion) " +
+                         "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(entrySql, Statement.RETURN_GENERATED_KEYS);
+
+            stmt.setString(1, contentSha);
+            stmt.setLong(2, endpointId);
+            stmt.setString(3, endpointVersion);
+            stmt.setInt(4, findings.size());
+
+            int inserted = stmt.executeUpdate();
+            Long cacheId = null;
+            ResultSet keys = stmt.getGeneratedKeys();
+            if (inserted > 0 && keys.next()) {
+                cacheId = keys.getLong(1);
+            }
+            keys.close();
+            stmt.close();
+
+            // Another run already cached this content
+            if (cacheId == null || findings.isEmpty()) {
+                return;
+            }
+
+            stmt = conn.prepareStatement(itemSql);
+            for (Finding finding : findings) {
+                stmt.setLong(1, cacheId);
+                stmt.setString(2, finding.getRuleId());
+                stmt.setString(3, finding.getMessage());
+                stmt.setString(4, finding.getCategory());
+                stmt.setString(5, finding.getSeverityRaw().name());
+                setInteger(stmt, 6, finding.getLineNumber());
+                stmt.setString(7, finding.getCodeSnippet());
+                stmt.setString(8, finding.getSuggestion());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            stmt.close();
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to save cached findings", e);
+        }
+    }
+
+    @Override
+    public Optional<String> findEndpointVersion(Long endpointId) throws RepositoryException {
+        String sql = "SELECT version FROM endpoint_mocks WHERE id = ?";
+
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+
+            stmt.setLong(1, endpointId);
+
+            ResultSet rs = stmt.executeQuery();
+            String version = rs.next() ? rs.getString("version") : null;
+            rs.close();
+            stmt.close();
+            return Optional.ofNullable(version);
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to find endpoint version", e);
+        }
+    }
+
+    @Override
+    public int deleteOtherVersions(Long endpointId, String currentVersion) throws RepositoryException {
+        // Items are removed by ON DELETE CASCADE
+        String sql = "DELETE FROM finding_cache WHERE endpoint_id = ? AND endpoint_version <> ?";
+
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+
+            stmt.setLong(1, endpointId);
+            stmt.setString(2, currentVersion);
+
+            int deleted = stmt.executeUpdate();
+            stmt.close();
+            return deleted;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to delete stale cache entries", e);
+        }
+    }
+
+    private Finding mapItem(ResultSet rs) throws SQLException {
+        Finding finding = new Finding();
+        finding.setRuleId(rs.getString("code"));
+        finding.setMessage(rs.getString("title"));
+        finding.setCategory(rs.getString("category"));
+        finding.setSeverityRaw(Severity.valueOf(rs.getString("severity_raw_code")));
+        finding.setSeverityFinal(finding.getSeverityRaw());
+        finding.setLineNumber(getInteger(rs, "line_start"));
+        finding.setCodeSnippet(rs.getString("code_snippet"));
+        finding.setSuggestion(rs.getString("suggestion"));
+        return finding;
+    }
+
+    private void setInteger(PreparedStatement stmt, int index, Integer value) throws SQLException {
+        if (value != null) {
+            stmt.setInt(index, value);
+        } else {
+            stmt.setNull(index, Types.INTEGER);
+        }
+    }
+
+    private Integer getInteger(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -8,7 +8,10 @@ import app.domain.value.Severity;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -16,6 +19,10 @@ import java.util.Optional;
  */
 public class JdbcFindingRepository implements FindingRepository {
     
+    private static final String INSERT_SQL = "INSERT INTO findings (run_id, code, title, description, " +
+                     "severity_code, severity_raw_code, file_path, line_start, line_end, category, created_at) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW())";
+    
     private final TxManager txManager;
     
     public JdbcFindingRepository(TxManager txManager) {
@@ -31,30 +38,50 @@ public class JdbcFindingRepository implements FindingRepository {
         }
     }
     
-    private Finding insert(Finding finding) throws RepositoryException {
-        String sql = "INSERT INTO findings (run_id, code, title, description, " +
-                     "severity_code, file_path, line_start, line_end, category, created_at) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, NOW())";
+    @Override
+    public List<Finding> saveAll(List<Finding> findings) throws RepositoryException {
+        List<Finding> newFindings = new ArrayList<>();
+        for (Finding finding : findings) {
+            if (finding.getId() == null) {
+                newFindings.add(finding);
+            } else {
+                update(finding);
+            }
+        }
+        if (newFindings.isEmpty()) {
+            return findings;
+        }
         
         try {
             Connection conn = txManager.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
             
-            // Get file_path from diff_file using diff_file_id
-            String filePath = getFilePathFromDiffFile(finding.getDiffFileId());
+            for (Finding finding : newFindings) {
+                bindInsert(stmt, finding);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
             
-            // Map severity to DB-compatible value (INFO -> LOW since INFO not in severity_type)
-            String severityCode = mapSeverityToDbCode(finding.getSeverityFinal());
+            ResultSet rs = stmt.getGeneratedKeys();
+            int index = 0;
+            while (rs.next() && index < newFindings.size()) {
+                newFindings.get(index++).setId(rs.getLong(1));
+            }
+            rs.close();
+            stmt.close();
             
-            stmt.setLong(1, finding.getAnalysisRunId());
-            stmt.setString(2, finding.getRuleId()); // code
-            stmt.setString(3, finding.getMessage()); // title
-            stmt.setString(4, finding.getMessage()); // description (same as title for now)
-            stmt.setString(5, severityCode); // severity_code
-            stmt.setString(6, filePath); // file_path
-            setInteger(stmt, 7, finding.getLineNumber()); // line_start
-            setInteger(stmt, 8, finding.getLineNumber()); // line_end
-            stmt.setString(9, finding.getCategory()); // category
+            return findings;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to batch insert findings", e);
+        }
+    }
+    
+    private Finding insert(Finding finding) throws RepositoryException {
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            
+            bindInsert(stmt, finding);
             
             stmt.executeUpdate();
             
@@ -71,6 +98,27 @@ public class JdbcFindingRepository implements FindingRepository {
         }
     }
     
+    private void bindInsert(PreparedStatement stmt, Finding finding) throws Exception {
+        // Prefer the path already on the finding; fall back to the diff_file lookup
+        String filePath = finding.getFilePath() != null 
+            ? finding.getFilePath() 
+            : getFilePathFromDiffFile(finding.getDiffFileId());
+        
+        // Map severity to DB-compatible value (INFO -> LOW since INFO not in severity_type)
+        String severityCode = mapSeverityToDbCode(finding.getSeverityFinal());
+        
+        stmt.setLong(1, finding.getAnalysisRunId());
+        stmt.setString(2, finding.getRuleId()); // code
+        stmt.setString(3, finding.getMessage()); // title
+        stmt.setString(4, finding.getMessage()); // description (same as title for now)
+        stmt.setString(5, severityCode); // severity_code
+        stmt.setString(6, finding.getSeverityRaw() != null ? finding.getSeverityRaw().name() : null); // severity_raw_code
+        stmt.setString(7, filePath); // file_path
+        setInteger(stmt, 8, finding.getLineNumber()); // line_start
+        setInteger(stmt, 9, finding.getLineNumber()); // line_end
+        stmt.setString(10, finding.getCategory()); // category
+    }
+    
     private String getFilePathFromDiffFile(Long diffFileId) throws RepositoryException {
         if (diffFileId == null) {
             return "unknown";
@@ -199,6 +247,35 @@ public class JdbcFindingRepository implements FindingRepository {
         }
     }
     
+    @Override
+    public Map<String, Map<Severity, Integer>> countByPathAndSeverity(Long repositoryId, int lastRuns) 
+            throws RepositoryException {
+        String sql = "SELECT f.file_path, f.severity_code, COUNT(*) AS finding_count FROM findings f " +
+                     "JOIN (SELECT id FROM analysis_runs WHERE repo_id = ? ORDER BY id DESC LIMIT ?) r " +
+                     "ON r.id = f.run_id " +
+                     "GROUP BY f.file_path, f.severity_code";
+        Map<String, Map<Severity, Integer>> counts = new HashMap<>();
+        
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            
+            stmt.setLong(1, repositoryId);
+            stmt.setInt(2, lastRuns);
+            
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                counts.computeIfAbsent(rs.getString("file_path"), path -> new EnumMap<>(Severity.class))
+                      .put(Severity.valueOf(rs.getString("severity_code")), rs.getInt("finding_count"));
+            }
+            rs.close();
+            stmt.close();
+            return counts;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to count findings by path", e);
+        }
+    }
+    
     @Override
     public void deleteByAnalysisRunId(Long analysisRunId) throws RepositoryException {
         String sql = "DELETE FROM findings WHERE analysis_run_id = ?";
@@ -221,8 +298,10 @@ public class JdbcFindingRepository implements FindingRepository {
         finding.setRuleId(rs.getString("code"));
         finding.setCategory(rs.getString("category"));
         finding.setMessage(rs.getString("title")); // or "description"
-        finding.setSeverityRaw(Severity.valueOf(rs.getString("severity_code")));
         finding.setSeverityFinal(Severity.valueOf(rs.getString("severity_code")));
+        // Original endpoint severity when stored, otherwise the final one
+        String rawCode = rs.getString("severity_raw_code");
+        finding.setSeverityRaw(rawCode != null ? Severity.valueOf(rawCode) : finding.getSeverityFinal());
         finding.setLineNumber(getInteger(rs, "line_start"));
         // Note: DB stores file_path directly, not diff_file_id
         return finding;
@@ -12,6 +12,8 @@ import java.util.Optional;
 
 /**
  * JDBC implementation of RepositoryRefRepository.
+ * The repositories table has a unique local_path: inserting a path that already exists
+ * returns the existing row instead of failing, so concurrent first analyses share one row.
  */
 public class JdbcRepositoryRefRepository implements RepositoryRefRepository {
     
@@ -31,7 +33,9 @@ public class JdbcRepositoryRefRepository implements RepositoryRefRepository {
     }
     
     private RepositoryRef insert(RepositoryRef repo) throws RepositoryException {
-        String sql = "INSERT INTO repositories (local_path, vcs, created_at) VALUES (?, ?, ?)";
+        // LAST_INSERT_ID(id) makes the generated key the existing id when local_path is taken
+        String sql = "INSERT INTO repositories (local_path, vcs, created_at) VALUES (?, ?, ?) " +
+                     "ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id)";
         
         try {
             Connection conn = txManager.getConnection();
@@ -66,22 +70,100 @@ public class JdbcRepositoryRefRepository implements RepositoryRefRepository {
     public Optional<RepositoryRef> findById(Long id) throws RepositoryException {
         String sql = "SELECT * FROM repositories WHERE id = ?";
         
-        try (Connection conn = txManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try {
+            // The connection belongs to the caller's transaction: do not close it here
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
             
             stmt.setLong(1, id);
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapRow(rs));
-                }
-                return Optional.empty();
-            }
+            ResultSet rs = stmt.executeQuery();
+            RepositoryRef repo = rs.next() ? mapRow(rs) : null;
+            rs.close();
+            stmt.close();
+            return Optional.ofNullable(repo);
         } catch (Exception e) {
             throw new RepositoryException("Failed to find repository by id", e);
         }
     }
     
+    @Override
+    public Optional<RepositoryRef> findByLocalPath(String localPath) throws RepositoryException {
+        String sql = "SELECT * FROM repositories WHERE local_path = ?";
+        
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            
+            stmt.setString(1, localPath);
+            
+            ResultSet rs = stmt.executeQuery();
+            RepositoryRef repo = rs.next() ? mapRow(rs) : null;
+            rs.close();
+            stmt.close();
+            return Optional.ofNullable(repo);
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to find repository by path", e);
+        }
+    }
+    
+    @Override
+    public List<RepositoryRef> findAll() throws RepositoryException {
+        String sql = "SELECT * FROM repositories ORDER BY id";
+        List<RepositoryRef> repos = new ArrayList<>();
+        
+        try {
+            Connection conn = txManager.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                repos.add(mapRow(rs));
+            }
+            rs.close();
+            stmt.close();
+            return repos;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to find repositories", e);
+        }
+    }
+    
+    @Override
+    public int merge(Long canonicalId, String canonicalPath, List<Long> duplicateIds) throws RepositoryException {
+        String repointSql = "UPDATE analysis_runs SET repo_id = ? WHERE repo_id = ?";
+        String deleteSql = "DELETE FROM repositories WHERE id = ?";
+        String pathSql = "UPDATE repositories SET local_path = ? WHERE id = ?";
+        
+        try {
+            Connection conn = txManager.getConnection();
+            int repointed = 0;
+            
+            PreparedStatement repoint = conn.prepareStatement(repointSql);
+            PreparedStatement delete = conn.prepareStatement(deleteSql);
+            for (Long duplicateId : duplicateIds) {
+                repoint.setLong(1, canonicalId);
+                repoint.setLong(2, duplicateId);
+                repointed += repoint.executeUpdate();
+                
+                delete.setLong(1, duplicateId);
+                delete.executeUpdate();
+            }
+            repoint.close();
+            delete.close();
+            
+            // After the deletes: the canonical path may have belonged to one of the duplicates
+            PreparedStatement path = conn.prepareStatement(pathSql);
+            path.setString(1, canonicalPath);
+            path.setLong(2, canonicalId);
+            path.executeUpdate();
+            path.close();
+            
+            return repointed;
+        } catch (Exception e) {
+            throw new RepositoryException("Failed to merge repositories into " + canonicalId, e);
+        }
+    }
+    
     @Override
     public Optional<RepositoryRef> findByName(String name) throws RepositoryException {
         String sql = "SELECT * FROM repositories WHERE name = ?";
@@ -135,20 +217,17 @@ public class JdbcRepositoryRefRepository implements RepositoryRefRepository {
     }
     
     private RepositoryRef mapRow(ResultSet rs) throws SQLException {
+        // Current DB schema only has (id, local_path, vcs, created_at): the name is the last path segment
         RepositoryRef repo = new RepositoryRef();
         repo.setId(rs.getLong("id"));
-        repo.setName(rs.getString("name"));
         repo.setLocalPath(rs.getString("local_path"));
-        repo.setDefaultBranch(rs.getString("default_branch"));
-        repo.setDescription(rs.getString("description"));
+        repo.setName(nameOf(repo.getLocalPath()));
         repo.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-        
-        Timestamp lastAnalyzed = rs.getTimestamp("last_analyzed_at");
-        if (lastAnalyzed != null) {
-            repo.setLastAnalyzedAt(lastAnalyzed.toLocalDateTime());
-        }
-        
-        repo.setActive(rs.getBoolean("active"));
         return repo;
     }
+    
+    private String nameOf(String localPath) {
+        String[] parts = localPath.replace("\\", "/").split("/");
+        return parts.length > 0 ? parts[parts.length - 1] : localPath;
+    }
 }
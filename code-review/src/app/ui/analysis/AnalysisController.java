@@ -1,10 +1,12 @@
 package app.ui.analysis;
 
+import app.application.dto.AnalysisProgressDTO;
 import app.application.dto.AnalysisRequestDTO;
 import app.application.dto.AnalysisResultDTO;
 import app.application.dto.FindingSummaryDTO;
 import app.application.service.AnalyzeBranchService;
 import app.domain.entity.User;
+import app.domain.port.CancellationToken;
 import app.domain.port.DiffEngine;
 import app.domain.value.Severity;
 import app.ui.common.ConfirmDialog;
@@ -13,6 +15,7 @@ import javafx.application.Platform;
 import javafx.concurrent.Task;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 /**
@@ -25,12 +28,22 @@ public class AnalysisController {
     private final DiffEngine diffEngine;
     private final AnalysisView view;
     private final User currentUser;
+    private final ExecutorService backgroundExecutor;
     
-    public AnalysisController(AnalyzeBranchService analyzeBranchService, DiffEngine diffEngine, User currentUser) {
+    // Token del análisis en curso (null si no hay ninguno)
+    private volatile CancellationToken currentCancellation;
+    
+    public AnalysisController(AnalyzeBranchService analyzeBranchService, DiffEngine diffEngine, User currentUser,
+                              ExecutorService backgroundExecutor) {
         this.analyzeBranchService = analyzeBranchService;
         this.diffEngine = diffEngine;
         this.currentUser = currentUser;
+        this.backgroundExecutor = backgroundExecutor;
         this.view = new AnalysisView(this);
+        
+        // Ramas creadas/borradas fuera de la app (el DiffEngine avisa desde su hilo)
+        diffEngine.addBranchListener((repoPath, branches) ->
+            Platform.runLater(() -> view.updateBranches(repoPath, branches)));
     }
     
     public AnalysisView getView() {
@@ -81,25 +94,49 @@ public class AnalysisController {
         // Set repository path for service to resolve
         request.setRepositoryPath(repoPath);
         
+        CancellationToken cancellation = new CancellationToken();
+        currentCancellation = cancellation;
+        
         // Ejecutar en background
         Task<AnalysisResultDTO> task = new Task<>() {
             @Override
             protected AnalysisResultDTO call() throws Exception {
                 updateMessage("Calculating diff...");
-                updateProgress(0, 100);
+                updateProgress(-1, 1);
                 
-                AnalysisResultDTO result = analyzeBranchService.analyze(request);
+                AnalysisResultDTO result = analyzeBranchService.analyze(request, cancellation, progress -> {
+                    updateMessage(describeProgress(progress));
+                    double fraction = progress.getFraction();
+                    updateProgress(fraction < 0 ? -1 : fraction, 1);
+                });
                 
-                updateProgress(100, 100);
+                updateProgress(1, 1);
                 return result;
             }
         };
         
+        // Task publica mensaje y avance en el hilo de JavaFX
+        task.messageProperty().addListener((obs, oldMessage, message) -> 
+            view.updateProgress(message, task.getProgress()));
+        task.progressProperty().addListener((obs, oldProgress, progress) -> 
+            view.updateProgress(task.getMessage(), progress.doubleValue()));
+        
         task.setOnSucceeded(event -> {
+            currentCancellation = null;
             AnalysisResultDTO result = task.getValue();
             view.hideLoading();
             view.displayResults(result);
             
+            if (result.isCancelled()) {
+                ConfirmDialog.showInfo(
+                    "Analysis Cancelled",
+                    String.format("Kept %d issues from %d files analyzed before cancelling", 
+                        result.getTotalFindings(), 
+                        result.getTotalFiles())
+                );
+                return;
+            }
+            
             ConfirmDialog.showInfo(
                 "Analysis Complete",
                 String.format("Found %d issues across %d files", 
@@ -109,6 +146,7 @@ public class AnalysisController {
         });
         
         task.setOnFailed(event -> {
+            currentCancellation = null;
             view.hideLoading();
             Throwable ex = task.getException();
             ErrorDialog.show("Analysis Failed", "Failed to complete analysis", ex);
@@ -117,9 +155,38 @@ public class AnalysisController {
         // Bind loading indicator
         view.showLoading("Analyzing repository...");
         
-        Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.start();
+        backgroundExecutor.execute(task);
+    }
+    
+    /**
+     * Solicita cancelar el análisis en curso; el resultado parcial llega por onSucceeded.
+     */
+    public void cancelAnalysis() {
+        CancellationToken cancellation = currentCancellation;
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
+    }
+    
+    private String describeProgress(AnalysisProgressDTO progress) {
+        switch (progress.getStage()) {
+            case PREPARING:
+                return "Preparing analysis...";
+            case DIFF:
+                return String.format("Calculating diff... %d files found", progress.getFilesDiffed());
+            case ANALYZE:
+                return String.format("Analyzing %s (%d/%d%s)", 
+                    progress.getCurrentFile(), 
+                    progress.getFilesAnalyzed(), 
+                    progress.getFilesDiffed(),
+                    progress.isDiffComplete() ? "" : "+");
+            case PERSIST:
+                return String.format("Saving results... %d files saved", progress.getFilesPersisted());
+            case CANCELLED:
+                return "Analysis cancelled";
+            default:
+                return "Analysis complete";
+        }
     }
     
     /**
@@ -152,9 +219,7 @@ public class AnalysisController {
             callback.accept(List.of());
         });
         
-        Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.start();
+        backgroundExecutor.execute(task);
     }
     
     /**
@@ -31,6 +31,7 @@ public class AnalysisView extends BorderPane {
     private ComboBox<String> baseBranchCombo;
     private ComboBox<String> targetBranchCombo;
     private Button analyzeButton;
+    private Button cancelButton;
     private Button refreshBranchesButton;
     
     // Results controls
@@ -126,7 +127,13 @@ public class AnalysisView extends BorderPane {
         analyzeButton.setDefaultButton(true);
         analyzeButton.setOnAction(e -> onAnalyze());
         
-        HBox buttonBox = new HBox(analyzeButton);
+        // Cancel button (only enabled while an analysis is running)
+        cancelButton = new Button("Cancel");
+        cancelButton.setStyle("-fx-font-size: 14px; -fx-padding: 10 30;");
+        cancelButton.setDisable(true);
+        cancelButton.setOnAction(e -> onCancel());
+        
+        HBox buttonBox = new HBox(10, cancelButton, analyzeButton);
         buttonBox.setAlignment(Pos.CENTER_RIGHT);
         buttonBox.setPadding(new Insets(10, 0, 0, 0));
         
@@ -241,6 +248,12 @@ public class AnalysisView extends BorderPane {
         controller.performAnalysis(repoPath, baseBranch, targetBranch);
     }
     
+    private void onCancel() {
+        cancelButton.setDisable(true);
+        loadingIndicator.setMessage("Cancelling...");
+        controller.cancelAnalysis();
+    }
+    
     private void applyFilter() {
         String filterValue = severityFilterCombo.getValue();
         Severity severity = filterValue.equals("ALL") ? null : Severity.valueOf(filterValue);
@@ -252,8 +265,10 @@ public class AnalysisView extends BorderPane {
     }
     
     public void showLoading(String message) {
+        loadingIndicator.setProgress(-1);
         loadingIndicator.show(message);
         analyzeButton.setDisable(true);
+        cancelButton.setDisable(false);
         resultsContainer.setVisible(false);
         resultsContainer.setManaged(false);
     }
@@ -261,6 +276,33 @@ public class AnalysisView extends BorderPane {
     public void hideLoading() {
         loadingIndicator.hide();
         analyzeButton.setDisable(false);
+        cancelButton.setDisable(true);
+    }
+    
+    /**
+     * Actualiza mensaje y avance del análisis en curso (progress negativo = indeterminado).
+     */
+    public void updateProgress(String message, double progress) {
+        loadingIndicator.setMessage(message);
+        loadingIndicator.setProgress(progress);
+    }
+    
+    /**
+     * Reemplaza las ramas del repositorio mostrado cuando cambian en disco (branch, fetch, prune),
+     * conservando la selección si la rama sigue existiendo.
+     */
+    public void updateBranches(String repoPath, List<String> branches) {
+        if (!repoPath.equals(repoPathField.getText())) {
+            return;
+        }
+        String base = baseBranchCombo.getValue();
+        String target = targetBranchCombo.getValue();
+        
+        baseBranchCombo.getItems().setAll(branches);
+        targetBranchCombo.getItems().setAll(branches);
+        
+        baseBranchCombo.setValue(base != null && branches.contains(base) ? base : null);
+        targetBranchCombo.setValue(target != null && branches.contains(target) ? target : null);
     }
     
     public void displayResults(AnalysisResultDTO result) {
@@ -281,7 +323,8 @@ public class AnalysisView extends BorderPane {
             .toList();
         
         summaryLabel.setText(String.format(
-            "Analysis Results: %d findings in %d files (Run ID: %d)",
+            (result.isCancelled() ? "Partial Results (cancelled)" : "Analysis Results") + 
+                ": %d findings in %d files (Run ID: %d)",
             result.getTotalFindings(),
             result.getDiffFiles().size(),
             result.getRunId()
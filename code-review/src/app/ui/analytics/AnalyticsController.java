@@ -6,6 +6,7 @@ import javafx.application.Platform;
 import javafx.concurrent.Task;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 /**
@@ -16,9 +17,11 @@ public class AnalyticsController {
     
     private final AnalyticsService analyticsService;
     private final AnalyticsView view;
+    private final ExecutorService backgroundExecutor;
     
-    public AnalyticsController(AnalyticsService analyticsService) {
+    public AnalyticsController(AnalyticsService analyticsService, ExecutorService backgroundExecutor) {
         this.analyticsService = analyticsService;
+        this.backgroundExecutor = backgroundExecutor;
         this.view = new AnalyticsView(this);
     }
     
@@ -44,9 +47,7 @@ public class AnalyticsController {
             Platform.runLater(() -> callback.accept(null));
         });
         
-        Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.start();
+        backgroundExecutor.execute(task);
     }
     
     /**
@@ -65,8 +66,6 @@ public class AnalyticsController {
         task.setOnSucceeded(event -> Platform.runLater(() -> callback.accept(task.getValue())));
         task.setOnFailed(event -> Platform.runLater(() -> callback.accept(false)));
         
-        Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.start();
+        backgroundExecutor.execute(task);
     }
 }
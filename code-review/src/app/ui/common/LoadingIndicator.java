@@ -49,4 +49,11 @@ public class LoadingIndicator extends VBox {
     public void setMessage(String message) {
         messageLabel.setText(message);
     }
+    
+    /**
+     * Fracción completada (0..1); un valor negativo vuelve al modo indeterminado.
+     */
+    public void setProgress(double progress) {
+        progressIndicator.setProgress(progress < 0 ? ProgressIndicator.INDETERMINATE_PROGRESS : progress);
+    }
 }
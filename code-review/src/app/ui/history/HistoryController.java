@@ -1,9 +1,12 @@
 package app.ui.history;
 
+import app.application.dto.AnalysisResultDTO;
 import app.application.dto.FindingSummaryDTO;
+import app.application.service.AnalyzeBranchService;
 import app.application.service.ExportService;
 import app.application.service.HistoryQueryService;
 import app.domain.entity.AnalysisRun;
+import app.domain.port.CancellationToken;
 import app.domain.value.Severity;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -13,6 +16,7 @@ import java.io.File;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 /**
@@ -23,11 +27,16 @@ public class HistoryController {
     
     private final HistoryQueryService historyQueryService;
     private final ExportService exportService;
+    private final AnalyzeBranchService analyzeBranchService;
     private final HistoryView view;
+    private final ExecutorService backgroundExecutor;
     
-    public HistoryController(HistoryQueryService historyQueryService, ExportService exportService) {
+    public HistoryController(HistoryQueryService historyQueryService, ExportService exportService,
+                             AnalyzeBranchService analyzeBranchService, ExecutorService backgroundExecutor) {
         this.historyQueryService = historyQueryService;
         this.exportService = exportService;
+        this.analyzeBranchService = analyzeBranchService;
+        this.backgroundExecutor = backgroundExecutor;
         this.view = new HistoryView(this);
     }
     
@@ -53,9 +62,7 @@ public class HistoryController {
             Platform.runLater(() -> callback.accept(List.of()));
         });
         
-        Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.start();
+        backgroundExecutor.execute(task);
     }
     
     /**
@@ -75,9 +82,7 @@ public class HistoryController {
             Platform.runLater(() -> callback.accept(List.of()));
         });
         
-        Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.start();
+        backgroundExecutor.execute(task);
     }
     
     /**
@@ -97,6 +102,27 @@ public class HistoryController {
         Platform.runLater(() -> callback.accept(filtered));
     }
     
+    /**
+     * Reanuda un run interrumpido; saltea los archivos ya persistidos.
+     * El callback recibe null si no se pudo reanudar.
+     */
+    public void resumeRun(Long runId, Consumer<AnalysisResultDTO> callback) {
+        Task<AnalysisResultDTO> task = new Task<>() {
+            @Override
+            protected AnalysisResultDTO call() throws Exception {
+                return analyzeBranchService.resume(runId, CancellationToken.none(), progress -> { });
+            }
+        };
+        
+        task.setOnSucceeded(event -> Platform.runLater(() -> callback.accept(task.getValue())));
+        task.setOnFailed(event -> {
+            event.getSource().getException().printStackTrace();
+            Platform.runLater(() -> callback.accept(null));
+        });
+        
+        backgroundExecutor.execute(task);
+    }
+    
     /**
      * Export findings to CSV.
      */
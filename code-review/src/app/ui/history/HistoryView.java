@@ -31,6 +31,7 @@ public class HistoryView extends BorderPane {
     private ComboBox<String> periodCombo;
     private Button refreshButton;
     private Button exportButton;
+    private Button resumeButton;
     private LoadingIndicator loadingIndicator;
     
     private TableView<AnalysisRun> runsTable;
@@ -68,7 +69,11 @@ public class HistoryView extends BorderPane {
         exportButton.setOnAction(e -> exportCurrentRun());
         exportButton.setDisable(true); // Disabled until a run is selected
         
-        HBox toolbar = new HBox(10, periodLabel, periodCombo, refreshButton, exportButton);
+        resumeButton = new Button("Resume Run");
+        resumeButton.setOnAction(e -> resumeSelectedRun());
+        resumeButton.setDisable(true); // Enabled only for interrupted/failed/cancelled runs
+        
+        HBox toolbar = new HBox(10, periodLabel, periodCombo, refreshButton, exportButton, resumeButton);
         toolbar.setAlignment(Pos.CENTER_LEFT);
         
         VBox header = new VBox(10, titleLabel, toolbar);
@@ -166,6 +171,7 @@ public class HistoryView extends BorderPane {
             if (newVal != null) {
                 loadFindingsForRun(newVal.getId());
             }
+            resumeButton.setDisable(newVal == null || !isResumable(newVal.getStatus()));
         });
         
         return table;
@@ -259,6 +265,34 @@ public class HistoryView extends BorderPane {
         });
     }
     
+    private boolean isResumable(RunStatus status) {
+        return status == RunStatus.RUNNING || status == RunStatus.ERROR || status == RunStatus.CANCELLED ||
+               status == RunStatus.PARTIAL;
+    }
+    
+    private void resumeSelectedRun() {
+        if (currentSelectedRunId == null) {
+            return;
+        }
+        
+        resumeButton.setDisable(true);
+        loadingIndicator.show("Resuming analysis run #" + currentSelectedRunId + "...");
+        
+        controller.resumeRun(currentSelectedRunId, result -> {
+            loadingIndicator.hide();
+            if (result != null) {
+                app.ui.common.ConfirmDialog.showInfo("Run Resumed", 
+                    String.format("Run #%d finished as %s: %d findings in %d files", 
+                        result.getRunId(), result.getStatus(), 
+                        result.getTotalFindings(), result.getTotalFiles()));
+            } else {
+                app.ui.common.ConfirmDialog.showWarning("Resume Failed", 
+                    "Failed to resume the analysis run.");
+            }
+            loadRuns();
+        });
+    }
+    
     private void exportCurrentRun() {
         if (currentSelectedRunId == null) {
             app.ui.common.ConfirmDialog.showWarning("No Selection", "Please select an analysis run to export.");
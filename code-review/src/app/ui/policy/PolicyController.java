@@ -8,6 +8,7 @@ import javafx.application.Platform;
 import javafx.concurrent.Task;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 /**
@@ -18,9 +19,11 @@ public class PolicyController {
     
     private final PolicyAdminService policyAdminService;
     private final PolicyView view;
+    private final ExecutorService backgroundExecutor;
     
-    public PolicyController(PolicyAdminService policyAdminService) {
+    public PolicyController(PolicyAdminService policyAdminService, ExecutorService backgroundExecutor) {
         this.policyAdminService = policyAdminService;
+        this.backgroundExecutor = backgroundExecutor;
         this.view = new PolicyView(this);
     }
     
@@ -45,9 +48,7 @@ public class PolicyController {
             Platform.runLater(() -> callback.accept(List.of()));
         });
         
-        Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.start();
+        backgroundExecutor.execute(task);
     }
     
     /**
@@ -80,9 +81,7 @@ public class PolicyController {
             Platform.runLater(() -> callback.accept(false));
         });
         
-        Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.start();
+        backgroundExecutor.execute(task);
     }
     
     /**
@@ -106,9 +105,7 @@ public class PolicyController {
             Platform.runLater(() -> callback.accept(false));
         });
         
-        Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.start();
+        backgroundExecutor.execute(task);
     }
     
     /**
@@ -143,8 +140,6 @@ public class PolicyController {
             Platform.runLater(() -> callback.accept(false));
         });
         
-        Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.start();
+        backgroundExecutor.execute(task);
     }
 }
@@ -0,0 +1,35 @@
+-- =========================================================
+-- Cola persistente de análisis: tabla analysis_jobs
+-- =========================================================
+USE code_review_local;
+
+-- Los workers toman trabajos con SELECT ... FOR UPDATE SKIP LOCKED (MySQL 8)
+-- y los mantienen con un lease; si el worker muere el lease vence y otro
+-- worker lo retoma (hasta max_attempts intentos).
+CREATE TABLE IF NOT EXISTS analysis_jobs (
+  id               BIGINT        NOT NULL AUTO_INCREMENT,
+  user_id          BIGINT        NOT NULL,
+  repo_path        VARCHAR(500)  NOT NULL,
+  base_branch      VARCHAR(100)  NOT NULL,
+  target_branch    VARCHAR(100)  NOT NULL,
+  incremental      TINYINT(1)        NULL,   -- NULL = valor por defecto de la configuración
+  status           VARCHAR(20)   NOT NULL DEFAULT 'QUEUED',  -- QUEUED, RUNNING, SUCCEEDED, FAILED
+  attempts         INT           NOT NULL DEFAULT 0,
+  max_attempts     INT           NOT NULL DEFAULT 3,
+  worker_id        VARCHAR(100)      NULL,   -- worker que tiene el lease
+  lease_until      DATETIME          NULL,   -- vencido = el worker murió, otro puede tomarlo
+  available_at     DATETIME      NOT NULL DEFAULT CURRENT_TIMESTAMP,  -- reintentos con demora
+  analysis_run_id  BIGINT            NULL,   -- corrida generada (se reanuda al reintentar)
+  last_error       TEXT              NULL,
+  created_at       DATETIME      NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_at       DATETIME          NULL,
+  CONSTRAINT pk_analysis_jobs PRIMARY KEY (id),
+  CONSTRAINT fk_jobs_user FOREIGN KEY (user_id)
+    REFERENCES users(id)
+    ON UPDATE RESTRICT ON DELETE RESTRICT,
+  CONSTRAINT fk_jobs_run FOREIGN KEY (analysis_run_id)
+    REFERENCES analysis_runs(id)
+    ON UPDATE RESTRICT ON DELETE SET NULL,
+  KEY idx_jobs_status_available (status, available_at),
+  KEY idx_jobs_status_lease (status, lease_until)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
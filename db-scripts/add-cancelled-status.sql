@@ -0,0 +1,9 @@
+-- =========================================================
+-- Estado CANCELLED para corridas canceladas por el usuario
+-- =========================================================
+USE code_review_local;
+
+-- La corrida conserva los archivos y hallazgos persistidos antes de cancelar
+INSERT INTO run_status_type (code, description) VALUES
+  ('CANCELLED','Cancelada por el usuario (resultados parciales)')
+ON DUPLICATE KEY UPDATE description = VALUES(description);
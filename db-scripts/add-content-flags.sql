@@ -0,0 +1,12 @@
+-- =========================================================
+-- Lectura de contenido acotada: marcas por archivo
+-- =========================================================
+USE code_review_local;
+
+-- Archivos binarios (no se envían al endpoint), truncados por tamaño,
+-- tamaño leído y charset detectado
+ALTER TABLE diff_files
+ADD COLUMN is_binary TINYINT(1) NOT NULL DEFAULT 0 AFTER blob_sha,
+ADD COLUMN is_truncated TINYINT(1) NOT NULL DEFAULT 0 AFTER is_binary,
+ADD COLUMN content_bytes BIGINT NULL AFTER is_truncated,
+ADD COLUMN content_charset VARCHAR(40) NULL AFTER content_bytes;
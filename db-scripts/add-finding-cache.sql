@@ -0,0 +1,35 @@
+-- =========================================================
+-- Caché de hallazgos por contenido (clave: SHA del contenido + endpoint + versión)
+-- =========================================================
+USE code_review_local;
+
+-- Una fila por contenido analizado con una versión dada del endpoint.
+-- Al cambiar endpoint_mocks.version las filas de versiones anteriores se eliminan.
+CREATE TABLE IF NOT EXISTS finding_cache (
+  id                BIGINT       NOT NULL AUTO_INCREMENT,
+  content_sha       CHAR(40)     NOT NULL,
+  endpoint_id       BIGINT       NOT NULL,
+  endpoint_version  VARCHAR(40)  NOT NULL,
+  finding_count     INT          NOT NULL DEFAULT 0,
+  created_at        DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT pk_finding_cache PRIMARY KEY (id),
+  CONSTRAINT uq_finding_cache_key UNIQUE (content_sha, endpoint_id, endpoint_version),
+  KEY idx_finding_cache_endpoint (endpoint_id, endpoint_version)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Hallazgos crudos (antes de aplicar la política) de cada entrada
+CREATE TABLE IF NOT EXISTS finding_cache_items (
+  id                 BIGINT       NOT NULL AUTO_INCREMENT,
+  cache_id           BIGINT       NOT NULL,
+  code               VARCHAR(64)  NOT NULL,
+  title              VARCHAR(255) NOT NULL,
+  category           VARCHAR(64)  NULL,
+  severity_raw_code  VARCHAR(20)  NOT NULL,
+  line_start         INT          NULL,
+  code_snippet       TEXT         NULL,
+  suggestion         TEXT         NULL,
+  CONSTRAINT pk_finding_cache_items PRIMARY KEY (id),
+  CONSTRAINT fk_cache_items_cache FOREIGN KEY (cache_id)
+    REFERENCES finding_cache(id)
+    ON UPDATE RESTRICT ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
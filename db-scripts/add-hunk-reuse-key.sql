@@ -0,0 +1,10 @@
+-- =========================================================
+-- Análisis incremental en modo hunks: rangos analizados por archivo
+-- =========================================================
+USE code_review_local;
+
+-- Hash de los rangos de líneas cambiadas que se enviaron al endpoint
+-- (modo hunks); NULL si se analizó el archivo completo. Los hallazgos de
+-- una corrida anterior sólo se reutilizan si blob y rangos coinciden
+ALTER TABLE diff_files
+ADD COLUMN hunk_key CHAR(40) NULL AFTER blob_sha;
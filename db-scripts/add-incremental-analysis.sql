@@ -0,0 +1,14 @@
+-- =========================================================
+-- Análisis incremental: blob git por archivo y severidad original
+-- =========================================================
+USE code_review_local;
+
+-- Blob git de cada archivo en la rama target (permite reutilizar hallazgos
+-- de la corrida anterior cuando el contenido no cambió)
+ALTER TABLE diff_files
+ADD COLUMN blob_sha CHAR(40) NULL AFTER deletions;
+
+-- Severidad original devuelta por el endpoint, necesaria para reclasificar
+-- hallazgos reutilizados con la política activa
+ALTER TABLE findings
+ADD COLUMN severity_raw_code VARCHAR(20) NULL AFTER severity_code;
@@ -0,0 +1,14 @@
+-- =========================================================
+-- Análisis con presupuesto de tiempo: estado PARTIAL y cobertura
+-- =========================================================
+USE code_review_local;
+
+-- Al acercarse el plazo se dejan de despachar archivos; la corrida guarda
+-- los analizados hasta ese momento y puede reanudarse para completar el resto
+INSERT INTO run_status_type (code, description) VALUES
+  ('PARTIAL','Plazo de tiempo alcanzado (resultados parciales, se puede reanudar)')
+ON DUPLICATE KEY UPDATE description = VALUES(description);
+
+-- Cobertura: total_files (analizados) sobre diff_files_total (archivos del diff)
+ALTER TABLE analysis_runs
+ADD COLUMN diff_files_total INT NULL AFTER total_files;
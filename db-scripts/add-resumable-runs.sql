@@ -0,0 +1,12 @@
+-- =========================================================
+-- Corridas reanudables: estado RUNNING
+-- =========================================================
+USE code_review_local;
+
+-- Las corridas nuevas se crean en RUNNING y se confirman por lotes;
+-- si la aplicación se cae quedan en RUNNING y pueden reanudarse
+-- (cada fila de diff_files marca su archivo como procesado)
+INSERT INTO run_status_type (code, description) VALUES
+  ('RUNNING','En ejecución o interrumpida (se puede reanudar)')
+ON DUPLICATE KEY UPDATE description = VALUES(description);
+
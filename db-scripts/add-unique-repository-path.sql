@@ -0,0 +1,32 @@
+-- =========================================================
+-- Registro canónico de repositorios: local_path único
+-- =========================================================
+USE code_review_local;
+
+-- Antes se insertaba una fila en repositories por cada análisis.
+-- 1) Fusionar las filas con la misma ruta exacta en la más antigua
+--    (las corridas se repuntan antes de borrar los duplicados).
+--    Las rutas que solo difieren en forma (barras, "/" final, symlinks)
+--    se fusionan con la compactación de la aplicación: app.CompactRepositoriesMain
+CREATE TEMPORARY TABLE repository_canonical AS
+  SELECT r.id AS dup_id, k.keep_id
+  FROM repositories r
+  JOIN (SELECT local_path, MIN(id) AS keep_id
+        FROM repositories
+        GROUP BY local_path
+        HAVING COUNT(*) > 1) k ON k.local_path = r.local_path
+  WHERE r.id <> k.keep_id;
+
+UPDATE analysis_runs ar
+  JOIN repository_canonical c ON c.dup_id = ar.repo_id
+  SET ar.repo_id = c.keep_id;
+
+DELETE r FROM repositories r
+  JOIN repository_canonical c ON c.dup_id = r.id;
+
+DROP TEMPORARY TABLE repository_canonical;
+
+-- 2) Índice único: una sola fila por ruta, también entre procesos concurrentes
+ALTER TABLE repositories
+  DROP INDEX idx_repositories_local_path,
+  ADD CONSTRAINT uq_repositories_local_path UNIQUE (local_path);
@@ -25,7 +25,7 @@ CREATE TABLE user_role_type (
 
 DROP TABLE IF EXISTS run_status_type;
 CREATE TABLE run_status_type (
-  code        VARCHAR(20) PRIMARY KEY,        -- SUCCESS, ERROR, EMPTY_DIFF
+  code        VARCHAR(20) PRIMARY KEY,        -- RUNNING, SUCCESS, ERROR, EMPTY_DIFF, CANCELLED, PARTIAL
   description VARCHAR(100)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
@@ -68,7 +68,7 @@ CREATE TABLE repositories (
   vcs         VARCHAR(20)   NOT NULL,   -- 'git'
   created_at  DATETIME      NOT NULL DEFAULT CURRENT_TIMESTAMP,
   CONSTRAINT pk_repositories PRIMARY KEY (id),
-  KEY idx_repositories_local_path (local_path)
+  CONSTRAINT uq_repositories_local_path UNIQUE (local_path)   -- una fila por repositorio
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 DROP TABLE IF EXISTS severity_policies;
@@ -114,6 +114,7 @@ CREATE TABLE analysis_runs (
   target_branch   VARCHAR(100)  NOT NULL,
   status_code     VARCHAR(20)   NOT NULL,
   total_files     INT               NULL,
+  diff_files_total INT              NULL,   -- archivos del diff (cobertura = total_files / diff_files_total)
   total_findings  INT               NULL,
   critical_count  INT               NULL DEFAULT 0,
   high_count      INT               NULL DEFAULT 0,
@@ -154,6 +155,12 @@ CREATE TABLE diff_files (
   change_type_code   VARCHAR(20)  NOT NULL,
   additions          INT          NOT NULL DEFAULT 0,
   deletions          INT          NOT NULL DEFAULT 0,
+  blob_sha           CHAR(40)     NULL,     -- blob git del archivo en target (análisis incremental)
+  hunk_key           CHAR(40)     NULL,     -- hash de los rangos analizados en modo hunks (NULL: archivo completo)
+  is_binary          TINYINT(1)   NOT NULL DEFAULT 0,  -- binario: no se envía al endpoint
+  is_truncated       TINYINT(1)   NOT NULL DEFAULT 0,  -- sólo se analizó la primera parte
+  content_bytes      BIGINT       NULL,     -- tamaño del archivo leído
+  content_charset    VARCHAR(40)  NULL,     -- charset detectado
   CONSTRAINT pk_diff_files PRIMARY KEY (id),
   CONSTRAINT fk_diff_run FOREIGN KEY (run_id)
     REFERENCES analysis_runs(id)
@@ -173,6 +180,7 @@ CREATE TABLE findings (
   title          VARCHAR(255) NOT NULL,
   description    TEXT         NOT NULL,
   severity_code  VARCHAR(20)  NOT NULL,
+  severity_raw_code VARCHAR(20) NULL,    -- severidad original del endpoint (antes de la política)
   file_path      VARCHAR(512) NOT NULL,
   line_start     INT          NULL,
   line_end       INT          NULL,
@@ -190,6 +198,73 @@ CREATE TABLE findings (
   KEY idx_findings_category (category)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- =========================================================
+-- Caché de hallazgos por contenido
+-- =========================================================
+
+DROP TABLE IF EXISTS finding_cache_items;
+DROP TABLE IF EXISTS finding_cache;
+CREATE TABLE finding_cache (
+  id                BIGINT       NOT NULL AUTO_INCREMENT,
+  content_sha       CHAR(40)     NOT NULL,   -- SHA-1 (formato blob git) del contenido analizado
+  endpoint_id       BIGINT       NOT NULL,
+  endpoint_version  VARCHAR(40)  NOT NULL,   -- endpoint_mocks.version al momento del análisis
+  finding_count     INT          NOT NULL DEFAULT 0,
+  created_at        DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT pk_finding_cache PRIMARY KEY (id),
+  CONSTRAINT uq_finding_cache_key UNIQUE (content_sha, endpoint_id, endpoint_version),
+  KEY idx_finding_cache_endpoint (endpoint_id, endpoint_version)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE finding_cache_items (
+  id                 BIGINT       NOT NULL AUTO_INCREMENT,
+  cache_id           BIGINT       NOT NULL,
+  code               VARCHAR(64)  NOT NULL,
+  title              VARCHAR(255) NOT NULL,
+  category           VARCHAR(64)  NULL,
+  severity_raw_code  VARCHAR(20)  NOT NULL,  -- severidad original del endpoint (puede ser INFO)
+  line_start         INT          NULL,
+  code_snippet       TEXT         NULL,
+  suggestion         TEXT         NULL,
+  CONSTRAINT pk_finding_cache_items PRIMARY KEY (id),
+  CONSTRAINT fk_cache_items_cache FOREIGN KEY (cache_id)
+    REFERENCES finding_cache(id)
+    ON UPDATE RESTRICT ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- =========================================================
+-- Cola de análisis (workers en varios procesos/hosts)
+-- =========================================================
+
+DROP TABLE IF EXISTS analysis_jobs;
+CREATE TABLE analysis_jobs (
+  id               BIGINT        NOT NULL AUTO_INCREMENT,
+  user_id          BIGINT        NOT NULL,
+  repo_path        VARCHAR(500)  NOT NULL,
+  base_branch      VARCHAR(100)  NOT NULL,
+  target_branch    VARCHAR(100)  NOT NULL,
+  incremental      TINYINT(1)        NULL,   -- NULL = valor por defecto de la configuración
+  status           VARCHAR(20)   NOT NULL DEFAULT 'QUEUED',  -- QUEUED, RUNNING, SUCCEEDED, FAILED
+  attempts         INT           NOT NULL DEFAULT 0,
+  max_attempts     INT           NOT NULL DEFAULT 3,
+  worker_id        VARCHAR(100)      NULL,   -- worker que tiene el lease
+  lease_until      DATETIME          NULL,   -- vencido = el worker murió, otro puede tomarlo
+  available_at     DATETIME      NOT NULL DEFAULT CURRENT_TIMESTAMP,  -- reintentos con demora
+  analysis_run_id  BIGINT            NULL,   -- corrida generada (se reanuda al reintentar)
+  last_error       TEXT              NULL,
+  created_at       DATETIME      NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_at       DATETIME          NULL,
+  CONSTRAINT pk_analysis_jobs PRIMARY KEY (id),
+  CONSTRAINT fk_jobs_user FOREIGN KEY (user_id)
+    REFERENCES users(id)
+    ON UPDATE RESTRICT ON DELETE RESTRICT,
+  CONSTRAINT fk_jobs_run FOREIGN KEY (analysis_run_id)
+    REFERENCES analysis_runs(id)
+    ON UPDATE RESTRICT ON DELETE SET NULL,
+  KEY idx_jobs_status_available (status, available_at),
+  KEY idx_jobs_status_lease (status, lease_until)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
 -- =========================================================
 -- Analítica / Preferencias
 -- =========================================================
@@ -258,9 +333,12 @@ INSERT INTO user_role_type (code, description) VALUES
 ON DUPLICATE KEY UPDATE description = VALUES(description);
 
 INSERT INTO run_status_type (code, description) VALUES
+  ('RUNNING','En ejecución o interrumpida (se puede reanudar)'),
   ('SUCCESS','Ejecución exitosa'),
   ('ERROR','Ejecución con error'),
-  ('EMPTY_DIFF','No había cambios para analizar')
+  ('EMPTY_DIFF','No había cambios para analizar'),
+  ('CANCELLED','Cancelada por el usuario (resultados parciales)'),
+  ('PARTIAL','Plazo de tiempo alcanzado (resultados parciales, se puede reanudar)')
 ON DUPLICATE KEY UPDATE description = VALUES(description);
 
 INSERT INTO file_change_type (code, description) VALUES